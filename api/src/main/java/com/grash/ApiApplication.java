@@ -9,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.jetbrains.annotations.NotNull;
+import org.quartz.SchedulerException;
 import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
@@ -33,7 +34,6 @@ public class ApiApplication implements SmartInitializingSingleton {
     private final RoleService roleService;
     private final CompanyService companyService;
     private final SubscriptionPlanService subscriptionPlanService;
-    private final SubscriptionService subscriptionService;
     private final ScheduleService scheduleService;
 
     public static void main(String[] args) {
@@ -51,7 +51,7 @@ public class ApiApplication implements SmartInitializingSingleton {
             log.info("Initializing subscription plans...");
             initializeSubscriptionPlans();
 
-            log.info("Scheduling existing work orders and subscriptions...");
+            log.info("Scheduling existing work orders...");
             scheduleExistingItems();
 
             log.info("Updating default roles...");
@@ -147,26 +147,17 @@ public class ApiApplication implements SmartInitializingSingleton {
         }
     }
 
-    private void scheduleExistingItems() {
-        Collection<Schedule> schedules = scheduleService.getAll();
-        log.info("Scheduling {} work orders...", schedules.size());
-        schedules.forEach(schedule -> {
+    private void scheduleExistingItems() throws SchedulerException {
+        // Triggers are persisted by the Quartz job store, only the schedules that lack one are scheduled
+        List<Long> scheduleIds = scheduleService.reconcileJobs();
+        log.info("Scheduling {} work orders...", scheduleIds.size());
+        scheduleIds.forEach(scheduleId -> scheduleService.findById(scheduleId).ifPresent(schedule -> {
             try {
                 scheduleService.scheduleWorkOrder(schedule);
             } catch (Exception e) {
                 log.error("Failed to schedule work order for schedule ID: {}", schedule.getId(), e);
             }
-        });
-
-        Collection<Subscription> subscriptions = subscriptionService.getAll();
-        log.info("Scheduling {} subscription ends...", subscriptions.size());
-        subscriptions.forEach(subscription -> {
-            try {
-                subscriptionService.scheduleEnd(subscription);
-            } catch (Exception e) {
-                log.error("Failed to schedule subscription end for subscription ID: {}", subscription.getId(), e);
-            }
-        });
+        }));
     }
 
     @NotNull
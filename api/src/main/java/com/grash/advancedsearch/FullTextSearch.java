@@ -0,0 +1,44 @@
+package com.grash.advancedsearch;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Registers the functions used by the full-text operation on the search_vector columns of work orders, assets, parts
+ * and locations. The columns are maintained by database triggers and indexed with GIN.
+ */
+public class FullTextSearch implements MetadataBuilderContributor {
+
+    public static final String VECTOR_FIELD = "searchVector";
+    public static final String MATCH_FUNCTION = "fts_match";
+    public static final String RANK_FUNCTION = "fts_rank";
+
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+        metadataBuilder.applySqlFunction(MATCH_FUNCTION, new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+                "(?1 @@ to_tsquery('simple', ?2))"));
+        metadataBuilder.applySqlFunction(RANK_FUNCTION, new SQLFunctionTemplate(StandardBasicTypes.FLOAT,
+                "ts_rank(?1, to_tsquery('simple', ?2))"));
+    }
+
+    /**
+     * Turns the text typed in a search box into a tsquery matching the documents containing every word, the last ones
+     * possibly being typed, as a prefix. Anything but letters and digits is dropped, so the result is always valid.
+     *
+     * @return an empty string when the text has no word
+     */
+    public static String toTsQuery(String text) {
+        return Arrays.stream(SEPARATOR.split(text.toLowerCase()))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+}
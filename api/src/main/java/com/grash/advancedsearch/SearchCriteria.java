@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort.Direction;
 
 import java.util.ArrayList;
@@ -22,6 +24,13 @@ public class SearchCriteria implements Cloneable {
     private int pageNum = 0;
     private int pageSize = 10;
     private String sortField = "id";
+    /**
+     * Pages by keyset instead of pageNum when not null: empty for the first page, then the nextCursor of the
+     * previous page
+     */
+    private String cursor;
+    // Skips the count of the elements, the pages still telling if another one follows
+    private boolean skipCount;
 
     public void filterCompany(OwnUser user) {
         this.filterFields.add(FilterField.builder()
@@ -39,6 +48,18 @@ public class SearchCriteria implements Cloneable {
                 .values(new ArrayList<>()).build());
     }
 
+    /**
+     * Full-text searches keep their rank order unless sorted by another field than the default id
+     */
+    public Pageable toPageable() {
+        boolean fullText = filterFields.stream()
+                .anyMatch(filterField -> "fts".equals(filterField.getOperation()));
+        if (fullText && "id".equals(sortField)) {
+            return PageRequest.of(pageNum, pageSize);
+        }
+        return PageRequest.of(pageNum, pageSize, direction, sortField);
+    }
+
     @Override
     public SearchCriteria clone() {
         SearchCriteria result;
@@ -87,6 +87,9 @@ public class WrapperSpecification<T> implements Specification<T> {
                 filterField.getValues().forEach(inClause1::value);
                 result = inClause1;
                 break;
+            case FULL_TEXT:
+                result = fullTextPredicate(root, query, cb);
+                break;
         }
         return wrapAlternatives(result, root, query, cb);
     }
@@ -107,6 +110,21 @@ public class WrapperSpecification<T> implements Specification<T> {
         }
     }
 
+    /**
+     * Matches the words of the value against the search vector, ordering by rank. The order only holds when the page
+     * isn't sorted, see {@link SearchCriteria#toPageable()}
+     */
+    private Predicate fullTextPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        String tsQuery = FullTextSearch.toTsQuery(filterField.getValue().toString());
+        if (tsQuery.isEmpty()) {
+            return cb.conjunction();
+        }
+        Path<Object> vector = root.get(FullTextSearch.VECTOR_FIELD);
+        query.orderBy(cb.desc(cb.function(FullTextSearch.RANK_FUNCTION, Float.class, vector, cb.literal(tsQuery))),
+                cb.desc(root.get("id")));
+        return cb.isTrue(cb.function(FullTextSearch.MATCH_FUNCTION, Boolean.class, vector, cb.literal(tsQuery)));
+    }
+
     private Object getRealValue(EnumName enumName, Object value) {
         if (enumName == null) {
             return value;
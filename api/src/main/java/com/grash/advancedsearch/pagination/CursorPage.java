@@ -0,0 +1,46 @@
+package com.grash.advancedsearch.pagination;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page knowing whether another one follows without counting the elements. When the count is skipped, the total is
+ * only a lower bound.
+ */
+public class CursorPage<T> extends PageImpl<T> {
+
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, Pageable pageable, long total, boolean hasNext, String nextCursor) {
+        super(content, pageable, total);
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    @Override
+    public boolean isLast() {
+        return !hasNext;
+    }
+
+    /**
+     * @return the cursor of the following page with keyset pagination, null otherwise or on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public <U> CursorPage<U> map(Function<? super T, ? extends U> converter) {
+        return new CursorPage<>(getConvertedContent(converter), getPageable(), getTotalElements(), hasNext,
+                nextCursor);
+    }
+}
@@ -0,0 +1,90 @@
+package com.grash.advancedsearch.pagination;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.exception.CustomException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.beans.PropertyAccessor;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.HttpStatus;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position after the last element of a page: its sort key and its id, which breaks the ties
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetCursor {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private String sortField;
+    private Direction direction;
+    // Null when the sort key of the last element is null
+    private String value;
+    private Long id;
+
+    public static KeysetCursor after(Object entity, String sortField, Direction direction) {
+        PropertyAccessor accessor = PropertyAccessorFactory.forDirectFieldAccess(entity);
+        return new KeysetCursor(sortField, direction, toValue(accessor.getPropertyValue(sortField)),
+                (Long) accessor.getPropertyValue("id"));
+    }
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(OBJECT_MAPPER.writeValueAsBytes(this));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            KeysetCursor cursor = OBJECT_MAPPER.readValue(Base64.getUrlDecoder().decode(token), KeysetCursor.class);
+            if (cursor.getSortField() == null || cursor.getDirection() == null || cursor.getId() == null) {
+                throw new IllegalArgumentException();
+            }
+            return cursor;
+        } catch (Exception e) {
+            throw new CustomException("Invalid cursor", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * @param type the java type of the sort field
+     */
+    public Comparable<?> getValue(Class<?> type) {
+        try {
+            if (Date.class.isAssignableFrom(type)) {
+                return Timestamp.from(Instant.parse(value));
+            }
+            return (Comparable<?>) DefaultConversionService.getSharedInstance().convert(value, type);
+        } catch (RuntimeException e) {
+            throw new CustomException("Invalid cursor", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private static String toValue(Object sortKey) {
+        if (sortKey == null) {
+            return null;
+        }
+        if (sortKey instanceof Date) {
+            // Timestamps keep the sub-millisecond part stored by Postgres
+            Instant instant = sortKey instanceof Timestamp ? ((Timestamp) sortKey).toInstant() :
+                    Instant.ofEpochMilli(((Date) sortKey).getTime());
+            return instant.toString();
+        }
+        if (sortKey instanceof Enum) {
+            return ((Enum<?>) sortKey).name();
+        }
+        return sortKey.toString();
+    }
+}
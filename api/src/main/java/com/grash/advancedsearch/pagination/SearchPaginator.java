@@ -0,0 +1,122 @@
+package com.grash.advancedsearch.pagination;
+
+import com.grash.advancedsearch.SearchCriteria;
+import com.grash.exception.CustomException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.http.HttpStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs the search of a {@link SearchCriteria}, paging by offset or, when it has a cursor, by keyset: the page starts
+ * right after the sort key and id of the last element of the previous one, so deep pages cost the same as the first.
+ * One more element than the page size is read to know if another page follows, and the total is only counted when
+ * it can't be deduced and the criteria don't skip it.
+ */
+public final class SearchPaginator {
+
+    private SearchPaginator() {
+    }
+
+    public static <T> CursorPage<T> findAll(EntityManager em, Class<T> type, Specification<T> specification,
+                                            SearchCriteria searchCriteria) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, cb);
+        if (predicate != null) predicates.add(predicate);
+
+        boolean keyset = searchCriteria.getCursor() != null;
+        Pageable pageable;
+        if (keyset) {
+            String sortField = searchCriteria.getSortField();
+            Direction direction = searchCriteria.getDirection();
+            if (sortField.contains(".")) {
+                throw new CustomException("Cursor pagination only sorts by the attributes of the entity",
+                        HttpStatus.BAD_REQUEST);
+            }
+            Sort sort = Sort.by(direction, sortField);
+            pageable = PageRequest.of(0, searchCriteria.getPageSize(), "id".equals(sortField) ? sort :
+                    sort.and(Sort.by(direction, "id")));
+            if (!searchCriteria.getCursor().isEmpty()) {
+                KeysetCursor cursor = KeysetCursor.decode(searchCriteria.getCursor());
+                if (!cursor.getSortField().equals(sortField) || cursor.getDirection() != direction) {
+                    throw new CustomException("The cursor was issued for another sort", HttpStatus.BAD_REQUEST);
+                }
+                predicates.add(after(cursor, root, cb));
+            }
+        } else {
+            pageable = searchCriteria.toPageable();
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        // An unsorted page keeps the order of the specification, like the rank of a full-text search
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        List<T> results = em.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = results.size() > pageable.getPageSize();
+        List<T> content = hasNext ? new ArrayList<>(results.subList(0, pageable.getPageSize())) : results;
+        String nextCursor = keyset && hasNext ? KeysetCursor.after(content.get(content.size() - 1),
+                searchCriteria.getSortField(), searchCriteria.getDirection()).encode() : null;
+        // The last page of an offset gives the total, not the one of a cursor which skips the previous elements
+        boolean totalKnown = !hasNext && (keyset ? searchCriteria.getCursor().isEmpty() :
+                !content.isEmpty() || pageable.getOffset() == 0);
+        long total = totalKnown || searchCriteria.isSkipCount() ? pageable.getOffset() + content.size() :
+                count(em, type, specification);
+        return new CursorPage<>(content, pageable, total, hasNext, nextCursor);
+    }
+
+    /**
+     * Elements after the cursor in the order of its sort, Postgres putting the nulls last in ascending order and first
+     * in descending order
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Predicate after(KeysetCursor cursor, Root<T> root, CriteriaBuilder cb) {
+        boolean ascending = cursor.getDirection().isAscending();
+        Path<Long> id = root.get("id");
+        Predicate afterId = ascending ? cb.greaterThan(id, cursor.getId()) : cb.lessThan(id, cursor.getId());
+        if ("id".equals(cursor.getSortField())) {
+            return afterId;
+        }
+        Path<Comparable> key;
+        try {
+            key = root.get(cursor.getSortField());
+        } catch (IllegalArgumentException e) {
+            throw new CustomException("Invalid sort field " + cursor.getSortField(), HttpStatus.BAD_REQUEST);
+        }
+        if (cursor.getValue() == null) {
+            Predicate afterInNulls = cb.and(cb.isNull(key), afterId);
+            return ascending ? afterInNulls : cb.or(afterInNulls, cb.isNotNull(key));
+        }
+        Comparable value = cursor.getValue(key.getJavaType());
+        Predicate afterKey = ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+        Predicate afterInKey = cb.and(cb.equal(key, value), afterId);
+        return ascending ? cb.or(afterKey, afterInKey, cb.isNull(key)) : cb.or(afterKey, afterInKey);
+    }
+
+    private static <T> long count(EntityManager em, Class<T> type, Specification<T> specification) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        // Drops the orders a specification may have set, like the rank of a full-text search
+        query.orderBy(Collections.emptyList());
+        return em.createQuery(query).getSingleResult();
+    }
+}
@@ -0,0 +1,101 @@
+package com.grash.aspect;
+
+import com.grash.model.abstracts.CompanyAudit;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+
+import static org.apache.commons.lang3.reflect.FieldUtils.getAllFields;
+
+/**
+ * Getters of the fields of a request body class that can hold {@link CompanyAudit} references, directly or in a
+ * collection. Fields whose declared type can't hold one, like strings, numbers, dates or enums, are left out.
+ */
+class ReferencePlan {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final List<MethodHandle> references;
+    private final List<MethodHandle> collections;
+
+    private ReferencePlan(List<MethodHandle> references, List<MethodHandle> collections) {
+        this.references = references;
+        this.collections = collections;
+    }
+
+    static ReferencePlan of(Class<?> type) {
+        List<MethodHandle> references = new ArrayList<>();
+        List<MethodHandle> collections = new ArrayList<>();
+        for (Field field : getAllFields(type)) {
+            if (Modifier.isStatic(field.getModifiers())) continue;
+            if (Collection.class.isAssignableFrom(field.getType())) {
+                if (canHoldReference(getElementType(field))) collections.add(getter(field));
+            } else if (canHoldReference(field.getType())) {
+                references.add(getter(field));
+            }
+        }
+        return new ReferencePlan(references, collections);
+    }
+
+    boolean isEmpty() {
+        return references.isEmpty() && collections.isEmpty();
+    }
+
+    /**
+     * Adds the ids of the {@link CompanyAudit} referenced by body to idsByType, by entity class
+     */
+    void collect(Object body, Map<Class<?>, Set<Long>> idsByType) {
+        try {
+            for (MethodHandle getter : references) {
+                add((Object) getter.invokeExact(body), idsByType);
+            }
+            for (MethodHandle getter : collections) {
+                Collection<?> collection = (Collection<?>) (Object) getter.invokeExact(body);
+                if (collection != null) collection.forEach(element -> add(element, idsByType));
+            }
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not read the references of " + body.getClass(), e);
+        }
+    }
+
+    private static void add(Object value, Map<Class<?>, Set<Long>> idsByType) {
+        if (value instanceof CompanyAudit && ((CompanyAudit) value).getId() != null) {
+            idsByType.computeIfAbsent(value.getClass(), type -> new HashSet<>()).add(((CompanyAudit) value).getId());
+        }
+    }
+
+    private static boolean canHoldReference(Class<?> type) {
+        if (type.isPrimitive() || type.isEnum() || type.isArray() || Modifier.isFinal(type.getModifiers())) {
+            return false;
+        }
+        return type.isInterface() || type.isAssignableFrom(CompanyAudit.class)
+                || CompanyAudit.class.isAssignableFrom(type);
+    }
+
+    private static Class<?> getElementType(Field field) {
+        Type genericType = field.getGenericType();
+        if (genericType instanceof ParameterizedType) {
+            Type elementType = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+            if (elementType instanceof Class) return (Class<?>) elementType;
+            if (elementType instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) elementType).getRawType();
+            }
+        }
+        return Object.class;
+    }
+
+    private static MethodHandle getter(Field field) {
+        try {
+            return MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup())
+                    .unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Could not access " + field, e);
+        }
+    }
+}
@@ -3,17 +3,14 @@ package com.grash.aspect;
 import com.grash.exception.CustomException;
 import com.grash.model.File;
 import com.grash.model.OwnUser;
-import com.grash.model.abstracts.CompanyAudit;
 import com.grash.model.enums.RoleType;
 import com.grash.security.CustomUserDetail;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.collections4.ListUtils;
 import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,20 +18,33 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.RequestBody;
 
 import javax.persistence.EntityManager;
-import java.lang.reflect.Field;
+import javax.persistence.FlushModeType;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.util.List;
-import java.util.Optional;
-
-import static org.apache.commons.lang3.reflect.FieldUtils.getAllFields;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
+/**
+ * Refuses the request bodies of POST and PATCH endpoints that reference entities of another company. The fields to
+ * read are planned once per body class, and the referenced ids are checked with one query per entity class.
+ */
 @Aspect
 @Component
 @RequiredArgsConstructor
 public class TenantAspect {
 
+    private static final int MAX_IDS_PER_QUERY = 1000;
+    private static final ClassValue<ReferencePlan> referencePlans = new ClassValue<ReferencePlan>() {
+        @Override
+        protected ReferencePlan computeValue(Class<?> type) {
+            return ReferencePlan.of(type);
+        }
+    };
+
     private final EntityManager entityManager;
+    private final Map<Method, int[]> requestBodyParameters = new ConcurrentHashMap<>();
+    private final Map<Class<?>, String> otherCompanyQueries = new ConcurrentHashMap<>();
     private static final ThreadLocal<Boolean> ignoreCompanyCheck = ThreadLocal.withInitial(() -> false);
 
     public static void disableCompanyCheck() {
@@ -48,46 +58,75 @@ public class TenantAspect {
     @Before("@annotation(org.springframework.web.bind.annotation.PostMapping) || @annotation(org.springframework.web.bind.annotation.PatchMapping)")
     public void validateTenant(JoinPoint joinPoint) {
         if (ignoreCompanyCheck.get()) return;
-        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        Method method = methodSignature.getMethod();
-        Parameter[] parameters = method.getParameters();
-        for (int i = 0; i < parameters.length; i++) {
-            Parameter parameter = parameters[i];
-            if (parameter.isAnnotationPresent(RequestBody.class)) {
-                Object arg = joinPoint.getArgs()[i]; // Get the requestBody
-                if (arg instanceof List) {
-                    List<?> list = (List<?>) arg;
-                    list.forEach(this::validateObject);
-                } else {
-                    validateObject(arg);
-                }
+        OwnUser user = getRestrictedUser();
+        if (user == null) return;
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Map<Class<?>, Set<Long>> idsByType = new HashMap<>();
+        for (int index : requestBodyParameters.computeIfAbsent(method, TenantAspect::getRequestBodyParameters)) {
+            Object arg = joinPoint.getArgs()[index]; // Get the requestBody
+            if (arg instanceof List) {
+                ((List<?>) arg).forEach(element -> collectReferences(element, idsByType));
+            } else {
+                collectReferences(arg, idsByType);
             }
         }
+        idsByType.forEach((type, ids) -> checkCompany(type, ids, user));
     }
 
-    private void validateObject(Object obj) {
-        Field[] fields = getAllFields(obj.getClass());
-        for (Field field : fields) {
-            field.setAccessible(true);
-            Object fieldValue = null;
-            try {
-                fieldValue = field.get(obj); // Get the value of the field inside request body
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
-            }
-            if (fieldValue instanceof List) {
-                List<?> list = (List<?>) fieldValue;
-                list.forEach(this::validateFieldElement);
-            } else {
-                validateFieldElement(fieldValue);
+    private void collectReferences(Object body, Map<Class<?>, Set<Long>> idsByType) {
+        if (body == null) return;
+        ReferencePlan plan = referencePlans.get(body.getClass());
+        if (!plan.isEmpty()) plan.collect(body, idsByType);
+    }
+
+    private void checkCompany(Class<?> type, Set<Long> ids, OwnUser user) {
+        String query = otherCompanyQueries.computeIfAbsent(type, this::getOtherCompanyQuery);
+        if (query.isEmpty()) return;
+        Set<Long> companyIds = new HashSet<>();
+        companyIds.add(user.getCompany().getId());
+        if (File.class.isAssignableFrom(type)) {
+            user.getSuperAccountRelations().forEach(relation ->
+                    companyIds.add(relation.getChildUser().getCompany().getId()));
+        }
+        for (List<Long> part : ListUtils.partition(new ArrayList<>(ids), MAX_IDS_PER_QUERY)) {
+            List<Long> otherCompanyIds = entityManager.createQuery(query, Long.class)
+                    .setParameter("ids", part)
+                    .setParameter("companyIds", companyIds)
+                    .setFlushMode(FlushModeType.COMMIT)
+                    .getResultList();
+            if (!otherCompanyIds.isEmpty()) {
+                throw new CustomException("The user (id=" + user.getId() + ") is not authorized to load this " +
+                        "object (" + type + ") with id " + otherCompanyIds.get(0), HttpStatus.FORBIDDEN);
             }
         }
     }
 
-    private void validateFieldElement(Object object) {
-        if (object instanceof CompanyAudit) {
-            CompanyAudit companyAudit = (CompanyAudit) object;
-            entityManager.find(object.getClass(), companyAudit.getId()); // should fail here if from other company because of @PostLoad
+    /**
+     * @return the query of the ids among :ids that belong to none of :companyIds, empty if type isn't an entity
+     */
+    private String getOtherCompanyQuery(Class<?> type) {
+        try {
+            String entityName = entityManager.getMetamodel().entity(type).getName();
+            return "SELECT e.id FROM " + entityName + " e WHERE e.id IN :ids AND e.company.id NOT IN :companyIds";
+        } catch (IllegalArgumentException e) {
+            return "";
         }
     }
+
+    /**
+     * Mirrors the @PostLoad check of CompanyAudit: super admins and unauthenticated calls are not restricted
+     */
+    private static OwnUser getRestrictedUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetail)) return null;
+        OwnUser user = ((CustomUserDetail) authentication.getPrincipal()).getUser();
+        return user.getRole().getRoleType().equals(RoleType.ROLE_SUPER_ADMIN) ? null : user;
+    }
+
+    private static int[] getRequestBodyParameters(Method method) {
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        return IntStream.range(0, parameterAnnotations.length)
+                .filter(i -> Arrays.stream(parameterAnnotations[i]).anyMatch(RequestBody.class::isInstance))
+                .toArray();
+    }
 }
@@ -0,0 +1,30 @@
+package com.grash.cache;
+
+import com.grash.event.CompanyMetricsChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Drops the cached analytics of a company once a write affecting them is committed, instead of serving them until
+ * they expire.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalyticsCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMetricsChanged(CompanyMetricsChangedEvent event) {
+        invalidateCompany(event.getCompanyId());
+    }
+
+    public void invalidateCompany(Long companyId) {
+        if (companyId != null && cacheManager instanceof TenantCacheManager) {
+            ((TenantCacheManager) cacheManager).evictCompany(companyId);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.grash.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sizing of the tenant caches. Every cache uses the defaults, a cache listed in caches overrides the fields it
+ * sets.
+ * <pre>
+ * analytics.cache.defaults.maximum-size: 200
+ * analytics.cache.caches.getWOStatusesByDate.maximum-weight: 5000
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics.cache")
+public class AnalyticsCacheProperties {
+
+    private Spec defaults = new Spec(200L, null, Duration.ofMinutes(20), 1000L);
+
+    private Map<String, Spec> caches = new HashMap<>();
+
+    public Spec getSpec(String cacheName) {
+        Spec spec = caches.get(cacheName);
+        return spec == null ? defaults : spec.withDefaults(defaults);
+    }
+
+    @Data
+    public static class Spec {
+        /**
+         * Maximum entries per company, ignored when maximumWeight is set
+         */
+        private Long maximumSize;
+        /**
+         * Maximum weight per company, an entry weighs one plus the number of elements of its result
+         */
+        private Long maximumWeight;
+        private Duration expireAfterWrite;
+        /**
+         * Maximum number of companies having entries at the same time
+         */
+        private Long maximumCompanies;
+
+        public Spec() {
+        }
+
+        public Spec(Long maximumSize, Long maximumWeight, Duration expireAfterWrite, Long maximumCompanies) {
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+            this.expireAfterWrite = expireAfterWrite;
+            this.maximumCompanies = maximumCompanies;
+        }
+
+        Spec withDefaults(Spec defaults) {
+            return new Spec(maximumSize == null ? defaults.maximumSize : maximumSize,
+                    maximumWeight == null ? defaults.maximumWeight : maximumWeight,
+                    expireAfterWrite == null ? defaults.expireAfterWrite : expireAfterWrite,
+                    maximumCompanies == null ? defaults.maximumCompanies : maximumCompanies);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.grash.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Spring cache holding one bounded Caffeine cache per company. A company can't evict the entries of the others and
+ * all its entries are dropped at once by {@link #evictCompany(Long)}. Keys which are not a {@link TenantCacheKey}
+ * share a partition without company.
+ */
+public class TenantCache extends AbstractValueAdaptingCache {
+
+    private static final Long NO_COMPANY = -1L;
+
+    private final String name;
+    private final AnalyticsCacheProperties.Spec spec;
+    private final Cache<Long, Cache<Object, Object>> companies;
+    // shared by the caches of every company so that statistics survive their eviction
+    private final StatsCounter statsCounter = new ConcurrentStatsCounter();
+    private final LongAdder putCount = new LongAdder();
+    private final LongAdder companyEvictionCount = new LongAdder();
+
+    public TenantCache(String name, AnalyticsCacheProperties.Spec spec) {
+        super(true);
+        this.name = name;
+        this.spec = spec;
+        this.companies = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumCompanies())
+                .expireAfterAccess(spec.getExpireAfterWrite())
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return companies;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Cache<Object, Object> companyCache = companies.getIfPresent(getCompanyId(key));
+        if (companyCache == null) {
+            statsCounter.recordMisses(1);
+            return null;
+        }
+        return companyCache.getIfPresent(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) fromStoreValue(getCompanyCache(key).get(key, k -> {
+            try {
+                putCount.increment();
+                return toStoreValue(valueLoader.call());
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        putCount.increment();
+        getCompanyCache(key).put(key, toStoreValue(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        Cache<Object, Object> companyCache = companies.getIfPresent(getCompanyId(key));
+        if (companyCache != null) companyCache.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        companies.invalidateAll();
+    }
+
+    public void evictCompany(Long companyId) {
+        Cache<Object, Object> companyCache = companies.getIfPresent(companyId);
+        if (companyCache != null) {
+            companyEvictionCount.increment();
+            companies.invalidate(companyId);
+        }
+    }
+
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    public long putCount() {
+        return putCount.sum();
+    }
+
+    public long companyEvictionCount() {
+        return companyEvictionCount.sum();
+    }
+
+    public long estimatedSize() {
+        return companies.asMap().values().stream().mapToLong(Cache::estimatedSize).sum();
+    }
+
+    private Cache<Object, Object> getCompanyCache(Object key) {
+        return companies.get(getCompanyId(key), companyId -> {
+            Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                    .expireAfterWrite(spec.getExpireAfterWrite())
+                    .recordStats(() -> statsCounter);
+            if (spec.getMaximumWeight() != null) {
+                builder.maximumWeight(spec.getMaximumWeight()).weigher((key1, value) -> weigh(value));
+            } else builder.maximumSize(spec.getMaximumSize());
+            return builder.build();
+        });
+    }
+
+    private static Long getCompanyId(Object key) {
+        if (key instanceof TenantCacheKey && ((TenantCacheKey) key).getCompanyId() != null) {
+            return ((TenantCacheKey) key).getCompanyId();
+        }
+        return NO_COMPANY;
+    }
+
+    private static int weigh(Object value) {
+        Object body = value instanceof ResponseEntity ? ((ResponseEntity<?>) value).getBody() : value;
+        if (body instanceof Collection) return 1 + ((Collection<?>) body).size();
+        if (body instanceof Map) return 1 + ((Map<?, ?>) body).size();
+        return 1;
+    }
+}
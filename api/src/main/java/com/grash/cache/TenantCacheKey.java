@@ -0,0 +1,13 @@
+package com.grash.cache;
+
+import lombok.Data;
+
+/**
+ * Cache key scoped to a company, so that {@link TenantCacheManager} can keep the entries of each company apart and
+ * drop them all at once when the company data changes.
+ */
+@Data
+public class TenantCacheKey {
+    private final Long companyId;
+    private final Object key;
+}
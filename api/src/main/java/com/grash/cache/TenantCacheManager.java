@@ -0,0 +1,51 @@
+package com.grash.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates a {@link TenantCache} per cache name, sized from {@link AnalyticsCacheProperties}, and registers its
+ * statistics in the actuator metrics as cache.gets, cache.puts, cache.evictions and cache.size tagged with the
+ * cache name.
+ */
+public class TenantCacheManager implements CacheManager {
+
+    private final ConcurrentMap<String, TenantCache> caches = new ConcurrentHashMap<>();
+    private final AnalyticsCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public TenantCacheManager(AnalyticsCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            TenantCache cache = new TenantCache(cacheName, properties.getSpec(cacheName));
+            if (meterRegistry != null) {
+                new TenantCacheMeterBinder(cache, Tags.of("cacheManager", "tenantCacheManager")).bindTo(meterRegistry);
+            }
+            return cache;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Drops the entries of a company from every cache
+     */
+    public void evictCompany(Long companyId) {
+        caches.values().forEach(cache -> cache.evictCompany(companyId));
+    }
+}
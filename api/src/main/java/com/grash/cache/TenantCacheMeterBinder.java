@@ -0,0 +1,49 @@
+package com.grash.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+public class TenantCacheMeterBinder extends CacheMeterBinder {
+
+    private final TenantCache cache;
+
+    public TenantCacheMeterBinder(TenantCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+        this.cache = cache;
+    }
+
+    @Override
+    protected Long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    protected long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        return cache.putCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("cache.company.evictions", cache, TenantCache::companyEvictionCount)
+                .tags(getTagsWithCacheName())
+                .description("The number of times the entries of a company were dropped after its data changed")
+                .register(registry);
+    }
+}
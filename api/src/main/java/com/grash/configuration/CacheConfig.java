@@ -0,0 +1,19 @@
+package com.grash.configuration;
+
+import com.grash.cache.AnalyticsCacheProperties;
+import com.grash.cache.TenantCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(AnalyticsCacheProperties analyticsCacheProperties,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return new TenantCacheManager(analyticsCacheProperties, meterRegistry.getIfAvailable());
+    }
+}
@@ -1,6 +1,17 @@
 package com.grash.configuration;
 
+import com.grash.job.DailyMetricsReconciliationJob;
+import com.grash.job.DailyMetricsRollupJob;
+import com.grash.job.DeadlineDispatchJob;
 import com.grash.job.DeleteDemoCompaniesJob;
+import com.grash.job.ExportJobCleanupJob;
+import com.grash.job.ImportJobRecoveryJob;
+import com.grash.job.NotificationOutboxJob;
+import com.grash.job.PreventiveMaintenanceOccurrenceJob;
+import com.grash.job.PushReceiptJob;
+import com.grash.job.WebhookAlertJob;
+import com.grash.job.WorkflowExecutionCleanupJob;
+import com.grash.job.WorkflowTriggerJob;
 import org.quartz.*;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,4 +36,221 @@ public class QuartzConfig {
                         .repeatForever())
                 .build();
     }
+
+    @Bean
+    public JobDetail dailyMetricsRollupJobDetail() {
+        return JobBuilder.newJob(DailyMetricsRollupJob.class)
+                .withIdentity("dailyMetricsRollupJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger dailyMetricsRollupTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(dailyMetricsRollupJobDetail())
+                .withIdentity("dailyMetricsRollupTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMinutes(1)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail dailyMetricsReconciliationJobDetail() {
+        return JobBuilder.newJob(DailyMetricsReconciliationJob.class)
+                .withIdentity("dailyMetricsReconciliationJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger dailyMetricsReconciliationTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(dailyMetricsReconciliationJobDetail())
+                .withIdentity("dailyMetricsReconciliationTrigger")
+                .withSchedule(CronScheduleBuilder.dailyAtHourAndMinute(2, 30))
+                .build();
+    }
+
+    /**
+     * Fills the rollup of the companies which don't have one yet without waiting for the night
+     */
+    @Bean
+    public Trigger dailyMetricsReconciliationStartupTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(dailyMetricsReconciliationJobDetail())
+                .withIdentity("dailyMetricsReconciliationStartupTrigger")
+                .startAt(DateBuilder.futureDate(2, DateBuilder.IntervalUnit.MINUTE))
+                .build();
+    }
+
+    @Bean
+    public JobDetail exportJobCleanupJobDetail() {
+        return JobBuilder.newJob(ExportJobCleanupJob.class)
+                .withIdentity("exportJobCleanupJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger exportJobCleanupTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(exportJobCleanupJobDetail())
+                .withIdentity("exportJobCleanupTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMinutes(5)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail importJobRecoveryJobDetail() {
+        return JobBuilder.newJob(ImportJobRecoveryJob.class)
+                .withIdentity("importJobRecoveryJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger importJobRecoveryTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(importJobRecoveryJobDetail())
+                .withIdentity("importJobRecoveryTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMinutes(5)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail deadlineDispatchJobDetail() {
+        return JobBuilder.newJob(DeadlineDispatchJob.class)
+                .withIdentity("deadlineDispatchJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger deadlineDispatchTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(deadlineDispatchJobDetail())
+                .withIdentity("deadlineDispatchTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInSeconds(30)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail preventiveMaintenanceOccurrenceJobDetail() {
+        return JobBuilder.newJob(PreventiveMaintenanceOccurrenceJob.class)
+                .withIdentity("preventiveMaintenanceOccurrenceJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger preventiveMaintenanceOccurrenceTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(preventiveMaintenanceOccurrenceJobDetail())
+                .withIdentity("preventiveMaintenanceOccurrenceTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInHours(6)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail notificationOutboxJobDetail() {
+        return JobBuilder.newJob(NotificationOutboxJob.class)
+                .withIdentity("notificationOutboxJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger notificationOutboxTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(notificationOutboxJobDetail())
+                .withIdentity("notificationOutboxTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInSeconds(10)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail pushReceiptJobDetail() {
+        return JobBuilder.newJob(PushReceiptJob.class)
+                .withIdentity("pushReceiptJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger pushReceiptTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(pushReceiptJobDetail())
+                .withIdentity("pushReceiptTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMinutes(15)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail workflowExecutionCleanupJobDetail() {
+        return JobBuilder.newJob(WorkflowExecutionCleanupJob.class)
+                .withIdentity("workflowExecutionCleanupJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger workflowExecutionCleanupTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(workflowExecutionCleanupJobDetail())
+                .withIdentity("workflowExecutionCleanupTrigger")
+                .withSchedule(CronScheduleBuilder.dailyAtHourAndMinute(3, 30))
+                .build();
+    }
+
+    @Bean
+    public JobDetail webhookAlertJobDetail() {
+        return JobBuilder.newJob(WebhookAlertJob.class)
+                .withIdentity("webhookAlertJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger webhookAlertTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(webhookAlertJobDetail())
+                .withIdentity("webhookAlertTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInSeconds(10)
+                        .repeatForever())
+                .build();
+    }
+
+    @Bean
+    public JobDetail workflowTriggerJobDetail() {
+        return JobBuilder.newJob(WorkflowTriggerJob.class)
+                .withIdentity("workflowTriggerJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger workflowTriggerTrigger() {
+        return TriggerBuilder.newTrigger()
+                .forJob(workflowTriggerJobDetail())
+                .withIdentity("workflowTriggerTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInSeconds(10)
+                        .repeatForever())
+                .build();
+    }
 }
@@ -0,0 +1,12 @@
+package com.grash.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Local timers for the tasks each node runs on its own state, the cluster-wide jobs are in {@link QuartzConfig}
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
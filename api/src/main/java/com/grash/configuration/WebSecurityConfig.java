@@ -4,7 +4,10 @@ import com.grash.security.JwtTokenFilterConfigurer;
 import com.grash.security.JwtTokenProvider;
 import com.grash.security.OAuth2AuthenticationFailureHandler;
 import com.grash.security.OAuth2AuthenticationSuccessHandler;
+import com.grash.security.RateLimitFilter;
+import com.grash.security.RateLimitProperties;
 import com.grash.service.LicenseService;
+import com.grash.service.RateLimiterService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -20,6 +23,7 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -37,6 +41,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     private final OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler;
     private final OAuth2AuthenticationFailureHandler oAuth2AuthenticationFailureHandler;
     private final LicenseService licenseService;
+    private final RateLimiterService rateLimiterService;
+    private final RateLimitProperties rateLimitProperties;
     @Value("${enable-sso}")
     private boolean enableSso;
 
@@ -91,6 +97,10 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
         // If a user try to access a resource without having enough permissions
         http.exceptionHandling().accessDeniedPage("/login");
 
+        // Limit the public endpoints by client IP, before the token is parsed
+        http.addFilterBefore(new RateLimitFilter(rateLimiterService, rateLimitProperties),
+                UsernamePasswordAuthenticationFilter.class);
+
         // Apply JWT
         http.apply(new JwtTokenFilterConfigurer(jwtTokenProvider));
 
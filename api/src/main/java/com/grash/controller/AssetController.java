@@ -137,7 +137,7 @@ public class AssetController {
         OwnUser user = userService.whoami(req);
         Optional<Location> optionalLocation = locationService.findById(id);
         if (optionalLocation.isPresent()) {
-            return assetService.findByLocation(id).stream().map(asset -> assetMapper.toShowDto(asset, assetService)).collect(Collectors.toList());
+            return assetService.toShowDtos(assetService.findByLocation(id));
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
     }
 
@@ -152,7 +152,7 @@ public class AssetController {
         OwnUser user = userService.whoami(req);
         Optional<Part> optionalPart = partService.findById(id);
         if (optionalPart.isPresent()) {
-            return optionalPart.get().getAssets().stream().map(asset -> assetMapper.toShowDto(asset, assetService)).collect(Collectors.toList());
+            return assetService.toShowDtos(optionalPart.get().getAssets());
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
     }
 
@@ -167,19 +167,51 @@ public class AssetController {
                                               HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
         if (id.equals(0L) && user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            return assetService.findByCompanyAndParentAssetNull(user.getCompany().getId(), pageable).stream().map(asset -> assetMapper.toShowDto(asset, assetService)).collect(Collectors.toList());
+            return assetService.toShowDtos(assetService.findByCompanyAndParentAssetNull(user.getCompany().getId(), pageable));
         }
         Optional<Asset> optionalAsset = assetService.findById(id);
         if (optionalAsset.isPresent()) {
             Asset savedAsset = optionalAsset.get();
             if (user.getRole().getViewPermissions().contains(PermissionEntity.ASSETS)) {
-                return assetService.findAssetChildren(id, pageable.getSort()).stream().map(asset -> assetMapper.toShowDto(asset,
-                        assetService)).collect(Collectors.toList());
+                return assetService.toShowDtos(assetService.findAssetChildren(id, pageable.getSort()));
             } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
 
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
     }
 
+    @GetMapping("/{id}/ancestors")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    @ApiResponses(value = {//
+            @ApiResponse(code = 500, message = "Something went wrong"),
+            @ApiResponse(code = 403, message = "Access denied"),
+            @ApiResponse(code = 404, message = "Asset not found")})
+    public List<AssetMiniDTO> getAncestors(@ApiParam("id") @PathVariable("id") Long id, HttpServletRequest req) {
+        OwnUser user = userService.whoami(req);
+        checkCanViewTree(id, user);
+        return assetService.findAncestors(id).stream().map(assetMapper::toMiniDto).collect(Collectors.toList());
+    }
+
+    @GetMapping("/{id}/descendants")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    @ApiResponses(value = {//
+            @ApiResponse(code = 500, message = "Something went wrong"),
+            @ApiResponse(code = 403, message = "Access denied"),
+            @ApiResponse(code = 404, message = "Asset not found")})
+    public List<AssetMiniDTO> getDescendants(@ApiParam("id") @PathVariable("id") Long id, HttpServletRequest req) {
+        OwnUser user = userService.whoami(req);
+        checkCanViewTree(id, user);
+        return assetService.findDescendants(id).stream().map(assetMapper::toMiniDto).collect(Collectors.toList());
+    }
+
+    private void checkCanViewTree(Long id, OwnUser user) {
+        if (!user.getRole().getViewPermissions().contains(PermissionEntity.ASSETS)) {
+            throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
+        }
+        if (!assetService.findByIdAndCompany(id, user.getCompany().getId()).isPresent()) {
+            throw new CustomException("Not found", HttpStatus.NOT_FOUND);
+        }
+    }
+
     @PostMapping("")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @ApiResponses(value = {//
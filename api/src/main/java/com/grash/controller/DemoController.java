@@ -48,7 +48,7 @@ public class DemoController {
     @GetMapping("/generate-account")
     public SuccessResponse generateAccount(HttpServletRequest req) {
         String clientIp = req.getRemoteAddr(); // use IP as the key
-        if (!rateLimiterService.resolveBucket(clientIp).tryConsume(1)) {
+        if (!rateLimiterService.tryConsume("demo", clientIp, RateLimiterService.DEFAULT_POLICY).isConsumed()) {
             return new SuccessResponse(false, "Rate limit exceeded. Try again later.");
         }
         UserSignupRequest userSignupRequest = new UserSignupRequest();
@@ -1,138 +1,161 @@
 package com.grash.controller;
 
+import com.grash.dto.ExportJobShowDTO;
 import com.grash.dto.SuccessResponse;
 import com.grash.exception.CustomException;
 import com.grash.factory.StorageServiceFactory;
 import com.grash.model.OwnUser;
-import com.grash.model.enums.PermissionEntity;
-import com.grash.service.*;
-import com.grash.utils.CsvFileGenerator;
+import com.grash.model.enums.ExportEntity;
+import com.grash.service.ExportJobService;
+import com.grash.service.ExportService;
+import com.grash.service.UserService;
 import com.grash.utils.Helper;
-import com.grash.utils.MultipartFileImpl;
 import io.swagger.annotations.Api;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
-import java.io.ByteArrayOutputStream;
-import java.io.OutputStreamWriter;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.stream.Collectors;
 
+/**
+ * The exports are streamed, either to the storage from which a signed url is returned, or directly in the response
+ * body with the /download endpoints. Large exports should rather be submitted as background jobs with /jobs.
+ */
 @RestController
 @RequestMapping("/export")
 @Api(tags = "export")
 @RequiredArgsConstructor
-@Transactional
 public class ExportController {
 
-    private final AssetService assetService;
-    private final MeterService meterService;
+    private static final String CSV_CONTENT_TYPE = "text/csv";
+
     private final UserService userService;
-    private final LocationService locationService;
-    private final PartService partService;
-    private final WorkOrderService workOrderService;
-    private final CsvFileGenerator csvFileGenerator;
+    private final ExportService exportService;
+    private final ExportJobService exportJobService;
     private final StorageServiceFactory storageServiceFactory;
 
     @GetMapping("/work-orders")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     public ResponseEntity<SuccessResponse> exportWorkOrders(HttpServletRequest req) {
-        OwnUser user = userService.whoami(req);
+        return upload(req, ExportEntity.WORK_ORDER);
+    }
 
-        if (user.getRole().getViewOtherPermissions().contains(PermissionEntity.WORK_ORDERS)) {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            csvFileGenerator.writeWorkOrdersToCsv(workOrderService.findByCompany(user.getCompany().getId()),
-                    outputStreamWriter, Helper.getLocale(user));
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Work Orders.csv");
-            return ResponseEntity.ok()
-                    .body(new SuccessResponse(true, storageServiceFactory.getStorageService().uploadAndSign(file,
-                            user.getCompany().getId() + "/exports" +
-                                    "/work-orders")));
-        } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
+    @GetMapping("/work-orders/download")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public void downloadWorkOrders(HttpServletRequest req, HttpServletResponse res) throws IOException {
+        download(req, res, ExportEntity.WORK_ORDER);
     }
 
     @GetMapping("/assets")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     public ResponseEntity<SuccessResponse> exportAssets(HttpServletRequest req) {
-        OwnUser user = userService.whoami(req);
+        return upload(req, ExportEntity.ASSET);
+    }
 
-        if (user.getRole().getViewOtherPermissions().contains(PermissionEntity.ASSETS)) {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            csvFileGenerator.writeAssetsToCsv(assetService.findByCompany(user.getCompany().getId()),
-                    outputStreamWriter, Helper.getLocale(user));
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Assets.csv");
-            return ResponseEntity.ok()
-                    .body(new SuccessResponse(true, storageServiceFactory.getStorageService().uploadAndSign(file,
-                            user.getCompany().getId() + "/exports" +
-                                    "/assets")));
-        } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
+    @GetMapping("/assets/download")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public void downloadAssets(HttpServletRequest req, HttpServletResponse res) throws IOException {
+        download(req, res, ExportEntity.ASSET);
     }
 
     @GetMapping("/locations")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     public ResponseEntity<SuccessResponse> exportLocations(HttpServletRequest req) {
-        OwnUser user = userService.whoami(req);
+        return upload(req, ExportEntity.LOCATION);
+    }
 
-        if (user.getRole().getViewOtherPermissions().contains(PermissionEntity.LOCATIONS)) {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            csvFileGenerator.writeLocationsToCsv(locationService.findByCompany(user.getCompany().getId()),
-                    outputStreamWriter, Helper.getLocale(user));
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Locations.csv");
-            return ResponseEntity.ok()
-                    .body(new SuccessResponse(true, storageServiceFactory.getStorageService().uploadAndSign(file,
-                            user.getCompany().getId() + "/exports" +
-                                    "/locations")));
-        } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
+    @GetMapping("/locations/download")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public void downloadLocations(HttpServletRequest req, HttpServletResponse res) throws IOException {
+        download(req, res, ExportEntity.LOCATION);
     }
 
     @GetMapping("/parts")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     public ResponseEntity<SuccessResponse> exportParts(HttpServletRequest req) {
-        OwnUser user = userService.whoami(req);
+        return upload(req, ExportEntity.PART);
+    }
 
-        if (user.getRole().getViewOtherPermissions().contains(PermissionEntity.PARTS_AND_MULTIPARTS)) {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            csvFileGenerator.writePartsToCsv(partService.findByCompany(user.getCompany().getId()), outputStreamWriter
-                    , Helper.getLocale(user));
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Parts.csv");
-            return ResponseEntity.ok()
-                    .body(new SuccessResponse(true, storageServiceFactory.getStorageService().uploadAndSign(file,
-                            user.getCompany().getId() + "/exports" +
-                                    "/parts")));
-        } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
+    @GetMapping("/parts/download")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public void downloadParts(HttpServletRequest req, HttpServletResponse res) throws IOException {
+        download(req, res, ExportEntity.PART);
     }
 
     @GetMapping("/meters")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     public ResponseEntity<SuccessResponse> exportMeters(HttpServletRequest req) {
+        return upload(req, ExportEntity.METER);
+    }
+
+    @GetMapping("/meters/download")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public void downloadMeters(HttpServletRequest req, HttpServletResponse res) throws IOException {
+        download(req, res, ExportEntity.METER);
+    }
+
+    @PostMapping("/jobs")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public ExportJobShowDTO submitJob(@RequestParam ExportEntity entity, HttpServletRequest req) {
+        OwnUser user = getUserAllowedToExport(req, entity);
+        return exportJobService.toShowDto(exportJobService.submit(user, entity));
+    }
+
+    @GetMapping("/jobs")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public Collection<ExportJobShowDTO> getJobs(HttpServletRequest req) {
+        OwnUser user = userService.whoami(req);
+        return exportJobService.findLastByUser(user.getId(), 20).stream().map(exportJobService::toShowDto)
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/jobs/{id}")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public ExportJobShowDTO getJob(@PathVariable("id") Long id, HttpServletRequest req) {
         OwnUser user = userService.whoami(req);
+        return exportJobService.findByIdAndUser(id, user.getId()).map(exportJobService::toShowDto)
+                .orElseThrow(() -> new CustomException("Not found", HttpStatus.NOT_FOUND));
+    }
 
-        if (user.getRole().getViewOtherPermissions().contains(PermissionEntity.METERS)) {
-            ByteArrayOutputStream target = new ByteArrayOutputStream();
-            OutputStreamWriter outputStreamWriter = new OutputStreamWriter(target, StandardCharsets.UTF_8);
-            csvFileGenerator.writeMetersToCsv(meterService.findByCompany(user.getCompany().getId()),
-                    outputStreamWriter, Helper.getLocale(user));
-            byte[] bytes = target.toByteArray();
-            MultipartFile file = new MultipartFileImpl(bytes, "Meters.csv");
-            return ResponseEntity.ok()
-                    .body(new SuccessResponse(true, storageServiceFactory.getStorageService().uploadAndSign(file,
-                            user.getCompany().getId() + "/exports" +
-                                    "/meters")));
+    private OwnUser getUserAllowedToExport(HttpServletRequest req, ExportEntity entity) {
+        OwnUser user = userService.whoami(req);
+        if (user.getRole().getViewOtherPermissions().contains(entity.getPermissionEntity())) {
+            return user;
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
+
+    private ResponseEntity<SuccessResponse> upload(HttpServletRequest req, ExportEntity entity) {
+        OwnUser user = getUserAllowedToExport(req, entity);
+        Long companyId = user.getCompany().getId();
+        Locale locale = Helper.getLocale(user);
+        return ResponseEntity.ok()
+                .body(new SuccessResponse(true, storageServiceFactory.getStorageService().uploadAndSign(
+                        entity.getFileName(), CSV_CONTENT_TYPE, companyId + "/exports/" + entity.getFolder(),
+                        outputStream -> exportService.write(entity, companyId, locale, outputStream))));
+    }
+
+    /**
+     * Writes the file in the response body as it is generated, without Content-Length so that it is sent chunked
+     */
+    private void download(HttpServletRequest req, HttpServletResponse res, ExportEntity entity) throws IOException {
+        OwnUser user = getUserAllowedToExport(req, entity);
+        Long companyId = user.getCompany().getId();
+        Locale locale = Helper.getLocale(user);
+        res.setContentType(CSV_CONTENT_TYPE);
+        res.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        res.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(entity.getFileName(), StandardCharsets.UTF_8).build().toString());
+        exportService.write(entity, companyId, locale, res.getOutputStream());
+        res.flushBuffer();
+    }
 }
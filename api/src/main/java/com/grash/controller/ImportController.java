@@ -1,5 +1,6 @@
 package com.grash.controller;
 
+import com.grash.dto.ImportJobShowDTO;
 import com.grash.dto.imports.*;
 import com.grash.exception.CustomException;
 import com.grash.factory.StorageServiceFactory;
@@ -8,6 +9,7 @@ import com.grash.model.enums.ImportEntity;
 import com.grash.model.enums.Language;
 import com.grash.model.enums.PermissionEntity;
 import com.grash.model.enums.PlanFeatures;
+import com.grash.service.ImportJobService;
 import com.grash.service.ImportService;
 import com.grash.service.UserService;
 import io.swagger.annotations.Api;
@@ -15,24 +17,26 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/import")
 @Api(tags = "import")
 @RequiredArgsConstructor
-@Transactional
 public class ImportController {
 
     private final UserService userService;
     private final ImportService importService;
+    private final ImportJobService importJobService;
 
     @PostMapping("/work-orders")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
@@ -108,6 +112,35 @@ public class ImportController {
         }
     }
 
+    @PostMapping("/jobs")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public ImportJobShowDTO submitJob(@RequestParam ImportEntity entity, @RequestPart("file") MultipartFile file,
+                                      HttpServletRequest req) {
+        OwnUser user = userService.whoami(req);
+        if (user.getRole().getCreatePermissions().contains(entity.getPermissionEntity())
+                && user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.IMPORT_CSV)) {
+            return importJobService.toShowDto(importJobService.submit(user, entity, file));
+        } else {
+            throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
+        }
+    }
+
+    @GetMapping("/jobs")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public Collection<ImportJobShowDTO> getJobs(HttpServletRequest req) {
+        OwnUser user = userService.whoami(req);
+        return importJobService.findLastByUser(user.getId(), 20).stream().map(importJobService::toShowDto)
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/jobs/{id}")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    public ImportJobShowDTO getJob(@PathVariable("id") Long id, HttpServletRequest req) {
+        OwnUser user = userService.whoami(req);
+        return importJobService.findByIdAndUser(id, user.getId()).map(importJobService::toShowDto)
+                .orElseThrow(() -> new CustomException("Not found", HttpStatus.NOT_FOUND));
+    }
+
     @GetMapping("/download-template")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     public byte[] importMeters(@RequestParam Language language, @RequestParam ImportEntity importEntity,
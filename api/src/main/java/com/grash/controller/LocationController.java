@@ -6,6 +6,7 @@ import com.grash.dto.DocumentDTO;
 import com.grash.dto.LocationMiniDTO;
 import com.grash.dto.LocationPatchDTO;
 import com.grash.dto.LocationShowDTO;
+import com.grash.dto.LocationTreeDTO;
 import com.grash.dto.SuccessResponse;
 import com.grash.exception.CustomException;
 import com.grash.mapper.AssetMapper;
@@ -65,15 +66,28 @@ public class LocationController {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
             if (user.getRole().getViewPermissions().contains(PermissionEntity.LOCATIONS)) {
-                return locationService.findByCompany(user.getCompany().getId()).stream().filter(location -> {
+                return locationService.toShowDtos(locationService.findByCompany(user.getCompany().getId()).stream().filter(location -> {
                     boolean canViewOthers =
                             user.getRole().getViewOtherPermissions().contains(PermissionEntity.LOCATIONS);
                     return canViewOthers || location.getCreatedBy().equals(user.getId());
-                }).map(location -> locationMapper.toShowDto(location, locationService)).collect(Collectors.toList());
+                }).collect(Collectors.toList()));
             } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
         } else
-            return locationService.getAll().stream().map(location -> locationMapper.toShowDto(location,
-                    locationService)).collect(Collectors.toList());
+            return locationService.toShowDtos(locationService.getAll());
+    }
+
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    @ApiResponses(value = {//
+            @ApiResponse(code = 500, message = "Something went wrong"),
+            @ApiResponse(code = 403, message = "Access denied")})
+    public Page<LocationTreeDTO> getPage(Pageable pageable, HttpServletRequest req) {
+        OwnUser user = userService.whoami(req);
+        if (user.getRole().getViewPermissions().contains(PermissionEntity.LOCATIONS)) {
+            boolean canViewOthers = user.getRole().getViewOtherPermissions().contains(PermissionEntity.LOCATIONS);
+            return locationService.findTreeByCompany(user.getCompany().getId(), canViewOthers ? null : user.getId(),
+                    pageable);
+        } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
     @PostMapping("/search")
@@ -105,18 +119,70 @@ public class LocationController {
         //only sort is used
         OwnUser user = userService.whoami(req);
         if (id.equals(0L) && user.getRole().getRoleType().equals(RoleType.ROLE_CLIENT)) {
-            return locationService.findByCompany(user.getCompany().getId(), pageable.getSort()).stream().filter(location -> location.getParentLocation() == null).map(location -> locationMapper.toShowDto(location, locationService)).collect(Collectors.toList());
+            return locationService.toShowDtos(locationService.findByCompany(user.getCompany().getId(), pageable.getSort()).stream().filter(location -> location.getParentLocation() == null).collect(Collectors.toList()));
         }
         Optional<Location> optionalLocation = locationService.findById(id);
         if (optionalLocation.isPresent()) {
             Location savedLocation = optionalLocation.get();
             if (user.getRole().getViewPermissions().contains(PermissionEntity.LOCATIONS)) {
-                return locationService.findLocationChildren(id, pageable.getSort()).stream().map(location -> locationMapper.toShowDto(location, locationService)).collect(Collectors.toList());
+                return locationService.toShowDtos(locationService.findLocationChildren(id, pageable.getSort()));
             } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
 
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
     }
 
+    @GetMapping("/children/{id}/page")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    @ApiResponses(value = {//
+            @ApiResponse(code = 500, message = "Something went wrong"),
+            @ApiResponse(code = 403, message = "Access denied"),
+            @ApiResponse(code = 404, message = "Location not found")})
+    public Page<LocationTreeDTO> getChildrenPage(@ApiParam("id") @PathVariable("id") Long id,
+                                                 Pageable pageable,
+                                                 HttpServletRequest req) {
+        OwnUser user = userService.whoami(req);
+        if (!user.getRole().getViewPermissions().contains(PermissionEntity.LOCATIONS)) {
+            throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
+        }
+        if (!id.equals(0L) && !locationService.findByIdAndCompany(id, user.getCompany().getId()).isPresent()) {
+            throw new CustomException("Not found", HttpStatus.NOT_FOUND);
+        }
+        return locationService.findTreeChildren(user.getCompany().getId(), id, pageable);
+    }
+
+    @GetMapping("/{id}/ancestors")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    @ApiResponses(value = {//
+            @ApiResponse(code = 500, message = "Something went wrong"),
+            @ApiResponse(code = 403, message = "Access denied"),
+            @ApiResponse(code = 404, message = "Location not found")})
+    public List<LocationMiniDTO> getAncestors(@ApiParam("id") @PathVariable("id") Long id, HttpServletRequest req) {
+        OwnUser user = userService.whoami(req);
+        checkCanViewTree(id, user);
+        return locationService.findAncestors(id).stream().map(locationMapper::toMiniDto).collect(Collectors.toList());
+    }
+
+    @GetMapping("/{id}/descendants")
+    @PreAuthorize("hasRole('ROLE_CLIENT')")
+    @ApiResponses(value = {//
+            @ApiResponse(code = 500, message = "Something went wrong"),
+            @ApiResponse(code = 403, message = "Access denied"),
+            @ApiResponse(code = 404, message = "Location not found")})
+    public List<LocationMiniDTO> getDescendants(@ApiParam("id") @PathVariable("id") Long id, HttpServletRequest req) {
+        OwnUser user = userService.whoami(req);
+        checkCanViewTree(id, user);
+        return locationService.findDescendants(id).stream().map(locationMapper::toMiniDto).collect(Collectors.toList());
+    }
+
+    private void checkCanViewTree(Long id, OwnUser user) {
+        if (!user.getRole().getViewPermissions().contains(PermissionEntity.LOCATIONS)) {
+            throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
+        }
+        if (!locationService.findByIdAndCompany(id, user.getCompany().getId()).isPresent()) {
+            throw new CustomException("Not found", HttpStatus.NOT_FOUND);
+        }
+    }
+
     @GetMapping("/mini")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @ApiResponses(value = {//
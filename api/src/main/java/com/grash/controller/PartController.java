@@ -10,7 +10,6 @@ import com.grash.mapper.PartMapper;
 import com.grash.model.Asset;
 import com.grash.model.OwnUser;
 import com.grash.model.Part;
-import com.grash.model.Workflow;
 import com.grash.model.enums.PermissionEntity;
 import com.grash.model.enums.RoleType;
 import com.grash.model.enums.workflow.WFMainCondition;
@@ -130,10 +129,7 @@ public class PartController {
                     }
                 }
                 Part patchedPart = partService.update(id, part);
-                Collection<Workflow> workflows =
-                        workflowService.findByMainConditionAndCompany(WFMainCondition.PART_UPDATED,
-                        user.getCompany().getId());
-                workflows.forEach(workflow -> workflowService.runPart(workflow, patchedPart));
+                workflowService.runPartWorkflows(WFMainCondition.PART_UPDATED, user.getCompany().getId(), patchedPart);
                 partService.patchNotify(savedPart, patchedPart, Helper.getLocale(user));
                 return partMapper.toShowDto(patchedPart);
             } else throw new CustomException("Forbidden", HttpStatus.FORBIDDEN);
@@ -100,10 +100,8 @@ public class PurchaseOrderController {
         if (user.getRole().getCreatePermissions().contains(PermissionEntity.PURCHASE_ORDERS)
                 && user.getCompany().getSubscription().getSubscriptionPlan().getFeatures().contains(PlanFeatures.PURCHASE_ORDER)) {
             PurchaseOrder savedPurchaseOrder = purchaseOrderService.create(purchaseOrderReq);
-            Collection<Workflow> workflows =
-                    workflowService.findByMainConditionAndCompany(WFMainCondition.PURCHASE_ORDER_CREATED,
-                            user.getCompany().getId());
-            workflows.forEach(workflow -> workflowService.runPurchaseOrder(workflow, savedPurchaseOrder));
+            workflowService.runPurchaseOrderWorkflows(WFMainCondition.PURCHASE_ORDER_CREATED,
+                    user.getCompany().getId(), savedPurchaseOrder);
             PurchaseOrderShowDTO result = setPartQuantities(purchaseOrderMapper.toShowDto(savedPurchaseOrder));
             double cost =
                     result.getPartQuantities().stream().mapToDouble(partQuantityShowDTO -> partQuantityShowDTO.getQuantity() * partQuantityShowDTO.getPart().getCost()).sum();
@@ -146,10 +144,8 @@ public class PurchaseOrderController {
             PurchaseOrder savedPurchaseOrder = optionalPurchaseOrder.get();
             if (user.getRole().getEditOtherPermissions().contains(PermissionEntity.PURCHASE_ORDERS) || savedPurchaseOrder.getCreatedBy().equals(user.getId())) {
                 PurchaseOrder patchedPurchaseOrder = purchaseOrderService.update(id, purchaseOrder);
-                Collection<Workflow> workflows =
-                        workflowService.findByMainConditionAndCompany(WFMainCondition.PURCHASE_ORDER_UPDATED,
-                                user.getCompany().getId());
-                workflows.forEach(workflow -> workflowService.runPurchaseOrder(workflow, patchedPurchaseOrder));
+                workflowService.runPurchaseOrderWorkflows(WFMainCondition.PURCHASE_ORDER_UPDATED,
+                        user.getCompany().getId(), patchedPurchaseOrder);
                 return setPartQuantities(purchaseOrderMapper.toShowDto(patchedPurchaseOrder));
             } else throw new CustomException("Forbidden", HttpStatus.FORBIDDEN);
         } else throw new CustomException("PurchaseOrder not found", HttpStatus.NOT_FOUND);
@@ -123,10 +123,8 @@ public class RequestController {
                     .toArray(String[]::new), messageSource.getMessage("new_request", null,
                     Helper.getLocale(user)), mailVariables, "new-request.html", Helper.getLocale(user));
 
-            Collection<Workflow> workflows =
-                    workflowService.findByMainConditionAndCompany(WFMainCondition.REQUEST_CREATED,
-                            user.getCompany().getId());
-            workflows.forEach(workflow -> workflowService.runRequest(workflow, createdRequest));
+            workflowService.runRequestWorkflows(WFMainCondition.REQUEST_CREATED, user.getCompany().getId(),
+                    createdRequest);
             return requestMapper.toShowDto(createdRequest);
         } else throw new CustomException("Access denied", HttpStatus.FORBIDDEN);
     }
@@ -174,10 +172,8 @@ public class RequestController {
             if (savedRequest.getWorkOrder() != null) {
                 throw new CustomException("Request is already approved", HttpStatus.NOT_ACCEPTABLE);
             }
-            Collection<Workflow> workflows =
-                    workflowService.findByMainConditionAndCompany(WFMainCondition.REQUEST_APPROVED,
-                            user.getCompany().getId());
-            workflows.forEach(workflow -> workflowService.runRequest(workflow, savedRequest));
+            workflowService.runRequestWorkflows(WFMainCondition.REQUEST_APPROVED, user.getCompany().getId(),
+                    savedRequest);
 
             WorkOrderShowDTO result =
                     workOrderMapper.toShowDto(requestService.createWorkOrderFromRequest(savedRequest, user));
@@ -236,10 +232,8 @@ public class RequestController {
                 throw new CustomException("Please give a reason", HttpStatus.NOT_ACCEPTABLE);
             savedRequest.setCancellationReason(reason);
             savedRequest.setCancelled(true);
-            Collection<Workflow> workflows =
-                    workflowService.findByMainConditionAndCompany(WFMainCondition.REQUEST_REJECTED,
-                            user.getCompany().getId());
-            workflows.forEach(workflow -> workflowService.runRequest(workflow, savedRequest));
+            workflowService.runRequestWorkflows(WFMainCondition.REQUEST_REJECTED, user.getCompany().getId(),
+                    savedRequest);
 
             OwnUser requester = userService.findById(savedRequest.getCreatedBy()).get();
 
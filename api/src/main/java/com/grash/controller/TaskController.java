@@ -261,10 +261,7 @@ public class TaskController {
 
         if (optionalTask.isPresent()) {
             Task patchedTask = taskService.update(id, task);
-            Collection<Workflow> workflows =
-                    workflowService.findByMainConditionAndCompany(WFMainCondition.TASK_UPDATED,
-                            user.getCompany().getId());
-            workflows.forEach(workflow -> workflowService.runTask(workflow, patchedTask));
+            workflowService.runTaskWorkflows(WFMainCondition.TASK_UPDATED, user.getCompany().getId(), patchedTask);
             return taskMapper.toShowDto(patchedTask);
         } else throw new CustomException("Task not found", HttpStatus.NOT_FOUND);
     }
@@ -1,6 +1,7 @@
 package com.grash.controller;
 
 import com.grash.dto.SuccessResponse;
+import com.grash.dto.WebhookRateLimitPatchDTO;
 import com.grash.exception.CustomException;
 import com.grash.model.OwnUser;
 import com.grash.model.WebhookConfig;
@@ -18,6 +19,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
 
 @RestController
 @RequestMapping("/webhook-config")
@@ -113,6 +115,22 @@ public class WebhookConfigController {
         return ResponseEntity.ok(webhookConfig);
     }
     
+    @PatchMapping("/{companyId}/rate-limits")
+    @PreAuthorize("hasRole('ROLE_SUPER_ADMIN')")
+    @ApiOperation(value = "Update webhook rate limits", notes = "Override the default rate limits of the webhook of a company")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Webhook rate limits updated successfully"),
+            @ApiResponse(code = 401, message = "Unauthorized"),
+            @ApiResponse(code = 403, message = "Forbidden"),
+            @ApiResponse(code = 404, message = "Webhook config not found")
+    })
+    public ResponseEntity<WebhookConfig> updateRateLimits(
+            @PathVariable Long companyId,
+            @Valid @RequestBody WebhookRateLimitPatchDTO rateLimits) {
+        WebhookConfig webhookConfig = webhookConfigService.updateRateLimits(companyId, rateLimits);
+        return ResponseEntity.ok(webhookConfig);
+    }
+    
     @DeleteMapping("")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @ApiOperation(value = "Delete webhook configuration", notes = "Delete the webhook configuration for the company")
@@ -16,6 +16,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -24,16 +26,20 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class WebhookController {
     
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    
     private final GrafanaWebhookService grafanaWebhookService;
     
     @PostMapping("/grafana")
-    @ApiOperation(value = "Receive Grafana webhook alerts", notes = "Endpoint to receive and process alerts from Grafana")
+    @SuppressWarnings("unchecked")
+    @ApiOperation(value = "Receive Grafana webhook alerts", notes = "Endpoint to receive alerts from Grafana, they are queued and processed asynchronously")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Webhook processed successfully"),
+            @ApiResponse(code = 200, message = "Alerts queued"),
             @ApiResponse(code = 400, message = "Invalid request format"),
             @ApiResponse(code = 401, message = "Unauthorized - Invalid API key"),
             @ApiResponse(code = 429, message = "Too many requests - Rate limit exceeded"),
-            @ApiResponse(code = 500, message = "Internal server error")
+            @ApiResponse(code = 500, message = "Internal server error"),
+            @ApiResponse(code = 503, message = "Service unavailable - Alert queue is full")
     })
     public ResponseEntity<GrafanaWebhookResponse> handleGrafanaWebhook(
             @RequestHeader(name = "X-API-Key", required = false) String apiKey,
@@ -45,41 +51,22 @@ public class WebhookController {
                 throw new CustomException("API key is required", HttpStatus.UNAUTHORIZED);
             }
             
-            ObjectMapper objectMapper = new ObjectMapper();
-            GrafanaWebhookRequest standardRequest;
-            
-            // Try to parse as Grafana native format first
-            if (requestMap.containsKey("body") && requestMap.containsKey("headers")) {
-                // This looks like Grafana native format
-                try {
-                    GrafanaNativeWebhookRequest nativeRequest = objectMapper.convertValue(requestMap, GrafanaNativeWebhookRequest.class);
-                    standardRequest = nativeRequest.toStandardFormat();
-                } catch (Exception e) {
-                    throw new CustomException("Invalid Grafana native webhook format: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+            // A storm of alerts can be sent in one payload
+            if (requestMap.get("alerts") instanceof List) {
+                List<GrafanaWebhookRequest> standardRequests = new ArrayList<>();
+                for (Object alert : (List<?>) requestMap.get("alerts")) {
+                    if (!(alert instanceof Map)) {
+                        throw new CustomException("Invalid alert in alerts", HttpStatus.BAD_REQUEST);
+                    }
+                    standardRequests.add(toStandardRequest((Map<String, Object>) alert));
                 }
-            } else {
-                // Try to parse as standard CMMS format
-                try {
-                    standardRequest = objectMapper.convertValue(requestMap, GrafanaWebhookRequest.class);
-                } catch (Exception e) {
-                    throw new CustomException("Invalid CMMS webhook format: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+                if (standardRequests.isEmpty()) {
+                    throw new CustomException("alerts is empty", HttpStatus.BAD_REQUEST);
                 }
+                return ResponseEntity.ok(grafanaWebhookService.processWebhooks(apiKey, standardRequests));
             }
             
-            // Validate required fields in the standard request
-            if (standardRequest.getAlertId() == null || standardRequest.getAlertId().isEmpty()) {
-                throw new CustomException("alertId is required", HttpStatus.BAD_REQUEST);
-            }
-            if (standardRequest.getAlertName() == null || standardRequest.getAlertName().isEmpty()) {
-                throw new CustomException("alertName is required", HttpStatus.BAD_REQUEST);
-            }
-            if (standardRequest.getStatus() == null || standardRequest.getStatus().isEmpty()) {
-                throw new CustomException("status is required", HttpStatus.BAD_REQUEST);
-            }
-            if (standardRequest.getSeverity() == null || standardRequest.getSeverity().isEmpty()) {
-                throw new CustomException("severity is required", HttpStatus.BAD_REQUEST);
-            }
-            
+            GrafanaWebhookRequest standardRequest = toStandardRequest(requestMap);
             GrafanaWebhookResponse response = grafanaWebhookService.processWebhook(apiKey, standardRequest);
             return ResponseEntity.ok(response);
         } catch (CustomException e) {
@@ -91,5 +78,41 @@ public class WebhookController {
         }
     }
 
-
+    private GrafanaWebhookRequest toStandardRequest(Map<String, Object> requestMap) {
+        GrafanaWebhookRequest standardRequest;
+        
+        // Try to parse as Grafana native format first
+        if (requestMap.containsKey("body") && requestMap.containsKey("headers")) {
+            // This looks like Grafana native format
+            try {
+                GrafanaNativeWebhookRequest nativeRequest = objectMapper.convertValue(requestMap, GrafanaNativeWebhookRequest.class);
+                standardRequest = nativeRequest.toStandardFormat();
+            } catch (Exception e) {
+                throw new CustomException("Invalid Grafana native webhook format: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+            }
+        } else {
+            // Try to parse as standard CMMS format
+            try {
+                standardRequest = objectMapper.convertValue(requestMap, GrafanaWebhookRequest.class);
+            } catch (Exception e) {
+                throw new CustomException("Invalid CMMS webhook format: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+            }
+        }
+        
+        // Validate required fields in the standard request
+        if (standardRequest.getAlertId() == null || standardRequest.getAlertId().isEmpty()) {
+            throw new CustomException("alertId is required", HttpStatus.BAD_REQUEST);
+        }
+        if (standardRequest.getAlertName() == null || standardRequest.getAlertName().isEmpty()) {
+            throw new CustomException("alertName is required", HttpStatus.BAD_REQUEST);
+        }
+        if (standardRequest.getStatus() == null || standardRequest.getStatus().isEmpty()) {
+            throw new CustomException("status is required", HttpStatus.BAD_REQUEST);
+        }
+        if (standardRequest.getSeverity() == null || standardRequest.getSeverity().isEmpty()) {
+            throw new CustomException("severity is required", HttpStatus.BAD_REQUEST);
+        }
+        
+        return standardRequest;
+    }
 }
\ No newline at end of file
@@ -112,8 +112,12 @@ public class WorkOrderController {
         OwnUser user = userService.whoami(req);
         if (user.getRole().getViewPermissions().contains(PermissionEntity.WORK_ORDERS)) {
             List<CalendarEvent<WorkOrderBaseMiniDTO>> result = new ArrayList<>();
-            result.addAll(preventiveMaintenanceService.getEvents(dateRange.getEnd(), user.getCompany().getId()).stream()
-                    .filter(calendarEvent -> calendarEvent.getDate().after(new Date()))
+            // Only the upcoming preventive maintenance occurrences are shown, the past ones are work orders
+            Date now = new Date();
+            Date pmStart = dateRange.getStart() == null || dateRange.getStart().before(now) ? now :
+                    dateRange.getStart();
+            result.addAll(preventiveMaintenanceService.getEvents(pmStart, dateRange.getEnd(),
+                            user.getCompany().getId()).stream()
                     .filter(calendarEvent -> canViewWorkOrderBase(user, calendarEvent.getEvent()))
                     .map(calendarEvent -> new CalendarEvent<>(calendarEvent.getType(),
                             preventiveMaintenanceMapper.toBaseMiniDto(calendarEvent.getEvent()),
@@ -232,10 +236,8 @@ public class WorkOrderController {
                 WorkOrder patchedWorkOrder = workOrderService.update(id, workOrder, user);
 
                 if (patchedWorkOrder.isArchived() && !savedWorkOrder.isArchived()) {
-                    Collection<Workflow> workflows =
-                            workflowService.findByMainConditionAndCompany(WFMainCondition.WORK_ORDER_ARCHIVED,
-                                    user.getCompany().getId());
-                    workflows.forEach(workflow -> workflowService.runWorkOrder(workflow, patchedWorkOrder));
+                    workflowService.runWorkOrderWorkflows(WFMainCondition.WORK_ORDER_ARCHIVED,
+                            user.getCompany().getId(), patchedWorkOrder);
                 }
 
                 boolean shouldNotify =
@@ -259,6 +261,7 @@ public class WorkOrderController {
         if (savedWorkOrder.getFirstTimeToReact() == null && !workOrder.getStatus().equals(Status.ON_HOLD))
             savedWorkOrder.setFirstTimeToReact(new Date());
         Status savedWorkOrderStatusBefore = savedWorkOrder.getStatus();
+        Date completedOnBefore = savedWorkOrder.getCompletedOn();
 
         if (workOrder.getStatus() == null) throw new CustomException("Status can't be null", HttpStatus.NOT_ACCEPTABLE);
 
@@ -291,6 +294,7 @@ public class WorkOrderController {
                 primaryTimes.forEach(laborService::stop);
             }
             WorkOrder patchedWorkOrder = workOrderService.saveAndFlush(savedWorkOrder);
+            workOrderService.publishMetricsChanged(patchedWorkOrder, completedOnBefore);
 
             if (patchedWorkOrder.getStatus().equals(Status.COMPLETE) && !savedWorkOrderStatusBefore.equals(Status.COMPLETE)) {
                 List<OwnUser> admins =
@@ -298,10 +302,8 @@ public class WorkOrderController {
                 notificationService.createMultiple(admins.stream().map(admin -> new Notification(messageSource.getMessage("complete_work_order_content", new String[]{patchedWorkOrder.getTitle(), user.getFullName()}, Helper.getLocale(admin)), admin,
                                 NotificationType.WORK_ORDER, id)).collect(Collectors.toList()), true,
                         messageSource.getMessage("complete_work_order", null, Helper.getLocale(user)));
-                Collection<Workflow> workflows =
-                        workflowService.findByMainConditionAndCompany(WFMainCondition.WORK_ORDER_CLOSED,
-                                user.getCompany().getId());
-                workflows.forEach(workflow -> workflowService.runWorkOrder(workflow, patchedWorkOrder));
+                workflowService.runWorkOrderWorkflows(WFMainCondition.WORK_ORDER_CLOSED, user.getCompany().getId(),
+                        patchedWorkOrder);
             }
             if (user.getCompany().getCompanySettings().getGeneralPreferences().isWoUpdateForRequesters()
                     && savedWorkOrderStatusBefore != patchedWorkOrder.getStatus()
@@ -10,8 +10,10 @@ import com.grash.model.WorkOrder;
 import com.grash.model.enums.PermissionEntity;
 import com.grash.model.enums.Status;
 import com.grash.security.CurrentUser;
+import com.grash.service.AssetAnalyticsService;
 import com.grash.service.AssetDowntimeService;
 import com.grash.service.AssetService;
+import com.grash.service.DailyMetricsService;
 import com.grash.service.UserService;
 import com.grash.service.WorkOrderService;
 import com.grash.utils.AuditComparator;
@@ -43,34 +45,20 @@ public class AssetAnalyticsController {
     private final UserService userService;
     private final AssetService assetService;
     private final AssetDowntimeService assetDowntimeService;
+    private final AssetAnalyticsService assetAnalyticsService;
+    private final DailyMetricsService dailyMetricsService;
 
     @PostMapping("/time-cost")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getTimeCostByAsset",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<TimeCostByAsset>> getTimeCostByAsset(@ApiIgnore @CurrentUser OwnUser user,
                                                                           @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Collection<Asset> assets = assetService.findByCompanyAndBefore(user.getCompany().getId(),
-                    dateRange.getEnd());
-            Collection<TimeCostByAsset> result = new ArrayList<>();
-            assets.forEach(asset -> {
-                Collection<WorkOrder> completeWO = workOrderService.findByAssetAndCreatedAtBetween(asset.getId(),
-                                dateRange.getStart(), dateRange.getEnd())
-                        .stream().filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).collect(Collectors.toList());
-                long time = workOrderService.getLaborCostAndTime(completeWO).getSecond();
-                double cost = workOrderService.getAllCost(completeWO,
-                        user.getCompany().getCompanySettings().getGeneralPreferences().isLaborCostInTotalCost());
-                result.add(TimeCostByAsset.builder()
-                        .time(time)
-                        .cost(cost)
-                        .name(asset.getName())
-                        .id(asset.getId())
-                        .build());
-            });
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok(assetAnalyticsService.getTimeCostByAsset(user.getCompany().getId(), dateRange,
+                    user.getCompany().getCompanySettings().getGeneralPreferences().isLaborCostInTotalCost()));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -78,7 +66,7 @@ public class AssetAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getOverviewStats",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<AssetStats> getOverviewStats(@ApiIgnore @CurrentUser OwnUser user,
                                                        @RequestBody DateRange dateRange) {
@@ -104,27 +92,12 @@ public class AssetAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getDowntimesByAsset",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<DowntimesByAsset>> getDowntimesByAsset(@ApiIgnore @CurrentUser OwnUser user,
                                                                             @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Collection<Asset> assets = assetService.findByCompanyAndBefore(user.getCompany().getId(),
-                    dateRange.getEnd());
-            return ResponseEntity.ok(assets.stream().map(asset -> {
-                Collection<AssetDowntime> downtimes =
-                        assetDowntimeService.findByAssetAndStartsOnBetween(asset.getId(), dateRange.getStart(),
-                                dateRange.getEnd());
-                long downtimesDuration =
-                        downtimes.stream().mapToLong(assetDowntime -> assetDowntime.getDateRangeDuration(dateRange)).sum();
-                long percent = downtimesDuration * 100 / getLivingTime(asset, dateRange);
-                return DowntimesByAsset.builder()
-                        .count(downtimes.size())
-                        .percent(percent)
-                        .id(asset.getId())
-                        .name(asset.getName())
-                        .build();
-            }).collect(Collectors.toList()));
+            return ResponseEntity.ok(assetAnalyticsService.getDowntimesByAsset(user.getCompany().getId(), dateRange));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -132,18 +105,12 @@ public class AssetAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getMTBFByAsset",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<MTBFByAsset>> getMTBFByAsset(@CurrentUser OwnUser user,
                                                                   @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Collection<Asset> assets = assetService.findByCompanyAndBefore(user.getCompany().getId(),
-                    dateRange.getEnd());
-            return ResponseEntity.ok(assets.stream().map(asset -> MTBFByAsset.builder()
-                    .mtbf(assetService.getMTBF(asset.getId(), dateRange.getStart(), dateRange.getEnd()))
-                    .id(asset.getId())
-                    .name(asset.getName())
-                    .build()).collect(Collectors.toList()));
+            return ResponseEntity.ok(assetAnalyticsService.getMTBFByAsset(user.getCompany().getId(), dateRange));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -151,7 +118,7 @@ public class AssetAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getMeantimes",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Meantimes> getMeantimes(@ApiIgnore @CurrentUser OwnUser user,
                                                   @RequestBody DateRange dateRange) {
@@ -181,22 +148,12 @@ public class AssetAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getRepairTimeByAsset",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<RepairTimeByAsset>> getRepairTimeByAsset(@ApiIgnore @CurrentUser OwnUser user,
                                                                               @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Collection<Asset> assets = assetService.findByCompanyAndBefore(user.getCompany().getId(),
-                    dateRange.getEnd());
-            return ResponseEntity.ok(assets.stream().map(asset -> {
-                Collection<WorkOrder> completeWO = workOrderService.findByAssetAndCreatedAtBetween(asset.getId(),
-                        dateRange.getStart(), dateRange.getEnd()).stream().filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).collect(Collectors.toList());
-                return RepairTimeByAsset.builder()
-                        .id(asset.getId())
-                        .name(asset.getName())
-                        .duration(WorkOrder.getAverageAge(completeWO))
-                        .build();
-            }).collect(Collectors.toList()));
+            return ResponseEntity.ok(assetAnalyticsService.getRepairTimeByAsset(user.getCompany().getId(), dateRange));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -204,7 +161,7 @@ public class AssetAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getDowntimesMeantimeByMonth",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<List<DowntimesMeantimeByDate>> getDowntimesMeantimeByMonth(@ApiIgnore @CurrentUser OwnUser user,
                                                                                      @RequestBody DateRange dateRange) {
@@ -238,26 +195,15 @@ public class AssetAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getAssetsCosts",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<AssetsCosts> getAssetsCosts(@ApiIgnore @CurrentUser OwnUser user,
                                                       @RequestBody DateRange dateRange) {
         boolean includeLaborCost =
                 user.getCompany().getCompanySettings().getGeneralPreferences().isLaborCostInTotalCost();
         if (user.canSeeAnalytics()) {
-            Collection<Asset> assets = assetService.findByCompanyAndBefore(user.getCompany().getId(),
-                    dateRange.getEnd());
-            Collection<Asset> assetsWithAcquisitionCost =
-                    assets.stream().filter(asset -> asset.getAcquisitionCost() != null).collect(Collectors.toList());
-            double totalAcquisitionCost =
-                    assetsWithAcquisitionCost.stream().mapToDouble(Asset::getAcquisitionCost).sum();
-            double totalWOCosts = getCompleteWOCosts(assets, includeLaborCost, dateRange);
-            double rav = assetsWithAcquisitionCost.isEmpty() ? 0 : getCompleteWOCosts(assetsWithAcquisitionCost,
-                    includeLaborCost, dateRange) * 100 / totalAcquisitionCost;
-            return ResponseEntity.ok(AssetsCosts.builder()
-                    .totalWOCosts(totalWOCosts)
-                    .totalAcquisitionCost(totalAcquisitionCost)
-                    .rav(rav).build());
+            return ResponseEntity.ok(assetAnalyticsService.getAssetsCosts(user.getCompany().getId(), dateRange,
+                    includeLaborCost));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -265,28 +211,13 @@ public class AssetAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getDowntimesAndCosts",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<DowntimesAndCostsByAsset>> getDowntimesAndCosts(@ApiIgnore @CurrentUser OwnUser user,
                                                                                      @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Collection<Asset> assets = assetService.findByCompanyAndBefore(user.getCompany().getId(),
-                    dateRange.getEnd());
-            return ResponseEntity.ok(assets.stream().map(asset -> {
-                Collection<AssetDowntime> downtimes = assetDowntimeService.findByAsset(asset.getId()).stream()
-                        .filter(assetDowntime -> assetDowntime.getDuration() != 0).collect(Collectors.toList());
-                long downtimesDuration =
-                        downtimes.stream().mapToLong(assetDowntime -> assetDowntime.getDateRangeDuration(dateRange)).sum();
-                double totalWOCosts = getCompleteWOCosts(Collections.singleton(asset),
-                        user.getCompany().getCompanySettings().getGeneralPreferences().isLaborCostInTotalCost(),
-                        dateRange);
-                return DowntimesAndCostsByAsset.builder()
-                        .id(asset.getId())
-                        .name(asset.getName())
-                        .duration(downtimesDuration)
-                        .workOrdersCosts(totalWOCosts)
-                        .build();
-            }).collect(Collectors.toList()));
+            return ResponseEntity.ok(assetAnalyticsService.getDowntimesAndCosts(user.getCompany().getId(), dateRange,
+                    user.getCompany().getCompanySettings().getGeneralPreferences().isLaborCostInTotalCost()));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -294,38 +225,19 @@ public class AssetAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getDowntimesByMonth",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<List<DowntimesByDate>> getDowntimesByMonth(@ApiIgnore @CurrentUser OwnUser user,
                                                                      @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            List<DowntimesByDate> result = new ArrayList<>();
-            LocalDate endDateLocale = Helper.dateToLocalDate(dateRange.getEnd());
-            LocalDate currentDate = Helper.dateToLocalDate(dateRange.getStart());
-            LocalDate endDateExclusive = Helper.dateToLocalDate(dateRange.getEnd()).plusDays(1); // Include end date
-            // in the range
-            long totalDaysInRange = ChronoUnit.DAYS.between(Helper.dateToLocalDate(dateRange.getStart()),
-                    endDateExclusive);
-            int points = Math.toIntExact(Math.min(15, totalDaysInRange));
-
-            for (int i = 0; i < points; i++) {
-                LocalDate nextDate = currentDate.plusDays(totalDaysInRange / points); // Distribute evenly over the
-                // range
-                nextDate = nextDate.isAfter(endDateLocale) ? endDateLocale : nextDate; // Adjust for the end date
-                Collection<WorkOrder> completeWorkOrders =
-                        workOrderService.findByCompletedOnBetweenAndCompany(Helper.localDateToDate(currentDate),
-                                        Helper.localDateToDate(nextDate), user.getCompany().getId())
-                                .stream().filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).collect(Collectors.toList());
-                Collection<AssetDowntime> downtimes =
-                        assetDowntimeService.findByStartsOnBetweenAndCompany(Helper.localDateToDate(currentDate),
-                                Helper.localDateToDate(nextDate), user.getCompany().getId());
-                result.add(DowntimesByDate.builder()
-                        .workOrdersCosts(workOrderService.getAllCost(completeWorkOrders,
-                                user.getCompany().getCompanySettings().getGeneralPreferences().isLaborCostInTotalCost()))
-                        .duration(downtimes.stream().mapToLong(AssetDowntime::getDuration).sum())
-                        .date(Helper.localDateToDate(currentDate)).build());
-                currentDate = nextDate;
-            }
+            boolean includeLaborCost =
+                    user.getCompany().getCompanySettings().getGeneralPreferences().isLaborCostInTotalCost();
+            List<DowntimesByDate> result = dailyMetricsService.getDateRangeBuckets(user.getCompany().getId(),
+                    dateRange).stream().map(bucket -> DowntimesByDate.builder()
+                    .workOrdersCosts(bucket.getPartCost() + bucket.getAdditionalCost()
+                            + (includeLaborCost ? bucket.getLaborCost() : 0))
+                    .duration(bucket.getDowntimeSeconds())
+                    .date(bucket.getId().getDay()).build()).collect(Collectors.toList());
             return ResponseEntity.ok(result);
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
@@ -334,7 +246,7 @@ public class AssetAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getDateRangeOverview",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)+'_'+#id"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end, #id)"
     )
     public ResponseEntity<AssetOverview> getDateRangeOverview(@PathVariable Long id, @RequestBody DateRange dateRange
             , @ApiIgnore @CurrentUser OwnUser user) {
@@ -355,11 +267,6 @@ public class AssetAnalyticsController {
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
-    private double getCompleteWOCosts(Collection<Asset> assets, boolean includeLaborCost, DateRange dateRange) {
-        return assets.stream().map(asset -> workOrderService.findByAssetAndCreatedAtBetween(asset.getId(),
-                dateRange.getStart(), dateRange.getEnd()).stream().filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).collect(Collectors.toList())).mapToDouble(workOrder -> workOrderService.getAllCost(workOrder, includeLaborCost)).sum();
-    }
-
     private long getLivingTime(Asset asset, DateRange dateRange) {
         return Helper.getDateDiff(asset.getRealCreatedAt()
                 .before(dateRange.getStart()) ? dateRange.getStart()
@@ -38,12 +38,13 @@ public class PartAnalyticsController {
     private final WorkOrderCategoryService workOrderCategoryService;
     private final WorkOrderService workOrderService;
     private final PartConsumptionService partConsumptionService;
+    private final DailyMetricsService dailyMetricsService;
 
     @PostMapping("/consumptions/overview")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getPartStats",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<PartStats> getPartStats(@ApiIgnore @CurrentUser OwnUser user,
                                                   @RequestBody DateRange dateRange) {
@@ -66,7 +67,7 @@ public class PartAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getPartPareto",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<List<PartConsumptionsByPart>> getPareto(@ApiIgnore @CurrentUser OwnUser user,
                                                                   @RequestBody DateRange dateRange) {
@@ -93,7 +94,7 @@ public class PartAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getConsumptionByAsset",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<PartConsumptionsByAsset>> getConsumptionByAsset(@ApiIgnore @CurrentUser OwnUser user,
                                                                                      @RequestBody DateRange dateRange) {
@@ -123,7 +124,7 @@ public class PartAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getConsumptionByPartCategory",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<PartConsumptionByCategory>> getConsumptionByPartCategory(@ApiIgnore @CurrentUser OwnUser user,
                                                                                               @RequestBody DateRange dateRange) {
@@ -152,7 +153,7 @@ public class PartAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getConsumptionByWOCategory",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<PartConsumptionByWOCategory>> getConsumptionByWOCategory(@ApiIgnore @CurrentUser OwnUser user,
                                                                                               @RequestBody DateRange dateRange) {
@@ -181,33 +182,15 @@ public class PartAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getPartConsumptionsByMonth",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<List<PartConsumptionsByMonth>> getPartConsumptionsByMonth(@ApiIgnore @CurrentUser OwnUser user,
                                                                                     @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            List<PartConsumptionsByMonth> result = new ArrayList<>();
-            LocalDate endDateLocale = Helper.dateToLocalDate(dateRange.getEnd());
-            LocalDate currentDate = Helper.dateToLocalDate(dateRange.getStart());
-            LocalDate endDateExclusive = Helper.dateToLocalDate(dateRange.getEnd()).plusDays(1); // Include end date
-            // in the range
-            long totalDaysInRange = ChronoUnit.DAYS.between(Helper.dateToLocalDate(dateRange.getStart()),
-                    endDateExclusive);
-            int points = Math.toIntExact(Math.min(15, totalDaysInRange));
-
-            for (int i = 0; i < points; i++) {
-                LocalDate nextDate = currentDate.plusDays(totalDaysInRange / points); // Distribute evenly over the
-                // range
-                nextDate = nextDate.isAfter(endDateLocale) ? endDateLocale : nextDate; // Adjust for the end date
-                Collection<PartConsumption> partConsumptions =
-                        partConsumptionService.findByCreatedAtBetweenAndCompany(Helper.localDateToDate(currentDate),
-                                Helper.localDateToDate(nextDate), user.getCompany().getId());
-                double cost = partConsumptions.stream().mapToDouble(PartConsumption::getCost).sum();
-                result.add(PartConsumptionsByMonth.builder()
-                        .cost(cost)
-                        .date(Helper.localDateToDate(currentDate)).build());
-                currentDate = nextDate;
-            }
+            List<PartConsumptionsByMonth> result = dailyMetricsService.getDateRangeBuckets(user.getCompany().getId(),
+                    dateRange).stream().map(bucket -> PartConsumptionsByMonth.builder()
+                    .cost(bucket.getPartConsumptionCost())
+                    .date(bucket.getId().getDay()).build()).collect(Collectors.toList());
             return ResponseEntity.ok(result);
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
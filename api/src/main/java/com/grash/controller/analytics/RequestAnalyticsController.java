@@ -10,6 +10,7 @@ import com.grash.model.WorkOrderCategory;
 import com.grash.model.enums.Priority;
 import com.grash.model.enums.Status;
 import com.grash.security.CurrentUser;
+import com.grash.service.DailyMetricsService;
 import com.grash.service.RequestService;
 import com.grash.service.UserService;
 import com.grash.service.WorkOrderCategoryService;
@@ -42,12 +43,13 @@ public class RequestAnalyticsController {
     private final UserService userService;
     private final WorkOrderCategoryService workOrderCategoryService;
     private final RequestService requestService;
+    private final DailyMetricsService dailyMetricsService;
 
     @PostMapping("/overview")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getRequestStats",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<RequestStats> getRequestStats(@ApiIgnore @CurrentUser OwnUser user,
                                                         @RequestBody DateRange dateRange) {
@@ -77,7 +79,7 @@ public class RequestAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getRequestByPriority",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<RequestStatsByPriority> getByPriority(@ApiIgnore @CurrentUser OwnUser user,
                                                                 @RequestBody DateRange dateRange) {
@@ -112,36 +114,16 @@ public class RequestAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getCycleTimeByMonth",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<List<RequestsByMonth>> getCycleTimeByMonth(@ApiIgnore @CurrentUser OwnUser user,
                                                                      @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            List<RequestsByMonth> result = new ArrayList<>();
-            LocalDate endDateLocale = Helper.dateToLocalDate(dateRange.getEnd());
-            LocalDate currentDate = Helper.dateToLocalDate(dateRange.getStart());
-            LocalDate endDateExclusive = Helper.dateToLocalDate(dateRange.getEnd()).plusDays(1); // Include end date
-            // in the range
-            long totalDaysInRange = ChronoUnit.DAYS.between(Helper.dateToLocalDate(dateRange.getStart()),
-                    endDateExclusive);
-            int points = Math.toIntExact(Math.min(15, totalDaysInRange));
-
-            for (int i = 0; i < points; i++) {
-                LocalDate nextDate = currentDate.plusDays(totalDaysInRange / points); // Distribute evenly over the
-                // range
-                nextDate = nextDate.isAfter(endDateLocale) ? endDateLocale : nextDate; // Adjust for the end date
-                Collection<Request> requests =
-                        requestService.findByCreatedAtBetweenAndCompany(Helper.localDateToDate(currentDate),
-                                Helper.localDateToDate(nextDate), user.getCompany().getId());
-                Collection<Request> completeRequests =
-                        requests.stream().filter(request -> request.getWorkOrder() != null && request.getWorkOrder().getStatus().equals(Status.COMPLETE)).collect(Collectors.toList());
-                long cycleTime =
-                        WorkOrder.getAverageAge(completeRequests.stream().map(Request::getWorkOrder).collect(Collectors.toList()));
-                result.add(RequestsByMonth.builder()
-                        .cycleTime(cycleTime)
-                        .date(Helper.localDateToDate(currentDate)).build());
-                currentDate = nextDate;
-            }
+            List<RequestsByMonth> result = dailyMetricsService.getDateRangeBuckets(user.getCompany().getId(),
+                    dateRange).stream().map(bucket -> RequestsByMonth.builder()
+                    .cycleTime(bucket.getRequestCycleCount() == 0 ? 0 :
+                            bucket.getRequestCycleDays() / bucket.getRequestCycleCount())
+                    .date(bucket.getId().getDay()).build()).collect(Collectors.toList());
             return ResponseEntity.ok(result);
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
@@ -150,7 +132,7 @@ public class RequestAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getRequestCountsByCategory",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<CountByCategory>> getCountsByCategory(@ApiIgnore @CurrentUser OwnUser user,
                                                                            @RequestBody DateRange dateRange) {
@@ -175,7 +157,7 @@ public class RequestAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getReceivedAndResolvedRequests",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<List<RequestsResolvedByDate>> getReceivedAndResolvedForDateRange(@ApiIgnore @CurrentUser OwnUser user,
                                                                                            @RequestBody DateRange dateRange) {
@@ -39,7 +39,7 @@ public class UserAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getUserWOStats",
-            key = "#user.id"
+            key = "T(com.grash.utils.CacheKeyUtils).userKey(#user)"
     )
     public ResponseEntity<UserWOStats> getWOStats(@ApiIgnore @CurrentUser OwnUser user) {
         Collection<WorkOrder> createdWorkOrders = workOrderService.findByCreatedBy(user.getId());
@@ -4,20 +4,14 @@ import com.grash.dto.DateRange;
 import com.grash.dto.analytics.workOrders.*;
 import com.grash.exception.CustomException;
 import com.grash.model.*;
-import com.grash.model.abstracts.Time;
-import com.grash.model.abstracts.WorkOrderBase;
 import com.grash.model.enums.Priority;
 import com.grash.model.enums.Status;
-import com.grash.model.envers.WorkOrderAud;
-import com.grash.repository.WorkOrderAudRepository;
 import com.grash.security.CurrentUser;
 import com.grash.service.*;
 import com.grash.utils.Helper;
 import io.swagger.annotations.Api;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.util.Pair;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -29,7 +23,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -41,39 +34,22 @@ import java.util.stream.Collectors;
 public class WOAnalyticsController {
 
     private final WorkOrderService workOrderService;
-    private final WorkOrderAudRepository workOrderAudRepository;
     private final UserService userService;
-    private final LaborService laborService;
-    private final WorkOrderCategoryService workOrderCategoryService;
+    private final DailyMetricsService dailyMetricsService;
+    private final WorkOrderAnalyticsService workOrderAnalyticsService;
     private final AssetService assetService;
 
     @PostMapping("/complete/overview")
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getCompleteStats",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<WOStats> getCompleteStats(@ApiIgnore @CurrentUser OwnUser user,
                                                     @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Collection<WorkOrder> workOrders =
-                    workOrderService.findByCompanyAndCreatedAtBetween(user.getCompany().getId(), dateRange.getStart()
-                            , dateRange.getEnd());
-            Collection<WorkOrder> completedWO =
-                    workOrders.stream().filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).collect(Collectors.toList());
-            Collection<WorkOrder> withFirstTimeToReactWO =
-                    workOrders.stream().filter(workOrder -> workOrder.getFirstTimeToReact() != null).collect(Collectors.toList());
-            int total = workOrders.size();
-            int complete = completedWO.size();
-            int compliant = (int) completedWO.stream().filter(WorkOrder::isCompliant).count();
-            long mtta = withFirstTimeToReactWO.isEmpty() ? 0 : withFirstTimeToReactWO.stream().mapToLong(workOrder ->
-                    Helper.getDateDiff(workOrder.getCreatedAt(), workOrder.getFirstTimeToReact(), TimeUnit.HOURS)).sum() / withFirstTimeToReactWO.size();
-            return ResponseEntity.ok(WOStats.builder()
-                    .total(total)
-                    .complete(complete)
-                    .compliant(compliant)
-                    .mtta(mtta)
-                    .avgCycleTime(WorkOrder.getAverageAge(completedWO)).build());
+            return ResponseEntity.ok(workOrderAnalyticsService.getCompleteStats(user.getCompany().getId(),
+                    dateRange.getStart(), dateRange.getEnd()));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -146,24 +122,13 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getIncompleteStats",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<WOIncompleteStats> getIncompleteStats(@ApiIgnore @CurrentUser OwnUser user,
                                                                 @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Collection<WorkOrder> workOrders =
-                    workOrderService.findByCompanyAndCreatedAtBetween(user.getCompany().getId(), dateRange.getStart()
-                            , dateRange.getEnd());
-            Collection<WorkOrder> incompleteWO =
-                    workOrders.stream().filter(workOrder -> !workOrder.getStatus().equals(Status.COMPLETE)).collect(Collectors.toList());
-            int total = incompleteWO.size();
-            List<Long> ages = incompleteWO.stream().map(workOrder -> Helper.getDateDiff(workOrder.getRealCreatedAt(),
-                    new Date(), TimeUnit.DAYS)).collect(Collectors.toList());
-            int averageAge = ages.size() == 0 ? 0 : ages.stream().mapToInt(Long::intValue).sum() / ages.size();
-            return ResponseEntity.ok(WOIncompleteStats.builder()
-                    .total(total)
-                    .averageAge(averageAge)
-                    .build());
+            return ResponseEntity.ok(workOrderAnalyticsService.getIncompleteStats(user.getCompany().getId(),
+                    dateRange.getStart(), dateRange.getEnd()));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -171,50 +136,13 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getIncompleteByPriority",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<WOStatsByPriority> getIncompleteByPriority(@ApiIgnore @CurrentUser OwnUser user,
                                                                      @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Collection<WorkOrder> workOrders =
-                    workOrderService.findByCompanyAndCreatedAtBetween(user.getCompany().getId(), dateRange.getStart()
-                            , dateRange.getEnd());
-            Collection<WorkOrder> incompleteWO =
-                    workOrders.stream().filter(workOrder -> !workOrder.getStatus().equals(Status.COMPLETE)).collect(Collectors.toList());
-
-            Pair<Integer, Double> highValues = getCountsAndEstimatedDurationByPriority(Priority.HIGH, incompleteWO);
-            Pair<Integer, Double> noneValues = getCountsAndEstimatedDurationByPriority(Priority.NONE, incompleteWO);
-            Pair<Integer, Double> lowValues = getCountsAndEstimatedDurationByPriority(Priority.LOW, incompleteWO);
-            Pair<Integer, Double> mediumValues = getCountsAndEstimatedDurationByPriority(Priority.MEDIUM, incompleteWO);
-
-            int highCounts = highValues.getFirst();
-            double highEstimatedDurations = highValues.getSecond();
-            int mediumCounts = mediumValues.getFirst();
-            double mediumEstimatedDurations = mediumValues.getSecond();
-            int lowCounts = lowValues.getFirst();
-            double lowEstimatedDurations = lowValues.getSecond();
-            int noneCounts = noneValues.getFirst();
-            double noneEstimatedDurations = noneValues.getSecond();
-
-            return ResponseEntity.ok(WOStatsByPriority.builder()
-                    .high(WOStatsByPriority.BasicStats.builder()
-                            .count(highCounts)
-                            .estimatedHours(highEstimatedDurations)
-                            .build())
-                    .none(WOStatsByPriority.BasicStats.builder()
-                            .count(noneCounts)
-                            .estimatedHours(noneEstimatedDurations)
-                            .build())
-                    .low(WOStatsByPriority.BasicStats.builder()
-                            .count(lowCounts)
-                            .estimatedHours(lowEstimatedDurations)
-                            .build())
-                    .medium(WOStatsByPriority.BasicStats.builder()
-                            .count(mediumCounts)
-                            .estimatedHours(mediumEstimatedDurations)
-                            .build())
-                    .build());
-
+            return ResponseEntity.ok(workOrderAnalyticsService.getIncompleteByPriority(user.getCompany().getId(),
+                    dateRange.getStart(), dateRange.getEnd()));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -222,23 +150,13 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getWOStatuses",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<WOStatuses> getWOStatuses(@ApiIgnore @CurrentUser OwnUser user,
                                                     @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Collection<WorkOrder> workOrders =
-                    workOrderService.findByCompanyAndCreatedAtBetween(user.getCompany().getId(), dateRange.getStart()
-                            , dateRange.getEnd());
-            Collection<WorkOrder> incompleteWO =
-                    workOrders.stream().filter(workOrder -> !workOrder.getStatus().equals(Status.COMPLETE)).collect(Collectors.toList());
-
-            return ResponseEntity.ok(WOStatuses.builder()
-                    .open(getWOCountsByStatus(Status.OPEN, incompleteWO))
-                    .inProgress(getWOCountsByStatus(Status.IN_PROGRESS, incompleteWO))
-                    .onHold(getWOCountsByStatus(Status.ON_HOLD, incompleteWO))
-                    .complete(getWOCountsByStatus(Status.COMPLETE, incompleteWO))
-                    .build());
+            return ResponseEntity.ok(workOrderAnalyticsService.getIncompleteStatuses(user.getCompany().getId(),
+                    dateRange.getStart(), dateRange.getEnd()));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -246,7 +164,7 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getIncompleteByAsset",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<IncompleteWOByAsset>> getIncompleteByAsset(@ApiIgnore @CurrentUser OwnUser user,
                                                                                 @RequestBody DateRange dateRange) {
@@ -276,7 +194,7 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getIncompleteByUser",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<IncompleteWOByUser>> getIncompleteByUser(@ApiIgnore @CurrentUser OwnUser user,
                                                                               @RequestBody DateRange dateRange) {
@@ -307,22 +225,12 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getWOHours",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<WOHours> getHours(@ApiIgnore @CurrentUser OwnUser user, @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Collection<WorkOrder> workOrders =
-                    workOrderService.findByCompanyAndCreatedAtBetween(user.getCompany().getId(), dateRange.getStart()
-                            , dateRange.getEnd());
-            double estimated =
-                    workOrders.stream().map(WorkOrderBase::getEstimatedDuration).mapToDouble(value -> value).sum();
-            Collection<Labor> labors = new ArrayList<>();
-            workOrders.forEach(workOrder -> labors.addAll(laborService.findByWorkOrder(workOrder.getId())));
-            int actual = labors.stream().map(Labor::getDuration).mapToInt(Math::toIntExact).sum() / 3600;
-            return ResponseEntity.ok(WOHours.builder()
-                    .estimated(estimated)
-                    .actual(actual)
-                    .build());
+            return ResponseEntity.ok(workOrderAnalyticsService.getHours(user.getCompany().getId(),
+                    dateRange.getStart(), dateRange.getEnd()));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -330,7 +238,7 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getWOCountsByUser",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<WOCountByUser>> getCountsByUser(@ApiIgnore @CurrentUser OwnUser user,
                                                                      @RequestBody DateRange dateRange) {
@@ -356,7 +264,7 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getWOCountsByCompletedBy",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<WOCountByUser>> getCountsByCompletedBy(@ApiIgnore @CurrentUser OwnUser user,
                                                                             @RequestBody DateRange dateRange) {
@@ -382,20 +290,13 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getWOCountsByPriority",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Map<Priority, Integer>> getCountsByPriority(@ApiIgnore @CurrentUser OwnUser user,
                                                                       @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Priority[] priorities = Priority.values();
-            Map<Priority, Integer> results = new HashMap<>();
-            Arrays.asList(priorities).forEach(priority -> {
-                int count = (int) workOrderService.findByPriorityAndCompanyAndCreatedAtBetween(priority,
-                                user.getCompany().getId(), dateRange.getStart(), dateRange.getEnd()).stream()
-                        .filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).count();
-                results.put(priority, count);
-            });
-            return ResponseEntity.ok(results);
+            return ResponseEntity.ok(workOrderAnalyticsService.getCompleteCountsByPriority(user.getCompany().getId(),
+                    dateRange.getStart(), dateRange.getEnd()));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -403,25 +304,13 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getWOCountsByCategory",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<Collection<WOCountByCategory>> getCountsByCategory(@ApiIgnore @CurrentUser OwnUser user,
                                                                              @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Collection<WorkOrderCategory> categories =
-                    workOrderCategoryService.findByCompanySettings(user.getCompany().getCompanySettings().getId());
-            Collection<WOCountByCategory> results = new ArrayList<>();
-            categories.forEach(category -> {
-                int count = (int) workOrderService.findByCategoryAndCreatedAtBetween(category.getId(),
-                                dateRange.getStart(), dateRange.getEnd()).stream()
-                        .filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).count();
-                results.add(WOCountByCategory.builder()
-                        .name(category.getName())
-                        .id(category.getId())
-                        .count(count)
-                        .build());
-            });
-            return ResponseEntity.ok(results);
+            return ResponseEntity.ok(workOrderAnalyticsService.getCompleteCountsByCategory(user.getCompany().getId(),
+                    user.getCompany().getCompanySettings().getId(), dateRange.getStart(), dateRange.getEnd()));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -429,28 +318,21 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getWOCompleteByWeek",
-            key = "#user.id"
+            key = "T(com.grash.utils.CacheKeyUtils).userKey(#user)"
     )
     public ResponseEntity<List<WOCountByWeek>> getCompleteByWeek(@ApiIgnore @CurrentUser OwnUser user) {
         if (user.canSeeAnalytics()) {
+            List<LocalDate> boundaries = getWeekBoundaries();
+            List<CompanyDailyMetric> weeks = dailyMetricsService.getBuckets(user.getCompany().getId(), boundaries);
             List<WOCountByWeek> result = new ArrayList<>();
-            LocalDate previousMonday =
-                    LocalDate.now(ZoneId.of("UTC"));
-            // .with(TemporalAdjusters.previous(DayOfWeek.MONDAY));
-            for (int i = 0; i < 5; i++) {
-                Collection<WorkOrder> completeWorkOrders =
-                        workOrderService.findByCompletedOnBetweenAndCompany(Helper.localDateToDate(previousMonday.minusDays(7)), Helper.localDateToDate(previousMonday), user.getCompany().getId())
-                                .stream().filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).collect(Collectors.toList());
-                int compliant = (int) completeWorkOrders.stream().filter(WorkOrder::isCompliant).count();
-                int reactive = (int) completeWorkOrders.stream().filter(WorkOrder::isReactive).count();
+            for (int i = 0; i < weeks.size(); i++) {
+                CompanyDailyMetric week = weeks.get(i);
                 result.add(WOCountByWeek.builder()
-                        .count(completeWorkOrders.size())
-                        .compliant(compliant)
-                        .reactive(reactive)
-                        .date(Helper.localDateToDate(previousMonday)).build());
-                previousMonday = previousMonday.minusDays(7);
+                        .count(Math.toIntExact(week.getWoCompleted()))
+                        .compliant(Math.toIntExact(week.getWoCompliant()))
+                        .reactive(Math.toIntExact(week.getWoReactive()))
+                        .date(Helper.localDateToDate(boundaries.get(i + 1))).build());
             }
-            Collections.reverse(result);
             return ResponseEntity.ok(result);
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
@@ -459,30 +341,20 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getWOCompleteTimeByWeek",
-            key = "#user.id"
+            key = "T(com.grash.utils.CacheKeyUtils).userKey(#user)"
     )
     public ResponseEntity<List<WOTimeByWeek>> getCompleteTimeByWeek(@ApiIgnore @CurrentUser OwnUser user) {
         if (user.canSeeAnalytics()) {
+            List<LocalDate> boundaries = getWeekBoundaries();
+            List<CompanyDailyMetric> weeks = dailyMetricsService.getBuckets(user.getCompany().getId(), boundaries);
             List<WOTimeByWeek> result = new ArrayList<>();
-            LocalDate previousMonday =
-                    LocalDate.now(ZoneId.of("UTC"));
-            // .with(TemporalAdjusters.previous(DayOfWeek.MONDAY));
-            for (int i = 0; i < 5; i++) {
-                Collection<WorkOrder> completeWorkOrders =
-                        workOrderService.findByCompletedOnBetweenAndCompany(Helper.localDateToDate(previousMonday.minusDays(7)), Helper.localDateToDate(previousMonday), user.getCompany().getId())
-                                .stream().filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).collect(Collectors.toList());
-                Collection<WorkOrder> reactiveWorkOrders =
-                        completeWorkOrders.stream().filter(WorkOrder::isReactive).collect(Collectors.toList());
-
-                long total = getTime(completeWorkOrders);
-                long reactive = getTime(reactiveWorkOrders);
+            for (int i = 0; i < weeks.size(); i++) {
+                CompanyDailyMetric week = weeks.get(i);
                 result.add(WOTimeByWeek.builder()
-                        .total(total)
-                        .reactive(reactive)
-                        .date(Helper.localDateToDate(previousMonday)).build());
-                previousMonday = previousMonday.minusDays(7);
+                        .total(week.getLaborSeconds())
+                        .reactive(week.getReactiveLaborSeconds())
+                        .date(Helper.localDateToDate(boundaries.get(i + 1))).build());
             }
-            Collections.reverse(result);
             return ResponseEntity.ok(result);
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
@@ -491,27 +363,13 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getWOCompleteCostsAndTime",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<WOCostsAndTime> getCompleteCostsAndTime(@ApiIgnore @CurrentUser OwnUser user,
                                                                   @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            Collection<WorkOrder> completeWorkOrders = workOrderService.findByCompanyAndCreatedAtBetween(
-                    user.getCompany().getId(), dateRange.getStart(), dateRange.getEnd()).stream().filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).collect(Collectors.toList());
-            double additionalCost = workOrderService.getAdditionalCost(completeWorkOrders);
-            long laborCost = workOrderService.getLaborCostAndTime(completeWorkOrders).getFirst();
-            long laborTime = workOrderService.getLaborCostAndTime(completeWorkOrders).getSecond();
-            double partCost = workOrderService.getPartCost(completeWorkOrders);
-            double total = laborCost + partCost + additionalCost;
-
-            return ResponseEntity.ok(WOCostsAndTime.builder()
-                    .total(total)
-                    .average(completeWorkOrders.size() == 0 ? 0 : total / completeWorkOrders.size())
-                    .additionalCost(additionalCost)
-                    .laborCost(laborCost)
-                    .partCost(partCost)
-                    .laborTime(laborTime)
-                    .build());
+            return ResponseEntity.ok(workOrderAnalyticsService.getCompleteCostsAndTime(user.getCompany().getId(),
+                    dateRange.getStart(), dateRange.getEnd()));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
@@ -519,35 +377,17 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getWOCompleteCostsByDate",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<List<WOCostsByDate>> getCompleteCostsByDate(@ApiIgnore @CurrentUser OwnUser user,
                                                                       @RequestBody DateRange dateRange) {
         if (user.canSeeAnalytics()) {
-            LocalDate endDateLocale = Helper.dateToLocalDate(dateRange.getEnd());
-            List<WOCostsByDate> result = new ArrayList<>();
-            LocalDate currentDate = Helper.dateToLocalDate(dateRange.getStart());
-            LocalDate endDateExclusive = Helper.dateToLocalDate(dateRange.getEnd()).plusDays(1); // Include end date
-            // in the range
-            long totalDaysInRange = ChronoUnit.DAYS.between(Helper.dateToLocalDate(dateRange.getStart()),
-                    endDateExclusive);
-            int points = Math.toIntExact(Math.min(15, totalDaysInRange));
-
-            for (int i = 0; i < points; i++) {
-                LocalDate nextDate = currentDate.plusDays(totalDaysInRange / points); // Distribute evenly over the
-                // range
-                nextDate = nextDate.isAfter(endDateLocale) ? endDateLocale : nextDate; // Adjust for the end date
-                Collection<WorkOrder> completeWorkOrders =
-                        workOrderService.findByCompletedOnBetweenAndCompany(Helper.localDateToDate(currentDate),
-                                        Helper.localDateToDate(nextDate), user.getCompany().getId())
-                                .stream().filter(workOrder -> workOrder.getStatus().equals(Status.COMPLETE)).collect(Collectors.toList());
-                result.add(WOCostsByDate.builder()
-                        .additionalCost(workOrderService.getAdditionalCost(completeWorkOrders))
-                        .laborCost(workOrderService.getLaborCostAndTime(completeWorkOrders).getFirst())
-                        .partCost(workOrderService.getPartCost(completeWorkOrders))
-                        .date(Helper.localDateToDate(currentDate)).build());
-                currentDate = nextDate;
-            }
+            List<WOCostsByDate> result = dailyMetricsService.getDateRangeBuckets(user.getCompany().getId(),
+                    dateRange).stream().map(bucket -> WOCostsByDate.builder()
+                    .additionalCost(bucket.getAdditionalCost())
+                    .laborCost(bucket.getLaborCost())
+                    .partCost(bucket.getPartCost())
+                    .date(bucket.getId().getDay()).build()).collect(Collectors.toList());
             return ResponseEntity.ok(result);
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
@@ -556,69 +396,25 @@ public class WOAnalyticsController {
     @PreAuthorize("hasRole('ROLE_CLIENT')")
     @Cacheable(
             value = "getWOStatusesByDate",
-            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user.id, #dateRange.start, #dateRange.end)"
+            key = "T(com.grash.utils.CacheKeyUtils).dateRangeKey(#user, #dateRange.start, #dateRange.end)"
     )
     public ResponseEntity<List<WOStatusesByDate>> getReceivedAndResolvedForDateRange(@ApiIgnore @CurrentUser OwnUser user,
                                                                                      @RequestBody DateRange dateRange) {
-        LocalDate endDateLocale = Helper.dateToLocalDate(dateRange.getEnd());
         if (user.canSeeAnalytics()) {
-            List<WOStatusesByDate> result = new ArrayList<>();
-            LocalDate currentDate = Helper.dateToLocalDate(dateRange.getStart());
-            LocalDate endDateExclusive = Helper.dateToLocalDate(dateRange.getEnd()).plusDays(1); // Include end date
-            // in the range
-            long totalDaysInRange = ChronoUnit.DAYS.between(Helper.dateToLocalDate(dateRange.getStart()),
-                    endDateExclusive);
-            int points = Math.toIntExact(Math.min(15, totalDaysInRange));
-
-            for (int i = 0; i < points; i++) {
-                LocalDate nextDate = currentDate.plusDays(totalDaysInRange / points); // Distribute evenly over the
-                // range
-                nextDate = nextDate.isAfter(endDateLocale) ? endDateLocale : nextDate; // Adjust for the end date
-                Collection<WorkOrder> workOrders =
-                        workOrderService.findByCompanyAndCreatedAtBetween(user.getCompany().getId(),
-                                dateRange.getStart(), Helper.localDateToDate(nextDate));
-                LocalDate finalNextDate = nextDate;
-                Collection<Status> statuses = workOrders.stream().map(workOrder -> {
-                    List<WorkOrderAud> workOrderAuds = workOrderAudRepository.findLastByIdAndDate(workOrder.getId(),
-                            Helper.localDateToDate(finalNextDate).getTime(), PageRequest.of(0, 1));
-                    if (workOrderAuds.isEmpty()) return workOrder.getStatus();
-                    else return workOrderAuds.get(0).getStatus();
-                }).filter(Objects::nonNull).collect(Collectors.toList());
-
-                result.add(WOStatusesByDate.builder()
-                        .open((int) statuses.stream().filter(status -> status.equals(Status.OPEN)).count())
-                        .onHold((int) statuses.stream().filter(status -> status.equals(Status.ON_HOLD)).count())
-                        .inProgress((int) statuses.stream().filter(status -> status.equals(Status.IN_PROGRESS)).count())
-                        .complete((int) statuses.stream().filter(status -> status.equals(Status.COMPLETE)).count())
-                        .date(Helper.localDateToDate(currentDate))
-                        .build());
-                currentDate = nextDate; // Move to the next segment
-            }
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok(workOrderAnalyticsService.getStatusesByDate(user.getCompany().getId(),
+                    dateRange.getStart(), dateRange.getEnd()));
         } else throw new CustomException("Access Denied", HttpStatus.FORBIDDEN);
     }
 
-    private Pair<Integer, Double> getCountsAndEstimatedDurationByPriority(Priority priority,
-                                                                          Collection<WorkOrder> workOrders) {
-        Collection<WorkOrder> priorityWO =
-                workOrders.stream().filter(workOrder -> workOrder.getPriority().equals(priority)).collect(Collectors.toList());
-        int priorityCounts = priorityWO.size();
-        double priorityEstimatedDurations =
-                priorityWO.stream().map(WorkOrderBase::getEstimatedDuration).mapToDouble(value -> value).sum();
-        return Pair.of(priorityCounts, priorityEstimatedDurations);
-    }
-
-    private int getWOCountsByStatus(Status status, Collection<WorkOrder> workOrders) {
-        Collection<WorkOrder> statusWO =
-                workOrders.stream().filter(workOrder -> workOrder.getStatus().equals(status)).collect(Collectors.toList());
-        return statusWO.size();
-    }
-
-    private long getTime(Collection<WorkOrder> workOrders) {
-        Collection<Labor> labors = new ArrayList<>();
-        workOrders.forEach(workOrder -> {
-            labors.addAll(laborService.findByWorkOrder(workOrder.getId()));
-        });
-        return labors.stream().mapToLong(Time::getDuration).sum();
+    /**
+     * Boundaries of the last 5 weeks, the most recent one ending today
+     */
+    private List<LocalDate> getWeekBoundaries() {
+        LocalDate today = LocalDate.now(ZoneId.of("UTC"));
+        List<LocalDate> boundaries = new ArrayList<>();
+        for (int i = 5; i >= 0; i--) {
+            boundaries.add(today.minusDays(7L * i));
+        }
+        return boundaries;
     }
 }
@@ -0,0 +1,25 @@
+package com.grash.dto;
+
+import com.grash.model.enums.ExportEntity;
+import com.grash.model.enums.ExportJobStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Date;
+
+@Data
+@Builder
+public class ExportJobShowDTO {
+    private Long id;
+    private ExportEntity entity;
+    private ExportJobStatus status;
+    private long totalRows;
+    private long writtenRows;
+    private String error;
+    private Date createdAt;
+    private Date completedOn;
+    /**
+     * Signed url of the file once the job is complete, a new one is generated every time the job is read
+     */
+    private String url;
+}
@@ -0,0 +1,31 @@
+package com.grash.dto;
+
+import com.grash.dto.imports.ImportError;
+import com.grash.model.enums.ImportEntity;
+import com.grash.model.enums.ImportJobStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Date;
+import java.util.List;
+
+@Data
+@Builder
+public class ImportJobShowDTO {
+    private Long id;
+    private ImportEntity entity;
+    private ImportJobStatus status;
+    private long totalRows;
+    private long processedRows;
+    private long created;
+    private long updated;
+    private long errorCount;
+    private String error;
+    private Date createdAt;
+    private Date completedOn;
+    /**
+     * The first rows that could not be imported, their row is the line of the record in the file. Only sent once
+     * the job is finished
+     */
+    private List<ImportError> errors;
+}
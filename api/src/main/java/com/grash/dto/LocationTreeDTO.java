@@ -0,0 +1,39 @@
+package com.grash.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Row of the location tree, selected column by column so that listing it never loads the associations of a location
+ */
+@Data
+@NoArgsConstructor
+public class LocationTreeDTO {
+
+    private Long id;
+
+    private String customId;
+
+    private String name;
+
+    private String address;
+
+    private Double longitude;
+
+    private Double latitude;
+
+    private Long parentId;
+
+    private boolean hasChildren;
+
+    public LocationTreeDTO(Long id, String customId, String name, String address, Double longitude, Double latitude,
+                           Long parentId) {
+        this.id = id;
+        this.customId = customId;
+        this.name = name;
+        this.address = address;
+        this.longitude = longitude;
+        this.latitude = latitude;
+        this.parentId = parentId;
+    }
+}
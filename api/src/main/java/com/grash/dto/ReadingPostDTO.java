@@ -0,0 +1,20 @@
+package com.grash.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+@Data
+public class ReadingPostDTO {
+    @NotNull
+    private Long meterId;
+
+    @NotNull
+    private Double value;
+
+    /**
+     * When the value was read, now when null
+     */
+    private Date timestamp;
+}
@@ -0,0 +1,18 @@
+package com.grash.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookConfigMiniDTO {
+    private Long companyId;
+
+    private boolean enabled;
+
+    private Integer requestsPerMinute;
+
+    private Integer requestsPerHour;
+}
@@ -0,0 +1,17 @@
+package com.grash.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.Min;
+
+@Data
+public class WebhookRateLimitPatchDTO {
+    /**
+     * Null for the default, zero for no limit
+     */
+    @Min(0)
+    private Integer requestsPerMinute;
+
+    @Min(0)
+    private Integer requestsPerHour;
+}
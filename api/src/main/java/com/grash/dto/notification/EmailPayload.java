@@ -0,0 +1,17 @@
+package com.grash.dto.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An already rendered HTML email
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailPayload {
+    private String[] to;
+    private String subject;
+    private String htmlBody;
+}
@@ -0,0 +1,21 @@
+package com.grash.dto.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A push notification for the devices of some users, their tokens are resolved when it is sent
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PushNotificationPayload {
+    private List<Long> userIds;
+    private String title;
+    private String body;
+    private Map<String, Object> data;
+}
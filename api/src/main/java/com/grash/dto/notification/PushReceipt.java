@@ -0,0 +1,16 @@
+package com.grash.dto.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Final delivery status of a ticket, the error is null when the message was delivered
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PushReceipt {
+    private String ticketId;
+    private String error;
+}
@@ -0,0 +1,20 @@
+package com.grash.dto.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Answer of the push service for one message: the id to poll its receipt with, or the error
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PushTicket {
+    private String id;
+    private String error;
+
+    public boolean isOk() {
+        return error == null;
+    }
+}
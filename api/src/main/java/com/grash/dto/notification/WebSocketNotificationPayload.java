@@ -0,0 +1,17 @@
+package com.grash.dto.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Saved notifications to send to the WebSocket topic of their user
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketNotificationPayload {
+    private List<Long> notificationIds;
+}
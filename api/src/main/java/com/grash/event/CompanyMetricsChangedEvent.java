@@ -0,0 +1,26 @@
+package com.grash.event;
+
+import lombok.Data;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Published when a write may change the daily analytics of a company. The dates are the instants whose day
+ * must be recomputed, null dates are ignored.
+ */
+@Getter
+@Data
+public class CompanyMetricsChangedEvent {
+    private final Long companyId;
+    private final Collection<Date> dates;
+
+    public CompanyMetricsChangedEvent(Long companyId, Date... dates) {
+        this.companyId = companyId;
+        this.dates = Arrays.stream(dates).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,19 @@
+package com.grash.event;
+
+import com.grash.model.enums.NotificationChannel;
+import lombok.Data;
+import lombok.Getter;
+
+/**
+ * Published when an entry is added to the notification outbox, so that it is dispatched right after the commit
+ * rather than at the next poll.
+ */
+@Getter
+@Data
+public class NotificationOutboxEvent {
+    private final NotificationChannel channel;
+
+    public NotificationOutboxEvent(NotificationChannel channel) {
+        this.channel = channel;
+    }
+}
@@ -0,0 +1,16 @@
+package com.grash.event;
+
+import com.grash.model.enums.workflow.WFMainCondition;
+import lombok.Data;
+
+/**
+ * Published when workflow triggers are written for an entity meeting the main condition of workflows, so that the
+ * workflow executor applies their actions as soon as the change is committed. The entity is the work order, request,
+ * purchase order, part or task the main condition is about.
+ */
+@Data
+public class WorkflowTriggeredEvent {
+    private final WFMainCondition mainCondition;
+    private final Long companyId;
+    private final Long entityId;
+}
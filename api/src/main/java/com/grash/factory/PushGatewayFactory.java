@@ -0,0 +1,28 @@
+package com.grash.factory;
+
+import com.grash.model.enums.PushGatewayType;
+import com.grash.service.ExpoPushGateway;
+import com.grash.service.LocalPushGateway;
+import com.grash.service.PushGateway;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@RequiredArgsConstructor
+public class PushGatewayFactory {
+    @Value("${push.gateway:EXPO}")
+    private PushGatewayType pushGatewayType;
+
+    private final ExpoPushGateway expoPushGateway;
+    private final LocalPushGateway localPushGateway;
+
+    public PushGateway getPushGateway() {
+        switch (pushGatewayType) {
+            case LOCAL:
+                return localPushGateway;
+            default:
+                return expoPushGateway;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.grash.job;
+
+import com.grash.repository.CompanyRepository;
+import com.grash.service.DailyMetricsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@DisallowConcurrentExecution
+public class DailyMetricsReconciliationJob implements Job {
+
+    private final CompanyRepository companyRepository;
+    private final DailyMetricsService dailyMetricsService;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        log.info("Reconciling daily metrics");
+        companyRepository.findAllIds().forEach(companyId -> {
+            try {
+                dailyMetricsService.reconcile(companyId);
+            } catch (Exception e) {
+                log.error("Failed to reconcile the daily metrics of company {}", companyId, e);
+            }
+        });
+        log.info("Reconciled daily metrics");
+    }
+}
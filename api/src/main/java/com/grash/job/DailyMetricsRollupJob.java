@@ -0,0 +1,41 @@
+package com.grash.job;
+
+import com.grash.cache.AnalyticsCacheInvalidator;
+import com.grash.model.CompanyDailyMetricId;
+import com.grash.service.DailyMetricsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@DisallowConcurrentExecution
+public class DailyMetricsRollupJob implements Job {
+
+    private final DailyMetricsService dailyMetricsService;
+    private final AnalyticsCacheInvalidator analyticsCacheInvalidator;
+
+    @Value("${analytics.rollup.batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        for (CompanyDailyMetricId dirtyDay : dailyMetricsService.findDirty(batchSize)) {
+            try {
+                if (dailyMetricsService.rebuildDirty(dirtyDay)) {
+                    // results computed from the stale rollup could have been cached since the write
+                    analyticsCacheInvalidator.invalidateCompany(dirtyDay.getCompanyId());
+                }
+            } catch (Exception e) {
+                // the day stays dirty and is retried on the next run
+                log.error("Failed to rebuild the daily metrics of company {} on {}", dirtyDay.getCompanyId(),
+                        dirtyDay.getDay(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.grash.job;
+
+import com.grash.service.DeadlineDispatcher;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class DeadlineDispatchJob implements Job {
+
+    private final DeadlineDispatcher deadlineDispatcher;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        deadlineDispatcher.dispatchDue();
+    }
+}
@@ -0,0 +1,21 @@
+package com.grash.job;
+
+import com.grash.service.ExportJobService;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class ExportJobCleanupJob implements Job {
+
+    private final ExportJobService exportJobService;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        exportJobService.failInterruptedJobs();
+    }
+}
@@ -0,0 +1,21 @@
+package com.grash.job;
+
+import com.grash.service.ImportJobService;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class ImportJobRecoveryJob implements Job {
+
+    private final ImportJobService importJobService;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        importJobService.resumeInterruptedJobs();
+    }
+}
@@ -0,0 +1,21 @@
+package com.grash.job;
+
+import com.grash.service.NotificationOutboxDispatcher;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class NotificationOutboxJob implements Job {
+
+    private final NotificationOutboxDispatcher notificationOutboxDispatcher;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        notificationOutboxDispatcher.dispatchAll();
+    }
+}
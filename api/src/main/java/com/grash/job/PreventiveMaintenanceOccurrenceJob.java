@@ -0,0 +1,21 @@
+package com.grash.job;
+
+import com.grash.service.PreventiveMaintenanceOccurrenceService;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class PreventiveMaintenanceOccurrenceJob implements Job {
+
+    private final PreventiveMaintenanceOccurrenceService preventiveMaintenanceOccurrenceService;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        preventiveMaintenanceOccurrenceService.rollForward();
+    }
+}
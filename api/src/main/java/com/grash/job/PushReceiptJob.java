@@ -0,0 +1,21 @@
+package com.grash.job;
+
+import com.grash.service.PushReceiptService;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class PushReceiptJob implements Job {
+
+    private final PushReceiptService pushReceiptService;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        pushReceiptService.processReceipts();
+    }
+}
@@ -0,0 +1,21 @@
+package com.grash.job;
+
+import com.grash.service.GrafanaWebhookService;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class WebhookAlertJob implements Job {
+
+    private final GrafanaWebhookService grafanaWebhookService;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        grafanaWebhookService.processAll();
+    }
+}
@@ -43,6 +43,11 @@ public class WorkOrderCreationJob extends QuartzJobBean {
             return;
         }
         scheduleService.checkIfWeeklyShouldRun(schedule);
+        // Stop generating work orders nobody reacts to
+        if (scheduleService.disableIfStale(schedule)) {
+            log.info("Disabled stale schedule {}", scheduleId);
+            return;
+        }
         
         PreventiveMaintenance preventiveMaintenance = schedule.getPreventiveMaintenance();
 
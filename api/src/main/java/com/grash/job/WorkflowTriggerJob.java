@@ -0,0 +1,21 @@
+package com.grash.job;
+
+import com.grash.service.WorkflowExecutor;
+import lombok.RequiredArgsConstructor;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@DisallowConcurrentExecution
+public class WorkflowTriggerJob implements Job {
+
+    private final WorkflowExecutor workflowExecutor;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        workflowExecutor.executeAll();
+    }
+}
@@ -25,7 +25,11 @@ public interface AssetMapper {
     @Mappings({})
     AssetPatchDTO toPatchDto(Asset model);
 
-    AssetShowDTO toShowDto(Asset model, @Context AssetService assetService);
+    AssetShowDTO toShowDto(Asset model, @Context ChildCounts childCounts);
+
+    default AssetShowDTO toShowDto(Asset model, AssetService assetService) {
+        return toShowDto(model, assetService.getChildCounts(Collections.singletonList(model)));
+    }
 
     @Mapping(target = "parentId", source = "parentAsset.id")
     @Mapping(target = "locationId", source = "location.id")
@@ -33,8 +37,8 @@ public interface AssetMapper {
 
     @AfterMapping
     default AssetShowDTO toShowDto(Asset model, @MappingTarget AssetShowDTO target,
-                                   @Context AssetService assetService) {
-        target.setHasChildren(assetService.hasChildren(model.getId()));
+                                   @Context ChildCounts childCounts) {
+        target.setHasChildren(childCounts.hasChildren(model.getId()));
         return target;
     }
 }
@@ -0,0 +1,27 @@
+package com.grash.mapper;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Number of children of the assets or locations of a page, resolved with a single query before mapping them so that
+ * the mappers don't count the children of each row
+ */
+public class ChildCounts {
+
+    public static final ChildCounts NONE = new ChildCounts(Collections.emptyMap());
+
+    private final Map<Long, Long> countsByParentId;
+
+    public ChildCounts(Map<Long, Long> countsByParentId) {
+        this.countsByParentId = countsByParentId;
+    }
+
+    public long getChildCount(Long id) {
+        return countsByParentId.getOrDefault(id, 0L);
+    }
+
+    public boolean hasChildren(Long id) {
+        return getChildCount(id) > 0;
+    }
+}
@@ -11,6 +11,8 @@ import com.grash.service.AssetService;
 import com.grash.service.LocationService;
 import org.mapstruct.*;
 
+import java.util.Collections;
+
 @Mapper(componentModel = "spring", uses = {CustomerMapper.class, VendorMapper.class, UserMapper.class,
         TeamMapper.class, FileMapper.class})
 public interface LocationMapper {
@@ -19,15 +21,19 @@ public interface LocationMapper {
     @Mappings({})
     LocationPatchDTO toPatchDto(Location model);
 
-    LocationShowDTO toShowDto(Location model, @Context LocationService locationService);
+    LocationShowDTO toShowDto(Location model, @Context ChildCounts childCounts);
+
+    default LocationShowDTO toShowDto(Location model, LocationService locationService) {
+        return toShowDto(model, locationService.getChildCounts(Collections.singletonList(model)));
+    }
 
     @Mapping(source = "parentLocation.id", target = "parentId")
     LocationMiniDTO toMiniDto(Location model);
 
     @AfterMapping
     default LocationShowDTO toShowDto(Location model, @MappingTarget LocationShowDTO target,
-                                      @Context LocationService locationService) {
-        target.setHasChildren(locationService.hasChildren(model.getId()));
+                                      @Context ChildCounts childCounts) {
+        target.setHasChildren(childCounts.hasChildren(model.getId()));
         return target;
     }
 }
@@ -5,17 +5,11 @@ import com.grash.dto.MeterMiniDTO;
 import com.grash.dto.MeterPatchDTO;
 import com.grash.dto.MeterShowDTO;
 import com.grash.model.Meter;
-import com.grash.model.Reading;
-import com.grash.service.ReadingService;
-import com.grash.utils.AuditComparator;
 import com.grash.utils.Helper;
 import org.mapstruct.AfterMapping;
-import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.MappingTarget;
 
-import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 
 @Mapper(componentModel = "spring", uses = {LocationMapper.class, AssetMapper.class, UserMapper.class, FileMapper.class})
@@ -24,16 +18,13 @@ public interface MeterMapper {
 
     MeterPatchDTO toPatchDto(Meter model);
 
-    MeterShowDTO toShowDto(Meter model, @Context ReadingService readingService);
+    MeterShowDTO toShowDto(Meter model);
 
     @AfterMapping
-    default MeterShowDTO toShowDto(Meter model, @MappingTarget MeterShowDTO target,
-                                   @Context ReadingService readingService) {
-        Collection<Reading> readings = readingService.findByMeter(target.getId());
-        if (!readings.isEmpty()) {
-            Reading lastReading = Collections.max(readings, new AuditComparator());
-            target.setLastReading(lastReading.getCreatedAt());
-            Date nextReading = Helper.incrementDays(lastReading.getCreatedAt(),
+    default MeterShowDTO toShowDto(Meter model, @MappingTarget MeterShowDTO target) {
+        if (model.getLastReadingAt() != null) {
+            target.setLastReading(model.getLastReadingAt());
+            Date nextReading = Helper.incrementDays(model.getLastReadingAt(),
                     target.getUpdateFrequency());
             target.setNextReading(nextReading);
         }
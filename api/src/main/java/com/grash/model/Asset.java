@@ -45,6 +45,10 @@ public class Asset extends CompanyAudit {
 
     private String barCode;
 
+    @JsonIgnore
+    @Column(columnDefinition = "tsvector", insertable = false, updatable = false)
+    private String searchVector;
+
     @ManyToOne(fetch = FetchType.LAZY)
     private AssetCategory category;
 
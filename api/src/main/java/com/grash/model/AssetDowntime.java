@@ -40,10 +40,13 @@ public class AssetDowntime extends CompanyAudit {
         return Helper.addSeconds(startsOn, Math.toIntExact(duration));
     }
 
+    /**
+     * @return the seconds of the downtime within the date range, 0 when it is outside of it
+     */
     public long getDateRangeDuration(DateRange dateRange) {
         Date start = new Date(Math.max(startsOn.getTime(), dateRange.getStart().getTime()));
         Date end = new Date(Math.min(getEndsOn().getTime(), dateRange.getEnd().getTime()));
-        return Helper.getDateDiff(start, end, TimeUnit.SECONDS);
+        return Math.max(0, Helper.getDateDiff(start, end, TimeUnit.SECONDS));
     }
 
 }
@@ -0,0 +1,24 @@
+package com.grash.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+/**
+ * Closure table of the asset tree: a row for every asset and each of its ancestors, including itself at depth 0.
+ * Rows are maintained by database triggers on asset.parent_asset_id, never written by the application.
+ */
+@Entity
+@Immutable
+@Data
+@NoArgsConstructor
+@Table(name = "asset_hierarchy")
+public class AssetHierarchy {
+
+    @EmbeddedId
+    private HierarchyId id;
+
+    private int depth;
+}
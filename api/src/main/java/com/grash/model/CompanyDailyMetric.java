@@ -0,0 +1,67 @@
+package com.grash.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * Pre-aggregated analytics of a company for a single day. Rows are rebuilt from the source tables by
+ * {@link com.grash.service.DailyMetricsService}, never written one field at a time.
+ * Work order costs and labor are attributed to the day the work order was completed on, request cycle times to the
+ * day the request was created on.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "company_daily_metric")
+public class CompanyDailyMetric {
+
+    @EmbeddedId
+    private CompanyDailyMetricId id;
+
+    @Column(name = "wo_created")
+    private long woCreated;
+
+    @Column(name = "wo_completed")
+    private long woCompleted;
+
+    @Column(name = "wo_compliant")
+    private long woCompliant;
+
+    @Column(name = "wo_reactive")
+    private long woReactive;
+
+    @Column(name = "labor_seconds")
+    private long laborSeconds;
+
+    @Column(name = "reactive_labor_seconds")
+    private long reactiveLaborSeconds;
+
+    @Column(name = "labor_cost")
+    private long laborCost;
+
+    @Column(name = "part_cost")
+    private double partCost;
+
+    @Column(name = "additional_cost")
+    private double additionalCost;
+
+    @Column(name = "part_consumption_cost")
+    private double partConsumptionCost;
+
+    @Column(name = "downtime_seconds")
+    private long downtimeSeconds;
+
+    @Column(name = "downtime_count")
+    private long downtimeCount;
+
+    @Column(name = "requests_created")
+    private long requestsCreated;
+
+    @Column(name = "request_cycle_count")
+    private long requestCycleCount;
+
+    @Column(name = "request_cycle_days")
+    private long requestCycleDays;
+}
@@ -0,0 +1,28 @@
+package com.grash.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.io.Serializable;
+import java.util.Date;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompanyDailyMetricId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "company_id")
+    private Long companyId;
+
+    @Temporal(TemporalType.DATE)
+    @Column(name = "day")
+    private Date day;
+}
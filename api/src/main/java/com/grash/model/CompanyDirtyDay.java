@@ -0,0 +1,24 @@
+package com.grash.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+/**
+ * Day of a company whose {@link CompanyDailyMetric} row is waiting to be rebuilt. Kept in the database so that the
+ * pending days survive a restart and are rebuilt by whichever node runs the rollup.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "company_dirty_day")
+public class CompanyDirtyDay {
+
+    @EmbeddedId
+    private CompanyDailyMetricId id;
+}
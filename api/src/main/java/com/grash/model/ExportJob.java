@@ -0,0 +1,41 @@
+package com.grash.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.grash.model.abstracts.CompanyAudit;
+import com.grash.model.enums.ExportEntity;
+import com.grash.model.enums.ExportJobStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+@Entity
+@Data
+@NoArgsConstructor
+public class ExportJob extends CompanyAudit {
+
+    @NotNull
+    private ExportEntity entity;
+
+    @NotNull
+    private ExportJobStatus status = ExportJobStatus.PENDING;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(nullable = false, updatable = false)
+    @JsonIgnore
+    private OwnUser user;
+
+    private long totalRows;
+
+    private long writtenRows;
+
+    @JsonIgnore
+    private String filePath;
+
+    @Column(length = 1000)
+    private String error;
+
+    private Date completedOn;
+}
@@ -0,0 +1,61 @@
+package com.grash.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.grash.model.abstracts.CompanyAudit;
+import com.grash.model.enums.ImportEntity;
+import com.grash.model.enums.ImportJobStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+@Entity
+@Data
+@NoArgsConstructor
+public class ImportJob extends CompanyAudit {
+
+    @NotNull
+    private ImportEntity entity;
+
+    @NotNull
+    private ImportJobStatus status = ImportJobStatus.PENDING;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(nullable = false, updatable = false)
+    @JsonIgnore
+    private OwnUser user;
+
+    @JsonIgnore
+    private String filePath;
+
+    private long totalRows;
+
+    /**
+     * Number of rows of the file already imported, a resumed job starts after them
+     */
+    private long processedRows;
+
+    /**
+     * Number of rows of the chunk after processedRows already imported, in the order they are imported. Set while
+     * the rows of a chunk rejected by the database are imported one by one.
+     */
+    private int chunkProgress;
+
+    private long created;
+
+    private long updated;
+
+    private long errorCount;
+
+    /**
+     * Number of times the job was started, it is failed when its node keeps stopping while running it
+     */
+    private int attempts;
+
+    @Column(length = 1000)
+    private String error;
+
+    private Date completedOn;
+}
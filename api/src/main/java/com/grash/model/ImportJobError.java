@@ -0,0 +1,30 @@
+package com.grash.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+@Entity
+@Data
+@NoArgsConstructor
+public class ImportJobError {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(nullable = false, updatable = false)
+    @JsonIgnore
+    private ImportJob job;
+
+    /**
+     * Line of the record in the file, the header being the line 0
+     */
+    private long rowNumber;
+
+    @Column(length = 1000)
+    private String message;
+}
@@ -1,5 +1,6 @@
 package com.grash.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.grash.model.abstracts.CompanyAudit;
 import lombok.Data;
@@ -29,6 +30,10 @@ public class Location extends CompanyAudit {
 
     private String address;
 
+    @JsonIgnore
+    @Column(columnDefinition = "tsvector", insertable = false, updatable = false)
+    private String searchVector;
+
     private Double longitude;
 
     private Double latitude;
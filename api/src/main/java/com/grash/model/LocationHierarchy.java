@@ -0,0 +1,24 @@
+package com.grash.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+/**
+ * Closure table of the location tree: a row for every location and each of its ancestors, including itself at depth 0.
+ * Rows are maintained by database triggers on location.parent_location_id, never written by the application.
+ */
+@Entity
+@Immutable
+@Data
+@NoArgsConstructor
+@Table(name = "location_hierarchy")
+public class LocationHierarchy {
+
+    @EmbeddedId
+    private HierarchyId id;
+
+    private int depth;
+}
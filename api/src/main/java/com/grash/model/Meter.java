@@ -1,5 +1,6 @@
 package com.grash.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.grash.exception.CustomException;
 import com.grash.model.abstracts.CompanyAudit;
@@ -12,6 +13,7 @@ import org.springframework.http.HttpStatus;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 @Entity
@@ -55,6 +57,12 @@ public class Meter extends CompanyAudit {
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private Asset asset;
 
+    /**
+     * Time of the most recent reading, kept up to date as readings are created, updated and deleted
+     */
+    @JsonIgnore
+    private Date lastReadingAt;
+
     public void setUpdateFrequency(int updateFrequency) {
         if (updateFrequency < 1)
             throw new CustomException("Frequency should not be less than 1", HttpStatus.NOT_ACCEPTABLE);
@@ -0,0 +1,51 @@
+package com.grash.model;
+
+import com.grash.model.enums.NotificationChannel;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * A notification waiting to be delivered on one channel. It is written in the transaction of the change it notifies
+ * about and deleted once delivered, an entry which keeps failing is dead-lettered by setting {@link #deadAt}.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class NotificationOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @NotNull
+    private NotificationChannel channel;
+
+    /**
+     * JSON payload of the channel, see the classes of com.grash.dto.notification
+     */
+    @NotNull
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @NotNull
+    private Date createdAt = new Date();
+
+    @NotNull
+    private Date nextAttemptAt = new Date();
+
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private Date deadAt;
+
+    public NotificationOutboxEntry(NotificationChannel channel, String payload) {
+        this.channel = channel;
+        this.payload = payload;
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.grash.model.abstracts.Audit;
 import com.grash.model.enums.PermissionEntity;
 import com.grash.model.enums.PlanFeatures;
+import com.grash.security.PrincipalCacheInvalidationListener;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -15,6 +16,7 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
+@EntityListeners(PrincipalCacheInvalidationListener.class)
 @Data
 @NoArgsConstructor
 public class OwnUser extends Audit {
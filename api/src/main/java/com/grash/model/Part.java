@@ -46,6 +46,10 @@ public class Part extends CompanyAudit {
 
     private String description;
 
+    @JsonIgnore
+    @Column(columnDefinition = "tsvector", insertable = false, updatable = false)
+    private String searchVector;
+
     @ManyToOne(fetch = FetchType.LAZY)
     private PartCategory category;
 
@@ -0,0 +1,44 @@
+package com.grash.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * An upcoming run of a preventive maintenance schedule, precomputed from its Quartz trigger so that the calendar
+ * is a range lookup.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_pm_occurrence_schedule_occurs_on",
+        columnNames = {"schedule_id", "occurs_on"}))
+@Data
+@NoArgsConstructor
+public class PreventiveMaintenanceOccurrence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @NotNull
+    private Long companyId;
+
+    @NotNull
+    private Long preventiveMaintenanceId;
+
+    @NotNull
+    private Long scheduleId;
+
+    @NotNull
+    private Date occursOn;
+
+    public PreventiveMaintenanceOccurrence(Long companyId, Long preventiveMaintenanceId, Long scheduleId,
+                                           Date occursOn) {
+        this.companyId = companyId;
+        this.preventiveMaintenanceId = preventiveMaintenanceId;
+        this.scheduleId = scheduleId;
+        this.occursOn = occursOn;
+    }
+}
@@ -0,0 +1,35 @@
+package com.grash.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * A push notification accepted by the push service whose receipt hasn't been checked yet
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class PushNotificationTicket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @NotNull
+    private String ticketId;
+
+    @NotNull
+    private String token;
+
+    @NotNull
+    private Date createdAt = new Date();
+
+    public PushNotificationTicket(String ticketId, String token) {
+        this.ticketId = ticketId;
+        this.token = token;
+    }
+}
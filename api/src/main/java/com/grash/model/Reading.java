@@ -9,6 +9,7 @@ import org.hibernate.annotations.OnDeleteAction;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
+import java.util.Date;
 
 @Entity
 @Data
@@ -20,6 +21,11 @@ public class Reading extends Audit {
 
     private double value;
 
+    /**
+     * When the value was read, the creation time unless the reading was sent with a timestamp
+     */
+    private Date readAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @NotNull
     @OnDelete(action = OnDeleteAction.CASCADE)
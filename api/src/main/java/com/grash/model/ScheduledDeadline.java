@@ -0,0 +1,39 @@
+package com.grash.model;
+
+import com.grash.model.enums.DeadlineType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * A point in time at which something must happen to an entity, like the end of a subscription. There is at most
+ * one deadline per type and target, scheduling it again moves it.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_scheduled_deadline_type_target",
+        columnNames = {"type", "target_id"}))
+@Data
+@NoArgsConstructor
+public class ScheduledDeadline {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @NotNull
+    private DeadlineType type;
+
+    @NotNull
+    private Long targetId;
+
+    @NotNull
+    private Date dueAt;
+
+    /**
+     * Number of times the deadline was handed to its handler
+     */
+    private int attempts;
+}
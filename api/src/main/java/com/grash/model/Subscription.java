@@ -3,6 +3,7 @@ package com.grash.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.grash.exception.CustomException;
 import com.grash.model.abstracts.Audit;
+import com.grash.security.PrincipalCacheInvalidationListener;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,6 +15,7 @@ import javax.validation.constraints.NotNull;
 import java.util.Date;
 
 @Entity
+@EntityListeners(PrincipalCacheInvalidationListener.class)
 @Data
 @Builder
 @AllArgsConstructor
@@ -0,0 +1,51 @@
+package com.grash.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * A Grafana alert received by the webhook. It is stored before the alert is acknowledged and kept once processed
+ * until the end of its deduplication window, the repeats of the alert within the window are dropped by the unique
+ * key.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_webhook_alert_company_deduplication_key",
+        columnNames = {"company_id", "deduplication_key"}))
+@Data
+@NoArgsConstructor
+public class WebhookAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @NotNull
+    private Long companyId;
+
+    /**
+     * SHA-256 of the fields identifying the alert, see GrafanaWebhookService#getDeduplicationKey
+     */
+    @NotNull
+    private String deduplicationKey;
+
+    /**
+     * JSON of the {@link com.grash.dto.GrafanaAlert}
+     */
+    @NotNull
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @NotNull
+    private Date receivedAt;
+
+    @NotNull
+    private Date nextAttemptAt;
+
+    private int attempts;
+
+    private Date processedAt;
+}
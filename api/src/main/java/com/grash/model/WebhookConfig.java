@@ -26,6 +26,13 @@ public class WebhookConfig extends CompanyAudit {
     @Builder.Default
     private boolean enabled = true;
     
+    /**
+     * Rate limits of the webhook, the defaults of rate-limits.webhook apply when null
+     */
+    private Integer requestsPerMinute;
+    
+    private Integer requestsPerHour;
+    
     public static WebhookConfig createForCompany(Company company) {
         WebhookConfig config = new WebhookConfig();
         config.setCompany(company);
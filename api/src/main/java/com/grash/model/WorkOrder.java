@@ -69,6 +69,11 @@ public class WorkOrder extends WorkOrderBase {
     @NotAudited
     private Date firstTimeToReact;
 
+    @JsonIgnore
+    @NotAudited
+    @Column(columnDefinition = "tsvector", insertable = false, updatable = false)
+    private String searchVector;
+
     @JsonIgnore
     public boolean isCompliant() {
         return this.getDueDate() == null || this.getCompletedOn().before(this.getDueDate());
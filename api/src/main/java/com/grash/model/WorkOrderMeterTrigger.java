@@ -35,6 +35,12 @@ public class WorkOrderMeterTrigger extends WorkOrderBase {
     @NotNull
     private int waitBefore;
 
+    /**
+     * Whether the last reading met the condition, the trigger fires again once a reading has cleared it
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private boolean breached;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @NotNull
     @OnDelete(action = OnDeleteAction.CASCADE)
@@ -0,0 +1,47 @@
+package com.grash.model;
+
+import com.grash.model.enums.workflow.WFMainCondition;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * Result of running the action of a workflow on an entity, {@link #error} is null when it succeeded
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class WorkflowExecution {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @NotNull
+    private Long workflowId;
+
+    @NotNull
+    private Long companyId;
+
+    @NotNull
+    private WFMainCondition mainCondition;
+
+    @NotNull
+    private Long entityId;
+
+    @NotNull
+    private Date startedAt;
+
+    /**
+     * Time between the commit of the change and the start of the action
+     */
+    private long queuedMillis;
+
+    private long durationMillis;
+
+    @Column(length = 1000)
+    private String error;
+}
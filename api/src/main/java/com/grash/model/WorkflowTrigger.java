@@ -0,0 +1,59 @@
+package com.grash.model;
+
+import com.grash.model.enums.workflow.WFMainCondition;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * A workflow whose conditions were met by an entity when its main condition occurred, waiting for its action to be
+ * applied. It is written with the change which triggered it and deleted once the action ran, the triggers of an entity
+ * run in the order of their ids.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class WorkflowTrigger {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @NotNull
+    private Long workflowId;
+
+    @NotNull
+    private Long companyId;
+
+    @NotNull
+    private WFMainCondition mainCondition;
+
+    /**
+     * Work orders, requests, purchase orders, parts and tasks have their own type, the main conditions of a type
+     * share the order of its entities
+     */
+    private int entityType;
+
+    @NotNull
+    private Long entityId;
+
+    @NotNull
+    private Date triggeredAt = new Date();
+
+    @NotNull
+    private Date nextAttemptAt = new Date();
+
+    private int attempts;
+
+    public WorkflowTrigger(Long workflowId, Long companyId, WFMainCondition mainCondition, int entityType,
+                           Long entityId) {
+        this.workflowId = workflowId;
+        this.companyId = companyId;
+        this.mainCondition = mainCondition;
+        this.entityType = entityType;
+        this.entityId = entityId;
+    }
+}
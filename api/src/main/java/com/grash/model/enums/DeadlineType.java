@@ -0,0 +1,7 @@
+package com.grash.model.enums;
+
+public enum DeadlineType {
+    SUBSCRIPTION_END,
+    SAFETY_INSTRUCTION_EXPIRATION
+    //always add new types at the end, they are stored as ordinals
+}
@@ -0,0 +1,18 @@
+package com.grash.model.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportEntity {
+    WORK_ORDER(PermissionEntity.WORK_ORDERS, "Work Orders.csv", "work-orders"),
+    ASSET(PermissionEntity.ASSETS, "Assets.csv", "assets"),
+    LOCATION(PermissionEntity.LOCATIONS, "Locations.csv", "locations"),
+    PART(PermissionEntity.PARTS_AND_MULTIPARTS, "Parts.csv", "parts"),
+    METER(PermissionEntity.METERS, "Meters.csv", "meters");
+
+    private final PermissionEntity permissionEntity;
+    private final String fileName;
+    private final String folder;
+}
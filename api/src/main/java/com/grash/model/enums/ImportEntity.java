@@ -1,10 +1,17 @@
 package com.grash.model.enums;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
 public enum ImportEntity {
-    WORK_ORDER,
-    ASSET,
-    LOCATION,
-    PART,
-    METER,
-    PREVENTIVE_MAINTENANCE,
+    WORK_ORDER(PermissionEntity.WORK_ORDERS),
+    ASSET(PermissionEntity.ASSETS),
+    LOCATION(PermissionEntity.LOCATIONS),
+    PART(PermissionEntity.PARTS_AND_MULTIPARTS),
+    METER(PermissionEntity.METERS),
+    PREVENTIVE_MAINTENANCE(PermissionEntity.PREVENTIVE_MAINTENANCES);
+
+    private final PermissionEntity permissionEntity;
 }
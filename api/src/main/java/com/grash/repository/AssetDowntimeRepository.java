@@ -5,8 +5,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.util.List;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 public interface AssetDowntimeRepository extends JpaRepository<AssetDowntime, Long> {
 
@@ -21,4 +22,17 @@ public interface AssetDowntimeRepository extends JpaRepository<AssetDowntime, Lo
     @Query("SELECT ad FROM AssetDowntime ad WHERE ad.asset.id = :id AND ad.startsOn BETWEEN :start AND :end AND ad.duration != 0")
     List<AssetDowntime> findByAsset_IdAndStartsOnBetween(@Param("id") Long id, @Param("start") Date start, @Param("end") Date end);
 
+    @Query("SELECT ad.asset.id AS assetId, SUM(ad.duration) AS duration FROM AssetDowntime ad WHERE ad.asset.id IN :ids GROUP BY ad.asset.id")
+    List<AssetDuration> sumDurationByAssetIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT ad FROM AssetDowntime ad, AssetHierarchy h WHERE ad.asset.id = h.id.descendantId " +
+            "AND h.id.ancestorId = :id AND ad.duration = 0")
+    List<AssetDowntime> findRunningInSubtree(@Param("id") Long id);
+
+    interface AssetDuration {
+        Long getAssetId();
+
+        Long getDuration();
+    }
+
 }
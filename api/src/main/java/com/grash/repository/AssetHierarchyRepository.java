@@ -0,0 +1,35 @@
+package com.grash.repository;
+
+import com.grash.model.Asset;
+import com.grash.model.AssetHierarchy;
+import com.grash.model.HierarchyId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AssetHierarchyRepository extends JpaRepository<AssetHierarchy, HierarchyId> {
+
+    @Query("SELECT a FROM Asset a, AssetHierarchy h WHERE a.id = h.id.ancestorId AND h.id.descendantId = :id " +
+            "AND h.depth > 0 ORDER BY h.depth DESC")
+    List<Asset> findAncestors(@Param("id") Long id);
+
+    @Query("SELECT a FROM Asset a, AssetHierarchy h WHERE a.id = h.id.descendantId AND h.id.ancestorId = :id " +
+            "AND h.depth > 0 ORDER BY h.depth, a.id")
+    List<Asset> findDescendants(@Param("id") Long id);
+
+    @Query("SELECT h.id.ancestorId AS id, COUNT(h.depth) - 1 AS descendants FROM AssetHierarchy h " +
+            "WHERE h.id.ancestorId IN :ids GROUP BY h.id.ancestorId")
+    List<SubtreeCount> countDescendants(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT h.id.ancestorId FROM AssetHierarchy h WHERE h.id.ancestorId IN :ids AND h.depth = 1")
+    List<Long> findIdsWithChildren(@Param("ids") Collection<Long> ids);
+
+    interface SubtreeCount {
+        Long getId();
+
+        Long getDescendants();
+    }
+}
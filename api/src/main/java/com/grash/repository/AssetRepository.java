@@ -1,11 +1,15 @@
 package com.grash.repository;
 
 import com.grash.model.Asset;
+import com.grash.model.enums.AssetStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.security.core.parameters.P;
 
 import java.util.Collection;
@@ -16,6 +20,10 @@ import java.util.Optional;
 public interface AssetRepository extends JpaRepository<Asset, Long>, JpaSpecificationExecutor<Asset> {
     List<Asset> findByCompany_Id(Long id);
 
+    List<Asset> findByCompany_IdAndIdGreaterThanOrderByIdAsc(Long companyId, Long id, Pageable pageable);
+
+    long countByCompany_Id(Long id);
+
     List<Asset> findByCompany_Id(Long id, Sort sort);
 
     List<Asset> findByCompany_IdAndParentAssetIsNull(Long id, Pageable pageable);
@@ -34,10 +42,33 @@ public interface AssetRepository extends JpaRepository<Asset, Long>, JpaSpecific
 
     Optional<Asset> findByBarCodeAndCompany_Id(String data, Long id);
 
+    @Query("select a from Asset a where a.company.id = :companyId and lower(a.name) in :names order by a.id")
+    List<Asset> findByCompanyAndLowerNameIn(@Param("companyId") Long companyId,
+                                            @Param("names") Collection<String> names);
+
+    List<Asset> findByCompany_IdAndBarCodeIn(Long companyId, Collection<String> barCodes);
+
+    List<Asset> findByIdInAndCompany_Id(Collection<Long> ids, Long companyId);
+
     List<Asset> findByCompany_IdAndCreatedAtBefore(Long id, Date date);
 
     void deleteByCompany_IdAndIsDemoTrue(Long companyId);
 
     Collection<Asset> findByLocation_IdAndFloorPlanIsNull(Long locationId);
+
+    @Modifying
+    @Query("UPDATE Asset a SET a.status = :status, a.updatedAt = :now WHERE a.status <> :status AND a.id IN " +
+            "(SELECT h.id.descendantId FROM AssetHierarchy h WHERE h.id.ancestorId = :id)")
+    int updateSubtreeStatus(@Param("id") Long id, @Param("status") AssetStatus status, @Param("now") Date now);
+
+    @Query("SELECT a.parentAsset.id AS parentId, COUNT(a.id) AS children FROM Asset a WHERE a.parentAsset.id IN :ids " +
+            "GROUP BY a.parentAsset.id")
+    List<ChildCount> countChildren(@Param("ids") Collection<Long> ids);
+
+    interface ChildCount {
+        Long getParentId();
+
+        Long getChildren();
+    }
 }
 
@@ -0,0 +1,99 @@
+package com.grash.repository;
+
+import com.grash.model.CompanyDailyMetric;
+import com.grash.model.CompanyDailyMetricId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+
+public interface CompanyDailyMetricRepository extends JpaRepository<CompanyDailyMetric, CompanyDailyMetricId> {
+
+    @Query("SELECT m FROM CompanyDailyMetric m WHERE m.id.companyId = :companyId AND m.id.day >= :from AND m.id.day " +
+            "< :to ORDER BY m.id.day")
+    List<CompanyDailyMetric> findByCompanyAndDayRange(@Param("companyId") Long companyId, @Param("from") Date from,
+                                                      @Param("to") Date to);
+
+    @Modifying
+    @Query(value = "DELETE FROM company_daily_metric WHERE company_id = :companyId AND day >= CAST(:from AS DATE) " +
+            "AND day < CAST(:to AS DATE)", nativeQuery = true)
+    void deleteByCompanyAndDayRange(@Param("companyId") Long companyId, @Param("from") Date from,
+                                    @Param("to") Date to);
+
+    /**
+     * Recomputes the rows of a company for the days in [from, to) from the source tables in one statement.
+     * Days without any activity produce no row, so callers delete the range first.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO company_daily_metric (company_id, day, wo_created, wo_completed, wo_compliant, " +
+            "wo_reactive, labor_seconds, reactive_labor_seconds, labor_cost, part_cost, additional_cost, " +
+            "part_consumption_cost, downtime_seconds, downtime_count, requests_created, request_cycle_count, " +
+            "request_cycle_days) " +
+            "SELECT :companyId, m.day, CAST(SUM(m.wo_created) AS BIGINT), CAST(SUM(m.wo_completed) AS BIGINT), " +
+            "CAST(SUM(m.wo_compliant) AS BIGINT), CAST(SUM(m.wo_reactive) AS BIGINT), " +
+            "CAST(SUM(m.labor_seconds) AS BIGINT), CAST(SUM(m.reactive_labor_seconds) AS BIGINT), " +
+            "CAST(SUM(m.labor_cost) AS BIGINT), CAST(SUM(m.part_cost) AS DOUBLE PRECISION), " +
+            "CAST(SUM(m.additional_cost) AS DOUBLE PRECISION), CAST(SUM(m.part_consumption_cost) AS DOUBLE " +
+            "PRECISION), CAST(SUM(m.downtime_seconds) AS BIGINT), CAST(SUM(m.downtime_count) AS BIGINT), " +
+            "CAST(SUM(m.requests_created) AS BIGINT), CAST(SUM(m.request_cycle_count) AS BIGINT), " +
+            "CAST(SUM(m.request_cycle_days) AS BIGINT) " +
+            "FROM (" +
+            // created work orders
+            "SELECT CAST(wo.created_at AS DATE) AS day, 1 AS wo_created, 0 AS wo_completed, 0 AS wo_compliant, " +
+            "0 AS wo_reactive, 0 AS labor_seconds, 0 AS reactive_labor_seconds, 0 AS labor_cost, " +
+            "CAST(0 AS DOUBLE PRECISION) AS part_cost, CAST(0 AS DOUBLE PRECISION) AS additional_cost, " +
+            "CAST(0 AS DOUBLE PRECISION) AS part_consumption_cost, 0 AS downtime_seconds, 0 AS downtime_count, " +
+            "0 AS requests_created, 0 AS request_cycle_count, 0 AS request_cycle_days " +
+            "FROM work_order wo " +
+            "WHERE wo.company_id = :companyId AND wo.created_at >= :from AND wo.created_at < :to " +
+            // completed work orders with their labor and costs
+            "UNION ALL " +
+            "SELECT CAST(wo.completed_on AS DATE), 0, 1, " +
+            "CASE WHEN wo.due_date IS NULL OR wo.completed_on < wo.due_date THEN 1 ELSE 0 END, " +
+            "CASE WHEN wo.parent_preventive_maintenance_id IS NULL THEN 1 ELSE 0 END, " +
+            "l.seconds, CASE WHEN wo.parent_preventive_maintenance_id IS NULL THEN l.seconds ELSE 0 END, l.cost, " +
+            "COALESCE((SELECT SUM(p.cost * pq.quantity) FROM part_quantity pq JOIN part p ON p.id = pq.part_id " +
+            "WHERE pq.work_order_id = wo.id), 0), " +
+            "COALESCE((SELECT SUM(ac.cost) FROM additional_cost ac WHERE ac.work_order_id = wo.id), 0), " +
+            "0, 0, 0, 0, 0, 0 " +
+            "FROM work_order wo CROSS JOIN LATERAL (SELECT COALESCE(SUM(la.duration), 0) AS seconds, " +
+            "COALESCE(SUM(la.hourly_rate * la.duration / 3600), 0) AS cost FROM labor la " +
+            "WHERE la.work_order_id = wo.id) l " +
+            "WHERE wo.company_id = :companyId AND wo.status = :complete AND wo.completed_on >= :from " +
+            "AND wo.completed_on < :to " +
+            // part consumptions
+            "UNION ALL " +
+            "SELECT CAST(pc.created_at AS DATE), 0, 0, 0, 0, 0, 0, 0, 0, 0, p.cost * pc.quantity, 0, 0, 0, 0, 0 " +
+            "FROM part_consumption pc JOIN part p ON p.id = pc.part_id " +
+            "WHERE pc.company_id = :companyId AND pc.created_at >= :from AND pc.created_at < :to " +
+            // downtimes
+            "UNION ALL " +
+            "SELECT CAST(ad.starts_on AS DATE), 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, ad.duration, 1, 0, 0, 0 " +
+            "FROM asset_downtime ad " +
+            "WHERE ad.company_id = :companyId AND ad.starts_on >= :from AND ad.starts_on < :to " +
+            // requests and the cycle time of their complete work order
+            "UNION ALL " +
+            "SELECT CAST(r.created_at AS DATE), 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, " +
+            "CASE WHEN wo.status = :complete AND wo.completed_on IS NOT NULL THEN 1 ELSE 0 END, " +
+            "CASE WHEN wo.status = :complete AND wo.completed_on IS NOT NULL " +
+            "THEN TRUNC(EXTRACT(EPOCH FROM (wo.completed_on - r.created_at)) / 86400) ELSE 0 END " +
+            "FROM request r LEFT JOIN work_order wo ON wo.id = r.work_order_id " +
+            "WHERE r.company_id = :companyId AND r.created_at >= :from AND r.created_at < :to" +
+            ") m GROUP BY m.day " +
+            "ON CONFLICT (company_id, day) DO UPDATE SET wo_created = EXCLUDED.wo_created, " +
+            "wo_completed = EXCLUDED.wo_completed, wo_compliant = EXCLUDED.wo_compliant, " +
+            "wo_reactive = EXCLUDED.wo_reactive, labor_seconds = EXCLUDED.labor_seconds, " +
+            "reactive_labor_seconds = EXCLUDED.reactive_labor_seconds, labor_cost = EXCLUDED.labor_cost, " +
+            "part_cost = EXCLUDED.part_cost, additional_cost = EXCLUDED.additional_cost, " +
+            "part_consumption_cost = EXCLUDED.part_consumption_cost, downtime_seconds = EXCLUDED.downtime_seconds, " +
+            "downtime_count = EXCLUDED.downtime_count, requests_created = EXCLUDED.requests_created, " +
+            "request_cycle_count = EXCLUDED.request_cycle_count, request_cycle_days = EXCLUDED.request_cycle_days",
+            nativeQuery = true)
+    void rebuild(@Param("companyId") Long companyId, @Param("from") Date from, @Param("to") Date to,
+                 @Param("complete") int complete);
+
+    boolean existsByIdCompanyId(Long companyId);
+}
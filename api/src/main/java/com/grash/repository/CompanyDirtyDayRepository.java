@@ -0,0 +1,33 @@
+package com.grash.repository;
+
+import com.grash.model.CompanyDailyMetricId;
+import com.grash.model.CompanyDirtyDay;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public interface CompanyDirtyDayRepository extends JpaRepository<CompanyDirtyDay, CompanyDailyMetricId> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO company_dirty_day (company_id, day) VALUES (:companyId, CAST(:day AS DATE)) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    void mark(@Param("companyId") Long companyId, @Param("day") Date day);
+
+    @Query("SELECT d.id FROM CompanyDirtyDay d ORDER BY d.id.day")
+    List<CompanyDailyMetricId> findIds(Pageable pageable);
+
+    /**
+     * Locks a dirty day, or returns nothing when another node is rebuilding it
+     */
+    @Query(value = "SELECT * FROM company_dirty_day WHERE company_id = :companyId AND day = CAST(:day AS DATE) " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<CompanyDirtyDay> findForUpdate(@Param("companyId") Long companyId, @Param("day") Date day);
+}
@@ -3,8 +3,11 @@ package com.grash.repository;
 import com.grash.model.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSpecificationExecutor<Customer> {
@@ -12,5 +15,9 @@ public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSp
 
     Optional<Customer> findByNameIgnoreCaseAndCompany_Id(String name, Long companyId);
 
+    @Query("select c from Customer c where c.company.id = :companyId and lower(c.name) in :names order by c.id")
+    List<Customer> findByCompanyAndLowerNameIn(@Param("companyId") Long companyId,
+                                               @Param("names") Collection<String> names);
+
     void deleteByCompany_IdAndIsDemoTrue(Long companyId);
 }
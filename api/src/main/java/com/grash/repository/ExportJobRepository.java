@@ -0,0 +1,50 @@
+package com.grash.repository;
+
+import com.grash.model.ExportJob;
+import com.grash.model.enums.ExportJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public interface ExportJobRepository extends JpaRepository<ExportJob, Long> {
+
+    List<ExportJob> findByUser_IdOrderByCreatedAtDesc(Long userId, Pageable pageable);
+
+    Optional<ExportJob> findByIdAndUser_Id(Long id, Long userId);
+
+    /**
+     * Serializes the creation of the jobs of a company on every node, until the end of the transaction
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext('export_job:' || :companyId))", nativeQuery = true)
+    int lockCompany(@Param("companyId") Long companyId);
+
+    long countByCompany_IdAndStatusIn(Long companyId, Collection<ExportJobStatus> statuses);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.writtenRows = :writtenRows, j.updatedAt = CURRENT_TIMESTAMP WHERE j.id = :id")
+    void updateProgress(@Param("id") Long id, @Param("writtenRows") long writtenRows);
+
+    /**
+     * Refreshes updatedAt of jobs running on this node, so that they aren't taken for interrupted ones
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.updatedAt = CURRENT_TIMESTAMP WHERE j.id IN :ids")
+    void touch(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.status = :failed, j.error = :error, j.completedOn = CURRENT_TIMESTAMP " +
+            "WHERE j.status IN :statuses AND j.updatedAt < :before")
+    int failStale(@Param("statuses") Collection<ExportJobStatus> statuses, @Param("before") Date before,
+                  @Param("failed") ExportJobStatus failed, @Param("error") String error);
+}
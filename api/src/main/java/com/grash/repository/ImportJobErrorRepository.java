@@ -0,0 +1,12 @@
+package com.grash.repository;
+
+import com.grash.model.ImportJobError;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ImportJobErrorRepository extends JpaRepository<ImportJobError, Long> {
+
+    List<ImportJobError> findByJob_IdOrderByRowNumber(Long jobId, Pageable pageable);
+}
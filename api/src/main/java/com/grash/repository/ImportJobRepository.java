@@ -0,0 +1,71 @@
+package com.grash.repository;
+
+import com.grash.model.ImportJob;
+import com.grash.model.enums.ImportJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    List<ImportJob> findByUser_IdOrderByCreatedAtDesc(Long userId, Pageable pageable);
+
+    Optional<ImportJob> findByIdAndUser_Id(Long id, Long userId);
+
+    /**
+     * Serializes the creation of the jobs of a company on every node, until the end of the transaction
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext('import_job:' || :companyId))", nativeQuery = true)
+    int lockCompany(@Param("companyId") Long companyId);
+
+    long countByCompany_IdAndStatusIn(Long companyId, Collection<ImportJobStatus> statuses);
+
+    /**
+     * Saves the checkpoint of a job, in the transaction of the imported rows
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportJob j SET j.processedRows = :processedRows, j.chunkProgress = :chunkProgress, " +
+            "j.created = j.created + :created, j.updated = j.updated + :updated, " +
+            "j.errorCount = j.errorCount + :errors, j.updatedAt = CURRENT_TIMESTAMP WHERE j.id = :id")
+    void addProgress(@Param("id") Long id, @Param("processedRows") long processedRows,
+                     @Param("chunkProgress") int chunkProgress, @Param("created") long created,
+                     @Param("updated") long updated, @Param("errors") long errors);
+
+    /**
+     * Refreshes updatedAt of jobs running on this node, so that they aren't taken for interrupted ones
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportJob j SET j.updatedAt = CURRENT_TIMESTAMP WHERE j.id IN :ids")
+    void touch(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT j.id FROM ImportJob j WHERE j.status IN :statuses AND j.updatedAt < :before")
+    List<Long> findStaleIds(@Param("statuses") Collection<ImportJobStatus> statuses, @Param("before") Date before);
+
+    /**
+     * Takes over an interrupted job. Only one node gets 1 when several of them try to claim the same job.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportJob j SET j.attempts = j.attempts + 1, j.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE j.id = :id AND j.status IN :statuses AND j.updatedAt < :before")
+    int claim(@Param("id") Long id, @Param("statuses") Collection<ImportJobStatus> statuses,
+              @Param("before") Date before);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportJob j SET j.status = :failed, j.error = :error, j.completedOn = CURRENT_TIMESTAMP " +
+            "WHERE j.status IN :statuses AND j.updatedAt < :before AND j.attempts >= :maxAttempts")
+    int failStale(@Param("statuses") Collection<ImportJobStatus> statuses, @Param("before") Date before,
+                  @Param("maxAttempts") int maxAttempts, @Param("failed") ImportJobStatus failed,
+                  @Param("error") String error);
+}
@@ -0,0 +1,35 @@
+package com.grash.repository;
+
+import com.grash.model.HierarchyId;
+import com.grash.model.Location;
+import com.grash.model.LocationHierarchy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LocationHierarchyRepository extends JpaRepository<LocationHierarchy, HierarchyId> {
+
+    @Query("SELECT l FROM Location l, LocationHierarchy h WHERE l.id = h.id.ancestorId AND h.id.descendantId = :id " +
+            "AND h.depth > 0 ORDER BY h.depth DESC")
+    List<Location> findAncestors(@Param("id") Long id);
+
+    @Query("SELECT l FROM Location l, LocationHierarchy h WHERE l.id = h.id.descendantId AND h.id.ancestorId = :id " +
+            "AND h.depth > 0 ORDER BY h.depth, l.id")
+    List<Location> findDescendants(@Param("id") Long id);
+
+    @Query("SELECT h.id.ancestorId AS id, COUNT(h.depth) - 1 AS descendants FROM LocationHierarchy h " +
+            "WHERE h.id.ancestorId IN :ids GROUP BY h.id.ancestorId")
+    List<SubtreeCount> countDescendants(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT h.id.ancestorId FROM LocationHierarchy h WHERE h.id.ancestorId IN :ids AND h.depth = 1")
+    List<Long> findIdsWithChildren(@Param("ids") Collection<Long> ids);
+
+    interface SubtreeCount {
+        Long getId();
+
+        Long getDescendants();
+    }
+}
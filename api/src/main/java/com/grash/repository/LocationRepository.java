@@ -1,11 +1,14 @@
 package com.grash.repository;
 
+import com.grash.dto.LocationTreeDTO;
 import com.grash.model.Location;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
 import java.util.List;
@@ -14,6 +17,10 @@ import java.util.Optional;
 public interface LocationRepository extends JpaRepository<Location, Long>, JpaSpecificationExecutor<Location> {
     Collection<Location> findByCompany_Id(Long id);
 
+    List<Location> findByCompany_IdAndIdGreaterThanOrderByIdAsc(Long companyId, Long id, Pageable pageable);
+
+    long countByCompany_Id(Long id);
+
     List<Location> findByCompany_Id(Long id, Sort sort);
 
     List<Location> findByParentLocation_Id(Long id, Sort sort);
@@ -22,7 +29,49 @@ public interface LocationRepository extends JpaRepository<Location, Long>, JpaSp
 
     Optional<Location> findByIdAndCompany_Id(Long id, Long companyId);
 
+    @Query("select l from Location l where l.company.id = :companyId and lower(l.name) in :names order by l.id")
+    List<Location> findByCompanyAndLowerNameIn(@Param("companyId") Long companyId,
+                                               @Param("names") Collection<String> names);
+
+    List<Location> findByIdInAndCompany_Id(Collection<Long> ids, Long companyId);
+
     int countByParentLocation_Id(Long locationId);
 
     void deleteByCompany_IdAndIsDemoTrue(Long companyId);
+
+    @Query("SELECT l.parentLocation.id AS parentId, COUNT(l.id) AS children FROM Location l " +
+            "WHERE l.parentLocation.id IN :ids GROUP BY l.parentLocation.id")
+    List<ChildCount> countChildren(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT new com.grash.dto.LocationTreeDTO(l.id, l.customId, l.name, l.address, l.longitude, " +
+            "l.latitude, l.parentLocation.id) FROM Location l WHERE l.company.id = :companyId",
+            countQuery = "SELECT COUNT(l) FROM Location l WHERE l.company.id = :companyId")
+    Page<LocationTreeDTO> findTreeByCompany(@Param("companyId") Long companyId, Pageable pageable);
+
+    @Query(value = "SELECT new com.grash.dto.LocationTreeDTO(l.id, l.customId, l.name, l.address, l.longitude, " +
+            "l.latitude, l.parentLocation.id) FROM Location l WHERE l.company.id = :companyId " +
+            "AND l.createdBy = :createdBy",
+            countQuery = "SELECT COUNT(l) FROM Location l WHERE l.company.id = :companyId AND l.createdBy = :createdBy")
+    Page<LocationTreeDTO> findTreeByCompanyAndCreatedBy(@Param("companyId") Long companyId,
+                                                        @Param("createdBy") Long createdBy, Pageable pageable);
+
+    @Query(value = "SELECT new com.grash.dto.LocationTreeDTO(l.id, l.customId, l.name, l.address, l.longitude, " +
+            "l.latitude, l.parentLocation.id) FROM Location l WHERE l.company.id = :companyId " +
+            "AND l.parentLocation.id = :parentId",
+            countQuery = "SELECT COUNT(l) FROM Location l WHERE l.company.id = :companyId " +
+                    "AND l.parentLocation.id = :parentId")
+    Page<LocationTreeDTO> findTreeChildren(@Param("companyId") Long companyId, @Param("parentId") Long parentId,
+                                           Pageable pageable);
+
+    @Query(value = "SELECT new com.grash.dto.LocationTreeDTO(l.id, l.customId, l.name, l.address, l.longitude, " +
+            "l.latitude, l.parentLocation.id) FROM Location l WHERE l.company.id = :companyId " +
+            "AND l.parentLocation IS NULL",
+            countQuery = "SELECT COUNT(l) FROM Location l WHERE l.company.id = :companyId AND l.parentLocation IS NULL")
+    Page<LocationTreeDTO> findTreeRoots(@Param("companyId") Long companyId, Pageable pageable);
+
+    interface ChildCount {
+        Long getParentId();
+
+        Long getChildren();
+    }
 }
@@ -1,18 +1,38 @@
 package com.grash.repository;
 
 import com.grash.model.Meter;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface MeterRepository extends JpaRepository<Meter, Long>, JpaSpecificationExecutor<Meter> {
     Collection<Meter> findByCompany_Id(Long id);
 
+    List<Meter> findByCompany_IdAndIdGreaterThanOrderByIdAsc(Long companyId, Long id, Pageable pageable);
+
+    long countByCompany_Id(Long id);
+
     Collection<Meter> findByAsset_Id(Long id);
 
     Optional<Meter> findByIdAndCompany_Id(Long id, Long companyId);
 
+    List<Meter> findByIdInAndCompany_Id(Collection<Long> ids, Long companyId);
+
+    /**
+     * Locks the meters in the order of their ids, so that concurrent readings of the same meters don't deadlock
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Meter m WHERE m.id IN :ids AND m.company.id = :companyId ORDER BY m.id")
+    List<Meter> findForUpdate(@Param("ids") Collection<Long> ids, @Param("companyId") Long companyId);
+
     void deleteByCompany_IdAndIsDemoTrue(Long companyId);
 }
@@ -0,0 +1,32 @@
+package com.grash.repository;
+
+import com.grash.model.NotificationOutboxEntry;
+import com.grash.model.enums.NotificationChannel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutboxEntry, Long> {
+
+    /**
+     * Locks the due entries of a channel, skipping the ones another node is claiming
+     */
+    @Query(value = "SELECT * FROM notification_outbox_entry WHERE channel = :channel AND dead_at IS NULL " +
+            "AND next_attempt_at <= :now ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<NotificationOutboxEntry> findDueForUpdate(@Param("channel") int channel, @Param("now") Date now,
+                                                   @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE from NotificationOutboxEntry e where e.id in :ids")
+    void deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    long countByChannelAndDeadAtIsNull(NotificationChannel channel);
+
+    long countByDeadAtIsNotNull();
+}
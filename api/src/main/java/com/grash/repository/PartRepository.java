@@ -1,21 +1,36 @@
 package com.grash.repository;
 
 import com.grash.model.Part;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PartRepository extends JpaRepository<Part, Long>, JpaSpecificationExecutor<Part> {
     Collection<Part> findByCompany_Id(@Param("x") Long id);
 
+    List<Part> findByCompany_IdAndIdGreaterThanOrderByIdAsc(Long companyId, Long id, Pageable pageable);
+
+    long countByCompany_Id(Long id);
+
     Optional<Part> findByIdAndCompany_Id(Long id, Long companyId);
 
     Optional<Part> findByNameIgnoreCaseAndCompany_Id(String name, Long companyId);
 
     Optional<Part> findByBarcodeAndCompany_Id(String barcode, Long companyId);
 
+    @Query("select p from Part p where p.company.id = :companyId and lower(p.name) in :names order by p.id")
+    List<Part> findByCompanyAndLowerNameIn(@Param("companyId") Long companyId,
+                                           @Param("names") Collection<String> names);
+
+    List<Part> findByCompany_IdAndBarcodeIn(Long companyId, Collection<String> barcodes);
+
+    List<Part> findByIdInAndCompany_Id(Collection<Long> ids, Long companyId);
+
     void deleteByCompany_IdAndIsDemoTrue(Long companyId);
 }
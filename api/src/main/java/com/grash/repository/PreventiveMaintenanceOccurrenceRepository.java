@@ -0,0 +1,36 @@
+package com.grash.repository;
+
+import com.grash.model.PreventiveMaintenanceOccurrence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface PreventiveMaintenanceOccurrenceRepository extends JpaRepository<PreventiveMaintenanceOccurrence,
+        Long> {
+
+    List<PreventiveMaintenanceOccurrence> findByCompanyIdAndOccursOnBetweenOrderByOccursOn(Long companyId, Date start,
+                                                                                           Date end);
+
+    @Modifying
+    @Query("DELETE from PreventiveMaintenanceOccurrence o where o.scheduleId = :scheduleId")
+    void deleteByScheduleId(@Param("scheduleId") Long scheduleId);
+
+    @Modifying
+    @Query("DELETE from PreventiveMaintenanceOccurrence o where o.occursOn < :date")
+    int deleteByOccursOnBefore(@Param("date") Date date);
+
+    @Query("SELECT o.scheduleId as scheduleId, max(o.occursOn) as lastOccursOn from PreventiveMaintenanceOccurrence o " +
+            "where o.scheduleId in :scheduleIds group by o.scheduleId")
+    List<LastOccurrence> findLastOccurrences(@Param("scheduleIds") Collection<Long> scheduleIds);
+
+    interface LastOccurrence {
+        Long getScheduleId();
+
+        Date getLastOccursOn();
+    }
+}
@@ -19,4 +19,6 @@ public interface PreventiveMaintenanceRepository extends JpaRepository<Preventiv
     void deleteByCompany_IdAndIsDemoTrue(Long companyId);
 
     Optional<PreventiveMaintenance> findByIdAndCompany_Id(Long id, Long companyId);
+
+    List<PreventiveMaintenance> findByIdInAndCompany_Id(Collection<Long> ids, Long companyId);
 }
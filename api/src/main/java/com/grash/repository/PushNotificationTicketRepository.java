@@ -0,0 +1,25 @@
+package com.grash.repository;
+
+import com.grash.model.PushNotificationTicket;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface PushNotificationTicketRepository extends JpaRepository<PushNotificationTicket, Long> {
+
+    List<PushNotificationTicket> findByCreatedAtBeforeOrderByCreatedAt(Date date, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE from PushNotificationTicket t where t.id in :ids")
+    void deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE from PushNotificationTicket t where t.createdAt < :date")
+    int deleteByCreatedAtBefore(@Param("date") Date date);
+}
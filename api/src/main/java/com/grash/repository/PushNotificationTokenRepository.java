@@ -2,9 +2,20 @@ package com.grash.repository;
 
 import com.grash.model.PushNotificationToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PushNotificationTokenRepository extends JpaRepository<PushNotificationToken, Long> {
     Optional<PushNotificationToken> findByUser_Id(Long id);
+
+    List<PushNotificationToken> findByUser_IdIn(Collection<Long> userIds);
+
+    @Modifying
+    @Query("DELETE from PushNotificationToken t where t.token in :tokens")
+    int deleteByTokenIn(@Param("tokens") Collection<String> tokens);
 }
@@ -6,10 +6,15 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
 public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
     @Query("SELECT s from Schedule s where s.preventiveMaintenance.company.id = :x ")
     Collection<Schedule> findByCompany_Id(@Param("x") Long id);
 
     void deleteByPreventiveMaintenanceCompany_IdAndIsDemoTrue(Long companyId);
+
+    @Query("SELECT s.id from Schedule s where s.disabled = false and (s.endsOn is null or s.endsOn > :now)")
+    List<Long> findIdsToSchedule(@Param("now") Date now);
 }
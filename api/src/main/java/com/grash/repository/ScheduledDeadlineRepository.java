@@ -0,0 +1,48 @@
+package com.grash.repository;
+
+import com.grash.model.ScheduledDeadline;
+import com.grash.model.enums.DeadlineType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+public interface ScheduledDeadlineRepository extends JpaRepository<ScheduledDeadline, Long> {
+
+    /**
+     * Creates the deadline of the target or moves it, in a single statement
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO scheduled_deadline (id, type, target_id, due_at, attempts) " +
+            "VALUES (nextval('hibernate_sequence'), :type, :targetId, :dueAt, 0) " +
+            "ON CONFLICT (type, target_id) DO UPDATE SET due_at = excluded.due_at, attempts = 0",
+            nativeQuery = true)
+    void upsert(@Param("type") int type, @Param("targetId") Long targetId, @Param("dueAt") Date dueAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ScheduledDeadline d WHERE d.type = :type AND d.targetId = :targetId")
+    void deleteByTypeAndTargetId(@Param("type") DeadlineType type, @Param("targetId") Long targetId);
+
+    /**
+     * Deletes a deadline unless it was moved meanwhile
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ScheduledDeadline d WHERE d.id = :id AND d.dueAt = :dueAt")
+    int deleteIfDueAt(@Param("id") Long id, @Param("dueAt") Date dueAt);
+
+    /**
+     * Locks the first due deadlines, skipping the ones locked by the other nodes
+     */
+    @Query(value = "SELECT * FROM scheduled_deadline WHERE due_at <= :now ORDER BY due_at LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ScheduledDeadline> findDueForUpdate(@Param("now") Date now, @Param("limit") int limit);
+
+    long countByDueAtBefore(Date date);
+}
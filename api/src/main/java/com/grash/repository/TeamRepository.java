@@ -3,8 +3,11 @@ package com.grash.repository;
 import com.grash.model.Team;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface TeamRepository extends JpaRepository<Team, Long>, JpaSpecificationExecutor<Team> {
@@ -13,4 +16,8 @@ public interface TeamRepository extends JpaRepository<Team, Long>, JpaSpecificat
     Collection<Team> findByUsers_Id(Long id);
 
     Optional<Team> findByNameIgnoreCaseAndCompany_Id(String teamName, Long id);
+
+    @Query("select t from Team t where t.company.id = :companyId and lower(t.name) in :names order by t.id")
+    List<Team> findByCompanyAndLowerNameIn(@Param("companyId") Long companyId,
+                                           @Param("names") Collection<String> names);
 }
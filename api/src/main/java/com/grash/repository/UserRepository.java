@@ -33,6 +33,10 @@ public interface UserRepository extends JpaRepository<OwnUser, Long>, JpaSpecifi
 
     Optional<OwnUser> findByEmailIgnoreCaseAndCompany_Id(String email, Long companyId);
 
+    @Query("select u from OwnUser u where u.company.id = :companyId and lower(u.email) in :emails order by u.id")
+    List<OwnUser> findByCompanyAndLowerEmailIn(@Param("companyId") Long companyId,
+                                               @Param("emails") Collection<String> emails);
+
     Optional<OwnUser> findByIdAndCompany_Id(Long id, Long companyId);
 
     @Query("select u from OwnUser u where u.company.id=:id and u.role.code not in :roleCodes")
@@ -3,8 +3,11 @@ package com.grash.repository;
 import com.grash.model.Vendor;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface VendorRepository extends JpaRepository<Vendor, Long>, JpaSpecificationExecutor<Vendor> {
@@ -12,5 +15,9 @@ public interface VendorRepository extends JpaRepository<Vendor, Long>, JpaSpecif
 
     Optional<Vendor> findByNameIgnoreCaseAndCompany_Id(String name, Long companyId);
 
+    @Query("select v from Vendor v where v.company.id = :companyId and lower(v.name) in :names order by v.id")
+    List<Vendor> findByCompanyAndLowerNameIn(@Param("companyId") Long companyId,
+                                             @Param("names") Collection<String> names);
+
     void deleteByCompany_IdAndIsDemoTrue(Long companyId);
 }
@@ -0,0 +1,56 @@
+package com.grash.repository;
+
+import com.grash.model.WebhookAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface WebhookAlertRepository extends JpaRepository<WebhookAlert, Long> {
+
+    /**
+     * Stores an alert unless it repeats one received since windowStart or not processed yet, in a single statement
+     *
+     * @return 1 when the alert was stored, 0 when it is a repeat
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO webhook_alert (id, company_id, deduplication_key, payload, received_at, " +
+            "next_attempt_at, attempts) VALUES (nextval('hibernate_sequence'), :companyId, :deduplicationKey, " +
+            ":payload, :now, :now, 0) " +
+            "ON CONFLICT (company_id, deduplication_key) DO UPDATE SET payload = excluded.payload, " +
+            "received_at = excluded.received_at, next_attempt_at = excluded.next_attempt_at, attempts = 0, " +
+            "processed_at = NULL " +
+            "WHERE webhook_alert.processed_at IS NOT NULL AND webhook_alert.received_at < :windowStart",
+            nativeQuery = true)
+    int insertUnlessRepeated(@Param("companyId") Long companyId, @Param("deduplicationKey") String deduplicationKey,
+                             @Param("payload") String payload, @Param("now") Date now,
+                             @Param("windowStart") Date windowStart);
+
+    /**
+     * Locks the first alerts to process, skipping the ones claimed by the other nodes
+     */
+    @Query(value = "SELECT * FROM webhook_alert WHERE processed_at IS NULL AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<WebhookAlert> findDueForUpdate(@Param("now") Date now, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookAlert a SET a.processedAt = :processedAt WHERE a.id IN :ids")
+    void markProcessed(@Param("ids") Collection<Long> ids, @Param("processedAt") Date processedAt);
+
+    /**
+     * Deletes the processed alerts whose deduplication window is over
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM WebhookAlert a WHERE a.processedAt IS NOT NULL AND a.receivedAt < :windowStart")
+    int deleteExpired(@Param("windowStart") Date windowStart);
+
+    long countByProcessedAtIsNull();
+}
@@ -0,0 +1,202 @@
+package com.grash.repository;
+
+import com.grash.model.WorkOrder;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Aggregate queries backing the work order analytics endpoints. Every query is computed by Postgres and only
+ * returns a handful of scalar rows, so no {@link WorkOrder} entity is loaded in memory.
+ * Enum parameters are passed as ordinals because status and priority are stored as integers, and camelCase
+ * aliases are quoted so Postgres keeps them matching the projection getters.
+ */
+public interface WorkOrderAnalyticsRepository extends Repository<WorkOrder, Long> {
+
+    @Query(value = "SELECT COUNT(*) AS total, " +
+            "COUNT(*) FILTER (WHERE wo.status = :complete) AS complete, " +
+            "COUNT(*) FILTER (WHERE wo.status = :complete AND (wo.due_date IS NULL OR wo.completed_on < wo" +
+            ".due_date)) AS compliant, " +
+            "COUNT(wo.first_time_to_react) AS reacted, " +
+            "CAST(COALESCE(SUM(TRUNC(EXTRACT(EPOCH FROM (wo.first_time_to_react - wo.created_at)) / 3600)), 0) AS " +
+            "BIGINT) AS \"reactionHours\", " +
+            "COUNT(*) FILTER (WHERE wo.status = :complete AND wo.completed_on IS NOT NULL) AS cycles, " +
+            "CAST(COALESCE(SUM(TRUNC(EXTRACT(EPOCH FROM (wo.completed_on - COALESCE(r.created_at, wo.created_at))) /" +
+            " 86400)) FILTER (WHERE wo.status = :complete), 0) AS BIGINT) AS \"cycleDays\" " +
+            "FROM work_order wo LEFT JOIN request r ON r.id = wo.parent_request_id " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end", nativeQuery = true)
+    CompletionSummary getCompletionSummary(@Param("companyId") Long companyId, @Param("start") Date start,
+                                           @Param("end") Date end, @Param("complete") int complete);
+
+    @Query(value = "SELECT COUNT(*) AS count, " +
+            "CAST(COALESCE(SUM(TRUNC(EXTRACT(EPOCH FROM (CAST(:now AS TIMESTAMP) - COALESCE(r.created_at, wo" +
+            ".created_at))) / 86400)), 0) AS BIGINT) AS \"ageDays\" " +
+            "FROM work_order wo LEFT JOIN request r ON r.id = wo.parent_request_id " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end AND wo.status <> :complete",
+            nativeQuery = true)
+    AgeSummary getIncompleteAgeSummary(@Param("companyId") Long companyId, @Param("start") Date start,
+                                       @Param("end") Date end, @Param("now") Date now,
+                                       @Param("complete") int complete);
+
+    @Query(value = "SELECT wo.priority AS ordinal, COUNT(*) AS count, " +
+            "CAST(COALESCE(SUM(wo.estimated_duration), 0) AS DOUBLE PRECISION) AS \"estimatedHours\" " +
+            "FROM work_order wo " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end AND wo.status <> :complete " +
+            "GROUP BY wo.priority", nativeQuery = true)
+    List<EnumCount> countIncompleteByPriority(@Param("companyId") Long companyId, @Param("start") Date start,
+                                              @Param("end") Date end, @Param("complete") int complete);
+
+    @Query(value = "SELECT wo.status AS ordinal, COUNT(*) AS count, " +
+            "CAST(COALESCE(SUM(wo.estimated_duration), 0) AS DOUBLE PRECISION) AS \"estimatedHours\" " +
+            "FROM work_order wo " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end " +
+            "GROUP BY wo.status", nativeQuery = true)
+    List<EnumCount> countByStatus(@Param("companyId") Long companyId, @Param("start") Date start,
+                                  @Param("end") Date end);
+
+    @Query(value = "SELECT wo.priority AS ordinal, COUNT(*) AS count, " +
+            "CAST(COALESCE(SUM(wo.estimated_duration), 0) AS DOUBLE PRECISION) AS \"estimatedHours\" " +
+            "FROM work_order wo " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end AND wo.status = :complete " +
+            "GROUP BY wo.priority", nativeQuery = true)
+    List<EnumCount> countCompleteByPriority(@Param("companyId") Long companyId, @Param("start") Date start,
+                                            @Param("end") Date end, @Param("complete") int complete);
+
+    @Query(value = "SELECT wo.category_id AS id, COUNT(*) AS count " +
+            "FROM work_order wo " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end AND wo.status = :complete " +
+            "AND wo.category_id IS NOT NULL " +
+            "GROUP BY wo.category_id", nativeQuery = true)
+    List<IdCount> countCompleteByCategory(@Param("companyId") Long companyId, @Param("start") Date start,
+                                          @Param("end") Date end, @Param("complete") int complete);
+
+    @Query(value = "SELECT CAST(COALESCE(SUM(wo.estimated_duration), 0) AS DOUBLE PRECISION) " +
+            "FROM work_order wo " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end", nativeQuery = true)
+    Double sumEstimatedDuration(@Param("companyId") Long companyId, @Param("start") Date start,
+                                @Param("end") Date end);
+
+    /**
+     * @param statuses work order status ordinals to include
+     */
+    @Query(value = "SELECT CAST(COALESCE(SUM(l.duration), 0) AS BIGINT) AS duration, " +
+            "CAST(COALESCE(SUM(l.hourly_rate * l.duration / 3600), 0) AS BIGINT) AS cost " +
+            "FROM labor l JOIN work_order wo ON wo.id = l.work_order_id " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end AND wo.status IN :statuses",
+            nativeQuery = true)
+    LaborSummary getLaborSummary(@Param("companyId") Long companyId, @Param("start") Date start,
+                                 @Param("end") Date end, @Param("statuses") List<Integer> statuses);
+
+    @Query(value = "SELECT CAST(COALESCE(SUM(ac.cost), 0) AS DOUBLE PRECISION) " +
+            "FROM additional_cost ac JOIN work_order wo ON wo.id = ac.work_order_id " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end AND wo.status = :status",
+            nativeQuery = true)
+    Double sumAdditionalCost(@Param("companyId") Long companyId, @Param("start") Date start,
+                             @Param("end") Date end, @Param("status") int status);
+
+    @Query(value = "SELECT CAST(COALESCE(SUM(p.cost * pq.quantity), 0) AS DOUBLE PRECISION) " +
+            "FROM part_quantity pq JOIN part p ON p.id = pq.part_id JOIN work_order wo ON wo.id = pq.work_order_id " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end AND wo.status = :status",
+            nativeQuery = true)
+    Double sumPartCost(@Param("companyId") Long companyId, @Param("start") Date start,
+                       @Param("end") Date end, @Param("status") int status);
+
+    @Query(value = "SELECT wo.asset_id AS id, CAST(COALESCE(SUM(l.duration), 0) AS BIGINT) AS duration, " +
+            "CAST(COALESCE(SUM(l.hourly_rate * l.duration / 3600), 0) AS BIGINT) AS cost " +
+            "FROM labor l JOIN work_order wo ON wo.id = l.work_order_id " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end AND wo.status = :status " +
+            "AND wo.asset_id IS NOT NULL " +
+            "GROUP BY wo.asset_id", nativeQuery = true)
+    List<AssetLaborSummary> getLaborSummaryByAsset(@Param("companyId") Long companyId, @Param("start") Date start,
+                                                   @Param("end") Date end, @Param("status") int status);
+
+    @Query(value = "SELECT wo.asset_id AS id, CAST(COALESCE(SUM(ac.cost), 0) AS DOUBLE PRECISION) AS amount " +
+            "FROM additional_cost ac JOIN work_order wo ON wo.id = ac.work_order_id " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end AND wo.status = :status " +
+            "AND wo.asset_id IS NOT NULL " +
+            "GROUP BY wo.asset_id", nativeQuery = true)
+    List<IdAmount> sumAdditionalCostByAsset(@Param("companyId") Long companyId, @Param("start") Date start,
+                                            @Param("end") Date end, @Param("status") int status);
+
+    @Query(value = "SELECT wo.asset_id AS id, CAST(COALESCE(SUM(p.cost * pq.quantity), 0) AS DOUBLE PRECISION) AS " +
+            "amount " +
+            "FROM part_quantity pq JOIN part p ON p.id = pq.part_id JOIN work_order wo ON wo.id = pq.work_order_id " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end AND wo.status = :status " +
+            "AND wo.asset_id IS NOT NULL " +
+            "GROUP BY wo.asset_id", nativeQuery = true)
+    List<IdAmount> sumPartCostByAsset(@Param("companyId") Long companyId, @Param("start") Date start,
+                                      @Param("end") Date end, @Param("status") int status);
+
+    @Query(value = "SELECT wo.asset_id AS id, COUNT(wo.completed_on) AS count, " +
+            "CAST(COALESCE(SUM(TRUNC(EXTRACT(EPOCH FROM (wo.completed_on - COALESCE(r.created_at, wo.created_at))) /" +
+            " 86400)), 0) AS BIGINT) AS days " +
+            "FROM work_order wo LEFT JOIN request r ON r.id = wo.parent_request_id " +
+            "WHERE wo.company_id = :companyId AND wo.created_at BETWEEN :start AND :end AND wo.status = :status " +
+            "AND wo.asset_id IS NOT NULL " +
+            "GROUP BY wo.asset_id", nativeQuery = true)
+    List<IdCycle> getCycleTimeByAsset(@Param("companyId") Long companyId, @Param("start") Date start,
+                                      @Param("end") Date end, @Param("status") int status);
+
+    interface CompletionSummary {
+        long getTotal();
+
+        long getComplete();
+
+        long getCompliant();
+
+        long getReacted();
+
+        long getReactionHours();
+
+        long getCycles();
+
+        long getCycleDays();
+    }
+
+    interface AgeSummary {
+        long getCount();
+
+        long getAgeDays();
+    }
+
+    interface EnumCount {
+        Integer getOrdinal();
+
+        long getCount();
+
+        double getEstimatedHours();
+    }
+
+    interface IdCount {
+        Long getId();
+
+        long getCount();
+    }
+
+    interface LaborSummary {
+        long getDuration();
+
+        long getCost();
+    }
+
+    interface AssetLaborSummary extends LaborSummary {
+        Long getId();
+    }
+
+    interface IdAmount {
+        Long getId();
+
+        double getAmount();
+    }
+
+    interface IdCycle {
+        Long getId();
+
+        long getCount();
+
+        long getDays();
+    }
+}
@@ -19,4 +19,36 @@ public interface WorkOrderAudRepository extends JpaRepository<WorkOrderAud, Long
     @Query("SELECT w FROM WorkOrderAud w WHERE w.workOrderAudId.id = :id AND w.workOrderAudId.rev.timestamp<= :date order by w.workOrderAudId.rev.timestamp desc")
     List<WorkOrderAud> findLastByIdAndDate(@Param("id") Long id, @Param("date") Long date, Pageable pageable);
 
+    /**
+     * Counts by status the work orders of a company created between start and each of the given instants, as they
+     * were at that instant. The revisions of every work order are read once and turned into validity intervals with
+     * a window function, so the cost doesn't grow with the number of instants times the number of work orders.
+     * Work orders without any revision before an instant keep their current status, like
+     * {@link #findLastByIdAndDate} callers did.
+     *
+     * @param dates      the instants, as dates to compare with creation dates
+     * @param timestamps the same instants in epoch milliseconds to compare with revision timestamps
+     */
+    @Query(value = "WITH points AS (SELECT * FROM unnest(ARRAY[:dates], ARRAY[:timestamps]) AS p(at_date, at)), " +
+            "wo AS (SELECT w.id, w.status, w.created_at FROM work_order w WHERE w.company_id = :companyId " +
+            "AND w.created_at >= :start AND w.created_at <= (SELECT MAX(at_date) FROM points)), " +
+            "aud AS (SELECT wa.id, wa.status, ri.revtstmp AS from_ts, " +
+            "LEAD(ri.revtstmp) OVER (PARTITION BY wa.id ORDER BY ri.revtstmp, wa.rev) AS to_ts " +
+            "FROM work_order_aud wa JOIN revinfo ri ON ri.rev = wa.rev WHERE wa.id IN (SELECT id FROM wo)) " +
+            "SELECT p.at AS instant, CASE WHEN a.id IS NULL THEN wo.status ELSE a.status END AS ordinal, " +
+            "COUNT(*) AS count " +
+            "FROM points p JOIN wo ON wo.created_at <= p.at_date " +
+            "LEFT JOIN aud a ON a.id = wo.id AND a.from_ts <= p.at AND (a.to_ts IS NULL OR a.to_ts > p.at) " +
+            "GROUP BY p.at, CASE WHEN a.id IS NULL THEN wo.status ELSE a.status END", nativeQuery = true)
+    List<StatusCount> countStatusesAt(@Param("companyId") Long companyId, @Param("start") Date start,
+                                      @Param("dates") List<Date> dates, @Param("timestamps") List<Long> timestamps);
+
+    interface StatusCount {
+        Long getInstant();
+
+        Integer getOrdinal();
+
+        long getCount();
+    }
+
 }
@@ -4,7 +4,10 @@ import com.grash.model.WorkOrderMeterTrigger;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface WorkOrderMeterTriggerRepository extends JpaRepository<WorkOrderMeterTrigger, Long> {
     Collection<WorkOrderMeterTrigger> findByMeter_Id(Long id);
+
+    List<WorkOrderMeterTrigger> findByMeter_IdIn(Collection<Long> meterIds);
 }
@@ -10,12 +10,17 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Date;
 import java.util.Optional;
 
 public interface WorkOrderRepository extends JpaRepository<WorkOrder, Long>, JpaSpecificationExecutor<WorkOrder> {
     Collection<WorkOrder> findByCompany_Id(Long id);
 
+    List<WorkOrder> findByCompany_IdAndIdGreaterThanOrderByIdAsc(Long companyId, Long id, Pageable pageable);
+
+    long countByCompany_Id(Long id);
+
     Collection<WorkOrder> findByAsset_Id(Long id);
 
     Collection<WorkOrder> findByLocation_Id(Long id);
@@ -38,6 +43,8 @@ public interface WorkOrderRepository extends JpaRepository<WorkOrder, Long>, Jpa
 
     Optional<WorkOrder> findByIdAndCompany_Id(Long id, Long companyId);
 
+    List<WorkOrder> findByIdInAndCompany_Id(Collection<Long> ids, Long companyId);
+
     Collection<WorkOrder> findByCreatedByAndCreatedAtBetween(Long id, Date date1, Date date2);
 
     Collection<WorkOrder> findByCompletedBy_IdAndCreatedAtBetween(Long id, Date date1, Date date2);
@@ -0,0 +1,16 @@
+package com.grash.repository;
+
+import com.grash.model.WorkflowExecution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+
+public interface WorkflowExecutionRepository extends JpaRepository<WorkflowExecution, Long> {
+
+    @Modifying
+    @Query("DELETE from WorkflowExecution e where e.startedAt < :date")
+    int deleteByStartedAtBefore(@Param("date") Date date);
+}
@@ -3,6 +3,8 @@ package com.grash.repository;
 import com.grash.model.Workflow;
 import com.grash.model.enums.workflow.WFMainCondition;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
 
@@ -10,4 +12,7 @@ public interface WorkflowRepository extends JpaRepository<Workflow, Long> {
     Collection<Workflow> findByCompany_Id(Long id);
 
     Collection<Workflow> findByMainConditionAndCompany_Id(WFMainCondition mainCondition, Long companyId);
+
+    @Query("SELECT DISTINCT w from Workflow w LEFT JOIN FETCH w.secondaryConditions where w.company.id = :companyId")
+    Collection<Workflow> findWithConditionsByCompany_Id(@Param("companyId") Long companyId);
 }
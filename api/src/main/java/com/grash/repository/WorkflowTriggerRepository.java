@@ -0,0 +1,30 @@
+package com.grash.repository;
+
+import com.grash.model.WorkflowTrigger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+
+public interface WorkflowTriggerRepository extends JpaRepository<WorkflowTrigger, Long> {
+
+    /**
+     * Serializes the claims of the nodes until the end of the transaction, so that a node never claims a trigger
+     * while an earlier trigger of the same entity is being claimed by another one
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext('workflow_trigger'))", nativeQuery = true)
+    int lockClaims();
+
+    /**
+     * Locks the first due triggers, skipping the ones of the entities whose earlier triggers are running
+     */
+    @Query(value = "SELECT * FROM workflow_trigger t WHERE t.next_attempt_at <= :now AND NOT EXISTS (" +
+            "SELECT 1 FROM workflow_trigger p WHERE p.entity_type = t.entity_type AND p.entity_id = t.entity_id " +
+            "AND p.id < t.id AND p.next_attempt_at > :now) " +
+            "ORDER BY t.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<WorkflowTrigger> findDueForUpdate(@Param("now") Date now, @Param("limit") int limit);
+
+    long countBy();
+}
@@ -8,13 +8,23 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.function.Supplier;
 
+/**
+ * The principal of a request. Built from a {@link PrincipalSnapshot} when authenticated by token, in which case the
+ * user entity is only loaded by the first {@link #getUser()} of the request.
+ */
 @Builder
 public class CustomUserDetail implements UserDetails {
     private static final long serialVersionUID = 1L;
     private OwnUser user;
+    private PrincipalSnapshot snapshot;
+    private transient Supplier<OwnUser> userLoader;
 
     public OwnUser getUser() {
+        if (user == null && userLoader != null) {
+            user = userLoader.get();
+        }
         return user;
     }
 
@@ -24,36 +34,37 @@ public class CustomUserDetail implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singleton(new SimpleGrantedAuthority(user.getRole().getRoleType().getAuthority()));
+        return Collections.singleton(new SimpleGrantedAuthority(snapshot != null ?
+                snapshot.getRoleType().getAuthority() : user.getRole().getRoleType().getAuthority()));
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return getUser().getPassword();
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return snapshot != null ? snapshot.getEmail() : user.getEmail();
     }
 
     @Override
     public boolean isAccountNonExpired() {
-        return user.isEnabled();
+        return isEnabled();
     }
 
     @Override
     public boolean isAccountNonLocked() {
-        return user.isEnabled();
+        return isEnabled();
     }
 
     @Override
     public boolean isCredentialsNonExpired() {
-        return user.isEnabled();
+        return isEnabled();
     }
 
     @Override
     public boolean isEnabled() {
-        return user.isEnabled();
+        return snapshot != null ? snapshot.isEnabled() : user.isEnabled();
     }
 }
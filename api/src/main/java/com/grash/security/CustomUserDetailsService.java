@@ -27,4 +27,14 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .build();
     }
 
+    @Transactional(readOnly = true)
+    public PrincipalSnapshot loadSnapshotByUsername(String username) throws UsernameNotFoundException {
+        return PrincipalSnapshot.of(loadUserByUsername(username).getUser());
+    }
+
+    @Transactional(readOnly = true)
+    public OwnUser loadUserById(Long id) throws UsernameNotFoundException {
+        return userRepository.findById(id)
+                .orElseThrow(() -> new UsernameNotFoundException("User " + id + " not found"));
+    }
 }
@@ -1,6 +1,7 @@
 package com.grash.security;
 
 import com.grash.exception.CustomException;
+import io.jsonwebtoken.Claims;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -14,6 +15,11 @@ import java.io.IOException;
 // We should use OncePerRequestFilter since we are doing a database call, there is no point in doing this more than once
 public class JwtTokenFilter extends OncePerRequestFilter {
 
+    /**
+     * Request attribute holding the {@link CustomUserDetail} resolved from the token of the request
+     */
+    public static final String PRINCIPAL_ATTRIBUTE = JwtTokenFilter.class.getName() + ".PRINCIPAL";
+
     private JwtTokenProvider jwtTokenProvider;
 
     public JwtTokenFilter(JwtTokenProvider jwtTokenProvider) {
@@ -24,9 +30,11 @@ public class JwtTokenFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, FilterChain filterChain) throws ServletException, IOException {
         String token = jwtTokenProvider.resolveToken(httpServletRequest);
         try {
-            if (token != null && jwtTokenProvider.validateToken(token)) {
-                Authentication auth = jwtTokenProvider.getAuthentication(token);
+            if (token != null) {
+                Claims claims = jwtTokenProvider.parseClaims(token);
+                Authentication auth = jwtTokenProvider.getAuthentication(claims);
                 SecurityContextHolder.getContext().setAuthentication(auth);
+                httpServletRequest.setAttribute(PRINCIPAL_ATTRIBUTE, auth.getPrincipal());
             }
         } catch (CustomException ex) {
             // Clear context to ensure user is not authenticated
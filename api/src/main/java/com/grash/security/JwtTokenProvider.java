@@ -40,6 +40,7 @@ public class JwtTokenProvider {
 
 
     private final CustomUserDetailsService customUserDetailsService;
+    private final PrincipalCache principalCache;
 
     public String createToken(String username, List<RoleType> roles) {
 
@@ -59,7 +60,21 @@ public class JwtTokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        UserDetails userDetails = customUserDetailsService.loadUserByUsername(getUsername(token));
+        return getAuthentication(parseClaims(token));
+    }
+
+    /**
+     * @param claims already validated claims, see {@link #parseClaims(String)}
+     */
+    public Authentication getAuthentication(Claims claims) {
+        String username = claims.getSubject();
+        PrincipalSnapshot snapshot = principalCache.get(username, claims.getIssuedAt(),
+                () -> customUserDetailsService.loadSnapshotByUsername(username));
+        // A principal of its own per request, the user entity is loaded by the request if it needs it
+        UserDetails userDetails = CustomUserDetail.builder()
+                .snapshot(snapshot)
+                .userLoader(() -> customUserDetailsService.loadUserById(snapshot.getUserId()))
+                .build();
         if (!userDetails.isEnabled()) {
             throw new CustomException("User account is disabled", HttpStatus.UNAUTHORIZED);
         }
@@ -79,9 +94,16 @@ public class JwtTokenProvider {
     }
 
     public boolean validateToken(String token) {
+        parseClaims(token);
+        return true;
+    }
+
+    /**
+     * Validates the token and returns its claims, so that callers needing both parse it once
+     */
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token);
-            return true;
+            return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
             throw new CustomException("Expired or invalid JWT token", HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -0,0 +1,49 @@
+package com.grash.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.function.Supplier;
+
+/**
+ * Snapshots of the authenticated principals by token subject and issue time, so that requests carrying the same token
+ * don't load the user again to authenticate. Entries are short-lived since they are only invalidated on the node
+ * where {@link PrincipalCacheInvalidationListener} sees a user, a role or a subscription change.
+ */
+@Component
+public class PrincipalCache {
+
+    private final Cache<Key, PrincipalSnapshot> cache;
+
+    public PrincipalCache(@Value("${security.principal-cache.maximum-size:10000}") long maximumSize,
+                          @Value("${security.principal-cache.expire-after-write:1m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    public PrincipalSnapshot get(String subject, Date issuedAt, Supplier<PrincipalSnapshot> loader) {
+        return cache.get(new Key(subject.toLowerCase(), issuedAt == null ? 0 : issuedAt.getTime()),
+                key -> loader.get());
+    }
+
+    public void invalidateUser(Long userId) {
+        cache.asMap().values().removeIf(snapshot -> snapshot.getUserId().equals(userId));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Data
+    private static class Key {
+        private final String subject;
+        private final long issuedAt;
+    }
+}
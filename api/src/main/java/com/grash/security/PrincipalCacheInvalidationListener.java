@@ -0,0 +1,27 @@
+package com.grash.security;
+
+import com.grash.model.OwnUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Evicts the cached principals depending on an entity when it is updated or removed. Users only evict themselves,
+ * role and subscription changes are rare enough to evict every principal.
+ */
+@Component
+@RequiredArgsConstructor
+public class PrincipalCacheInvalidationListener {
+
+    private final PrincipalCache principalCache;
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof OwnUser) {
+            principalCache.invalidateUser(((OwnUser) entity).getId());
+        } else principalCache.invalidateAll();
+    }
+}
@@ -0,0 +1,35 @@
+package com.grash.security;
+
+import com.grash.model.OwnUser;
+import com.grash.model.Role;
+import com.grash.model.enums.PermissionEntity;
+import com.grash.model.enums.RoleType;
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * What authenticating a request needs from a user, copied out of the entity so that it can be shared between the
+ * requests of the {@link PrincipalCache} without sharing a mutable entity
+ */
+@Value
+public class PrincipalSnapshot {
+
+    Long userId;
+    String email;
+    Long companyId;
+    boolean enabled;
+    RoleType roleType;
+    Set<PermissionEntity> viewPermissions;
+    Set<PermissionEntity> createPermissions;
+    Set<PermissionEntity> editPermissions;
+    Set<PermissionEntity> deletePermissions;
+
+    public static PrincipalSnapshot of(OwnUser user) {
+        Role role = user.getRole();
+        return new PrincipalSnapshot(user.getId(), user.getEmail(),
+                user.getCompany() == null ? null : user.getCompany().getId(), user.isEnabled(), role.getRoleType(),
+                Set.copyOf(role.getViewPermissions()), Set.copyOf(role.getCreatePermissions()),
+                Set.copyOf(role.getEditPermissions()), Set.copyOf(role.getDeletePermissions()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.grash.security;
+
+import com.grash.service.RateLimiterService;
+import io.github.bucket4j.ConsumptionProbe;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Limits the requests of a client IP to the endpoints of rate-limits.endpoints, answering 429 with a Retry-After
+ * header once the limit of the first matching scope is reached
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiterService rateLimiterService;
+    private final List<Rule> rules = new ArrayList<>();
+
+    public RateLimitFilter(RateLimiterService rateLimiterService, RateLimitProperties rateLimitProperties) {
+        this.rateLimiterService = rateLimiterService;
+        rateLimitProperties.getEndpoints().forEach((scope, endpoint) -> {
+            if (endpoint.getPaths().isEmpty()) return;
+            endpoint.toPolicy().ifPresent(policy -> rules.add(new Rule(scope, new OrRequestMatcher(
+                    endpoint.getPaths().stream().map(AntPathRequestMatcher::new).collect(Collectors.toList())),
+                    policy)));
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        for (Rule rule : rules) {
+            if (!rule.matcher.matches(request)) continue;
+            ConsumptionProbe probe = rateLimiterService.tryConsume(rule.scope, request.getRemoteAddr(), rule.policy);
+            if (!probe.isConsumed()) {
+                long retryAfterSeconds = Math.max(1,
+                        (probe.getNanosToWaitForRefill() + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"success\":false,\"message\":\"Rate limit exceeded. Try again later.\"}");
+                return;
+            }
+            break;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static class Rule {
+        private final String scope;
+        private final RequestMatcher matcher;
+        private final RateLimitPolicy policy;
+
+        private Rule(String scope, RequestMatcher matcher, RateLimitPolicy policy) {
+            this.scope = scope;
+            this.matcher = matcher;
+            this.policy = policy;
+        }
+    }
+}
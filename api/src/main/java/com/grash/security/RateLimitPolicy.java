@@ -0,0 +1,63 @@
+package com.grash.security;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.local.LocalBucketBuilder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The bandwidths of a rate limited key, a request is allowed when all of them have a token left
+ */
+@Value
+public class RateLimitPolicy {
+
+    List<Limit> limits;
+
+    public static RateLimitPolicy of(long capacity, Duration period) {
+        return new RateLimitPolicy(Collections.singletonList(new Limit(capacity, period)));
+    }
+
+    /**
+     * @return empty when neither limit is positive, meaning no limit
+     */
+    public static Optional<RateLimitPolicy> perMinuteAndHour(Integer requestsPerMinute, Integer requestsPerHour) {
+        List<Limit> limits = new ArrayList<>();
+        if (requestsPerMinute != null && requestsPerMinute > 0) {
+            limits.add(new Limit(requestsPerMinute, Duration.ofMinutes(1)));
+        }
+        if (requestsPerHour != null && requestsPerHour > 0) {
+            limits.add(new Limit(requestsPerHour, Duration.ofHours(1)));
+        }
+        return limits.isEmpty() ? Optional.empty() : Optional.of(new RateLimitPolicy(limits));
+    }
+
+    public Bucket newBucket() {
+        LocalBucketBuilder builder = Bucket.builder();
+        limits.forEach(limit -> builder.addLimit(limit.toBandwidth()));
+        return builder.build();
+    }
+
+    /**
+     * Time after which an unused bucket is full again, it can then be dropped without losing anything
+     */
+    public Duration getRefillPeriod() {
+        return limits.stream().map(Limit::getPeriod).max(Duration::compareTo).orElse(Duration.ZERO);
+    }
+
+    @Value
+    public static class Limit {
+        long capacity;
+        Duration period;
+
+        Bandwidth toBandwidth() {
+            return Bandwidth.classic(capacity, Refill.greedy(capacity, period));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.grash.security;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Rate limits of the public endpoints, by client IP, and the default limits of the company webhooks.
+ * <pre>
+ * rate-limits.endpoints.auth.paths: /auth/signin,/auth/signup
+ * rate-limits.endpoints.auth.requests-per-minute: 20
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limits")
+public class RateLimitProperties {
+
+    /**
+     * Maximum number of keys having a bucket at the same time
+     */
+    private long maximumKeys = 100_000;
+
+    /**
+     * Limits of the webhook of a company, overridden by the ones of its webhook config
+     */
+    private Limits webhook = new Limits(60, 0);
+
+    /**
+     * Limits of the matching requests by scope, the first scope matching a request applies
+     */
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    @Data
+    public static class Limits {
+        /**
+         * Zero or less for no limit
+         */
+        private Integer requestsPerMinute;
+        private Integer requestsPerHour;
+
+        public Limits() {
+        }
+
+        public Limits(Integer requestsPerMinute, Integer requestsPerHour) {
+            this.requestsPerMinute = requestsPerMinute;
+            this.requestsPerHour = requestsPerHour;
+        }
+
+        public Optional<RateLimitPolicy> toPolicy() {
+            return RateLimitPolicy.perMinuteAndHour(requestsPerMinute, requestsPerHour);
+        }
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class Endpoint extends Limits {
+        /**
+         * Ant patterns of the request paths
+         */
+        private List<String> paths = new ArrayList<>();
+    }
+}
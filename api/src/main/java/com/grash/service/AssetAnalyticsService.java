@@ -0,0 +1,172 @@
+package com.grash.service;
+
+import com.grash.dto.DateRange;
+import com.grash.dto.analytics.assets.*;
+import com.grash.model.Asset;
+import com.grash.model.AssetDowntime;
+import com.grash.model.enums.Status;
+import com.grash.repository.WorkOrderAnalyticsRepository;
+import com.grash.utils.Helper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the per asset analytics of a company from a few grouped queries instead of querying work orders and
+ * downtimes asset by asset.
+ */
+@Service
+@RequiredArgsConstructor
+public class AssetAnalyticsService {
+
+    private static final int COMPLETE = Status.COMPLETE.ordinal();
+
+    private final WorkOrderAnalyticsRepository workOrderAnalyticsRepository;
+    private final AssetService assetService;
+    private final AssetDowntimeService assetDowntimeService;
+
+    public Collection<TimeCostByAsset> getTimeCostByAsset(Long companyId, DateRange dateRange,
+                                                          boolean includeLaborCost) {
+        Collection<Asset> assets = assetService.findByCompanyAndBefore(companyId, dateRange.getEnd());
+        AssetCosts costs = getCompleteWOCosts(companyId, dateRange);
+        return assets.stream().map(asset -> TimeCostByAsset.builder()
+                .time(costs.getLaborTime(asset.getId()))
+                .cost(costs.getCost(asset.getId(), includeLaborCost))
+                .name(asset.getName())
+                .id(asset.getId())
+                .build()).collect(Collectors.toList());
+    }
+
+    public Collection<DowntimesByAsset> getDowntimesByAsset(Long companyId, DateRange dateRange) {
+        Collection<Asset> assets = assetService.findByCompanyAndBefore(companyId, dateRange.getEnd());
+        Map<Long, List<AssetDowntime>> downtimesByAsset =
+                groupByAsset(assetDowntimeService.findByCompanyAndStartsOnBetween(companyId, dateRange.getStart(),
+                        dateRange.getEnd()));
+        return assets.stream().map(asset -> {
+            List<AssetDowntime> downtimes = downtimesByAsset.getOrDefault(asset.getId(), Collections.emptyList());
+            long downtimesDuration =
+                    downtimes.stream().mapToLong(assetDowntime -> assetDowntime.getDateRangeDuration(dateRange)).sum();
+            long percent = downtimesDuration * 100 / getLivingTime(asset, dateRange);
+            return DowntimesByAsset.builder()
+                    .count(downtimes.size())
+                    .percent(percent)
+                    .id(asset.getId())
+                    .name(asset.getName())
+                    .build();
+        }).collect(Collectors.toList());
+    }
+
+    public Collection<MTBFByAsset> getMTBFByAsset(Long companyId, DateRange dateRange) {
+        Collection<Asset> assets = assetService.findByCompanyAndBefore(companyId, dateRange.getEnd());
+        Map<Long, List<AssetDowntime>> downtimesByAsset =
+                groupByAsset(assetDowntimeService.findByCompanyAndStartsOnBetween(companyId, dateRange.getStart(),
+                        dateRange.getEnd()));
+        return assets.stream().map(asset -> MTBFByAsset.builder()
+                .mtbf(assetDowntimeService.getMTBF(downtimesByAsset.getOrDefault(asset.getId(),
+                        Collections.emptyList())))
+                .id(asset.getId())
+                .name(asset.getName())
+                .build()).collect(Collectors.toList());
+    }
+
+    public Collection<RepairTimeByAsset> getRepairTimeByAsset(Long companyId, DateRange dateRange) {
+        Collection<Asset> assets = assetService.findByCompanyAndBefore(companyId, dateRange.getEnd());
+        Map<Long, WorkOrderAnalyticsRepository.IdCycle> cycles =
+                workOrderAnalyticsRepository.getCycleTimeByAsset(companyId, dateRange.getStart(), dateRange.getEnd(),
+                        COMPLETE).stream().collect(Collectors.toMap(WorkOrderAnalyticsRepository.IdCycle::getId,
+                        cycle -> cycle));
+        return assets.stream().map(asset -> {
+            WorkOrderAnalyticsRepository.IdCycle cycle = cycles.get(asset.getId());
+            return RepairTimeByAsset.builder()
+                    .id(asset.getId())
+                    .name(asset.getName())
+                    .duration(cycle == null || cycle.getCount() == 0 ? 0 : cycle.getDays() / cycle.getCount())
+                    .build();
+        }).collect(Collectors.toList());
+    }
+
+    public AssetsCosts getAssetsCosts(Long companyId, DateRange dateRange, boolean includeLaborCost) {
+        Collection<Asset> assets = assetService.findByCompanyAndBefore(companyId, dateRange.getEnd());
+        AssetCosts costs = getCompleteWOCosts(companyId, dateRange);
+        Collection<Asset> assetsWithAcquisitionCost =
+                assets.stream().filter(asset -> asset.getAcquisitionCost() != null).collect(Collectors.toList());
+        double totalAcquisitionCost =
+                assetsWithAcquisitionCost.stream().mapToDouble(Asset::getAcquisitionCost).sum();
+        double totalWOCosts = costs.getCost(assets, includeLaborCost);
+        double rav = assetsWithAcquisitionCost.isEmpty() ? 0 : costs.getCost(assetsWithAcquisitionCost,
+                includeLaborCost) * 100 / totalAcquisitionCost;
+        return AssetsCosts.builder()
+                .totalWOCosts(totalWOCosts)
+                .totalAcquisitionCost(totalAcquisitionCost)
+                .rav(rav).build();
+    }
+
+    public Collection<DowntimesAndCostsByAsset> getDowntimesAndCosts(Long companyId, DateRange dateRange,
+                                                                     boolean includeLaborCost) {
+        Collection<Asset> assets = assetService.findByCompanyAndBefore(companyId, dateRange.getEnd());
+        Map<Long, List<AssetDowntime>> downtimesByAsset = groupByAsset(assetDowntimeService.findByCompany(companyId));
+        AssetCosts costs = getCompleteWOCosts(companyId, dateRange);
+        return assets.stream().map(asset -> {
+            // A running downtime has no duration yet
+            long downtimesDuration = downtimesByAsset.getOrDefault(asset.getId(), Collections.emptyList()).stream()
+                    .filter(assetDowntime -> assetDowntime.getDuration() != 0)
+                    .mapToLong(assetDowntime -> assetDowntime.getDateRangeDuration(dateRange)).sum();
+            return DowntimesAndCostsByAsset.builder()
+                    .id(asset.getId())
+                    .name(asset.getName())
+                    .duration(downtimesDuration)
+                    .workOrdersCosts(costs.getCost(asset.getId(), includeLaborCost))
+                    .build();
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Costs of the complete work orders created in the date range, grouped by asset
+     */
+    private AssetCosts getCompleteWOCosts(Long companyId, DateRange dateRange) {
+        Date start = dateRange.getStart();
+        Date end = dateRange.getEnd();
+        AssetCosts costs = new AssetCosts();
+        workOrderAnalyticsRepository.getLaborSummaryByAsset(companyId, start, end, COMPLETE)
+                .forEach(labor -> costs.labors.put(labor.getId(), labor));
+        workOrderAnalyticsRepository.sumAdditionalCostByAsset(companyId, start, end, COMPLETE)
+                .forEach(cost -> costs.additionalCosts.put(cost.getId(), cost.getAmount()));
+        workOrderAnalyticsRepository.sumPartCostByAsset(companyId, start, end, COMPLETE)
+                .forEach(cost -> costs.partCosts.put(cost.getId(), cost.getAmount()));
+        return costs;
+    }
+
+    private Map<Long, List<AssetDowntime>> groupByAsset(Collection<AssetDowntime> downtimes) {
+        return downtimes.stream().collect(Collectors.groupingBy(assetDowntime -> assetDowntime.getAsset().getId()));
+    }
+
+    private long getLivingTime(Asset asset, DateRange dateRange) {
+        return Helper.getDateDiff(asset.getRealCreatedAt()
+                .before(dateRange.getStart()) ? dateRange.getStart()
+                : asset.getRealCreatedAt(), dateRange.getEnd(), TimeUnit.SECONDS);
+    }
+
+    private static class AssetCosts {
+        private final Map<Long, WorkOrderAnalyticsRepository.AssetLaborSummary> labors = new HashMap<>();
+        private final Map<Long, Double> additionalCosts = new HashMap<>();
+        private final Map<Long, Double> partCosts = new HashMap<>();
+
+        long getLaborTime(Long assetId) {
+            WorkOrderAnalyticsRepository.AssetLaborSummary labor = labors.get(assetId);
+            return labor == null ? 0 : labor.getDuration();
+        }
+
+        double getCost(Long assetId, boolean includeLaborCost) {
+            WorkOrderAnalyticsRepository.AssetLaborSummary labor = labors.get(assetId);
+            return partCosts.getOrDefault(assetId, 0.0) + additionalCosts.getOrDefault(assetId, 0.0)
+                    + (includeLaborCost && labor != null ? labor.getCost() : 0);
+        }
+
+        double getCost(Collection<Asset> assets, boolean includeLaborCost) {
+            return assets.stream().mapToDouble(asset -> getCost(asset.getId(), includeLaborCost)).sum();
+        }
+    }
+}
@@ -30,6 +30,10 @@ public class AssetDowntimeService {
         return assetDowntimeRepository.save(assetDowntime);
     }
 
+    public List<AssetDowntime> saveAll(Collection<AssetDowntime> assetDowntimes) {
+        return assetDowntimeRepository.saveAll(assetDowntimes);
+    }
+
     public AssetDowntime update(Long id, AssetDowntimePatchDTO assetDowntime) {
         if (assetDowntimeRepository.existsById(id)) {
             AssetDowntime savedAssetDowntime = assetDowntimeRepository.findById(id).get();
@@ -55,6 +59,13 @@ public class AssetDowntimeService {
         return assetDowntimeRepository.findByAsset_Id(id);
     }
 
+    /**
+     * @return the running downtimes of the asset and of all the assets below it
+     */
+    public List<AssetDowntime> findRunningInSubtree(Long assetId) {
+        return assetDowntimeRepository.findRunningInSubtree(assetId);
+    }
+
     public List<AssetDowntime> findByAssetAndStartsOnBetween(Long id, Date start, Date end) {
         return assetDowntimeRepository.findByAsset_IdAndStartsOnBetween(id, start, end);
     }
@@ -79,6 +90,28 @@ public class AssetDowntimeService {
         return result;
     }
 
+    //in days
+    public long getMTBF(List<AssetDowntime> downtimes) {
+        if (downtimes.size() < 2) {
+            return 0L;
+        }
+        List<AssetDowntime> sortedDowntimes = new ArrayList<>(downtimes);
+        sortedDowntimes.sort(Comparator.comparing(AssetDowntime::getStartsOn));
+
+        long intervalsSum = 0;
+        int numberOfIntervals = sortedDowntimes.size() - 1;
+
+        for (int i = 0; i < sortedDowntimes.size() - 1; i++) {
+            AssetDowntime currentDowntime = sortedDowntimes.get(i);
+            AssetDowntime nextDowntime = sortedDowntimes.get(i + 1);
+
+            long interval = Helper.getDateDiff(currentDowntime.getEndsOn(), nextDowntime.getStartsOn(), TimeUnit.DAYS);
+            intervalsSum += interval;
+        }
+
+        return intervalsSum / numberOfIntervals;
+    }
+
     private void checkOverlapping(AssetDowntime assetDowntime) {
         Collection<AssetDowntime> assetDowntimes = findByAsset(assetDowntime.getAsset().getId());
         Date startedOn = assetDowntime.getStartsOn();
@@ -2,25 +2,31 @@ package com.grash.service;
 
 import com.grash.advancedsearch.SearchCriteria;
 import com.grash.advancedsearch.SpecificationBuilder;
+import com.grash.advancedsearch.pagination.SearchPaginator;
 import com.grash.dto.AssetPatchDTO;
 import com.grash.dto.AssetPositionDTO;
 import com.grash.dto.AssetShowDTO;
 import com.grash.dto.imports.AssetImportDTO;
 import com.grash.event.AssetCreatedEvent;
+import com.grash.event.CompanyMetricsChangedEvent;
 import com.grash.exception.CustomException;
 import com.grash.mapper.AssetMapper;
+import com.grash.mapper.ChildCounts;
 import com.grash.model.*;
 import com.grash.model.enums.AssetStatus;
 import com.grash.model.enums.NotificationType;
+import com.grash.repository.AssetHierarchyRepository;
+import com.grash.repository.AssetHierarchyRepository.SubtreeCount;
 import com.grash.repository.AssetRepository;
+import com.grash.repository.AssetRepository.ChildCount;
 import com.grash.utils.Helper;
+import com.grash.utils.ImportLookups;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
@@ -37,17 +43,12 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AssetService {
     private final AssetRepository assetRepository;
+    private final AssetHierarchyRepository assetHierarchyRepository;
     private LocationService locationService;
     private final FileService fileService;
-    private final AssetCategoryService assetCategoryService;
     private final DeprecationService deprecationService;
-    private final UserService userService;
-    private final CustomerService customerService;
-    private final VendorService vendorService;
     private LaborService laborService;
     private final NotificationService notificationService;
-    private final TeamService teamService;
-    private final PartService partService;
     private final AssetMapper assetMapper;
     private final EntityManager em;
     private final AssetDowntimeService assetDowntimeService;
@@ -78,8 +79,11 @@ public class AssetService {
     }
 
     private String getAssetNumber(Company company) {
-        Long nextSequence = customSequenceService.getNextAssetSequence(company);
-        return "A" + String.format("%06d", nextSequence);
+        return getAssetNumber(customSequenceService.getNextAssetSequence(company));
+    }
+
+    private String getAssetNumber(Long sequence) {
+        return "A" + String.format("%06d", sequence);
     }
 
     @Transactional
@@ -150,54 +154,47 @@ public class AssetService {
         return assetRepository.findByLocation_Id(id);
     }
 
-    private void stopAssetDowntime(Asset asset) {
-        Collection<AssetDowntime> assetDowntimes = assetDowntimeService.findByAsset(asset.getId());
-        Optional<AssetDowntime> optionalRunningDowntime =
-                assetDowntimes.stream().filter(downtime -> downtime.getDuration() == 0).findFirst();
-
-        if (optionalRunningDowntime.isPresent()) {
-            AssetDowntime runningDowntime = optionalRunningDowntime.get();
-            runningDowntime.setDuration(Helper.getDateDiff(runningDowntime.getStartsOn(), new Date(),
-                    TimeUnit.SECONDS));
-            assetDowntimeService.save(runningDowntime);
-        }
-
-        asset.setStatus(AssetStatus.OPERATIONAL);
-        save(asset);
-    }
-
-    private void recursivelyStopChildrenDowntime(Asset parentAsset) {
-        List<Asset> children = findAssetChildren(parentAsset.getId(), null);
-        for (Asset child : children) {
-            stopAssetDowntime(child);
-            recursivelyStopChildrenDowntime(child);
-        }
-    }
-
+    /**
+     * Stops the running downtimes of the asset and of all the assets below it and sets them back to operational
+     */
+    @Transactional
     public void stopDownTime(Long id, Locale locale) {
         Asset savedAsset = findById(id).orElseThrow(() -> new EntityNotFoundException("Asset not found"));
-        stopAssetDowntime(savedAsset);
-        recursivelyStopChildrenDowntime(savedAsset);
+        Date now = new Date();
+        List<AssetDowntime> runningDowntimes = assetDowntimeService.findRunningInSubtree(id);
+        runningDowntimes.forEach(runningDowntime -> runningDowntime.setDuration(
+                Helper.getDateDiff(runningDowntime.getStartsOn(), now, TimeUnit.SECONDS)));
+        assetDowntimeService.saveAll(runningDowntimes);
+        if (!runningDowntimes.isEmpty()) {
+            applicationEventPublisher.publishEvent(new CompanyMetricsChangedEvent(savedAsset.getCompany().getId(),
+                    runningDowntimes.stream().map(AssetDowntime::getStartsOn).toArray(Date[]::new)));
+        }
+        assetRepository.updateSubtreeStatus(id, AssetStatus.OPERATIONAL, now);
+        savedAsset.setStatus(AssetStatus.OPERATIONAL);
         String message = messageSource.getMessage("notification_asset_operational",
                 new Object[]{savedAsset.getName()}, locale);
         notify(savedAsset, message, messageSource.getMessage("asset_status_change", null, locale));
     }
 
+    /**
+     * Opens a downtime on the asset and on all its ancestors, the ancestors that are up take the status of the asset
+     */
+    @Transactional
     public void triggerDownTime(Long id, Locale locale, AssetStatus status) {
         Date now = new Date();
         Asset asset = findById(id).get();
         createAssetDowntime(asset, now, asset.getCompany());
-        Asset parentAsset = asset.getParentAsset();
-        while (parentAsset != null) {
-            createAssetDowntime(parentAsset, now, asset.getCompany());
-            if (!parentAsset.getStatus().isReallyDown()) {
-                parentAsset.setStatus(status);
-                save(parentAsset);
+        List<Asset> ancestors = findAncestors(id);
+        for (Asset ancestor : ancestors) {
+            createAssetDowntime(ancestor, now, asset.getCompany());
+            if (!ancestor.getStatus().isReallyDown()) {
+                ancestor.setStatus(status);
             }
-            parentAsset = parentAsset.getParentAsset();
         }
+        assetRepository.saveAll(ancestors);
         asset.setStatus(status);
         save(asset);
+        applicationEventPublisher.publishEvent(new CompanyMetricsChangedEvent(asset.getCompany().getId(), now));
         String message = messageSource.getMessage("notification_asset_down", new Object[]{asset.getName()}, locale);
         notify(asset, message, messageSource.getMessage("asset_status_change", null, locale));
 
@@ -225,21 +222,19 @@ public class AssetService {
     public Page<AssetShowDTO> findBySearchCriteria(SearchCriteria searchCriteria) {
         SpecificationBuilder<Asset> builder = new SpecificationBuilder<>();
         searchCriteria.getFilterFields().forEach(builder::with);
-        Pageable page = PageRequest.of(searchCriteria.getPageNum(), searchCriteria.getPageSize(),
-                searchCriteria.getDirection(), searchCriteria.getSortField());
-        return assetRepository.findAll(builder.build(), page).map(asset -> assetMapper.toShowDto(asset, this));
+        Page<Asset> assets = SearchPaginator.findAll(em, Asset.class, builder.build(), searchCriteria);
+        ChildCounts childCounts = getChildCounts(assets.getContent());
+        return assets.map(asset -> assetMapper.toShowDto(asset, childCounts));
     }
 
     public List<Asset> findByNameIgnoreCaseAndCompany(String assetName, Long companyId) {
         return assetRepository.findByNameIgnoreCaseAndCompany_Id(assetName, companyId);
     }
 
-    public void importAsset(Asset asset, AssetImportDTO dto, Company company) {
-        Long companySettingsId = company.getCompanySettings().getId();
-        Long companyId = company.getId();
+    public void importAsset(Asset asset, AssetImportDTO dto, Company company, ImportLookups lookups) {
         asset.setArea(dto.getArea());
         if (dto.getBarCode() != null) {
-            Optional<Asset> optionalAssetWithSameBarCode = findByBarcodeAndCompany(dto.getBarCode(), company.getId());
+            Optional<Asset> optionalAssetWithSameBarCode = lookups.getAssetByBarcode(dto.getBarCode());
             if (optionalAssetWithSameBarCode.isPresent()) {
                 boolean hasError = false;
                 if (dto.getId() == null) {//creation
@@ -260,64 +255,36 @@ public class AssetService {
         asset.setDescription(dto.getDescription());
         asset.setModel(dto.getModel());
         asset.setPower(dto.getPower());
-        asset.setCustomId(getAssetNumber(company));
+        asset.setCustomId(getAssetNumber(lookups.getCustomSequence().getAndIncrementAssetSequence()));
         asset.setManufacturer(dto.getManufacturer());
-        Optional<Location> optionalLocation = locationService.findByNameIgnoreCaseAndCompany(dto.getLocationName(),
-                companyId).stream().findFirst();
-        optionalLocation.ifPresent(asset::setLocation);
-        Optional<Asset> optionalAsset =
-                findByNameIgnoreCaseAndCompany(dto.getParentAssetName(), companyId).stream().findFirst();
-        optionalAsset.ifPresent(asset::setParentAsset);
-        Optional<AssetCategory> optionalAssetCategory =
-                assetCategoryService.findByNameIgnoreCaseAndCompanySettings(dto.getCategory(), companySettingsId);
-        optionalAssetCategory.ifPresent(asset::setCategory);
+        lookups.getLocation(dto.getLocationName()).ifPresent(asset::setLocation);
+        lookups.getAsset(dto.getParentAssetName()).ifPresent(asset::setParentAsset);
+        lookups.getAssetCategory(dto.getCategory()).ifPresent(asset::setCategory);
         asset.setName(dto.getName());
-        Optional<OwnUser> optionalPrimaryUser = userService.findByEmailAndCompany(dto.getPrimaryUserEmail(), companyId);
-        optionalPrimaryUser.ifPresent(asset::setPrimaryUser);
+        lookups.getUser(dto.getPrimaryUserEmail()).ifPresent(asset::setPrimaryUser);
         asset.setWarrantyExpirationDate(Helper.getDateFromExcelDate(dto.getWarrantyExpirationDate()));
         asset.setAdditionalInfos(dto.getAdditionalInfos());
         asset.setSerialNumber(dto.getSerialNumber());
-        List<OwnUser> assignedTo = new ArrayList<>();
-        dto.getAssignedToEmails().forEach(email -> {
-            Optional<OwnUser> optionalUser1 = userService.findByEmailAndCompany(email, companyId);
-            optionalUser1.ifPresent(assignedTo::add);
-        });
-        asset.setAssignedTo(assignedTo);
-        List<Team> teams = new ArrayList<>();
-        dto.getTeamsNames().forEach(teamName -> {
-            Optional<Team> optionalTeam = teamService.findByNameIgnoreCaseAndCompany(teamName, companyId);
-            optionalTeam.ifPresent(teams::add);
-        });
-        asset.setTeams(teams);
+        asset.setAssignedTo(lookups.getUsers(dto.getAssignedToEmails()));
+        asset.setTeams(lookups.getTeams(dto.getTeamsNames()));
         asset.setStatus(AssetStatus.getAssetStatusFromString(dto.getStatus(), Helper.getLocale(company),
                 messageSource));
         asset.setAcquisitionCost(dto.getAcquisitionCost());
-        List<Customer> customers = new ArrayList<>();
-        dto.getCustomersNames().forEach(name -> {
-            Optional<Customer> optionalCustomer = customerService.findByNameIgnoreCaseAndCompany(name, companyId);
-            optionalCustomer.ifPresent(customers::add);
-        });
-        asset.setCustomers(customers);
-        List<Vendor> vendors = new ArrayList<>();
-        dto.getVendorsNames().forEach(name -> {
-            Optional<Vendor> optionalVendor = vendorService.findByNameIgnoreCaseAndCompany(name, companyId);
-            optionalVendor.ifPresent(vendors::add);
-        });
-        asset.setVendors(vendors);
-        List<Part> parts = new ArrayList<>();
-        dto.getPartsNames().forEach(name -> {
-            Optional<Part> optionalPart = partService.findByNameIgnoreCaseAndCompany(name, companyId);
-            optionalPart.ifPresent(parts::add);
-        });
-        asset.setParts(parts);
-
-        assetRepository.save(asset);
+        asset.setCustomers(lookups.getCustomers(dto.getCustomersNames()));
+        asset.setVendors(lookups.getVendors(dto.getVendorsNames()));
+        asset.setParts(lookups.getParts(dto.getPartsNames()));
+
+        lookups.register(assetRepository.save(asset));
     }
 
     public Optional<Asset> findByIdAndCompany(Long id, Long companyId) {
         return assetRepository.findByIdAndCompany_Id(id, companyId);
     }
 
+    public List<Asset> findByIdsAndCompany(Collection<Long> ids, Long companyId) {
+        return assetRepository.findByIdInAndCompany_Id(ids, companyId);
+    }
+
     public Optional<Asset> findByBarcodeAndCompany(String data, Long id) {
         return assetRepository.findByBarCodeAndCompany_Id(data, id);
     }
@@ -386,6 +353,52 @@ public class AssetService {
         return assetRepository.countByParentAsset_Id(assetId) > 0;
     }
 
+    /**
+     * Counts the children of the assets with a single query, to be passed to {@link AssetMapper#toShowDto}
+     */
+    public ChildCounts getChildCounts(Collection<Asset> assets) {
+        if (assets.isEmpty()) return ChildCounts.NONE;
+        Set<Long> ids = assets.stream().map(Asset::getId).collect(Collectors.toSet());
+        return new ChildCounts(assetRepository.countChildren(ids).stream()
+                .collect(Collectors.toMap(ChildCount::getParentId, ChildCount::getChildren)));
+    }
+
+    public List<AssetShowDTO> toShowDtos(Collection<Asset> assets) {
+        ChildCounts childCounts = getChildCounts(assets);
+        return assets.stream().map(asset -> assetMapper.toShowDto(asset, childCounts)).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the ancestors of the asset, from the root down to its parent
+     */
+    public List<Asset> findAncestors(Long id) {
+        return assetHierarchyRepository.findAncestors(id);
+    }
+
+    /**
+     * @return all the assets below the asset, level by level
+     */
+    public List<Asset> findDescendants(Long id) {
+        return assetHierarchyRepository.findDescendants(id);
+    }
+
+    /**
+     * @return the number of assets below each of the assets, at any depth
+     */
+    public Map<Long, Long> countDescendants(Collection<Long> ids) {
+        if (ids.isEmpty()) return Collections.emptyMap();
+        return assetHierarchyRepository.countDescendants(ids).stream()
+                .collect(Collectors.toMap(SubtreeCount::getId, SubtreeCount::getDescendants));
+    }
+
+    /**
+     * @return the ids of the assets among ids that have at least one child
+     */
+    public Set<Long> findIdsWithChildren(Collection<Long> ids) {
+        if (ids.isEmpty()) return Collections.emptySet();
+        return new HashSet<>(assetHierarchyRepository.findIdsWithChildren(ids));
+    }
+
     // Stats
     public long getMTBFLF(Long assetId, Date start, Date end) {
         Asset asset = findById(assetId).get();
@@ -396,24 +409,7 @@ public class AssetService {
     }
 
     public long getMTBF(Long assetId, Date start, Date end) {
-        List<AssetDowntime> downtimes = assetDowntimeService.findByAssetAndStartsOnBetween(assetId, start, end);
-        downtimes.sort(Comparator.comparing(AssetDowntime::getStartsOn));
-        if (downtimes.size() < 2) {
-            return 0L;
-        }
-
-        long intervalsSum = 0;
-        int numberOfIntervals = downtimes.size() - 1;
-
-        for (int i = 0; i < downtimes.size() - 1; i++) {
-            AssetDowntime currentDowntime = downtimes.get(i);
-            AssetDowntime nextDowntime = downtimes.get(i + 1);
-
-            long interval = Helper.getDateDiff(currentDowntime.getEndsOn(), nextDowntime.getStartsOn(), TimeUnit.DAYS);
-            intervalsSum += interval;
-        }
-
-        return intervalsSum / numberOfIntervals;
+        return assetDowntimeService.getMTBF(assetDowntimeService.findByAssetAndStartsOnBetween(assetId, start, end));
     }
 
     public long getMTTR(Long assetId, Date start, Date end) {
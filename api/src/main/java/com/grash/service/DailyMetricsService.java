@@ -0,0 +1,168 @@
+package com.grash.service;
+
+import com.grash.dto.DateRange;
+import com.grash.event.CompanyMetricsChangedEvent;
+import com.grash.model.CompanyDailyMetric;
+import com.grash.model.CompanyDailyMetricId;
+import com.grash.model.CompanyDirtyDay;
+import com.grash.model.enums.Status;
+import com.grash.repository.CompanyDailyMetricRepository;
+import com.grash.repository.CompanyDirtyDayRepository;
+import com.grash.utils.Helper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.transaction.Transactional;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Keeps the {@link CompanyDailyMetric} rollup up to date. Writes only mark their (company, day) pairs as dirty in
+ * the {@link CompanyDirtyDay} table, the {@link com.grash.job.DailyMetricsRollupJob} rebuilds them shortly after and the
+ * {@link com.grash.job.DailyMetricsReconciliationJob} recomputes the recent days every night to catch the writes
+ * that don't publish a {@link CompanyMetricsChangedEvent}.
+ */
+@Service
+@RequiredArgsConstructor
+public class DailyMetricsService {
+
+    private static final LocalDate EPOCH = LocalDate.of(1970, 1, 1);
+
+    private final CompanyDailyMetricRepository companyDailyMetricRepository;
+    private final CompanyDirtyDayRepository companyDirtyDayRepository;
+
+    @Value("${analytics.rollup.reconciliation-days:31}")
+    private int reconciliationDays;
+
+    /**
+     * Runs once the write committed, so the days are marked in a new transaction rather than in the finished one
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void onMetricsChanged(CompanyMetricsChangedEvent event) {
+        if (event.getCompanyId() == null) return;
+        event.getDates().forEach(date -> markDirty(event.getCompanyId(), Helper.dateToLocalDate(date)));
+    }
+
+    public void markDirty(Long companyId, LocalDate day) {
+        companyDirtyDayRepository.mark(companyId, Helper.localDateToDate(day));
+    }
+
+    /**
+     * The oldest days waiting to be rebuilt, on any node
+     */
+    public List<CompanyDailyMetricId> findDirty(int limit) {
+        return companyDirtyDayRepository.findIds(PageRequest.of(0, limit));
+    }
+
+    /**
+     * Rebuilds a dirty day and clears it in the same transaction, so a failed or interrupted rebuild leaves the day
+     * dirty. A write committed meanwhile marks the day again once this transaction releases it.
+     *
+     * @return false when another node is rebuilding the day
+     */
+    @Transactional
+    public boolean rebuildDirty(CompanyDailyMetricId dirtyDay) {
+        Optional<CompanyDirtyDay> locked = companyDirtyDayRepository.findForUpdate(dirtyDay.getCompanyId(),
+                dirtyDay.getDay());
+        if (!locked.isPresent()) return false;
+        LocalDate day = toLocalDate(dirtyDay.getDay());
+        rebuild(dirtyDay.getCompanyId(), day, day.plusDays(1));
+        companyDirtyDayRepository.delete(locked.get());
+        return true;
+    }
+
+    @Transactional
+    public void rebuild(Long companyId, LocalDate from, LocalDate toExclusive) {
+        Date start = Helper.localDateToDate(from);
+        Date end = Helper.localDateToDate(toExclusive);
+        companyDailyMetricRepository.deleteByCompanyAndDayRange(companyId, start, end);
+        companyDailyMetricRepository.rebuild(companyId, start, end, Status.COMPLETE.ordinal());
+    }
+
+    /**
+     * Recomputes the last reconciliation days of a company, or its whole history when it has no rollup yet
+     */
+    @Transactional
+    public void reconcile(Long companyId) {
+        LocalDate today = LocalDate.now();
+        LocalDate from = companyDailyMetricRepository.existsByIdCompanyId(companyId) ?
+                today.minusDays(reconciliationDays) : EPOCH;
+        rebuild(companyId, from, today.plusDays(2));
+    }
+
+    /**
+     * Sums the daily rows of a company between consecutive boundaries. The i-th returned metric covers the days in
+     * [boundaries[i], boundaries[i + 1]) and its day is boundaries[i]. Rows are loaded with a single query.
+     */
+    public List<CompanyDailyMetric> getBuckets(Long companyId, List<LocalDate> boundaries) {
+        List<CompanyDailyMetric> buckets = new ArrayList<>();
+        if (boundaries.size() < 2) return buckets;
+        for (int i = 0; i < boundaries.size() - 1; i++) {
+            CompanyDailyMetric bucket = new CompanyDailyMetric();
+            bucket.setId(new CompanyDailyMetricId(companyId, Helper.localDateToDate(boundaries.get(i))));
+            buckets.add(bucket);
+        }
+        List<CompanyDailyMetric> rows = companyDailyMetricRepository.findByCompanyAndDayRange(companyId,
+                Helper.localDateToDate(boundaries.get(0)),
+                Helper.localDateToDate(boundaries.get(boundaries.size() - 1)));
+        int bucketIndex = 0;
+        for (CompanyDailyMetric row : rows) {
+            LocalDate day = toLocalDate(row.getId().getDay());
+            while (bucketIndex < buckets.size() - 1 && !day.isBefore(boundaries.get(bucketIndex + 1))) {
+                bucketIndex++;
+            }
+            add(buckets.get(bucketIndex), row);
+        }
+        return buckets;
+    }
+
+    /**
+     * Splits the date range in at most 15 buckets of the same number of days, the end date being included in the
+     * last one
+     */
+    public List<CompanyDailyMetric> getDateRangeBuckets(Long companyId, DateRange dateRange) {
+        LocalDate start = Helper.dateToLocalDate(dateRange.getStart());
+        LocalDate endDateExclusive = Helper.dateToLocalDate(dateRange.getEnd()).plusDays(1);
+        long totalDaysInRange = ChronoUnit.DAYS.between(start, endDateExclusive);
+        if (totalDaysInRange <= 0) return new ArrayList<>();
+        int points = Math.toIntExact(Math.min(15, totalDaysInRange));
+        long step = totalDaysInRange / points;
+        List<LocalDate> boundaries = new ArrayList<>();
+        for (int i = 0; i < points; i++) {
+            boundaries.add(start.plusDays(i * step));
+        }
+        boundaries.add(endDateExclusive);
+        return getBuckets(companyId, boundaries);
+    }
+
+    private static LocalDate toLocalDate(Date day) {
+        // java.sql.Date doesn't support toInstant()
+        return Instant.ofEpochMilli(day.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private static void add(CompanyDailyMetric bucket, CompanyDailyMetric row) {
+        bucket.setWoCreated(bucket.getWoCreated() + row.getWoCreated());
+        bucket.setWoCompleted(bucket.getWoCompleted() + row.getWoCompleted());
+        bucket.setWoCompliant(bucket.getWoCompliant() + row.getWoCompliant());
+        bucket.setWoReactive(bucket.getWoReactive() + row.getWoReactive());
+        bucket.setLaborSeconds(bucket.getLaborSeconds() + row.getLaborSeconds());
+        bucket.setReactiveLaborSeconds(bucket.getReactiveLaborSeconds() + row.getReactiveLaborSeconds());
+        bucket.setLaborCost(bucket.getLaborCost() + row.getLaborCost());
+        bucket.setPartCost(bucket.getPartCost() + row.getPartCost());
+        bucket.setAdditionalCost(bucket.getAdditionalCost() + row.getAdditionalCost());
+        bucket.setPartConsumptionCost(bucket.getPartConsumptionCost() + row.getPartConsumptionCost());
+        bucket.setDowntimeSeconds(bucket.getDowntimeSeconds() + row.getDowntimeSeconds());
+        bucket.setDowntimeCount(bucket.getDowntimeCount() + row.getDowntimeCount());
+        bucket.setRequestsCreated(bucket.getRequestsCreated() + row.getRequestsCreated());
+        bucket.setRequestCycleCount(bucket.getRequestCycleCount() + row.getRequestCycleCount());
+        bucket.setRequestCycleDays(bucket.getRequestCycleDays() + row.getRequestCycleDays());
+    }
+}
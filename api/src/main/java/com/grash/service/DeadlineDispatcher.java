@@ -0,0 +1,106 @@
+package com.grash.service;
+
+import com.grash.model.ScheduledDeadline;
+import com.grash.model.enums.DeadlineType;
+import com.grash.repository.ScheduledDeadlineRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands the due deadlines to their handlers. The due deadlines are claimed in batches by moving them a lease
+ * forward, so that several nodes can dispatch at the same time and a deadline whose handler failed or whose node
+ * died is retried once the lease is over.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeadlineDispatcher {
+
+    private final ScheduledDeadlineRepository scheduledDeadlineRepository;
+    private final List<DeadlineHandler> handlers;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<DeadlineType, DeadlineHandler> handlersByType = new EnumMap<>(DeadlineType.class);
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong overdue = new AtomicLong();
+
+    @Value("${deadlines.batch-size:100}")
+    private int batchSize;
+    @Value("${deadlines.lease-minutes:5}")
+    private int leaseMinutes;
+    @Value("${deadlines.max-attempts:10}")
+    private int maxAttempts;
+
+    @PostConstruct
+    private void init() {
+        handlers.forEach(handler -> handlersByType.put(handler.getType(), handler));
+        Gauge.builder("deadlines.pending", pending, AtomicLong::get)
+                .description("Number of scheduled deadlines, as of the last dispatch")
+                .register(meterRegistry);
+        Gauge.builder("deadlines.overdue", overdue, AtomicLong::get)
+                .description("Number of deadlines due for more than a minute, as of the last dispatch")
+                .register(meterRegistry);
+    }
+
+    public void dispatchDue() {
+        List<ScheduledDeadline> claimed;
+        do {
+            Date now = new Date();
+            Date leaseEnd = new Date(now.getTime() + TimeUnit.MINUTES.toMillis(leaseMinutes));
+            Map<Long, Date> dueAts = new HashMap<>();
+            claimed = new TransactionTemplate(transactionManager).execute(status -> {
+                List<ScheduledDeadline> due = scheduledDeadlineRepository.findDueForUpdate(now, batchSize);
+                due.forEach(deadline -> {
+                    dueAts.put(deadline.getId(), deadline.getDueAt());
+                    deadline.setDueAt(leaseEnd);
+                    deadline.setAttempts(deadline.getAttempts() + 1);
+                });
+                return due;
+            });
+            claimed.forEach(deadline -> dispatch(deadline, dueAts.get(deadline.getId()), now));
+        } while (claimed.size() == batchSize);
+        Date now = new Date();
+        pending.set(scheduledDeadlineRepository.count());
+        overdue.set(scheduledDeadlineRepository.countByDueAtBefore(new Date(now.getTime() -
+                TimeUnit.MINUTES.toMillis(1))));
+    }
+
+    private void dispatch(ScheduledDeadline deadline, Date dueAt, Date now) {
+        DeadlineType type = deadline.getType();
+        DeadlineHandler handler = handlersByType.get(type);
+        if (handler == null) {
+            log.error("No handler for the deadlines of type {}", type);
+            return;
+        }
+        meterRegistry.timer("deadlines.lag", "type", type.name())
+                .record(Math.max(0, now.getTime() - dueAt.getTime()), TimeUnit.MILLISECONDS);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                handler.handle(deadline.getTargetId());
+                scheduledDeadlineRepository.deleteIfDueAt(deadline.getId(), deadline.getDueAt());
+            });
+            meterRegistry.counter("deadlines.fired", "type", type.name()).increment();
+        } catch (RuntimeException e) {
+            meterRegistry.counter("deadlines.failures", "type", type.name()).increment();
+            if (deadline.getAttempts() >= maxAttempts) {
+                log.error("Giving up the {} deadline of {} after {} attempts", type, deadline.getTargetId(),
+                        deadline.getAttempts(), e);
+                scheduledDeadlineRepository.deleteIfDueAt(deadline.getId(), deadline.getDueAt());
+            } else {
+                log.warn("The {} deadline of {} failed, it will be retried", type, deadline.getTargetId(), e);
+            }
+        }
+    }
+}
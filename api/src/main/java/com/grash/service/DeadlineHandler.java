@@ -0,0 +1,14 @@
+package com.grash.service;
+
+import com.grash.model.enums.DeadlineType;
+
+/**
+ * Called by {@link DeadlineDispatcher} when a deadline of its type is due, in a transaction. The deadline is deleted
+ * afterwards unless the handler scheduled it again, and it is retried later if the handler throws.
+ */
+public interface DeadlineHandler {
+
+    DeadlineType getType();
+
+    void handle(Long targetId);
+}
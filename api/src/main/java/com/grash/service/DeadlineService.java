@@ -0,0 +1,27 @@
+package com.grash.service;
+
+import com.grash.model.enums.DeadlineType;
+import com.grash.repository.ScheduledDeadlineRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+
+/**
+ * Stores the deadlines in the database, where {@link DeadlineDispatcher} picks them up when they are due. Scheduling
+ * and cancelling are single statements on the (type, target) key, and the deadlines survive restarts.
+ */
+@Service
+@RequiredArgsConstructor
+public class DeadlineService {
+
+    private final ScheduledDeadlineRepository scheduledDeadlineRepository;
+
+    public void schedule(DeadlineType type, Long targetId, Date dueAt) {
+        scheduledDeadlineRepository.upsert(type.ordinal(), targetId, dueAt);
+    }
+
+    public void cancel(DeadlineType type, Long targetId) {
+        scheduledDeadlineRepository.deleteByTypeAndTargetId(type, targetId);
+    }
+}
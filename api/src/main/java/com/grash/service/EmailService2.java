@@ -2,19 +2,16 @@ package com.grash.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.grash.exception.CustomException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.mail.MailProperties;
 import org.springframework.core.env.Environment;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.http.HttpStatus;
 import org.springframework.mail.MailException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring5.SpringTemplateEngine;
@@ -38,6 +35,7 @@ public class EmailService2 {
     private final SimpleMailMessage template;
     private final MailProperties mailProperties;
     private final BrandingService brandingService;
+    private final NotificationOutboxService notificationOutboxService;
     @Value("${spring.mail.username:#{null}")
     private String smtpUsername;
 
@@ -97,7 +95,9 @@ public class EmailService2 {
     }
 
 
-    @Async
+    /**
+     * Renders the template now and queues the email in the outbox, in the caller's transaction
+     */
     public void sendMessageUsingThymeleafTemplate(
             String[] to, String subject, Map<String, Object> templateModel, String template, Locale locale) {
         if (Boolean.FALSE.equals(enableEmails))
@@ -110,11 +110,7 @@ public class EmailService2 {
         thymeleafContext.setVariable("backgroundColor", brandingService.getMailBackgroundColor());
         String htmlBody = thymeleafTemplateEngine.process(template, thymeleafContext);
 
-        try {
-            sendHtmlMessage(to, subject, htmlBody);
-        } catch (MessagingException e) {
-            throw new CustomException("Can't send the mail", HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        notificationOutboxService.enqueueEmail(to, subject, htmlBody);
     }
 
 
@@ -0,0 +1,54 @@
+package com.grash.service;
+
+import com.grash.dto.notification.PushReceipt;
+import com.grash.dto.notification.PushTicket;
+import io.github.jav.exposerversdk.*;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Sends through the Expo push service with a single client, so that its HTTP connections are reused across
+ * notifications instead of opening new ones for every call.
+ */
+@Service
+public class ExpoPushGateway implements PushGateway {
+
+    private PushClient client;
+
+    @PostConstruct
+    private void init() throws PushClientException {
+        client = new PushClient();
+    }
+
+    @Override
+    public CompletableFuture<List<PushTicket>> send(List<ExpoPushMessage> messages) {
+        List<CompletableFuture<List<PushTicket>>> futures = client.chunkPushNotifications(messages).stream()
+                .map(chunk -> client.sendPushNotificationsAsync(chunk).thenApply(tickets -> toTickets(chunk, tickets)))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored ->
+                futures.stream().flatMap(future -> future.join().stream()).collect(Collectors.toList()));
+    }
+
+    private List<PushTicket> toTickets(List<ExpoPushMessage> chunk, List<ExpoPushTicket> expoTickets) {
+        List<ExpoPushMessageTicketPair<ExpoPushMessage>> pairs = client.zipMessagesTickets(chunk, expoTickets);
+        Set<ExpoPushTicket> okTickets = Collections.newSetFromMap(new IdentityHashMap<>());
+        client.filterAllSuccessfulMessages(pairs).forEach(pair -> okTickets.add(pair.ticket));
+        return pairs.stream().map(pair -> okTickets.contains(pair.ticket) ? new PushTicket(pair.ticket.getId(), null) :
+                        new PushTicket(null, pair.ticket.getDetails() == null ? "Unknown" :
+                                pair.ticket.getDetails().getError()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public CompletableFuture<List<PushReceipt>> getReceipts(List<String> ticketIds) {
+        return client.getPushNotificationReceiptsAsync(ticketIds).thenApply(receipts -> receipts.stream()
+                .map(receipt -> new PushReceipt(receipt.getId(),
+                        "ok".equalsIgnoreCase(String.valueOf(receipt.getStatus())) ? null :
+                                receipt.getDetails() == null ? "Unknown" : receipt.getDetails().getError()))
+                .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,187 @@
+package com.grash.service;
+
+import com.grash.dto.ExportJobShowDTO;
+import com.grash.exception.CustomException;
+import com.grash.factory.StorageServiceFactory;
+import com.grash.model.ExportJob;
+import com.grash.model.OwnUser;
+import com.grash.model.enums.ExportEntity;
+import com.grash.model.enums.ExportJobStatus;
+import com.grash.repository.ExportJobRepository;
+import com.grash.utils.Helper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the exports in the background on a bounded pool of workers. The progress of a job is sent to its user on
+ * /notifications/{userId}/exports and the file is kept in the storage so that it can be downloaded again later.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportJobService {
+
+    private static final String CSV_CONTENT_TYPE = "text/csv";
+    private static final List<ExportJobStatus> UNFINISHED_STATUSES = Arrays.asList(ExportJobStatus.PENDING,
+            ExportJobStatus.RUNNING);
+
+    private final ExportJobRepository exportJobRepository;
+    private final ExportService exportService;
+    private final StorageServiceFactory storageServiceFactory;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Set<Long> activeJobIds = ConcurrentHashMap.newKeySet();
+    private ThreadPoolTaskExecutor executor;
+
+    @Value("${export.jobs.workers:2}")
+    private int workers;
+    @Value("${export.jobs.queue-capacity:100}")
+    private int queueCapacity;
+    @Value("${export.jobs.max-per-company:2}")
+    private int maxJobsPerCompany;
+    @Value("${export.jobs.stale-after-minutes:15}")
+    private int staleAfterMinutes;
+
+    @PostConstruct
+    private void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("Export-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdown();
+    }
+
+    public ExportJob submit(OwnUser user, ExportEntity entity) {
+        Long companyId = user.getCompany().getId();
+        ExportJob job = new ExportJob();
+        job.setEntity(entity);
+        job.setUser(user);
+        job.setCompany(user.getCompany());
+        // the unfinished jobs of the company are counted under a lock held until the new one is saved, so that the
+        // limit holds whatever the node the requests reach
+        ExportJob savedJob = new TransactionTemplate(transactionManager).execute(status -> {
+            exportJobRepository.lockCompany(companyId);
+            if (exportJobRepository.countByCompany_IdAndStatusIn(companyId, UNFINISHED_STATUSES)
+                    >= maxJobsPerCompany) {
+                throw new CustomException("Too many exports are in progress for this company",
+                        HttpStatus.TOO_MANY_REQUESTS);
+            }
+            return exportJobRepository.save(job);
+        });
+        activeJobIds.add(savedJob.getId());
+        try {
+            executor.execute(() -> run(savedJob.getId(), companyId));
+        } catch (TaskRejectedException e) {
+            activeJobIds.remove(savedJob.getId());
+            savedJob.setStatus(ExportJobStatus.FAILED);
+            savedJob.setError("The export queue is full");
+            exportJobRepository.save(savedJob);
+            throw new CustomException("Too many exports are in progress, please try again later",
+                    HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return savedJob;
+    }
+
+    public Optional<ExportJob> findByIdAndUser(Long id, Long userId) {
+        return exportJobRepository.findByIdAndUser_Id(id, userId);
+    }
+
+    public List<ExportJob> findLastByUser(Long userId, int count) {
+        return exportJobRepository.findByUser_IdOrderByCreatedAtDesc(userId, PageRequest.of(0, count));
+    }
+
+    public ExportJobShowDTO toShowDto(ExportJob job) {
+        return ExportJobShowDTO.builder()
+                .id(job.getId())
+                .entity(job.getEntity())
+                .status(job.getStatus())
+                .totalRows(job.getTotalRows())
+                .writtenRows(job.getWrittenRows())
+                .error(job.getError())
+                .createdAt(job.getCreatedAt())
+                .completedOn(job.getCompletedOn())
+                .url(job.getStatus() == ExportJobStatus.COMPLETE && job.getFilePath() != null ?
+                        storageServiceFactory.getStorageService().generateSignedUrl(job.getFilePath(), 10) : null)
+                .build();
+    }
+
+    /**
+     * Keeps the jobs running on this node alive. Runs on every node, unlike the clustered Quartz jobs which fire on a
+     * single one.
+     */
+    @Scheduled(fixedDelayString = "${export.jobs.heartbeat-ms:60000}")
+    public void touchActiveJobs() {
+        if (!activeJobIds.isEmpty()) exportJobRepository.touch(new ArrayList<>(activeJobIds));
+    }
+
+    /**
+     * Fails the unfinished jobs whose node stopped updating them, typically after a crash or a redeployment
+     */
+    public void failInterruptedJobs() {
+        Date before = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(staleAfterMinutes));
+        int failed = exportJobRepository.failStale(UNFINISHED_STATUSES, before, ExportJobStatus.FAILED,
+                "The export was interrupted");
+        if (failed > 0) log.warn("Failed {} interrupted export jobs", failed);
+    }
+
+    private void run(Long jobId, Long companyId) {
+        ExportJob job = null;
+        try {
+            job = exportJobRepository.findById(jobId)
+                    .orElseThrow(() -> new CustomException("Not found", HttpStatus.NOT_FOUND));
+            ExportEntity entity = job.getEntity();
+            job.setStatus(ExportJobStatus.RUNNING);
+            job.setTotalRows(exportService.count(entity, companyId));
+            Locale locale = Helper.getLocale(job.getCompany());
+            ExportJob runningJob = exportJobRepository.save(job);
+            job = runningJob;
+            notify(runningJob);
+            String filePath = storageServiceFactory.getStorageService().upload(entity.getFileName(),
+                    CSV_CONTENT_TYPE, companyId + "/exports/" + entity.getFolder(),
+                    outputStream -> exportService.write(entity, companyId, locale, outputStream, writtenRows -> {
+                        exportJobRepository.updateProgress(jobId, writtenRows);
+                        runningJob.setWrittenRows(writtenRows);
+                        notify(runningJob);
+                    }));
+            job.setFilePath(filePath);
+            job.setStatus(ExportJobStatus.COMPLETE);
+        } catch (Exception e) {
+            log.error("Export job {} failed", jobId, e);
+            if (job == null) return;
+            job.setStatus(ExportJobStatus.FAILED);
+            job.setError(e.getMessage() == null ? e.getClass().getSimpleName() :
+                    e.getMessage().substring(0, Math.min(e.getMessage().length(), 1000)));
+        } finally {
+            activeJobIds.remove(jobId);
+        }
+        job.setCompletedOn(new Date());
+        notify(exportJobRepository.save(job));
+    }
+
+    private void notify(ExportJob job) {
+        messagingTemplate.convertAndSend("/notifications/" + job.getUser().getId() + "/exports", toShowDto(job));
+    }
+}
@@ -0,0 +1,209 @@
+package com.grash.service;
+
+import com.grash.model.Asset;
+import com.grash.model.Location;
+import com.grash.model.Meter;
+import com.grash.model.Part;
+import com.grash.model.WorkOrder;
+import com.grash.model.enums.ExportEntity;
+import com.grash.repository.*;
+import com.grash.utils.CsvFileGenerator;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the CSV exports of a company while paging through its entities by id. Each page is loaded and written in
+ * its own read only transaction and then cleared from the persistence context, so the memory used doesn't depend on
+ * the number of rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private final WorkOrderRepository workOrderRepository;
+    private final AssetRepository assetRepository;
+    private final AssetDowntimeRepository assetDowntimeRepository;
+    private final LocationRepository locationRepository;
+    private final PartRepository partRepository;
+    private final MeterRepository meterRepository;
+    private final CsvFileGenerator csvFileGenerator;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager em;
+
+    @Value("${export.page-size:500}")
+    private int pageSize;
+
+    public void write(ExportEntity entity, Long companyId, Locale locale, OutputStream outputStream)
+            throws IOException {
+        write(entity, companyId, locale, outputStream, writtenRows -> {
+        });
+    }
+
+    /**
+     * @param onProgress called with the number of rows written so far after each page
+     */
+    public void write(ExportEntity entity, Long companyId, Locale locale, OutputStream outputStream,
+                      LongConsumer onProgress) throws IOException {
+        switch (entity) {
+            case WORK_ORDER:
+                writeWorkOrders(companyId, locale, outputStream, onProgress);
+                break;
+            case ASSET:
+                writeAssets(companyId, locale, outputStream, onProgress);
+                break;
+            case LOCATION:
+                writeLocations(companyId, locale, outputStream, onProgress);
+                break;
+            case PART:
+                writeParts(companyId, locale, outputStream, onProgress);
+                break;
+            case METER:
+                writeMeters(companyId, locale, outputStream, onProgress);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported export " + entity);
+        }
+    }
+
+    public long count(ExportEntity entity, Long companyId) {
+        switch (entity) {
+            case WORK_ORDER:
+                return workOrderRepository.countByCompany_Id(companyId);
+            case ASSET:
+                return assetRepository.countByCompany_Id(companyId);
+            case LOCATION:
+                return locationRepository.countByCompany_Id(companyId);
+            case PART:
+                return partRepository.countByCompany_Id(companyId);
+            case METER:
+                return meterRepository.countByCompany_Id(companyId);
+            default:
+                throw new IllegalArgumentException("Unsupported export " + entity);
+        }
+    }
+
+    private void writeWorkOrders(Long companyId, Locale locale, OutputStream outputStream, LongConsumer onProgress)
+            throws IOException {
+        CSVPrinter printer = createPrinter(outputStream);
+        csvFileGenerator.printWorkOrdersHeaders(printer, locale);
+        forEachPage(lastId -> workOrderRepository.findByCompany_IdAndIdGreaterThanOrderByIdAsc(companyId, lastId,
+                getPageable()), WorkOrder::getId, printer, onProgress, workOrders -> {
+            for (WorkOrder workOrder : workOrders) csvFileGenerator.printWorkOrder(printer, workOrder, locale);
+        });
+    }
+
+    private void writeAssets(Long companyId, Locale locale, OutputStream outputStream, LongConsumer onProgress)
+            throws IOException {
+        CSVPrinter printer = createPrinter(outputStream);
+        csvFileGenerator.printAssetsHeaders(printer, locale);
+        forEachPage(lastId -> assetRepository.findByCompany_IdAndIdGreaterThanOrderByIdAsc(companyId, lastId,
+                getPageable()), Asset::getId, printer, onProgress, assets -> {
+            Map<Long, Long> downtimeDurations = assetDowntimeRepository.sumDurationByAssetIds(assets.stream()
+                            .map(Asset::getId).collect(Collectors.toList())).stream()
+                    .collect(Collectors.toMap(AssetDowntimeRepository.AssetDuration::getAssetId,
+                            AssetDowntimeRepository.AssetDuration::getDuration));
+            for (Asset asset : assets) {
+                csvFileGenerator.printAsset(printer, asset, downtimeDurations.getOrDefault(asset.getId(), 0L),
+                        locale);
+            }
+        });
+    }
+
+    private void writeLocations(Long companyId, Locale locale, OutputStream outputStream, LongConsumer onProgress)
+            throws IOException {
+        CSVPrinter printer = createPrinter(outputStream);
+        csvFileGenerator.printLocationsHeaders(printer, locale);
+        forEachPage(lastId -> locationRepository.findByCompany_IdAndIdGreaterThanOrderByIdAsc(companyId, lastId,
+                getPageable()), Location::getId, printer, onProgress, locations -> {
+            for (Location location : locations) csvFileGenerator.printLocation(printer, location, locale);
+        });
+    }
+
+    private void writeParts(Long companyId, Locale locale, OutputStream outputStream, LongConsumer onProgress)
+            throws IOException {
+        CSVPrinter printer = createPrinter(outputStream);
+        csvFileGenerator.printPartsHeaders(printer, locale);
+        forEachPage(lastId -> partRepository.findByCompany_IdAndIdGreaterThanOrderByIdAsc(companyId, lastId,
+                getPageable()), Part::getId, printer, onProgress, parts -> {
+            for (Part part : parts) csvFileGenerator.printPart(printer, part, locale);
+        });
+    }
+
+    private void writeMeters(Long companyId, Locale locale, OutputStream outputStream, LongConsumer onProgress)
+            throws IOException {
+        CSVPrinter printer = createPrinter(outputStream);
+        csvFileGenerator.printMetersHeaders(printer, locale);
+        forEachPage(lastId -> meterRepository.findByCompany_IdAndIdGreaterThanOrderByIdAsc(companyId, lastId,
+                getPageable()), Meter::getId, printer, onProgress, meters -> {
+            for (Meter meter : meters) csvFileGenerator.printMeter(printer, meter, locale);
+        });
+    }
+
+    private CSVPrinter createPrinter(OutputStream outputStream) throws IOException {
+        return csvFileGenerator.createPrinter(new BufferedWriter(new OutputStreamWriter(outputStream,
+                StandardCharsets.UTF_8)));
+    }
+
+    private Pageable getPageable() {
+        return PageRequest.of(0, pageSize);
+    }
+
+    /**
+     * Loads the pages after the last id of the previous one until a page is empty. The printer is flushed after
+     * every page.
+     */
+    private <T> void forEachPage(Function<Long, List<T>> pageLoader, Function<T, Long> getId, CSVPrinter printer,
+                                 LongConsumer onProgress, PageWriter<T> pageWriter) throws IOException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        long writtenRows = 0;
+        Long lastId = 0L;
+        while (lastId != null) {
+            Long afterId = lastId;
+            int[] pageRows = {0};
+            try {
+                lastId = transactionTemplate.execute(status -> {
+                    List<T> page = pageLoader.apply(afterId);
+                    if (page.isEmpty()) return null;
+                    pageRows[0] = page.size();
+                    try {
+                        pageWriter.write(page);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    // the rows are written, the entities and their lazy loaded associations are not needed anymore
+                    em.clear();
+                    return getId.apply(page.get(page.size() - 1));
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            printer.flush();
+            if (pageRows[0] > 0) {
+                writtenRows += pageRows[0];
+                onProgress.accept(writtenRows);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface PageWriter<T> {
+        void write(List<T> page) throws IOException;
+    }
+}
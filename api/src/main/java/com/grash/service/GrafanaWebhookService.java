@@ -1,138 +1,342 @@
 package com.grash.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.grash.dto.GrafanaAlert;
 import com.grash.dto.GrafanaWebhookRequest;
 import com.grash.dto.GrafanaWebhookResponse;
+import com.grash.dto.WebhookConfigMiniDTO;
 import com.grash.exception.CustomException;
 import com.grash.model.Company;
-import com.grash.model.WebhookConfig;
+import com.grash.model.WebhookAlert;
 import com.grash.model.Workflow;
-import com.grash.model.OwnUser;
 import com.grash.model.enums.RoleType;
 import com.grash.model.enums.workflow.WFMainCondition;
 import com.grash.repository.UserRepository;
+import com.grash.repository.WebhookAlertRepository;
+import com.grash.security.RateLimitPolicy;
+import com.grash.security.RateLimitProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.ListUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Collection;
-import java.util.List;
-import java.util.Optional;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
+/**
+ * Stores the Grafana alerts before acknowledging them and runs their workflows on webhooks.ingestion.threads
+ * workers. The alerts are claimed in batches by the node which received them and by the poll job on any node, so
+ * an alert acknowledged before a crash is still processed. The repeats of an alert within
+ * webhooks.ingestion.deduplication-window are dropped by the unique key of the stored alert so that an alert storm
+ * creates one work order per alert, whichever node receives the repeats.
+ */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class GrafanaWebhookService {
-    
+
     private final WebhookConfigService webhookConfigService;
     private final WorkflowService workflowService;
     private final EmailService2 emailService;
     private final RateLimiterService rateLimiterService;
+    private final RateLimitProperties rateLimitProperties;
     private final UserRepository userRepository;
-    
+    private final CompanyService companyService;
+    private final WebhookAlertRepository webhookAlertRepository;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${webhooks.ingestion.threads:2}")
+    private int threads;
+    @Value("${webhooks.ingestion.batch-size:100}")
+    private int batchSize;
+    @Value("${webhooks.ingestion.lease-minutes:5}")
+    private int leaseMinutes;
+    @Value("${webhooks.ingestion.max-attempts:3}")
+    private int maxAttempts;
+    @Value("${webhooks.ingestion.deduplication-window:10m}")
+    private Duration deduplicationWindow;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final AtomicLong depth = new AtomicLong();
+    private ExecutorService drainer;
+    private ExecutorService workers;
+
+    @PostConstruct
+    private void init() {
+        drainer = Executors.newSingleThreadExecutor();
+        workers = Executors.newFixedThreadPool(threads);
+        Gauge.builder("webhooks.alerts.queued", depth, AtomicLong::get)
+                .description("Number of alerts waiting to be processed, as of the last poll")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        drainer.shutdown();
+        workers.shutdown();
+    }
+
     public GrafanaWebhookResponse processWebhook(String apiKey, GrafanaWebhookRequest request) {
+        return processWebhooks(apiKey, Collections.singletonList(request));
+    }
+
+    /**
+     * Stores the alerts of a payload in one transaction, the whole payload counts as one request for the rate limit
+     */
+    public GrafanaWebhookResponse processWebhooks(String apiKey, List<GrafanaWebhookRequest> requests) {
         // Validate API key
         if (apiKey == null || apiKey.isEmpty()) {
             throw new CustomException("API key is required", HttpStatus.UNAUTHORIZED);
         }
-        
-        // Check rate limiting
-        String rateLimitKey = "webhook:" + apiKey;
-        if (!rateLimiterService.resolveBucket(rateLimitKey).tryConsume(1)) {
-            throw new CustomException("Rate limit exceeded", HttpStatus.TOO_MANY_REQUESTS);
-        }
-        
+
         // Validate API key
-        WebhookConfig webhookConfig = webhookConfigService.getByApiKey(apiKey);
-        
+        WebhookConfigMiniDTO webhookConfig = webhookConfigService.resolveApiKey(apiKey);
+
         if (!webhookConfig.isEnabled()) {
             throw new CustomException("Webhook is disabled for this company", HttpStatus.FORBIDDEN);
         }
-        
-        // Convert request to alert
-        GrafanaAlert alert = GrafanaAlert.fromRequest(request);
-        
-        // Find matching workflows
-        Company company = webhookConfig.getCompany();
-        Collection<Workflow> matchingWorkflows = workflowService.findByMainConditionAndCompany(WFMainCondition.WEBHOOK, company.getId());
-        
-        System.out.println("DEBUG: Found " + matchingWorkflows.size() + " WEBHOOK workflows");
-        System.out.println("DEBUG: Alert name: '" + alert.getAlertName() + "', severity: '" + alert.getSeverity() + "'");
-        
-        for (Workflow wf : matchingWorkflows) {
-            System.out.println("DEBUG: Workflow " + wf.getId() + " - " + wf.getTitle());
-            System.out.println("DEBUG: Has " + (wf.getSecondaryConditions() != null ? wf.getSecondaryConditions().size() : 0) + " conditions");
-            if (wf.getSecondaryConditions() != null) {
-                for (var cond : wf.getSecondaryConditions()) {
-                    System.out.println("DEBUG:   Condition - alertName: '" + cond.getAlertName() + "', severity: '" + cond.getSeverity() + "'");
+
+        // Check rate limiting, by company so that regenerating the key doesn't reset it
+        Optional<RateLimitPolicy> rateLimitPolicy = getRateLimitPolicy(webhookConfig);
+        if (rateLimitPolicy.isPresent() && !rateLimiterService.tryConsume("webhook_company",
+                webhookConfig.getCompanyId().toString(), rateLimitPolicy.get()).isConsumed()) {
+            throw new CustomException("Rate limit exceeded", HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        Date now = new Date();
+        Date windowStart = new Date(now.getTime() - deduplicationWindow.toMillis());
+        int queued = new TransactionTemplate(transactionManager).execute(status -> {
+            int stored = 0;
+            for (GrafanaWebhookRequest request : requests) {
+                GrafanaAlert alert = GrafanaAlert.fromRequest(request);
+                stored += webhookAlertRepository.insertUnlessRepeated(webhookConfig.getCompanyId(),
+                        hash(getDeduplicationKey(alert)), write(alert), now, windowStart);
+            }
+            return stored;
+        });
+        int grouped = requests.size() - queued;
+        meterRegistry.counter("webhooks.alerts", "result", "queued").increment(queued);
+        meterRegistry.counter("webhooks.alerts", "result", "grouped").increment(grouped);
+        if (queued > 0) requestDrain();
+        if (requests.size() == 1) {
+            return GrafanaWebhookResponse.success(queued == 1 ? "Alert queued"
+                    : "Alert grouped with a previous occurrence");
+        }
+        return GrafanaWebhookResponse.success(String.format("%d alerts queued, %d grouped with a previous occurrence",
+                queued, grouped));
+    }
+
+    private Optional<RateLimitPolicy> getRateLimitPolicy(WebhookConfigMiniDTO webhookConfig) {
+        RateLimitProperties.Limits defaults = rateLimitProperties.getWebhook();
+        return RateLimitPolicy.perMinuteAndHour(
+                webhookConfig.getRequestsPerMinute() == null ? defaults.getRequestsPerMinute()
+                        : webhookConfig.getRequestsPerMinute(),
+                webhookConfig.getRequestsPerHour() == null ? defaults.getRequestsPerHour()
+                        : webhookConfig.getRequestsPerHour());
+    }
+
+    static String getDeduplicationKey(GrafanaAlert alert) {
+        return String.join("|", String.valueOf(alert.getAlertId()), String.valueOf(alert.getAlertName()),
+                String.valueOf(alert.getDashboardId()), String.valueOf(alert.getPanelId()),
+                String.valueOf(alert.getStatus()));
+    }
+
+    private static String hash(String deduplicationKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(deduplicationKey.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String write(GrafanaAlert alert) {
+        try {
+            return objectMapper.writeValueAsString(alert);
+        } catch (JsonProcessingException e) {
+            throw new CustomException("Invalid alert " + alert.getAlertId(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Called by the poll job to pick up the alerts received by the other nodes or interrupted by a crash, and to
+     * forget the processed alerts whose deduplication window is over
+     */
+    public void processAll() {
+        webhookAlertRepository.deleteExpired(new Date(System.currentTimeMillis() - deduplicationWindow.toMillis()));
+        depth.set(webhookAlertRepository.countByProcessedAtIsNull());
+        requestDrain();
+    }
+
+    private void requestDrain() {
+        drainRequested.set(true);
+        if (!draining.compareAndSet(false, true)) return;
+        try {
+            drainer.execute(() -> {
+                try {
+                    while (drainRequested.getAndSet(false)) {
+                        drain();
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Failed to process the webhook alerts", e);
+                } finally {
+                    draining.set(false);
                 }
+            });
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+        }
+    }
+
+    void drain() {
+        List<WebhookAlert> claimed;
+        do {
+            claimed = claim();
+            if (claimed.isEmpty()) return;
+            int parts = Math.min(threads, claimed.size());
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<WebhookAlert> part : ListUtils.partition(claimed, (claimed.size() + parts - 1) / parts)) {
+                futures.add(workers.submit(() -> process(part)));
             }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    // The alerts of the part are claimed again once their lease is over
+                    log.error("Failed to process webhook alerts", e.getCause());
+                }
+            }
+        } while (claimed.size() == batchSize);
+    }
+
+    private List<WebhookAlert> claim() {
+        Date now = new Date();
+        Date leaseEnd = new Date(now.getTime() + TimeUnit.MINUTES.toMillis(leaseMinutes));
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<WebhookAlert> due = webhookAlertRepository.findDueForUpdate(now, batchSize);
+            due.forEach(alert -> {
+                alert.setNextAttemptAt(leaseEnd);
+                alert.setAttempts(alert.getAttempts() + 1);
+            });
+            return due;
+        });
+    }
+
+    /**
+     * Runs the first matching workflow of each alert, the company of the alerts is loaded once per batch. An alert
+     * whose workflow fails is not retried, the admins of its company are notified instead.
+     */
+    void process(List<WebhookAlert> batch) {
+        Map<Long, List<WebhookAlert>> alertsByCompany = batch.stream()
+                .collect(Collectors.groupingBy(WebhookAlert::getCompanyId, LinkedHashMap::new, Collectors.toList()));
+        alertsByCompany.forEach((companyId, alerts) -> {
+            Optional<Company> optionalCompany = companyService.findById(companyId);
+            if (!optionalCompany.isPresent()) {
+                log.warn("Dropping {} webhook alerts of deleted company {}", alerts.size(), companyId);
+            } else {
+                alerts.forEach(alert -> process(alert, optionalCompany.get()));
+            }
+            webhookAlertRepository.markProcessed(alerts.stream().map(WebhookAlert::getId)
+                    .collect(Collectors.toList()), new Date());
+        });
+    }
+
+    private void process(WebhookAlert webhookAlert, Company company) {
+        meterRegistry.timer("webhooks.alerts.queue_latency")
+                .record(System.currentTimeMillis() - webhookAlert.getReceivedAt().getTime(), TimeUnit.MILLISECONDS);
+        if (webhookAlert.getAttempts() > maxAttempts) {
+            // Its processing was interrupted too many times, the alert itself is probably the cause
+            log.error("Dropping webhook alert {} of company {} after {} attempts", webhookAlert.getId(),
+                    company.getId(), webhookAlert.getAttempts() - 1);
+            meterRegistry.counter("webhooks.alerts.processing_dropped").increment();
+            return;
+        }
+        GrafanaAlert alert;
+        try {
+            alert = objectMapper.readValue(webhookAlert.getPayload(), GrafanaAlert.class);
+        } catch (JsonProcessingException e) {
+            log.error("Invalid payload in webhook alert {}", webhookAlert.getId(), e);
+            return;
         }
-        
-        // Filter by alert name and severity
-        // A workflow matches if ALL its conditions are satisfied:
-        // - If a condition has alertName, it must match
-        // - If a condition has severity, it must match
-        Optional<Workflow> workflowToExecute = matchingWorkflows.stream()
-                .filter(workflow -> workflow.getSecondaryConditions().stream()
-                        .allMatch(condition -> {
-                            boolean alertNameMatch = true;
-                            boolean severityMatch = true;
-                            
-                            // Check alert name if condition specifies it
-                            if (condition.getAlertName() != null && !condition.getAlertName().isEmpty()) {
-                                alertNameMatch = condition.getAlertName().equals(alert.getAlertName());
-                            }
-                            
-                            // Check severity if condition specifies it
-                            if (condition.getSeverity() != null && !condition.getSeverity().isEmpty()) {
-                                severityMatch = condition.getSeverity().equalsIgnoreCase(alert.getSeverity());
-                            }
-                            
-                            return alertNameMatch && severityMatch;
-                        })
-                )
-                .findFirst();
-        
-        // Execute workflow if found
-        if (workflowToExecute.isPresent()) {
+        long start = System.nanoTime();
+        String result;
+        try {
+            Optional<Workflow> workflowToExecute = new TransactionTemplate(transactionManager).execute(status -> {
+                // Find the first workflow whose conditions are met, through the compiled rules of the company
+                Optional<Workflow> workflow = workflowService.findMatching(WFMainCondition.WEBHOOK, company.getId(),
+                        alert).stream().findFirst();
+                workflow.ifPresent(matchingWorkflow ->
+                        workflowService.runWebhookWorkflow(matchingWorkflow, alert, company));
+                return workflow;
+            });
+            result = workflowToExecute.isPresent() ? "executed" : "unmatched";
+        } catch (RuntimeException e) {
+            log.error("Failed to run the workflow of alert {} for company {}", alert.getAlertId(), company.getId(), e);
+            result = "failure";
             try {
-                workflowService.runWebhookWorkflow(workflowToExecute.get(), alert, company);
-                return GrafanaWebhookResponse.success("Workflow executed successfully");
-            } catch (Exception e) {
-                sendErrorNotification(company, alert, e);
-                throw new CustomException("Failed to execute workflow: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+                new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                        sendErrorNotification(company, alert, e));
+            } catch (RuntimeException notificationException) {
+                log.error("Failed to notify the admins of company {}", company.getId(), notificationException);
             }
-        } else {
-            return GrafanaWebhookResponse.success("No matching workflow found for this alert");
         }
+        meterRegistry.timer("webhooks.alerts.processing", "result", result)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
-    
+
     private void sendErrorNotification(Company company, GrafanaAlert alert, Exception exception) {
         String subject = "Webhook Processing Error: " + alert.getAlertName();
         String message = String.format("""
             Dear Administrator,
-            
+
             An error occurred while processing a Grafana webhook alert:
-            
+
             Alert: %s
             Severity: %s
             Status: %s
             Company: %s
-            
+
             Error: %s
-            
+
             Please check the system logs for more details.
-            
+
             Best regards,
             CMMS System
-            """, 
-            alert.getAlertName(), 
+            """,
+            alert.getAlertName(),
             alert.getSeverity(),
             alert.getStatus(),
             company.getName(),
             exception.getMessage()
         );
-        
+
         // Send to company admins
         userRepository.findByCompany_Id(company.getId()).stream()
                 .filter(user -> user.getRole().getRoleType().equals(RoleType.ROLE_ADMIN))
@@ -140,4 +344,4 @@ public class GrafanaWebhookService {
                     emailService.sendEmail(admin.getEmail(), subject, message);
                 });
     }
-}
\ No newline at end of file
+}
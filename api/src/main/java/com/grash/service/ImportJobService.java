@@ -0,0 +1,300 @@
+package com.grash.service;
+
+import com.grash.dto.ImportJobShowDTO;
+import com.grash.dto.imports.ImportError;
+import com.grash.dto.imports.ImportResponse;
+import com.grash.exception.CustomException;
+import com.grash.factory.StorageServiceFactory;
+import com.grash.model.ImportJob;
+import com.grash.model.ImportJobError;
+import com.grash.model.OwnUser;
+import com.grash.model.enums.ImportEntity;
+import com.grash.model.enums.ImportJobStatus;
+import com.grash.repository.ImportJobErrorRepository;
+import com.grash.repository.ImportJobRepository;
+import com.grash.utils.CsvImportParser;
+import com.grash.utils.Helper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Imports the uploaded CSV files in the background on a bounded pool of workers. The file is read one record at a
+ * time and imported in chunks, and the number of records already imported is saved with each chunk so that a job
+ * interrupted by a crash or a redeployment is resumed by another node after its last committed chunk. The progress
+ * of a job is sent to its user on /notifications/{userId}/imports.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportJobService {
+
+    private static final List<ImportJobStatus> UNFINISHED_STATUSES = Arrays.asList(ImportJobStatus.PENDING,
+            ImportJobStatus.RUNNING);
+
+    private final ImportJobRepository importJobRepository;
+    private final ImportJobErrorRepository importJobErrorRepository;
+    private final ImportService importService;
+    private final CsvImportParser csvImportParser;
+    private final StorageServiceFactory storageServiceFactory;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Set<Long> activeJobIds = ConcurrentHashMap.newKeySet();
+    private ThreadPoolTaskExecutor executor;
+
+    @Value("${import.jobs.workers:2}")
+    private int workers;
+    @Value("${import.jobs.queue-capacity:100}")
+    private int queueCapacity;
+    @Value("${import.jobs.max-per-company:2}")
+    private int maxJobsPerCompany;
+    @Value("${import.jobs.stale-after-minutes:15}")
+    private int staleAfterMinutes;
+    @Value("${import.jobs.max-attempts:3}")
+    private int maxAttempts;
+    @Value("${import.jobs.max-stored-errors:1000}")
+    private int maxStoredErrors;
+    @Value("${import.chunk-size:500}")
+    private int chunkSize;
+
+    @PostConstruct
+    private void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("Import-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdown();
+    }
+
+    public ImportJob submit(OwnUser user, ImportEntity entity, MultipartFile file) {
+        Long companyId = user.getCompany().getId();
+        ImportJob job = new ImportJob();
+        job.setEntity(entity);
+        job.setUser(user);
+        job.setCompany(user.getCompany());
+        job.setAttempts(1);
+        // the unfinished jobs of the company are counted under a lock held until the new one is saved, so that the
+        // limit holds whatever the node the requests reach. The file is uploaded once the job has its place.
+        ImportJob savedJob = new TransactionTemplate(transactionManager).execute(status -> {
+            importJobRepository.lockCompany(companyId);
+            if (importJobRepository.countByCompany_IdAndStatusIn(companyId, UNFINISHED_STATUSES)
+                    >= maxJobsPerCompany) {
+                throw new CustomException("Too many imports are in progress for this company",
+                        HttpStatus.TOO_MANY_REQUESTS);
+            }
+            return importJobRepository.save(job);
+        });
+        try {
+            savedJob.setFilePath(storageServiceFactory.getStorageService().upload(file, companyId + "/imports"));
+            importJobRepository.save(savedJob);
+        } catch (RuntimeException e) {
+            fail(savedJob, "The file could not be uploaded");
+            throw e;
+        }
+        activeJobIds.add(savedJob.getId());
+        try {
+            executor.execute(() -> run(savedJob.getId()));
+        } catch (TaskRejectedException e) {
+            activeJobIds.remove(savedJob.getId());
+            fail(savedJob, "The import queue is full");
+            throw new CustomException("Too many imports are in progress, please try again later",
+                    HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return savedJob;
+    }
+
+    public Optional<ImportJob> findByIdAndUser(Long id, Long userId) {
+        return importJobRepository.findByIdAndUser_Id(id, userId);
+    }
+
+    public List<ImportJob> findLastByUser(Long userId, int count) {
+        return importJobRepository.findByUser_IdOrderByCreatedAtDesc(userId, PageRequest.of(0, count));
+    }
+
+    public ImportJobShowDTO toShowDto(ImportJob job) {
+        return ImportJobShowDTO.builder()
+                .id(job.getId())
+                .entity(job.getEntity())
+                .status(job.getStatus())
+                .totalRows(job.getTotalRows())
+                .processedRows(job.getProcessedRows())
+                .created(job.getCreated())
+                .updated(job.getUpdated())
+                .errorCount(job.getErrorCount())
+                .error(job.getError())
+                .createdAt(job.getCreatedAt())
+                .completedOn(job.getCompletedOn())
+                .errors(job.getStatus() == ImportJobStatus.COMPLETE && job.getErrorCount() > 0 ?
+                        importJobErrorRepository.findByJob_IdOrderByRowNumber(job.getId(),
+                                        PageRequest.of(0, maxStoredErrors)).stream()
+                                .map(error -> new ImportError((int) error.getRowNumber(), error.getMessage()))
+                                .collect(Collectors.toList()) : null)
+                .build();
+    }
+
+    /**
+     * Keeps the jobs running on this node alive. Runs on every node, unlike the clustered Quartz jobs which fire on a
+     * single one.
+     */
+    @Scheduled(fixedDelayString = "${import.jobs.heartbeat-ms:60000}")
+    public void touchActiveJobs() {
+        if (!activeJobIds.isEmpty()) importJobRepository.touch(new ArrayList<>(activeJobIds));
+    }
+
+    /**
+     * Resumes the unfinished jobs whose node stopped updating them, typically after a crash or a redeployment. A job
+     * interrupted too many times is failed instead, its file is probably the cause.
+     */
+    public void resumeInterruptedJobs() {
+        Date before = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(staleAfterMinutes));
+        int failed = importJobRepository.failStale(UNFINISHED_STATUSES, before, maxAttempts, ImportJobStatus.FAILED,
+                "The import was interrupted too many times");
+        if (failed > 0) log.warn("Failed {} interrupted import jobs", failed);
+        for (Long jobId : importJobRepository.findStaleIds(UNFINISHED_STATUSES, before)) {
+            if (importJobRepository.claim(jobId, UNFINISHED_STATUSES, before) == 0) continue;
+            ImportJob job = importJobRepository.findById(jobId).orElse(null);
+            if (job == null) continue;
+            activeJobIds.add(jobId);
+            try {
+                executor.execute(() -> run(jobId));
+                log.info("Resuming import job {} after row {}", jobId, job.getProcessedRows());
+            } catch (TaskRejectedException e) {
+                // another node or a later run will claim it again
+                activeJobIds.remove(jobId);
+            }
+        }
+    }
+
+    private void run(Long jobId) {
+        ImportJob job = null;
+        try {
+            job = importJobRepository.findById(jobId)
+                    .orElseThrow(() -> new CustomException("Not found", HttpStatus.NOT_FOUND));
+            // the imported entities are created on behalf of the user of the job
+            Helper.setCurrentUser(job.getUser());
+            ImportEntity entity = job.getEntity();
+            job.setStatus(ImportJobStatus.RUNNING);
+            if (job.getTotalRows() == 0) {
+                try (InputStream inputStream = storageServiceFactory.getStorageService().openStream(job.getFilePath())) {
+                    job.setTotalRows(csvImportParser.countRecords(inputStream));
+                }
+            }
+            job = importJobRepository.save(job);
+            notify(job);
+            try (InputStream inputStream = storageServiceFactory.getStorageService().openStream(job.getFilePath());
+                 CSVParser parser = csvImportParser.parse(inputStream)) {
+                CsvImportParser.RowMapper rowMapper = csvImportParser.getRowMapper(entity, parser.getHeaderNames());
+                Iterator<CSVRecord> records = parser.iterator();
+                long position = 0;
+                while (position < job.getProcessedRows() && records.hasNext()) {
+                    records.next();
+                    position++;
+                }
+                long[] storedErrors = {job.getErrorCount()};
+                // the rows of the first chunk already imported one by one before the job was interrupted, the chunk
+                // being read again from the same position
+                int skip = job.getChunkProgress();
+                while (records.hasNext()) {
+                    long chunkStart = position;
+                    List<Object> rows = new ArrayList<>();
+                    List<Long> rowPositions = new ArrayList<>();
+                    List<ImportJobError> errors = new ArrayList<>();
+                    while (rows.size() < chunkSize && records.hasNext()) {
+                        CSVRecord record = records.next();
+                        position++;
+                        try {
+                            rows.add(rowMapper.map(record));
+                            rowPositions.add(position);
+                        } catch (IllegalArgumentException e) {
+                            errors.add(newError(job, position, e.getMessage()));
+                        }
+                    }
+                    long processedRows = position;
+                    ImportJob runningJob = job;
+                    ImportResponse response = importService.importRows(entity, rows, job.getCompany(), skip,
+                            (imported, importedRows) -> {
+                                // the checkpoint and the errors are committed with the rows, the position only
+                                // moves once all the rows of the chunk are
+                                boolean chunkImported = importedRows == rows.size();
+                                List<ImportJobError> chunkErrors = new ArrayList<>(chunkImported ? errors :
+                                        Collections.<ImportJobError>emptyList());
+                                imported.getErrors().forEach(error -> chunkErrors.add(newError(runningJob,
+                                        rowPositions.get(error.getRow() - 1), error.getMessage())));
+                                importJobRepository.addProgress(jobId, chunkImported ? processedRows : chunkStart,
+                                        chunkImported ? 0 : importedRows, imported.getCreated(),
+                                        imported.getUpdated(), chunkErrors.size());
+                                long toStore = Math.min(chunkErrors.size(), maxStoredErrors - storedErrors[0]);
+                                if (toStore > 0) importJobErrorRepository.saveAll(chunkErrors.subList(0, (int) toStore));
+                                storedErrors[0] += chunkErrors.size();
+                            });
+                    skip = 0;
+                    job.setProcessedRows(processedRows);
+                    job.setChunkProgress(0);
+                    job.setCreated(job.getCreated() + response.getCreated());
+                    job.setUpdated(job.getUpdated() + response.getUpdated());
+                    job.setErrorCount(job.getErrorCount() + errors.size() + response.getErrors().size());
+                    notify(job);
+                }
+            }
+            job.setStatus(ImportJobStatus.COMPLETE);
+        } catch (Exception e) {
+            log.error("Import job {} failed", jobId, e);
+            if (job == null) return;
+            job.setStatus(ImportJobStatus.FAILED);
+            job.setError(e.getMessage() == null ? e.getClass().getSimpleName() :
+                    e.getMessage().substring(0, Math.min(e.getMessage().length(), 1000)));
+        } finally {
+            SecurityContextHolder.clearContext();
+            activeJobIds.remove(jobId);
+        }
+        job.setCompletedOn(new Date());
+        notify(importJobRepository.save(job));
+    }
+
+    private ImportJobError newError(ImportJob job, long rowNumber, String message) {
+        ImportJobError error = new ImportJobError();
+        error.setJob(job);
+        error.setRowNumber(rowNumber);
+        error.setMessage(message == null ? null : message.substring(0, Math.min(message.length(), 1000)));
+        return error;
+    }
+
+    private void notify(ImportJob job) {
+        messagingTemplate.convertAndSend("/notifications/" + job.getUser().getId() + "/imports", toShowDto(job));
+    }
+
+    private void fail(ImportJob job, String error) {
+        job.setStatus(ImportJobStatus.FAILED);
+        job.setError(error);
+        job.setCompletedOn(new Date());
+        importJobRepository.save(job);
+    }
+}
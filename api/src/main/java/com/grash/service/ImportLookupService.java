@@ -0,0 +1,157 @@
+package com.grash.service;
+
+import com.grash.dto.imports.*;
+import com.grash.model.Company;
+import com.grash.repository.*;
+import com.grash.utils.ImportLookups;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the names and emails referenced by a chunk of imported rows and loads the matching entities with one IN
+ * query per entity type. It must be called in the transaction of the chunk so that the loaded entities are managed.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImportLookupService {
+
+    private final UserRepository userRepository;
+    private final TeamRepository teamRepository;
+    private final CustomerRepository customerRepository;
+    private final VendorRepository vendorRepository;
+    private final PartRepository partRepository;
+    private final LocationRepository locationRepository;
+    private final AssetRepository assetRepository;
+    private final AssetCategoryRepository assetCategoryRepository;
+    private final PartCategoryRepository partCategoryRepository;
+    private final MeterCategoryRepository meterCategoryRepository;
+    private final WorkOrderCategoryRepository workOrderCategoryRepository;
+    private final CustomSequenceService customSequenceService;
+
+    public ImportLookups loadForWorkOrders(Collection<? extends WorkOrderImportDTO> dtos, Company company) {
+        References references = new References();
+        dtos.forEach(dto -> {
+            references.emails.add(dto.getPrimaryUserEmail());
+            references.emails.addAll(dto.getAssignedToEmails());
+            references.emails.add(dto.getCompletedByEmail());
+            references.teams.add(dto.getTeamName());
+            references.locations.add(dto.getLocationName());
+            references.assets.add(dto.getAssetName());
+            references.customers.addAll(dto.getCustomersNames());
+        });
+        ImportLookups lookups = load(references, company);
+        lookups.addWorkOrderCategories(workOrderCategoryRepository.findByCompanySettings_Id(
+                company.getCompanySettings().getId()));
+        lookups.setCustomSequence(customSequenceService.getOrCreateCustomSequence(company));
+        return lookups;
+    }
+
+    public ImportLookups loadForAssets(Collection<AssetImportDTO> dtos, Company company) {
+        References references = new References();
+        Set<String> barCodes = new HashSet<>();
+        dtos.forEach(dto -> {
+            references.emails.add(dto.getPrimaryUserEmail());
+            references.emails.addAll(dto.getAssignedToEmails());
+            references.teams.addAll(dto.getTeamsNames());
+            references.customers.addAll(dto.getCustomersNames());
+            references.vendors.addAll(dto.getVendorsNames());
+            references.parts.addAll(dto.getPartsNames());
+            references.locations.add(dto.getLocationName());
+            references.assets.add(dto.getParentAssetName());
+            if (dto.getBarCode() != null) barCodes.add(dto.getBarCode());
+        });
+        ImportLookups lookups = load(references, company);
+        if (!barCodes.isEmpty())
+            lookups.addAssetsWithBarcode(assetRepository.findByCompany_IdAndBarCodeIn(company.getId(), barCodes));
+        lookups.addAssetCategories(assetCategoryRepository.findByCompanySettings_Id(
+                company.getCompanySettings().getId()));
+        lookups.setCustomSequence(customSequenceService.getOrCreateCustomSequence(company));
+        return lookups;
+    }
+
+    public ImportLookups loadForLocations(Collection<LocationImportDTO> dtos, Company company) {
+        References references = new References();
+        dtos.forEach(dto -> {
+            references.emails.addAll(dto.getWorkersEmails());
+            references.teams.addAll(dto.getTeamsNames());
+            references.customers.addAll(dto.getCustomersNames());
+            references.vendors.addAll(dto.getVendorsNames());
+            references.locations.add(dto.getParentLocationName());
+        });
+        ImportLookups lookups = load(references, company);
+        lookups.setCustomSequence(customSequenceService.getOrCreateCustomSequence(company));
+        return lookups;
+    }
+
+    public ImportLookups loadForParts(Collection<PartImportDTO> dtos, Company company) {
+        References references = new References();
+        Set<String> barcodes = new HashSet<>();
+        dtos.forEach(dto -> {
+            references.emails.addAll(dto.getAssignedToEmails());
+            references.teams.addAll(dto.getTeamsNames());
+            references.customers.addAll(dto.getCustomersNames());
+            references.vendors.addAll(dto.getVendorsNames());
+            if (dto.getBarcode() != null) barcodes.add(dto.getBarcode());
+        });
+        ImportLookups lookups = load(references, company);
+        if (!barcodes.isEmpty())
+            lookups.addPartsWithBarcode(partRepository.findByCompany_IdAndBarcodeIn(company.getId(), barcodes));
+        lookups.addPartCategories(partCategoryRepository.findByCompanySettings_Id(
+                company.getCompanySettings().getId()));
+        return lookups;
+    }
+
+    public ImportLookups loadForMeters(Collection<MeterImportDTO> dtos, Company company) {
+        References references = new References();
+        dtos.forEach(dto -> {
+            references.emails.addAll(dto.getUsersEmails());
+            references.locations.add(dto.getLocationName());
+            references.assets.add(dto.getAssetName());
+        });
+        ImportLookups lookups = load(references, company);
+        lookups.addMeterCategories(meterCategoryRepository.findByCompany_Id(company.getId()));
+        return lookups;
+    }
+
+    private ImportLookups load(References references, Company company) {
+        Long companyId = company.getId();
+        ImportLookups lookups = new ImportLookups();
+        Set<String> emails = keys(references.emails);
+        if (!emails.isEmpty()) lookups.addUsers(userRepository.findByCompanyAndLowerEmailIn(companyId, emails));
+        Set<String> teams = keys(references.teams);
+        if (!teams.isEmpty()) lookups.addTeams(teamRepository.findByCompanyAndLowerNameIn(companyId, teams));
+        Set<String> customers = keys(references.customers);
+        if (!customers.isEmpty())
+            lookups.addCustomers(customerRepository.findByCompanyAndLowerNameIn(companyId, customers));
+        Set<String> vendors = keys(references.vendors);
+        if (!vendors.isEmpty()) lookups.addVendors(vendorRepository.findByCompanyAndLowerNameIn(companyId, vendors));
+        Set<String> parts = keys(references.parts);
+        if (!parts.isEmpty()) lookups.addParts(partRepository.findByCompanyAndLowerNameIn(companyId, parts));
+        Set<String> locations = keys(references.locations);
+        if (!locations.isEmpty())
+            lookups.addLocations(locationRepository.findByCompanyAndLowerNameIn(companyId, locations));
+        Set<String> assets = keys(references.assets);
+        if (!assets.isEmpty()) lookups.addAssets(assetRepository.findByCompanyAndLowerNameIn(companyId, assets));
+        return lookups;
+    }
+
+    private Set<String> keys(Collection<String> namesOrEmails) {
+        return namesOrEmails.stream().filter(Objects::nonNull).map(ImportLookups::key).collect(Collectors.toSet());
+    }
+
+    private static class References {
+        private final Set<String> emails = new HashSet<>();
+        private final Set<String> teams = new HashSet<>();
+        private final Set<String> customers = new HashSet<>();
+        private final Set<String> vendors = new HashSet<>();
+        private final Set<String> parts = new HashSet<>();
+        private final Set<String> locations = new HashSet<>();
+        private final Set<String> assets = new HashSet<>();
+    }
+}
@@ -1,14 +1,32 @@
 package com.grash.service;
 
 import com.grash.dto.imports.*;
+import com.grash.exception.CustomException;
 import com.grash.model.*;
-import org.springframework.stereotype.Service;
+import com.grash.model.abstracts.CompanyAudit;
+import com.grash.model.enums.ImportEntity;
+import com.grash.utils.ImportLookups;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.validation.Valid;
-import java.util.List;
-import java.util.Optional;
+import javax.persistence.EntityManager;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+/**
+ * Imports the rows in chunks, each chunk in its own transaction. The entities referenced by the rows of a chunk and
+ * the entities it updates are loaded beforehand in a few IN queries, and its inserts and updates are sent in JDBC
+ * batches when it is flushed. A row that can't be imported is reported in the response without aborting the others.
+ */
 @Service
 @RequiredArgsConstructor
 public class ImportService {
@@ -19,156 +37,235 @@ public class ImportService {
     private final MeterService meterService;
     private final WorkOrderService workOrderService;
     private final PreventiveMaintenanceService preventiveMaintenanceService;
+    private final ImportLookupService importLookupService;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager em;
+
+    @Value("${import.chunk-size:500}")
+    private int chunkSize;
 
     public ImportResponse importWorkOrders(List<WorkOrderImportDTO> toImport, Company company) {
-        final int[] created = {0};
-        final int[] updated = {0};
-        toImport.forEach(workOrderImportDTO -> {
-            Long id = workOrderImportDTO.getId();
-            WorkOrder workOrder = new WorkOrder();
-            if (id == null) {
-                created[0]++;
-            } else {
-                Optional<WorkOrder> optionalWorkOrder = workOrderService.findByIdAndCompany(id, company.getId());
-                if (optionalWorkOrder.isPresent()) {
-                    workOrder = optionalWorkOrder.get();
-                    updated[0]++;
-                } else {
-                    created[0]++;
-                }
-            }
-            workOrderService.importWorkOrder(workOrder, workOrderImportDTO, company);
-        });
-        return ImportResponse.builder()
-                .created(created[0])
-                .updated(updated[0])
-                .build();
+        return workOrderImport(company).run(toImport, toImport, 0, null);
     }
 
     public ImportResponse importAssets(List<AssetImportDTO> toImport, Company company) {
-        final int[] created = {0};
-        final int[] updated = {0};
-        AssetService.orderAssets(toImport).forEach(assetImportDTO -> {
-            Long id = assetImportDTO.getId();
-            Asset asset = new Asset();
-            if (id == null) {
-                created[0]++;
-            } else {
-                Optional<Asset> optionalAsset = assetService.findByIdAndCompany(id, company.getId());
-                if (optionalAsset.isPresent()) {
-                    asset = optionalAsset.get();
-                    updated[0]++;
-                } else {
-                    created[0]++;
-                }
-            }
-            assetService.importAsset(asset, assetImportDTO, company);
-        });
-        return ImportResponse.builder()
-                .created(created[0])
-                .updated(updated[0])
-                .build();
+        return assetImport(company).run(toImport, AssetService.orderAssets(toImport), 0, null);
     }
 
     public ImportResponse importLocations(List<LocationImportDTO> toImport, Company company) {
-        final int[] created = {0};
-        final int[] updated = {0};
-        LocationService.orderLocations(toImport).forEach(locationImportDTO -> {
-            Long id = locationImportDTO.getId();
-            Location location = new Location();
-            if (id == null) {
-                created[0]++;
-            } else {
-                Optional<Location> optionalLocation = locationService.findByIdAndCompany(id, company.getId());
-                if (optionalLocation.isPresent()) {
-                    location = optionalLocation.get();
-                    updated[0]++;
-                } else {
-                    created[0]++;
-                }
-            }
-            locationService.importLocation(location, locationImportDTO, company);
-        });
-        return ImportResponse.builder()
-                .created(created[0])
-                .updated(updated[0])
-                .build();
+        return locationImport(company).run(toImport, LocationService.orderLocations(toImport), 0, null);
     }
 
     public ImportResponse importMeters(List<MeterImportDTO> toImport, Company company) {
-        final int[] created = {0};
-        final int[] updated = {0};
-        toImport.forEach(meterImportDTO -> {
-            Long id = meterImportDTO.getId();
-            Meter meter = new Meter();
-            if (id == null) {
-                created[0]++;
-            } else {
-                Optional<Meter> optionalMeter = meterService.findByIdAndCompany(id, company.getId());
-                if (optionalMeter.isPresent()) {
-                    meter = optionalMeter.get();
-                    updated[0]++;
-                } else {
-                    created[0]++;
-                }
-            }
-            meterService.importMeter(meter, meterImportDTO, company);
-        });
-        return ImportResponse.builder()
-                .created(created[0])
-                .updated(updated[0])
-                .build();
+        return meterImport(company).run(toImport, toImport, 0, null);
     }
 
     public ImportResponse importParts(List<PartImportDTO> toImport, Company company) {
-        final int[] created = {0};
-        final int[] updated = {0};
-        toImport.forEach(partImportDTO -> {
-            Long id = partImportDTO.getId();
-            Part part = new Part();
-            if (id == null) {
-                created[0]++;
-            } else {
-                Optional<Part> optionalPart = partService.findByIdAndCompany(id, company.getId());
-                if (optionalPart.isPresent()) {
-                    part = optionalPart.get();
-                    updated[0]++;
-                } else {
-                    created[0]++;
-                }
-            }
-            partService.importPart(part, partImportDTO, company);
-        });
-        return ImportResponse.builder()
-                .created(created[0])
-                .updated(updated[0])
-                .build();
+        return partImport(company).run(toImport, toImport, 0, null);
     }
 
     public ImportResponse importPreventiveMaintenances(List<PreventiveMaintenanceImportDTO> toImport, Company company) {
-        final int[] created = {0};
-        final int[] updated = {0};
-        toImport.forEach(pmImportDTO -> {
-            Long id = pmImportDTO.getId();
-            PreventiveMaintenance preventiveMaintenance = new PreventiveMaintenance();
-            if (id == null) {
-                created[0]++;
-            } else {
-                Optional<PreventiveMaintenance> optionalPM = preventiveMaintenanceService.findByIdAndCompany(id,
-                        company.getId());
-                if (optionalPM.isPresent()) {
-                    preventiveMaintenance = optionalPM.get();
-                    updated[0]++;
-                } else {
-                    created[0]++;
+        return preventiveMaintenanceImport(company).run(toImport, toImport, 0, null);
+    }
+
+    /**
+     * Imports rows converted by {@link com.grash.utils.CsvImportParser} for the background import jobs.
+     *
+     * @param rows       the import DTOs of the entity
+     * @param skip       the number of rows already imported by a previous run, in the order they are imported
+     * @param checkpoint called in every transaction that commits rows, so that the progress of a job is saved
+     *                   atomically with them
+     */
+    @SuppressWarnings("unchecked")
+    public ImportResponse importRows(ImportEntity entity, List<?> rows, Company company, int skip,
+                                     Checkpoint checkpoint) {
+        switch (entity) {
+            case WORK_ORDER:
+                return workOrderImport(company).run((List<WorkOrderImportDTO>) rows,
+                        (List<WorkOrderImportDTO>) rows, skip, checkpoint);
+            case ASSET:
+                List<AssetImportDTO> assets = (List<AssetImportDTO>) rows;
+                return assetImport(company).run(assets, AssetService.orderAssets(assets), skip, checkpoint);
+            case LOCATION:
+                List<LocationImportDTO> locations = (List<LocationImportDTO>) rows;
+                return locationImport(company).run(locations, LocationService.orderLocations(locations), skip,
+                        checkpoint);
+            case PART:
+                return partImport(company).run((List<PartImportDTO>) rows, (List<PartImportDTO>) rows, skip,
+                        checkpoint);
+            case METER:
+                return meterImport(company).run((List<MeterImportDTO>) rows, (List<MeterImportDTO>) rows, skip,
+                        checkpoint);
+            case PREVENTIVE_MAINTENANCE:
+                return preventiveMaintenanceImport(company).run((List<PreventiveMaintenanceImportDTO>) rows,
+                        (List<PreventiveMaintenanceImportDTO>) rows, skip, checkpoint);
+            default:
+                throw new CustomException("Unsupported import entity " + entity, HttpStatus.NOT_ACCEPTABLE);
+        }
+    }
+
+    private ChunkedImport<WorkOrderImportDTO, WorkOrder> workOrderImport(Company company) {
+        return new ChunkedImport<>(WorkOrderImportDTO::getId,
+                ids -> workOrderService.findByIdsAndCompany(ids, company.getId()), WorkOrder::new,
+                chunk -> importLookupService.loadForWorkOrders(chunk, company), workOrderService::importWorkOrder);
+    }
+
+    private ChunkedImport<AssetImportDTO, Asset> assetImport(Company company) {
+        return new ChunkedImport<>(AssetImportDTO::getId,
+                ids -> assetService.findByIdsAndCompany(ids, company.getId()), Asset::new,
+                chunk -> importLookupService.loadForAssets(chunk, company),
+                (asset, dto, lookups) -> assetService.importAsset(asset, dto, company, lookups));
+    }
+
+    private ChunkedImport<LocationImportDTO, Location> locationImport(Company company) {
+        return new ChunkedImport<>(LocationImportDTO::getId,
+                ids -> locationService.findByIdsAndCompany(ids, company.getId()), Location::new,
+                chunk -> importLookupService.loadForLocations(chunk, company), locationService::importLocation);
+    }
+
+    private ChunkedImport<MeterImportDTO, Meter> meterImport(Company company) {
+        return new ChunkedImport<>(MeterImportDTO::getId,
+                ids -> meterService.findByIdsAndCompany(ids, company.getId()), Meter::new,
+                chunk -> importLookupService.loadForMeters(chunk, company), meterService::importMeter);
+    }
+
+    private ChunkedImport<PartImportDTO, Part> partImport(Company company) {
+        return new ChunkedImport<>(PartImportDTO::getId,
+                ids -> partService.findByIdsAndCompany(ids, company.getId()), Part::new,
+                chunk -> importLookupService.loadForParts(chunk, company), partService::importPart);
+    }
+
+    private ChunkedImport<PreventiveMaintenanceImportDTO, PreventiveMaintenance> preventiveMaintenanceImport(
+            Company company) {
+        return new ChunkedImport<>(PreventiveMaintenanceImportDTO::getId,
+                ids -> preventiveMaintenanceService.findByIdsAndCompany(ids, company.getId()),
+                PreventiveMaintenance::new, chunk -> importLookupService.loadForWorkOrders(chunk, company),
+                preventiveMaintenanceService::importPreventiveMaintenance);
+    }
+
+    private static String getErrorMessage(RuntimeException exception) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(exception);
+        return cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+    }
+
+    private static ImportResponse add(ImportResponse response, ImportResponse chunkResponse) {
+        response.setCreated(response.getCreated() + chunkResponse.getCreated());
+        response.setUpdated(response.getUpdated() + chunkResponse.getUpdated());
+        response.getErrors().addAll(chunkResponse.getErrors());
+        return response;
+    }
+
+    private TransactionTemplate newTransactionTemplate() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate;
+    }
+
+    @FunctionalInterface
+    public interface Checkpoint {
+        /**
+         * @param imported     the response of the rows committed with the checkpoint only
+         * @param importedRows the number of rows imported so far, in the order they are imported
+         */
+        void save(ImportResponse imported, int importedRows);
+    }
+
+    @FunctionalInterface
+    private interface RowImporter<T, E> {
+        void importRow(E entity, T dto, ImportLookups lookups);
+    }
+
+    @RequiredArgsConstructor
+    private class ChunkedImport<T, E extends CompanyAudit> {
+        private final Function<T, Long> getId;
+        private final Function<Collection<Long>, List<E>> findExisting;
+        private final Supplier<E> newEntity;
+        private final Function<List<T>, ImportLookups> loadLookups;
+        private final RowImporter<T, E> rowImporter;
+
+        private final Map<T, Integer> rowNumbers = new IdentityHashMap<>();
+
+        /**
+         * @param ordered    the rows of toImport in the order they must be imported, the errors refer to their
+         *                   position in toImport
+         * @param skip       the number of rows of ordered to leave out, already imported
+         * @param checkpoint nullable, see {@link #importRows}
+         */
+        ImportResponse run(List<T> toImport, List<T> ordered, int skip, Checkpoint checkpoint) {
+            for (int i = toImport.size() - 1; i >= 0; i--) rowNumbers.put(toImport.get(i), i + 1);
+            ImportResponse response = ImportResponse.builder().build();
+            if (checkpoint != null && skip >= ordered.size()) {
+                // nothing to import, the checkpoint still moves past the rows
+                newTransactionTemplate().executeWithoutResult(status -> checkpoint.save(response, ordered.size()));
+            }
+            for (int from = skip; from < ordered.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, ordered.size());
+                try {
+                    add(response, importChunk(ordered.subList(from, to), checkpointAt(checkpoint, to)));
+                } catch (RuntimeException chunkException) {
+                    // a row was rejected by the database when the chunk was flushed and the whole chunk was rolled
+                    // back. Its rows are imported again one by one so that only the faulty rows are skipped, each
+                    // with its own checkpoint
+                    for (int i = from; i < to; i++) {
+                        T row = ordered.get(i);
+                        Consumer<ImportResponse> rowCheckpoint = checkpointAt(checkpoint, i + 1);
+                        try {
+                            add(response, importChunk(Collections.singletonList(row), rowCheckpoint));
+                        } catch (RuntimeException exception) {
+                            ImportResponse rowResponse = ImportResponse.builder().build();
+                            rowResponse.getErrors().add(new ImportError(rowNumbers.get(row),
+                                    getErrorMessage(exception)));
+                            if (rowCheckpoint != null) {
+                                newTransactionTemplate().executeWithoutResult(status ->
+                                        rowCheckpoint.accept(rowResponse));
+                            }
+                            add(response, rowResponse);
+                        }
+                    }
                 }
             }
-            preventiveMaintenanceService.importPreventiveMaintenance(preventiveMaintenance, pmImportDTO, company);
-        });
-        return ImportResponse.builder()
-                .created(created[0])
-                .updated(updated[0])
-                .build();
-    }
+            return response;
+        }
+
+        private Consumer<ImportResponse> checkpointAt(Checkpoint checkpoint, int importedRows) {
+            return checkpoint == null ? null : imported -> checkpoint.save(imported, importedRows);
+        }
+
+        private ImportResponse importChunk(List<T> chunk, Consumer<ImportResponse> beforeCommit) {
+            return newTransactionTemplate().execute(status -> {
+                ImportLookups lookups = loadLookups.apply(chunk);
+                Map<Long, E> existing = loadExisting(chunk);
+                ImportResponse response = ImportResponse.builder().build();
+                for (T row : chunk) {
+                    E entity = existing.get(getId.apply(row));
+                    boolean isUpdate = entity != null;
+                    if (!isUpdate) entity = newEntity.get();
+                    try {
+                        rowImporter.importRow(entity, row, lookups);
+                        if (isUpdate) response.setUpdated(response.getUpdated() + 1);
+                        else response.setCreated(response.getCreated() + 1);
+                    } catch (RuntimeException exception) {
+                        // the fields already set on the existing entity must not be flushed with the chunk
+                        if (isUpdate) em.detach(entity);
+                        response.getErrors().add(new ImportError(rowNumbers.get(row), getErrorMessage(exception)));
+                    }
+                }
+                em.flush();
+                if (beforeCommit != null) {
+                    beforeCommit.accept(response);
+                    em.flush();
+                }
+                // the imported entities are not needed anymore, the next chunk starts with an empty context
+                em.clear();
+                return response;
+            });
+        }
 
+        private Map<Long, E> loadExisting(List<T> chunk) {
+            List<Long> ids = chunk.stream().map(getId).filter(Objects::nonNull).collect(Collectors.toList());
+            if (ids.isEmpty()) return Collections.emptyMap();
+            return findExisting.apply(ids).stream().collect(Collectors.toMap(CompanyAudit::getId,
+                    Function.identity()));
+        }
+    }
 }
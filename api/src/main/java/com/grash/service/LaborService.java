@@ -36,6 +36,7 @@ public class LaborService {
     public Labor create(Labor labor) {
         Labor savedLabor = laborRepository.saveAndFlush(labor);
         em.refresh(savedLabor);
+        if (savedLabor.getWorkOrder() != null) workOrderService.publishMetricsChanged(savedLabor.getWorkOrder());
         return savedLabor;
     }
 
@@ -45,6 +46,8 @@ public class LaborService {
             Labor savedLabor = laborRepository.findById(id).get();
             Labor updatedLabor = laborRepository.saveAndFlush(laborMapper.updateLabor(savedLabor, labor));
             em.refresh(updatedLabor);
+            if (updatedLabor.getWorkOrder() != null)
+                workOrderService.publishMetricsChanged(updatedLabor.getWorkOrder());
             return updatedLabor;
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
     }
@@ -58,6 +61,7 @@ public class LaborService {
     }
 
     public void delete(Long id) {
+        laborRepository.findById(id).map(Labor::getWorkOrder).ifPresent(workOrderService::publishMetricsChanged);
         laborRepository.deleteById(id);
     }
 
@@ -72,6 +76,8 @@ public class LaborService {
     public Labor stop(Labor labor) {
         labor.setStatus(TimeStatus.STOPPED);
         labor.setDuration(labor.getDuration() + Helper.getDateDiff(labor.getStartedAt(), new Date(), TimeUnit.SECONDS));
-        return save(labor);
+        Labor savedLabor = save(labor);
+        if (labor.getWorkOrder() != null) workOrderService.publishMetricsChanged(labor.getWorkOrder());
+        return savedLabor;
     }
 }
@@ -0,0 +1,57 @@
+package com.grash.service;
+
+import com.grash.dto.notification.PushReceipt;
+import com.grash.dto.notification.PushTicket;
+import io.github.jav.exposerversdk.ExpoPushMessage;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Stand-in for the push service in tests and local setups: the last messages are kept in memory and every ticket is
+ * delivered, except the ones sent to the tokens marked as unregistered.
+ */
+@Service
+public class LocalPushGateway implements PushGateway {
+    // The bean exists whatever the gateway in use, so it never keeps more than the last messages
+    static final int MAX_SENT_MESSAGES = 1000;
+
+    private final Deque<ExpoPushMessage> sentMessages = new ArrayDeque<>();
+    private final Set<String> unregisteredTokens = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public CompletableFuture<List<PushTicket>> send(List<ExpoPushMessage> messages) {
+        synchronized (sentMessages) {
+            for (ExpoPushMessage message : messages) {
+                if (sentMessages.size() == MAX_SENT_MESSAGES) sentMessages.removeFirst();
+                sentMessages.addLast(message);
+            }
+        }
+        return CompletableFuture.completedFuture(messages.stream()
+                .map(message -> unregisteredTokens.contains(message.getTo().get(0)) ?
+                        new PushTicket(null, DEVICE_NOT_REGISTERED) : new PushTicket(UUID.randomUUID().toString(), null))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public CompletableFuture<List<PushReceipt>> getReceipts(List<String> ticketIds) {
+        return CompletableFuture.completedFuture(ticketIds.stream().map(id -> new PushReceipt(id, null))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @return the last {@value #MAX_SENT_MESSAGES} messages sent, the oldest first
+     */
+    public List<ExpoPushMessage> getSentMessages() {
+        synchronized (sentMessages) {
+            return new ArrayList<>(sentMessages);
+        }
+    }
+
+    public void unregister(String token) {
+        unregisteredTokens.add(token);
+    }
+}
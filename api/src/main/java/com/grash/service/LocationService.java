@@ -4,20 +4,25 @@ import com.grash.advancedsearch.SearchCriteria;
 import com.grash.advancedsearch.SpecificationBuilder;
 import com.grash.dto.LocationPatchDTO;
 import com.grash.dto.LocationShowDTO;
+import com.grash.dto.LocationTreeDTO;
 import com.grash.dto.imports.LocationImportDTO;
 import com.grash.event.LocationCreatedEvent;
 import com.grash.exception.CustomException;
 import javax.persistence.EntityNotFoundException;
+import com.grash.mapper.ChildCounts;
 import com.grash.mapper.LocationMapper;
 import com.grash.model.*;
 import com.grash.model.enums.NotificationType;
 import com.grash.model.enums.RoleType;
+import com.grash.repository.LocationHierarchyRepository;
+import com.grash.repository.LocationHierarchyRepository.SubtreeCount;
 import com.grash.repository.LocationRepository;
+import com.grash.repository.LocationRepository.ChildCount;
+import com.grash.utils.ImportLookups;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
@@ -32,14 +37,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class LocationService {
     private final LocationRepository locationRepository;
-    private final UserService userService;
+    private final LocationHierarchyRepository locationHierarchyRepository;
     private final CompanyService companyService;
-    private final CustomerService customerService;
     private final MessageSource messageSource;
-    private final VendorService vendorService;
     private final LocationMapper locationMapper;
     private final NotificationService notificationService;
-    private final TeamService teamService;
     private final EntityManager em;
     private final FileService fileService;
     private final CustomSequenceService customSequenceService;
@@ -108,8 +110,11 @@ public class LocationService {
     }
 
     private String getLocationNumber(Company company) {
-        Long nextSequence = customSequenceService.getNextLocationSequence(company);
-        return "L" + String.format("%06d", nextSequence);
+        return getLocationNumber(customSequenceService.getNextLocationSequence(company));
+    }
+
+    private String getLocationNumber(Long sequence) {
+        return "L" + String.format("%06d", sequence);
     }
 
     public void save(Location location) {
@@ -142,54 +147,77 @@ public class LocationService {
         return locationRepository.findByNameIgnoreCaseAndCompany_Id(locationName, companyId);
     }
 
-    public void importLocation(Location location, LocationImportDTO dto, Company company) {
-        Long companyId = company.getId();
+    public void importLocation(Location location, LocationImportDTO dto, ImportLookups lookups) {
         location.setName(dto.getName());
         location.setAddress(dto.getAddress());
         location.setLongitude(dto.getLongitude());
         location.setLatitude(dto.getLatitude());
-        Optional<Location> optionalLocation =
-                findByNameIgnoreCaseAndCompany(dto.getParentLocationName(), companyId).stream().findFirst();
-        optionalLocation.ifPresent(location::setParentLocation);
-        List<OwnUser> workers = new ArrayList<>();
-        dto.getWorkersEmails().forEach(email -> {
-            Optional<OwnUser> optionalUser1 = userService.findByEmailAndCompany(email, companyId);
-            optionalUser1.ifPresent(workers::add);
-        });
-        location.setWorkers(workers);
-        List<Team> teams = new ArrayList<>();
-        dto.getTeamsNames().forEach(teamName -> {
-            Optional<Team> optionalTeam = teamService.findByNameIgnoreCaseAndCompany(teamName, companyId);
-            optionalTeam.ifPresent(teams::add);
-        });
-        location.setTeams(teams);
-        location.setCustomId(getLocationNumber(company));
-        List<Customer> customers = new ArrayList<>();
-        dto.getCustomersNames().forEach(name -> {
-            Optional<Customer> optionalCustomer = customerService.findByNameIgnoreCaseAndCompany(name, companyId);
-            optionalCustomer.ifPresent(customers::add);
-        });
-        location.setCustomers(customers);
-        List<Vendor> vendors = new ArrayList<>();
-        dto.getVendorsNames().forEach(name -> {
-            Optional<Vendor> optionalVendor = vendorService.findByNameIgnoreCaseAndCompany(name, companyId);
-            optionalVendor.ifPresent(vendors::add);
-        });
-        location.setVendors(vendors);
-        locationRepository.save(location);
+        lookups.getLocation(dto.getParentLocationName()).ifPresent(location::setParentLocation);
+        location.setWorkers(lookups.getUsers(dto.getWorkersEmails()));
+        location.setTeams(lookups.getTeams(dto.getTeamsNames()));
+        location.setCustomId(getLocationNumber(lookups.getCustomSequence().getAndIncrementLocationSequence()));
+        location.setCustomers(lookups.getCustomers(dto.getCustomersNames()));
+        location.setVendors(lookups.getVendors(dto.getVendorsNames()));
+        lookups.register(locationRepository.save(location));
     }
 
     public Optional<Location> findByIdAndCompany(Long id, Long companyId) {
         return locationRepository.findByIdAndCompany_Id(id, companyId);
     }
 
+    public List<Location> findByIdsAndCompany(Collection<Long> ids, Long companyId) {
+        return locationRepository.findByIdInAndCompany_Id(ids, companyId);
+    }
+
     public Page<LocationShowDTO> findBySearchCriteria(SearchCriteria searchCriteria) {
         SpecificationBuilder<Location> builder = new SpecificationBuilder<>();
         searchCriteria.getFilterFields().forEach(builder::with);
-        Pageable page = PageRequest.of(searchCriteria.getPageNum(), searchCriteria.getPageSize(),
-                searchCriteria.getDirection(), searchCriteria.getSortField());
-        return locationRepository.findAll(builder.build(), page).map(location -> locationMapper.toShowDto(location,
-                this));
+        Pageable page = searchCriteria.toPageable();
+        Page<Location> locations = locationRepository.findAll(builder.build(), page);
+        ChildCounts childCounts = getChildCounts(locations.getContent());
+        return locations.map(location -> locationMapper.toShowDto(location, childCounts));
+    }
+
+    /**
+     * Counts the children of the locations with a single query, to be passed to {@link LocationMapper#toShowDto}
+     */
+    public ChildCounts getChildCounts(Collection<Location> locations) {
+        return countChildren(locations.stream().map(Location::getId).collect(Collectors.toSet()));
+    }
+
+    public List<LocationShowDTO> toShowDtos(Collection<Location> locations) {
+        ChildCounts childCounts = getChildCounts(locations);
+        return locations.stream().map(location -> locationMapper.toShowDto(location, childCounts))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Pages the locations of the company, or the ones created by createdBy when not null, without loading them
+     */
+    public Page<LocationTreeDTO> findTreeByCompany(Long companyId, Long createdBy, Pageable pageable) {
+        return withChildren(createdBy == null ? locationRepository.findTreeByCompany(companyId, pageable)
+                : locationRepository.findTreeByCompanyAndCreatedBy(companyId, createdBy, pageable));
+    }
+
+    /**
+     * Pages the children of the location, or the top level locations of the company when parentId is 0
+     */
+    public Page<LocationTreeDTO> findTreeChildren(Long companyId, Long parentId, Pageable pageable) {
+        return withChildren(parentId.equals(0L) ? locationRepository.findTreeRoots(companyId, pageable)
+                : locationRepository.findTreeChildren(companyId, parentId, pageable));
+    }
+
+    private Page<LocationTreeDTO> withChildren(Page<LocationTreeDTO> nodes) {
+        ChildCounts childCounts = countChildren(nodes.getContent().stream().map(LocationTreeDTO::getId)
+                .collect(Collectors.toSet()));
+        nodes.forEach(node -> node.setHasChildren(childCounts.hasChildren(node.getId())));
+        return nodes;
+    }
+
+    private ChildCounts countChildren(Collection<Long> ids) {
+        if (ids.isEmpty()) return ChildCounts.NONE;
+        return new ChildCounts(locationRepository.countChildren(ids).stream()
+                .collect(Collectors.toMap(ChildCount::getParentId, ChildCount::getChildren)));
     }
 
     public static List<LocationImportDTO> orderLocations(List<LocationImportDTO> locations) {
@@ -254,4 +282,35 @@ public class LocationService {
     public boolean hasChildren(Long locationId) {
         return locationRepository.countByParentLocation_Id(locationId) > 0;
     }
+
+    /**
+     * @return the ancestors of the location, from the root down to its parent
+     */
+    public List<Location> findAncestors(Long id) {
+        return locationHierarchyRepository.findAncestors(id);
+    }
+
+    /**
+     * @return all the locations below the location, level by level
+     */
+    public List<Location> findDescendants(Long id) {
+        return locationHierarchyRepository.findDescendants(id);
+    }
+
+    /**
+     * @return the number of locations below each of the locations, at any depth
+     */
+    public Map<Long, Long> countDescendants(Collection<Long> ids) {
+        if (ids.isEmpty()) return Collections.emptyMap();
+        return locationHierarchyRepository.countDescendants(ids).stream()
+                .collect(Collectors.toMap(SubtreeCount::getId, SubtreeCount::getDescendants));
+    }
+
+    /**
+     * @return the ids of the locations among ids that have at least one child
+     */
+    public Set<Long> findIdsWithChildren(Collection<Long> ids) {
+        if (ids.isEmpty()) return Collections.emptySet();
+        return new HashSet<>(locationHierarchyRepository.findIdsWithChildren(ids));
+    }
 }
@@ -11,6 +11,7 @@ import com.grash.model.*;
 import com.grash.model.enums.NotificationType;
 import com.grash.model.enums.RoleType;
 import com.grash.repository.MeterRepository;
+import com.grash.utils.ImportLookups;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.MessageSource;
 import org.springframework.data.domain.Page;
@@ -28,17 +29,12 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MeterService {
     private final MeterRepository meterRepository;
-    private final MeterCategoryService meterCategoryService;
     private final FileService fileService;
-    private final AssetService assetService;
     private final CompanyService companyService;
     private final MessageSource messageSource;
-    private final LocationService locationService;
-    private final UserService userService;
     private final EntityManager em;
     private final MeterMapper meterMapper;
     private final NotificationService notificationService;
-    private final ReadingService readingService;
 
     @Transactional
     public Meter create(Meter meter) {
@@ -113,35 +109,25 @@ public class MeterService {
         searchCriteria.getFilterFields().forEach(builder::with);
         Pageable page = PageRequest.of(searchCriteria.getPageNum(), searchCriteria.getPageSize(),
                 searchCriteria.getDirection(), searchCriteria.getSortField());
-        return meterRepository.findAll(builder.build(), page).map(meter -> meterMapper.toShowDto(meter,
-                readingService));
+        return meterRepository.findAll(builder.build(), page).map(meterMapper::toShowDto);
     }
 
-    public void importMeter(Meter meter, MeterImportDTO dto, Company company) {
-        Long companyId = company.getId();
-        Long companySettingsId = company.getCompanySettings().getId();
+    public void importMeter(Meter meter, MeterImportDTO dto, ImportLookups lookups) {
         meter.setName(dto.getName());
         meter.setUnit(dto.getUnit());
         meter.setUpdateFrequency(dto.getUpdateFrequency());
-        Optional<Location> optionalLocation = locationService.findByNameIgnoreCaseAndCompany(dto.getLocationName(),
-                companyId).stream().findFirst();
-        optionalLocation.ifPresent(meter::setLocation);
-        Optional<Asset> optionalAsset = assetService.findByNameIgnoreCaseAndCompany(dto.getAssetName(),
-                companyId).stream().findFirst();
-        optionalAsset.ifPresent(meter::setAsset);
-        Optional<MeterCategory> optionalMeterCategory =
-                meterCategoryService.findByNameIgnoreCaseAndCompanySettings(dto.getMeterCategory(), companySettingsId);
-        optionalMeterCategory.ifPresent(meter::setMeterCategory);
-        List<OwnUser> users = new ArrayList<>();
-        dto.getUsersEmails().forEach(email -> {
-            Optional<OwnUser> optionalUser1 = userService.findByEmailAndCompany(email, companyId);
-            optionalUser1.ifPresent(users::add);
-        });
-        meter.setUsers(users);
+        lookups.getLocation(dto.getLocationName()).ifPresent(meter::setLocation);
+        lookups.getAsset(dto.getAssetName()).ifPresent(meter::setAsset);
+        lookups.getMeterCategory(dto.getMeterCategory()).ifPresent(meter::setMeterCategory);
+        meter.setUsers(lookups.getUsers(dto.getUsersEmails()));
         meterRepository.save(meter);
     }
 
     public Optional<Meter> findByIdAndCompany(Long id, Long companyId) {
         return meterRepository.findByIdAndCompany_Id(id, companyId);
     }
+
+    public List<Meter> findByIdsAndCompany(Collection<Long> ids, Long companyId) {
+        return meterRepository.findByIdInAndCompany_Id(ids, companyId);
+    }
 }
@@ -10,18 +10,27 @@ import lombok.RequiredArgsConstructor;
 import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -37,12 +46,26 @@ public class MinioService implements StorageService {
     private String minioSecretKey;
     @Value("${storage.minio.public-endpoint}")
     private String minioPublicEndpoint;
+    @Value("${storage.minio.upload-threads:8}")
+    private int uploadThreads;
+    @Value("${storage.minio.upload-queue-capacity:16}")
+    private int uploadQueueCapacity;
 
     private MinioClient minioClient;
     private static boolean configured = false;
+    // smallest part of a multipart upload, the most a streamed upload keeps in memory
+    private static final long STREAM_PART_SIZE = 5L * 1024 * 1024;
+    private static final int PIPE_SIZE = 64 * 1024;
+    private ThreadPoolExecutor streamUploadExecutor;
 
     @PostConstruct
     private void init() {
+        // Each streamed upload holds a thread until its writer is done, so the uploads beyond the queue are refused
+        // rather than running on the writing thread, which would wait on its own pipe
+        streamUploadExecutor = new ThreadPoolExecutor(uploadThreads, uploadThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(uploadQueueCapacity), new CustomizableThreadFactory("minio-upload-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        streamUploadExecutor.allowCoreThreadTimeOut(true);
         if (minioEndpoint.isEmpty() || minioBucket.isEmpty() || minioAccessKey.isEmpty() || minioSecretKey.isEmpty() || minioPublicEndpoint.isEmpty()) {
             return;
         }
@@ -89,6 +112,58 @@ public class MinioService implements StorageService {
         }
     }
 
+    public String upload(String fileName, String contentType, String folder, ContentWriter contentWriter) {
+        checkIfConfigured();
+        Helper helper = new Helper();
+        String filePath = folder + "/" + helper.generateString() + " " + fileName;
+        PipedInputStream inputStream = new PipedInputStream(PIPE_SIZE);
+        try {
+            PipedOutputStream outputStream = new PipedOutputStream(inputStream);
+            Future<?> upload = streamUploadExecutor.submit(() -> {
+                try (InputStream in = inputStream) {
+                    minioClient.putObject(
+                            PutObjectArgs.builder()
+                                    .bucket(minioBucket)
+                                    .object(filePath)
+                                    .stream(in, -1, STREAM_PART_SIZE)
+                                    .contentType(contentType)
+                                    .build()
+                    );
+                }
+                return null;
+            });
+            try {
+                contentWriter.writeTo(outputStream);
+            } catch (IOException | RuntimeException e) {
+                // closing the read end makes the upload fail instead of storing a truncated file
+                inputStream.close();
+                upload.cancel(true);
+                throw e;
+            }
+            outputStream.close();
+            upload.get();
+            return filePath;
+        } catch (ExecutionException e) {
+            throw new CustomException(e.getCause().getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+        } catch (RejectedExecutionException e) {
+            throw new CustomException("Too many uploads in progress", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Upload interrupted", HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (IOException e) {
+            throw new CustomException(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() throws InterruptedException {
+        // Lets the uploads in progress finish before the client goes away
+        streamUploadExecutor.shutdown();
+        if (!streamUploadExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+            streamUploadExecutor.shutdownNow();
+        }
+    }
+
     public String generateSignedUrl(File file, long expirationMinutes) {
         return generateSignedUrl(file.getPath(), expirationMinutes);
     }
@@ -140,6 +215,20 @@ public class MinioService implements StorageService {
         }
     }
 
+    public InputStream openStream(String filePath) {
+        checkIfConfigured();
+        try {
+            return minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(minioBucket)
+                            .object(filePath)
+                            .build()
+            );
+        } catch (MinioException | IOException | InvalidKeyException | NoSuchAlgorithmException e) {
+            throw new CustomException("Error retrieving file", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     public byte[] download(File file) {
         checkIfConfigured();
         // Construct the file path manually to avoid URI parsing issues
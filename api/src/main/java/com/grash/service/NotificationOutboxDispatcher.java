@@ -0,0 +1,262 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.dto.notification.EmailPayload;
+import com.grash.dto.notification.PushNotificationPayload;
+import com.grash.dto.notification.WebSocketNotificationPayload;
+import com.grash.event.NotificationOutboxEvent;
+import com.grash.model.Notification;
+import com.grash.model.NotificationOutboxEntry;
+import com.grash.model.enums.NotificationChannel;
+import com.grash.repository.NotificationOutboxRepository;
+import com.grash.repository.NotificationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.ListUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the notification outbox. Each channel is drained by its own loop which claims the due entries in
+ * batches and delivers them on at most notifications.outbox.concurrency.&lt;channel&gt; threads, so that a slow
+ * SMTP server doesn't hold back the WebSocket notifications. A failed entry is retried with an exponential backoff
+ * and dead-lettered after notifications.outbox.max-attempts.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationOutboxDispatcher {
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationRepository notificationRepository;
+    private final NotificationService notificationService;
+    private final EmailService2 emailService2;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+
+    @Value("${notifications.outbox.batch-size:100}")
+    private int batchSize;
+    @Value("${notifications.outbox.lease-minutes:5}")
+    private int leaseMinutes;
+    @Value("${notifications.outbox.max-attempts:8}")
+    private int maxAttempts;
+    @Value("${notifications.outbox.base-backoff-seconds:10}")
+    private int baseBackoffSeconds;
+    @Value("${notifications.outbox.max-backoff-minutes:60}")
+    private int maxBackoffMinutes;
+
+    private final Map<NotificationChannel, ExecutorService> senders = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, Integer> concurrency = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, AtomicBoolean> draining = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, AtomicBoolean> drainRequested = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, AtomicLong> depths = new EnumMap<>(NotificationChannel.class);
+    private final AtomicLong deadLettered = new AtomicLong();
+    private ExecutorService drainers;
+
+    @PostConstruct
+    private void init() {
+        drainers = Executors.newFixedThreadPool(NotificationChannel.values().length);
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            int threads = environment.getProperty("notifications.outbox.concurrency." + channel.name().toLowerCase(),
+                    Integer.class, channel == NotificationChannel.WEBSOCKET ? 4 : 2);
+            concurrency.put(channel, threads);
+            senders.put(channel, Executors.newFixedThreadPool(threads));
+            draining.put(channel, new AtomicBoolean());
+            drainRequested.put(channel, new AtomicBoolean());
+            AtomicLong depth = new AtomicLong();
+            depths.put(channel, depth);
+            Gauge.builder("notifications.outbox.depth", depth, AtomicLong::get)
+                    .description("Number of notifications waiting in the outbox, as of the last poll")
+                    .tag("channel", channel.name())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("notifications.outbox.dead", deadLettered, AtomicLong::get)
+                .description("Number of dead-lettered notifications, as of the last poll")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        drainers.shutdown();
+        senders.values().forEach(ExecutorService::shutdown);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEnqueued(NotificationOutboxEvent event) {
+        requestDrain(event.getChannel());
+    }
+
+    /**
+     * Called by the poll job to pick up the retries and the entries written by other nodes
+     */
+    public void dispatchAll() {
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            depths.get(channel).set(notificationOutboxRepository.countByChannelAndDeadAtIsNull(channel));
+            requestDrain(channel);
+        }
+        deadLettered.set(notificationOutboxRepository.countByDeadAtIsNotNull());
+    }
+
+    private void requestDrain(NotificationChannel channel) {
+        drainRequested.get(channel).set(true);
+        if (!draining.get(channel).compareAndSet(false, true)) return;
+        try {
+            drainers.execute(() -> {
+                try {
+                    while (drainRequested.get(channel).getAndSet(false)) {
+                        drain(channel);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Failed to drain the {} notification outbox", channel, e);
+                } finally {
+                    draining.get(channel).set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            draining.get(channel).set(false);
+        }
+    }
+
+    void drain(NotificationChannel channel) {
+        List<NotificationOutboxEntry> claimed;
+        do {
+            claimed = claim(channel);
+            if (claimed.isEmpty()) return;
+            int parts = Math.min(concurrency.get(channel), claimed.size());
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<NotificationOutboxEntry> part : ListUtils.partition(claimed,
+                    (claimed.size() + parts - 1) / parts)) {
+                futures.add(senders.get(channel).submit(() -> deliver(channel, part)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    log.error("Failed to deliver {} notifications", channel, e.getCause());
+                }
+            }
+        } while (claimed.size() == batchSize);
+    }
+
+    private List<NotificationOutboxEntry> claim(NotificationChannel channel) {
+        Date now = new Date();
+        Date leaseEnd = new Date(now.getTime() + TimeUnit.MINUTES.toMillis(leaseMinutes));
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<NotificationOutboxEntry> due = notificationOutboxRepository.findDueForUpdate(channel.ordinal(), now,
+                    batchSize);
+            due.forEach(entry -> {
+                entry.setNextAttemptAt(leaseEnd);
+                entry.setAttempts(entry.getAttempts() + 1);
+            });
+            return due;
+        });
+    }
+
+    private void deliver(NotificationChannel channel, List<NotificationOutboxEntry> entries) {
+        try {
+            switch (channel) {
+                case WEBSOCKET:
+                    sendWebSocket(entries);
+                    break;
+                case PUSH:
+                    // The chunks go out concurrently, this waits for all of their tickets
+                    notificationService.sendPushNotifications(read(entries, PushNotificationPayload.class))
+                            .get(1, TimeUnit.MINUTES);
+                    break;
+                case EMAIL:
+                    // One message per entry, a failing recipient list doesn't hold back the others
+                    List<NotificationOutboxEntry> failed = new ArrayList<>();
+                    for (NotificationOutboxEntry entry : entries) {
+                        try {
+                            EmailPayload email = objectMapper.readValue(entry.getPayload(), EmailPayload.class);
+                            emailService2.sendHtmlMessage(email.getTo(), email.getSubject(), email.getHtmlBody());
+                        } catch (Exception e) {
+                            failed.add(entry);
+                            retryOrDeadLetter(entry, e);
+                        }
+                    }
+                    entries = entries.stream().filter(entry -> !failed.contains(entry)).collect(Collectors.toList());
+                    break;
+            }
+        } catch (Exception e) {
+            entries.forEach(entry -> retryOrDeadLetter(entry, e));
+            return;
+        }
+        delivered(channel, entries);
+    }
+
+    private void sendWebSocket(List<NotificationOutboxEntry> entries) {
+        List<Long> notificationIds = read(entries, WebSocketNotificationPayload.class).stream()
+                .flatMap(payload -> payload.getNotificationIds().stream()).collect(Collectors.toList());
+        for (Notification notification : notificationRepository.findAllById(notificationIds)) {
+            messagingTemplate.convertAndSend("/notifications/" + notification.getUser().getId(), notification);
+        }
+    }
+
+    private <T> List<T> read(List<NotificationOutboxEntry> entries, Class<T> payloadClass) {
+        List<T> payloads = new ArrayList<>();
+        for (NotificationOutboxEntry entry : entries) {
+            try {
+                payloads.add(objectMapper.readValue(entry.getPayload(), payloadClass));
+            } catch (Exception e) {
+                throw new IllegalStateException("Invalid payload in notification outbox entry " + entry.getId(), e);
+            }
+        }
+        return payloads;
+    }
+
+    private void delivered(NotificationChannel channel, List<NotificationOutboxEntry> entries) {
+        if (entries.isEmpty()) return;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                notificationOutboxRepository.deleteByIdIn(entries.stream().map(NotificationOutboxEntry::getId)
+                        .collect(Collectors.toList())));
+        long now = System.currentTimeMillis();
+        entries.forEach(entry -> meterRegistry.timer("notifications.outbox.latency", "channel", channel.name())
+                .record(now - entry.getCreatedAt().getTime(), TimeUnit.MILLISECONDS));
+        meterRegistry.counter("notifications.outbox.delivered", "channel", channel.name()).increment(entries.size());
+    }
+
+    void retryOrDeadLetter(NotificationOutboxEntry entry, Exception e) {
+        String channel = entry.getChannel().name();
+        meterRegistry.counter("notifications.outbox.failures", "channel", channel).increment();
+        String error = String.valueOf(e.getMessage());
+        entry.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (entry.getAttempts() >= maxAttempts) {
+            log.error("Dead-lettering {} notification {} after {} attempts", channel, entry.getId(),
+                    entry.getAttempts(), e);
+            entry.setDeadAt(new Date());
+            meterRegistry.counter("notifications.outbox.dead_lettered", "channel", channel).increment();
+        } else {
+            log.warn("Failed to deliver {} notification {}, it will be retried", channel, entry.getId(), e);
+            entry.setNextAttemptAt(new Date(System.currentTimeMillis() + getBackoffMillis(entry.getAttempts())));
+        }
+        notificationOutboxRepository.save(entry);
+    }
+
+    long getBackoffMillis(int attempts) {
+        long backoff = TimeUnit.SECONDS.toMillis(baseBackoffSeconds) << Math.min(attempts - 1, 20);
+        return Math.min(backoff, TimeUnit.MINUTES.toMillis(maxBackoffMinutes));
+    }
+}
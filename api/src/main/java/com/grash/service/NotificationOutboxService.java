@@ -0,0 +1,57 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.dto.notification.EmailPayload;
+import com.grash.dto.notification.PushNotificationPayload;
+import com.grash.dto.notification.WebSocketNotificationPayload;
+import com.grash.event.NotificationOutboxEvent;
+import com.grash.model.NotificationOutboxEntry;
+import com.grash.model.enums.NotificationChannel;
+import com.grash.repository.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the notifications to deliver in the outbox, in the caller's transaction. They are delivered by the
+ * {@link NotificationOutboxDispatcher} once it commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class NotificationOutboxService {
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void enqueueWebSocket(List<Long> notificationIds) {
+        if (notificationIds.isEmpty()) return;
+        enqueue(NotificationChannel.WEBSOCKET, new WebSocketNotificationPayload(notificationIds));
+    }
+
+    public void enqueuePush(List<Long> userIds, String title, String body, Map<String, Object> data) {
+        if (userIds.isEmpty()) return;
+        enqueue(NotificationChannel.PUSH, new PushNotificationPayload(userIds, title, body, data));
+    }
+
+    public void enqueueEmail(String[] to, String subject, String htmlBody) {
+        if (to.length == 0) return;
+        enqueue(NotificationChannel.EMAIL, new EmailPayload(to, subject, htmlBody));
+    }
+
+    private void enqueue(NotificationChannel channel, Object payload) {
+        try {
+            notificationOutboxRepository.save(new NotificationOutboxEntry(channel,
+                    objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Can't serialize the " + channel + " notification", e);
+        }
+        eventPublisher.publishEvent(new NotificationOutboxEvent(channel));
+    }
+}
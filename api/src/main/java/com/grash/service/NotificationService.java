@@ -2,68 +2,74 @@ package com.grash.service;
 
 import com.grash.advancedsearch.SearchCriteria;
 import com.grash.advancedsearch.SpecificationBuilder;
+import com.grash.advancedsearch.pagination.SearchPaginator;
 import com.grash.dto.NotificationPatchDTO;
+import com.grash.dto.notification.PushNotificationPayload;
+import com.grash.dto.notification.PushTicket;
 import com.grash.exception.CustomException;
+import com.grash.factory.PushGatewayFactory;
 import com.grash.mapper.NotificationMapper;
 import com.grash.model.Notification;
 import com.grash.model.OwnUser;
+import com.grash.model.PushNotificationTicket;
 import com.grash.model.PushNotificationToken;
 import com.grash.repository.NotificationRepository;
-import io.github.jav.exposerversdk.*;
+import com.grash.repository.PushNotificationTicketRepository;
+import io.github.jav.exposerversdk.ExpoPushMessage;
+import io.github.jav.exposerversdk.PushClient;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Slf4j
 public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final NotificationMapper notificationMapper;
     private final PushNotificationTokenService pushNotificationTokenService;
-    private final SimpMessageSendingOperations messagingTemplate;
+    private final NotificationOutboxService notificationOutboxService;
+    private final PushGatewayFactory pushGatewayFactory;
+    private final PushNotificationTicketRepository pushNotificationTicketRepository;
+    private final EntityManager em;
 
-    @Async
     public Notification create(Notification notification) {
         Notification savedNotification = notificationRepository.save(notification);
-        messagingTemplate.convertAndSend("/notifications/" + notification.getUser().getId(), savedNotification);
+        notificationOutboxService.enqueueWebSocket(Collections.singletonList(savedNotification.getId()));
         return savedNotification;
     }
 
-    @Async
     public Notification create(Notification notification, boolean mobile, String title) {
-        Notification savedNotification = notificationRepository.save(notification);
-        messagingTemplate.convertAndSend("/notifications/" + notification.getUser().getId(), savedNotification);
-        return savedNotification;
+        createMultiple(Collections.singletonList(notification), mobile, title);
+        return notification;
     }
 
-    @Async
+    /**
+     * Saves the notifications and queues their delivery in the outbox, both in the caller's transaction
+     */
     public void createMultiple(List<Notification> notifications, boolean mobile, String title) {
+        if (notifications.isEmpty()) return;
         List<Notification> savedNotifications = notificationRepository.saveAll(notifications);
-        savedNotifications.forEach(notification ->
-                messagingTemplate.convertAndSend("/notifications/" + notification.getUser().getId(), notification));
-        if (mobile && !notifications.isEmpty())
-            try {
-                sendPushNotifications(notifications.stream().map(Notification::getUser).collect(Collectors.toList()),
-                        title, notifications.get(0).getMessage(), new HashMap<String, Object>() {{
-                            put("type", notifications.get(0).getNotificationType());
-                            put("id", notifications.get(0).getResourceId());
-                        }});
-            } catch (Exception e) {
-                // Use logger instead of printStackTrace to avoid potential response contamination
-                // e.printStackTrace();
-            }
+        notificationOutboxService.enqueueWebSocket(savedNotifications.stream().map(Notification::getId)
+                .collect(Collectors.toList()));
+        if (mobile) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("type", notifications.get(0).getNotificationType());
+            data.put("id", notifications.get(0).getResourceId());
+            notificationOutboxService.enqueuePush(notifications.stream().map(notification ->
+                            notification.getUser().getId()).distinct().collect(Collectors.toList()), title,
+                    notifications.get(0).getMessage(), data);
+        }
     }
 
     public Notification update(Long id, NotificationPatchDTO notificationsPatchDTO) {
@@ -113,124 +119,60 @@ public class NotificationService {
     public Page<Notification> findBySearchCriteria(SearchCriteria searchCriteria) {
         SpecificationBuilder<Notification> builder = new SpecificationBuilder<>();
         searchCriteria.getFilterFields().forEach(builder::with);
-        Pageable page = PageRequest.of(searchCriteria.getPageNum(), searchCriteria.getPageSize(),
-                searchCriteria.getDirection(), searchCriteria.getSortField());
-        return notificationRepository.findAll(builder.build(), page);
+        return SearchPaginator.findAll(em, Notification.class, builder.build(), searchCriteria);
     }
 
-    public void sendPushNotifications(Collection<OwnUser> users, String title, String message,
-                                      Map<String, Object> data) throws PushClientException, InterruptedException {
-
-        List<String> tokens = new ArrayList<>();
-        users.forEach(user -> {
-            Optional<PushNotificationToken> optionalPushNotificationToken =
-                    pushNotificationTokenService.findByUser(user.getId());
-            if (optionalPushNotificationToken.isPresent()) {
-                String token = optionalPushNotificationToken.get().getToken();
-                if (PushClient.isExponentPushToken(token))
-                    tokens.add(token);
-            }
-        });
-
-        // If there are no valid tokens, skip push notification sending
-        if (tokens.isEmpty()) {
-            System.out.println("No valid push notification tokens found. Skipping push notification.");
-            return;
-        }
-
-        ExpoPushMessage expoPushMessage = new ExpoPushMessage();
-        expoPushMessage.getTo().addAll(tokens);
-        expoPushMessage.setTitle(title);
-        expoPushMessage.setBody(message);
-        expoPushMessage.setData(data);
+    /**
+     * Sends the push notifications in as few requests as possible, with one message per device token. The tokens of
+     * all the users are resolved in a single query. The returned future completes once the tickets are processed:
+     * the accepted ones are kept for the receipt check and the unregistered tokens are removed.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Void> sendPushNotifications(List<PushNotificationPayload> payloads) {
+        Map<Long, List<String>> tokensByUser = pushNotificationTokenService.findByUsers(payloads.stream()
+                        .flatMap(payload -> payload.getUserIds().stream()).collect(Collectors.toSet())).stream()
+                .filter(pushNotificationToken -> PushClient.isExponentPushToken(pushNotificationToken.getToken()))
+                .collect(Collectors.groupingBy(pushNotificationToken -> pushNotificationToken.getUser().getId(),
+                        Collectors.mapping(PushNotificationToken::getToken, Collectors.toList())));
 
         List<ExpoPushMessage> expoPushMessages = new ArrayList<>();
-        expoPushMessages.add(expoPushMessage);
-
-        PushClient client = new PushClient();
-        List<List<ExpoPushMessage>> chunks = client.chunkPushNotifications(expoPushMessages);
-
-        List<CompletableFuture<List<ExpoPushTicket>>> messageRepliesFutures = new ArrayList<>();
-
-        for (List<ExpoPushMessage> chunk : chunks) {
-            messageRepliesFutures.add(client.sendPushNotificationsAsync(chunk));
+        for (PushNotificationPayload payload : payloads) {
+            payload.getUserIds().stream().flatMap(userId -> tokensByUser.getOrDefault(userId,
+                    Collections.emptyList()).stream()).distinct().forEach(token -> {
+                ExpoPushMessage expoPushMessage = new ExpoPushMessage();
+                expoPushMessage.getTo().add(token);
+                expoPushMessage.setTitle(payload.getTitle());
+                expoPushMessage.setBody(payload.getBody());
+                expoPushMessage.setData(payload.getData());
+                expoPushMessages.add(expoPushMessage);
+            });
         }
 
-        // Wait for each completable future to finish
-        List<ExpoPushTicket> allTickets = new ArrayList<>();
-        for (CompletableFuture<List<ExpoPushTicket>> messageReplyFuture : messageRepliesFutures) {
-            try {
-                allTickets.addAll(messageReplyFuture.get());
-            } catch (InterruptedException | ExecutionException e) {
-                // Use logger instead of printStackTrace to avoid potential response contamination
-                // e.printStackTrace();
-            }
-        }
-
-        // If no tickets were received, skip further processing
-        if (allTickets.isEmpty()) {
-            System.out.println("No push notification tickets received. Skipping ticket processing.");
-            return;
+        // If there are no valid tokens, skip push notification sending
+        if (expoPushMessages.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
         }
 
-        List<ExpoPushMessageTicketPair<ExpoPushMessage>> zippedMessagesTickets =
-                client.zipMessagesTickets(expoPushMessages, allTickets);
-
-        List<ExpoPushMessageTicketPair<ExpoPushMessage>> okTicketMessages =
-                client.filterAllSuccessfulMessages(zippedMessagesTickets);
-        String okTicketMessagesString = okTicketMessages.stream().map(
-                p -> "Title: " + p.message.getTitle() + ", Id:" + p.ticket.getId()
-        ).collect(Collectors.joining(","));
-        System.out.println(
-                "Recieved OK ticket for " +
-                        okTicketMessages.size() +
-                        " messages: " + okTicketMessagesString
-        );
-
-        List<ExpoPushMessageTicketPair<ExpoPushMessage>> errorTicketMessages =
-                client.filterAllMessagesWithError(zippedMessagesTickets);
-        String errorTicketMessagesString = errorTicketMessages.stream().map(
-                p -> "Title: " + p.message.getTitle() + ", Error: " + p.ticket.getDetails().getError()
-        ).collect(Collectors.joining(","));
-        System.out.println(
-                "Recieved ERROR ticket for " +
-                        errorTicketMessages.size() +
-                        " messages: " +
-                        errorTicketMessagesString
-        );
-
-
-        // TODO
-        // Countdown 30s
-//            int wait = 30;
-//            for (int i = wait; i >= 0; i--) {
-//                System.out.print("Waiting for " + wait + " seconds. " + i + "s\r");
-//                Thread.sleep(1000);
-//            }
-//        System.out.println("Fetching receipts...");
-//
-//        List<String> ticketIds = (client.getTicketIdsFromPairs(okTicketMessages));
-//        CompletableFuture<List<ExpoPushReceipt>> receiptFutures = client.getPushNotificationReceiptsAsync(ticketIds);
-//
-//        List<ExpoPushReceipt> receipts = new ArrayList<>();
-//        try {
-//            receipts = receiptFutures.get();
-//        } catch (ExecutionException | InterruptedException e) {
-//            e.printStackTrace();
-//        }
-//
-//        System.out.println(
-//                "Received " + receipts.size() + " receipts:");
-//
-//        for (ExpoPushReceipt receipt : receipts) {
-//            System.out.println(
-//                    "Receipt for id: " +
-//                            receipt.getId() +
-//                            " had status: " +
-//                            receipt.getStatus());
-//
-//        }
+        return pushGatewayFactory.getPushGateway().send(expoPushMessages)
+                .thenAccept(tickets -> processTickets(expoPushMessages, tickets));
+    }
 
+    private void processTickets(List<ExpoPushMessage> expoPushMessages, List<PushTicket> tickets) {
+        List<PushNotificationTicket> okTickets = new ArrayList<>();
+        Set<String> unregisteredTokens = new HashSet<>();
+        for (int i = 0; i < tickets.size(); i++) {
+            PushTicket ticket = tickets.get(i);
+            String token = expoPushMessages.get(i).getTo().get(0);
+            if (ticket.isOk()) {
+                okTickets.add(new PushNotificationTicket(ticket.getId(), token));
+            } else {
+                log.warn("Push notification to {} was rejected: {}", token, ticket.getError());
+                if (PushGateway.DEVICE_NOT_REGISTERED.equals(ticket.getError())) unregisteredTokens.add(token);
+            }
+        }
+        pushNotificationTicketRepository.saveAll(okTickets);
+        pushNotificationTokenService.deleteByTokens(unregisteredTokens);
+        log.debug("Received {} OK push tickets out of {}", okTickets.size(), tickets.size());
     }
 
     public void readAll(Long userId) {
@@ -2,9 +2,11 @@ package com.grash.service;
 
 import com.grash.advancedsearch.SearchCriteria;
 import com.grash.advancedsearch.SpecificationBuilder;
+import com.grash.advancedsearch.pagination.SearchPaginator;
 import com.grash.dto.PartPatchDTO;
 import com.grash.dto.PartShowDTO;
 import com.grash.dto.imports.PartImportDTO;
+import com.grash.event.CompanyMetricsChangedEvent;
 import com.grash.exception.CustomException;
 import com.grash.mapper.PartMapper;
 import com.grash.model.*;
@@ -12,11 +14,11 @@ import com.grash.model.enums.NotificationType;
 import com.grash.repository.PartRepository;
 import com.grash.utils.AuditComparator;
 import com.grash.utils.Helper;
+import com.grash.utils.ImportLookups;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,18 +31,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PartService {
     private final PartRepository partRepository;
-    private final PartCategoryService partCategoryService;
     private final PartConsumptionService partConsumptionService;
     private final CompanyService companyService;
-    private final CustomerService customerService;
-    private final VendorService vendorService;
     private final MessageSource messageSource;
     private final LocationService locationService;
     private final PartMapper partMapper;
     private final EntityManager em;
     private final NotificationService notificationService;
-    private final UserService userService;
-    private final TeamService teamService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public Part create(Part Part) {
@@ -70,6 +68,8 @@ public class PartService {
             partConsumption.setQuantity(partConsumption.getQuantity() + quantity);
             partRepository.save(part);
             partConsumptionService.save(partConsumption);
+            eventPublisher.publishEvent(new CompanyMetricsChangedEvent(part.getCompany().getId(),
+                    partConsumption.getCreatedAt(), workOrder.getCompletedOn()));
         } else {
             String message = messageSource.getMessage("notification_part_low", new Object[]{part.getName()}, locale);
             if (part.getQuantity() >= quantity) {
@@ -80,6 +80,8 @@ public class PartService {
                 }
                 partConsumptionService.create(new PartConsumption(part, workOrder, quantity));
                 partRepository.save(part);
+                eventPublisher.publishEvent(new CompanyMetricsChangedEvent(part.getCompany().getId(), new Date(),
+                        workOrder.getCompletedOn()));
             } else throw new CustomException("There is not enough of this part", HttpStatus.NOT_ACCEPTABLE);
         }
     }
@@ -133,22 +135,16 @@ public class PartService {
     public Page<PartShowDTO> findBySearchCriteria(SearchCriteria searchCriteria) {
         SpecificationBuilder<Part> builder = new SpecificationBuilder<>();
         searchCriteria.getFilterFields().forEach(builder::with);
-        Pageable page = PageRequest.of(searchCriteria.getPageNum(), searchCriteria.getPageSize(),
-                searchCriteria.getDirection(), searchCriteria.getSortField());
-        return partRepository.findAll(builder.build(), page).map(partMapper::toShowDto);
+        return SearchPaginator.findAll(em, Part.class, builder.build(), searchCriteria).map(partMapper::toShowDto);
     }
 
-    public void importPart(Part part, PartImportDTO dto, Company company) {
-        Long companyId = company.getId();
-        Long companySettingsId = company.getCompanySettings().getId();
+    public void importPart(Part part, PartImportDTO dto, ImportLookups lookups) {
         part.setName(dto.getName());
         part.setCost(dto.getCost());
-        Optional<PartCategory> optionalPartCategory =
-                partCategoryService.findByNameIgnoreCaseAndCompanySettings(dto.getCategory(), companySettingsId);
-        optionalPartCategory.ifPresent(part::setCategory);
+        lookups.getPartCategory(dto.getCategory()).ifPresent(part::setCategory);
         part.setNonStock(Helper.getBooleanFromString(dto.getCategory()));
         if (dto.getBarcode() != null) {
-            Optional<Part> optionalPartWithSameBarCode = findByBarcodeAndCompany(dto.getBarcode(), company.getId());
+            Optional<Part> optionalPartWithSameBarCode = lookups.getPartByBarcode(dto.getBarcode());
             if (optionalPartWithSameBarCode.isPresent()) {
                 boolean hasError = false;
                 if (dto.getId() == null) {//creation
@@ -172,35 +168,11 @@ public class PartService {
 //        Optional<Location> optionalLocation = locationService.findByNameIgnoreCaseAndCompany(dto.getLocationName(),
 //        companyId);
 //        optionalLocation.ifPresent(part::setLocation);
-        List<OwnUser> users = new ArrayList<>();
-        dto.getAssignedToEmails().forEach(email -> {
-            Optional<OwnUser> optionalUser1 = userService.findByEmailAndCompany(email, companyId);
-            optionalUser1.ifPresent(users::add);
-        });
-        part.setAssignedTo(users);
-        List<Team> teams = new ArrayList<>();
-        dto.getTeamsNames().forEach(teamName -> {
-            Optional<Team> optionalTeam = teamService.findByNameIgnoreCaseAndCompany(teamName, companyId);
-            optionalTeam.ifPresent(teams::add);
-        });
-        part.setTeams(teams);
-        List<Customer> customers = new ArrayList<>();
-        dto.getCustomersNames().forEach(name -> {
-            Optional<Customer> optionalCustomer = customerService.findByNameIgnoreCaseAndCompany(name, companyId);
-            optionalCustomer.ifPresent(customers::add);
-        });
-        part.setCustomers(customers);
-        List<Vendor> vendors = new ArrayList<>();
-        dto.getVendorsNames().forEach(name -> {
-            Optional<Vendor> optionalVendor = vendorService.findByNameIgnoreCaseAndCompany(name, companyId);
-            optionalVendor.ifPresent(vendors::add);
-        });
-        part.setVendors(vendors);
-        partRepository.save(part);
-    }
-
-    public Optional<Part> findByIdAndCompany(Long id, Long companyId) {
-        return partRepository.findByIdAndCompany_Id(id, companyId);
+        part.setAssignedTo(lookups.getUsers(dto.getAssignedToEmails()));
+        part.setTeams(lookups.getTeams(dto.getTeamsNames()));
+        part.setCustomers(lookups.getCustomers(dto.getCustomersNames()));
+        part.setVendors(lookups.getVendors(dto.getVendorsNames()));
+        lookups.register(partRepository.save(part));
     }
 
     public Optional<Part> findByNameIgnoreCaseAndCompany(String name, Long companyId) {
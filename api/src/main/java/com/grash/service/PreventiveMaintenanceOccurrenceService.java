@@ -0,0 +1,134 @@
+package com.grash.service;
+
+import com.grash.model.PreventiveMaintenance;
+import com.grash.model.PreventiveMaintenanceOccurrence;
+import com.grash.model.Schedule;
+import com.grash.model.enums.RecurrenceBasedOn;
+import com.grash.repository.PreventiveMaintenanceOccurrenceRepository;
+import com.grash.repository.ScheduleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.ListUtils;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.spi.OperableTrigger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the upcoming occurrences of the scheduled-date preventive maintenances materialized up to a fixed horizon.
+ * They are recomputed whenever a schedule is (re)scheduled and rolled forward by
+ * {@link com.grash.job.PreventiveMaintenanceOccurrenceJob}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PreventiveMaintenanceOccurrenceService {
+
+    // A trigger fires at most daily, this only guards against a misconfigured one
+    private static final int MAX_OCCURRENCES_PER_SCHEDULE = 5000;
+
+    private final PreventiveMaintenanceOccurrenceRepository preventiveMaintenanceOccurrenceRepository;
+    private final ScheduleRepository scheduleRepository;
+    private final Scheduler scheduler;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${pm-occurrences.horizon-days:400}")
+    private int horizonDays;
+    @Value("${pm-occurrences.roll-batch-size:500}")
+    private int rollBatchSize;
+
+    /**
+     * Replaces the occurrences of the schedule by the fire times of its work order trigger
+     */
+    public void refresh(Schedule schedule, Trigger trigger) {
+        preventiveMaintenanceOccurrenceRepository.deleteByScheduleId(schedule.getId());
+        if (schedule.getRecurrenceBasedOn() != RecurrenceBasedOn.SCHEDULED_DATE) return;
+        Date now = new Date();
+        preventiveMaintenanceOccurrenceRepository.saveAll(getOccurrences(schedule, trigger, now, getHorizon(now)));
+    }
+
+    public void clear(Long scheduleId) {
+        preventiveMaintenanceOccurrenceRepository.deleteByScheduleId(scheduleId);
+    }
+
+    public List<PreventiveMaintenanceOccurrence> findBetween(Long companyId, Date start, Date end) {
+        Date horizon = getHorizon(new Date());
+        return preventiveMaintenanceOccurrenceRepository.findByCompanyIdAndOccursOnBetweenOrderByOccursOn(companyId,
+                start, end.after(horizon) ? horizon : end);
+    }
+
+    /**
+     * Drops the past occurrences and extends every active schedule from its last materialized occurrence up to
+     * the horizon. Schedules without any occurrence yet, like right after the migration, are filled from now.
+     */
+    public void rollForward() {
+        Date now = new Date();
+        Date horizon = getHorizon(now);
+        int deleted = new TransactionTemplate(transactionManager).execute(status ->
+                preventiveMaintenanceOccurrenceRepository.deleteByOccursOnBefore(now));
+        int added = 0;
+        for (List<Long> scheduleIds : ListUtils.partition(scheduleRepository.findIdsToSchedule(now), rollBatchSize)) {
+            try {
+                added += new TransactionTemplate(transactionManager).execute(status ->
+                        rollForward(scheduleIds, now, horizon));
+            } catch (RuntimeException e) {
+                log.error("Failed to roll the preventive maintenance occurrences of schedules {} to {} forward",
+                        scheduleIds.get(0), scheduleIds.get(scheduleIds.size() - 1), e);
+            }
+        }
+        log.info("Preventive maintenance occurrences rolled forward: {} added, {} past ones removed", added, deleted);
+    }
+
+    private int rollForward(List<Long> scheduleIds, Date now, Date horizon) {
+        Map<Long, Date> lastOccurrences = preventiveMaintenanceOccurrenceRepository.findLastOccurrences(scheduleIds)
+                .stream().collect(Collectors.toMap(PreventiveMaintenanceOccurrenceRepository.LastOccurrence::getScheduleId,
+                        PreventiveMaintenanceOccurrenceRepository.LastOccurrence::getLastOccursOn));
+        List<PreventiveMaintenanceOccurrence> occurrences = new ArrayList<>();
+        for (Schedule schedule : scheduleRepository.findAllById(scheduleIds)) {
+            if (schedule.getRecurrenceBasedOn() != RecurrenceBasedOn.SCHEDULED_DATE) continue;
+            Date after = lastOccurrences.getOrDefault(schedule.getId(), now);
+            if (!after.before(horizon)) continue;
+            try {
+                Trigger trigger = scheduler.getTrigger(new TriggerKey("wo-trigger-" + schedule.getId(), "wo-group"));
+                if (trigger != null) occurrences.addAll(getOccurrences(schedule, trigger, after, horizon));
+            } catch (SchedulerException e) {
+                log.error("Error getting the trigger of schedule {}", schedule.getId(), e);
+            }
+        }
+        preventiveMaintenanceOccurrenceRepository.saveAll(occurrences);
+        return occurrences.size();
+    }
+
+    private List<PreventiveMaintenanceOccurrence> getOccurrences(Schedule schedule, Trigger trigger, Date after,
+                                                                 Date until) {
+        if (!(trigger instanceof OperableTrigger)) return Collections.emptyList();
+        OperableTrigger operableTrigger = (OperableTrigger) trigger;
+        PreventiveMaintenance preventiveMaintenance = schedule.getPreventiveMaintenance();
+        List<PreventiveMaintenanceOccurrence> occurrences = new ArrayList<>();
+        Date fireTime = operableTrigger.getFireTimeAfter(after);
+        while (fireTime != null && !fireTime.after(until)) {
+            occurrences.add(new PreventiveMaintenanceOccurrence(preventiveMaintenance.getCompany().getId(),
+                    preventiveMaintenance.getId(), schedule.getId(), fireTime));
+            if (occurrences.size() >= MAX_OCCURRENCES_PER_SCHEDULE) {
+                log.warn("Reached the limit of {} occurrences for schedule {}", MAX_OCCURRENCES_PER_SCHEDULE,
+                        schedule.getId());
+                break;
+            }
+            fireTime = operableTrigger.getFireTimeAfter(fireTime);
+        }
+        return occurrences;
+    }
+
+    private Date getHorizon(Date now) {
+        return new Date(now.getTime() + TimeUnit.DAYS.toMillis(horizonDays));
+    }
+}
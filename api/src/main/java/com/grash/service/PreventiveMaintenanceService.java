@@ -14,13 +14,9 @@ import com.grash.model.enums.RecurrenceBasedOn;
 import com.grash.model.enums.RecurrenceType;
 import com.grash.repository.PreventiveMaintenanceRepository;
 import com.grash.utils.Helper;
+import com.grash.utils.ImportLookups;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.quartz.Scheduler;
-import org.quartz.SchedulerException;
-import org.quartz.Trigger;
-import org.quartz.TriggerKey;
-import org.quartz.spi.OperableTrigger;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -30,6 +26,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,13 +36,8 @@ public class PreventiveMaintenanceService {
     private final PreventiveMaintenanceRepository preventiveMaintenanceRepository;
     private final EntityManager em;
     private final CustomSequenceService customSequenceService;
-    private final Scheduler scheduler;
+    private final PreventiveMaintenanceOccurrenceService preventiveMaintenanceOccurrenceService;
     private final PreventiveMaintenanceMapper preventiveMaintenanceMapper;
-    private final LocationService locationService;
-    private final TeamService teamService;
-    private final UserService userService;
-    private final AssetService assetService;
-    private final WorkOrderCategoryService workOrderCategoryService;
     private final ScheduleService scheduleService;
 
 
@@ -112,74 +104,32 @@ public class PreventiveMaintenanceService {
         }
     }
 
-    public List<CalendarEvent<PreventiveMaintenance>> getEvents(Date end, Long companyId) {
-        List<PreventiveMaintenance> preventiveMaintenances =
-                preventiveMaintenanceRepository.findByCreatedAtBeforeAndCompany_Id(end, companyId);
-        List<CalendarEvent<PreventiveMaintenance>> result = new ArrayList<>();
-
-        for (PreventiveMaintenance preventiveMaintenance : preventiveMaintenances) {
-            Schedule schedule = preventiveMaintenance.getSchedule();
-            if (schedule == null || schedule.isDisabled()) continue;
-
-            if (schedule.getRecurrenceBasedOn() != RecurrenceBasedOn.SCHEDULED_DATE) continue;
-
-            try {
-                TriggerKey triggerKey = new TriggerKey("wo-trigger-" + schedule.getId(), "wo-group");
-                Trigger trigger = scheduler.getTrigger(triggerKey);
-
-                if (trigger == null) {
-                    log.warn("No trigger found for schedule {}", schedule.getId());
-                    continue;
-                }
-
-                // Get all fire times up to the end date
-                List<Date> fireTimes = new ArrayList<>();
-
-                // Use TriggerUtils to get computed fire times
-                if (trigger instanceof OperableTrigger) {
-                    OperableTrigger operableTrigger = (OperableTrigger) trigger;
-                    Date currentTime = new Date();
-
-                    // Start from now or startsOn, whichever is earlier
-                    Date startTime = schedule.getStartsOn().before(currentTime) ?
-                            schedule.getStartsOn() : currentTime;
-
-                    // Compute fire times
-                    Date fireTime = operableTrigger.getFireTimeAfter(startTime);
-                    while (fireTime != null && (fireTime.before(end) || fireTime.equals(end))) {
-                        fireTimes.add(fireTime);
-                        fireTime = operableTrigger.getFireTimeAfter(fireTime);
-
-                        // Safety limit to prevent infinite loops
-                        if (fireTimes.size() > 1000) {
-                            log.warn("Reached safety limit of 1000 events for schedule {}", schedule.getId());
-                            break;
-                        }
-                    }
-                }
-
-                // Convert fire times to calendar events
-                result.addAll(fireTimes.stream()
-                        .map(date -> new CalendarEvent<>("PREVENTIVE_MAINTENANCE", preventiveMaintenance, date))
-                        .collect(Collectors.toList()));
-
-            } catch (SchedulerException e) {
-                log.error("Error getting trigger fire times for schedule {}", schedule.getId(), e);
-            }
-        }
-
-        return result;
+    public List<CalendarEvent<PreventiveMaintenance>> getEvents(Date start, Date end, Long companyId) {
+        List<PreventiveMaintenanceOccurrence> occurrences =
+                preventiveMaintenanceOccurrenceService.findBetween(companyId, start, end);
+        if (occurrences.isEmpty()) return new ArrayList<>();
+        Map<Long, PreventiveMaintenance> preventiveMaintenances = findByIdsAndCompany(occurrences.stream()
+                .map(PreventiveMaintenanceOccurrence::getPreventiveMaintenanceId).collect(Collectors.toSet()), companyId)
+                .stream().collect(Collectors.toMap(PreventiveMaintenance::getId, Function.identity()));
+        return occurrences.stream()
+                .filter(occurrence -> preventiveMaintenances.containsKey(occurrence.getPreventiveMaintenanceId()))
+                .map(occurrence -> new CalendarEvent<>("PREVENTIVE_MAINTENANCE",
+                        preventiveMaintenances.get(occurrence.getPreventiveMaintenanceId()), occurrence.getOccursOn()))
+                .collect(Collectors.toList());
     }
 
     public Optional<PreventiveMaintenance> findByIdAndCompany(Long id, Long companyId) {
         return preventiveMaintenanceRepository.findByIdAndCompany_Id(id, companyId);
     }
 
+    public List<PreventiveMaintenance> findByIdsAndCompany(Collection<Long> ids, Long companyId) {
+        return preventiveMaintenanceRepository.findByIdInAndCompany_Id(ids, companyId);
+    }
+
     public void importPreventiveMaintenance(PreventiveMaintenance preventiveMaintenance,
-                                            PreventiveMaintenanceImportDTO pmImportDTO, Company company) {
+                                            PreventiveMaintenanceImportDTO pmImportDTO, ImportLookups lookups) {
 
-        Helper.populateWorkOrderBaseFromImportDTO(preventiveMaintenance, pmImportDTO, company, locationService,
-                teamService, userService, assetService, workOrderCategoryService);
+        Helper.populateWorkOrderBaseFromImportDTO(preventiveMaintenance, pmImportDTO, lookups);
 
         preventiveMaintenance.setName(pmImportDTO.getName());
 
@@ -195,7 +145,7 @@ public class PreventiveMaintenanceService {
         schedule.setDaysOfWeek(pmImportDTO.getDaysOfWeek().stream().map(this::getDayOfWeekNumber).collect(Collectors.toList()));
 
         preventiveMaintenance.setCustomId("PM" + String.format("%06d",
-                customSequenceService.getNextPreventiveMaintenanceSequence(company)));
+                lookups.getCustomSequence().getAndIncrementPreventiveMaintenanceSequence()));
 
         PreventiveMaintenance savedPM = preventiveMaintenanceRepository.save(preventiveMaintenance);
         scheduleService.reScheduleWorkOrder(savedPM.getSchedule());
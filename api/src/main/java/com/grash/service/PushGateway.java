@@ -0,0 +1,25 @@
+package com.grash.service;
+
+import com.grash.dto.notification.PushReceipt;
+import com.grash.dto.notification.PushTicket;
+import io.github.jav.exposerversdk.ExpoPushMessage;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface PushGateway {
+
+    /**
+     * Error of the tickets and receipts of a token which was uninstalled or expired
+     */
+    String DEVICE_NOT_REGISTERED = "DeviceNotRegistered";
+
+    /**
+     * Sends messages with a single recipient each
+     *
+     * @return one ticket per message, in the order of the messages
+     */
+    CompletableFuture<List<PushTicket>> send(List<ExpoPushMessage> messages);
+
+    CompletableFuture<List<PushReceipt>> getReceipts(List<String> ticketIds);
+}
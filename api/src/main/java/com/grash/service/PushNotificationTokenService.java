@@ -4,7 +4,11 @@ import com.grash.model.PushNotificationToken;
 import com.grash.repository.PushNotificationTokenRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -22,6 +26,23 @@ public class PushNotificationTokenService {
         return pushNotificationTokenRepository.findByUser_Id(userId);
     }
 
+    /**
+     * Resolves the tokens of many users in a single query
+     */
+    public List<PushNotificationToken> findByUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return Collections.emptyList();
+        return pushNotificationTokenRepository.findByUser_IdIn(userIds);
+    }
+
+    /**
+     * Removes the tokens the push service reported as no longer registered
+     */
+    @Transactional
+    public int deleteByTokens(Collection<String> tokens) {
+        if (tokens.isEmpty()) return 0;
+        return pushNotificationTokenRepository.deleteByTokenIn(tokens);
+    }
+
     public PushNotificationToken save(PushNotificationToken pushNotificationToken) {
         return pushNotificationTokenRepository.save(pushNotificationToken);
     }
@@ -0,0 +1,86 @@
+package com.grash.service;
+
+import com.grash.dto.notification.PushReceipt;
+import com.grash.factory.PushGatewayFactory;
+import com.grash.model.PushNotificationTicket;
+import com.grash.repository.PushNotificationTicketRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the receipts of the sent push notifications once the push service had time to deliver them, and removes
+ * the tokens of the devices which are no longer registered.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PushReceiptService {
+
+    // Receipts are available after a few minutes and kept for a day by the push service
+    static final long RECEIPT_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(15);
+    static final long RECEIPT_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(24);
+    static final int BATCH_SIZE = 300;
+
+    private final PushNotificationTicketRepository pushNotificationTicketRepository;
+    private final PushNotificationTokenService pushNotificationTokenService;
+    private final PushGatewayFactory pushGatewayFactory;
+    private final PlatformTransactionManager transactionManager;
+
+    public void processReceipts() {
+        long now = System.currentTimeMillis();
+        int expired = new TransactionTemplate(transactionManager).execute(status ->
+                pushNotificationTicketRepository.deleteByCreatedAtBefore(new Date(now - RECEIPT_RETENTION_MILLIS)));
+        if (expired > 0) log.warn("Dropped {} push tickets whose receipt could not be checked", expired);
+
+        Date readyBefore = new Date(now - RECEIPT_DELAY_MILLIS);
+        List<PushNotificationTicket> tickets;
+        do {
+            tickets = pushNotificationTicketRepository.findByCreatedAtBeforeOrderByCreatedAt(readyBefore,
+                    PageRequest.of(0, BATCH_SIZE));
+            if (tickets.isEmpty()) return;
+            List<PushReceipt> receipts;
+            try {
+                receipts = pushGatewayFactory.getPushGateway().getReceipts(tickets.stream()
+                        .map(PushNotificationTicket::getTicketId).collect(Collectors.toList())).get(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException e) {
+                // The tickets stay for the next run
+                log.error("Failed to get the push receipts", e);
+                return;
+            }
+            processBatch(tickets, receipts);
+        } while (tickets.size() == BATCH_SIZE);
+    }
+
+    private void processBatch(List<PushNotificationTicket> tickets, List<PushReceipt> receipts) {
+        Map<String, PushNotificationTicket> ticketsById = tickets.stream()
+                .collect(Collectors.toMap(PushNotificationTicket::getTicketId, Function.identity(), (a, b) -> a));
+        Set<String> unregisteredTokens = new HashSet<>();
+        for (PushReceipt receipt : receipts) {
+            if (receipt.getError() == null) continue;
+            PushNotificationTicket ticket = ticketsById.get(receipt.getTicketId());
+            if (ticket == null) continue;
+            log.warn("Push notification to {} failed: {}", ticket.getToken(), receipt.getError());
+            if (PushGateway.DEVICE_NOT_REGISTERED.equals(receipt.getError())) unregisteredTokens.add(ticket.getToken());
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            pushNotificationTokenService.deleteByTokens(unregisteredTokens);
+            pushNotificationTicketRepository.deleteByIdIn(tickets.stream().map(PushNotificationTicket::getId)
+                    .collect(Collectors.toList()));
+        });
+        if (!unregisteredTokens.isEmpty()) log.info("Removed {} unregistered push tokens", unregisteredTokens.size());
+    }
+}
@@ -1,29 +1,80 @@
 package com.grash.service;
 
-import io.github.bucket4j.Bandwidth;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.grash.security.RateLimitPolicy;
+import com.grash.security.RateLimitProperties;
 import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Token buckets by key, at most rate-limits.maximum-keys of them. A bucket is dropped once it has been unused for the
+ * longest period of its policy, it would be full again anyway, so rotated or random keys don't pile up. A key whose
+ * policy changes gets a new bucket.
+ */
 @Component
 public class RateLimiterService {
 
-    private final ConcurrentMap<String, Bucket> cache = new ConcurrentHashMap<>();
+    /**
+     * 15 requests per minute
+     */
+    public static final RateLimitPolicy DEFAULT_POLICY = RateLimitPolicy.of(15, Duration.ofMinutes(1));
+
+    private final Cache<Key, Bucket> buckets;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimiterService(RateLimitProperties rateLimitProperties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(rateLimitProperties.getMaximumKeys())
+                .expireAfter(new Expiry<Key, Bucket>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Bucket bucket, long currentTime) {
+                        return key.getPolicy().getRefillPeriod().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Bucket bucket, long currentTime, long currentDuration) {
+                        return key.getPolicy().getRefillPeriod().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Bucket bucket, long currentTime, long currentDuration) {
+                        return key.getPolicy().getRefillPeriod().toNanos();
+                    }
+                })
+                .build();
+        meterRegistry.gauge("rate_limits.buckets", buckets, Cache::estimatedSize);
+    }
 
     public Bucket resolveBucket(String key) {
-        return cache.computeIfAbsent(key, this::newBucket);
+        return resolveBucket(key, DEFAULT_POLICY);
     }
 
-    private Bucket newBucket(String key) {
-        // 15 requests per minute
-        Bandwidth fifteenPerMinute = Bandwidth.classic(15, Refill.greedy(15, Duration.ofMinutes(1)));
+    public Bucket resolveBucket(String key, RateLimitPolicy policy) {
+        return buckets.get(new Key(key, policy), bucketKey -> policy.newBucket());
+    }
 
-        return Bucket.builder()
-                .addLimit(fifteenPerMinute)
-                .build();
+    /**
+     * Consumes a token of the bucket of the key in the scope, counting the rejections by scope
+     */
+    public ConsumptionProbe tryConsume(String scope, String key, RateLimitPolicy policy) {
+        ConsumptionProbe probe = resolveBucket(scope + ":" + key, policy).tryConsumeAndReturnRemaining(1);
+        if (!probe.isConsumed()) {
+            meterRegistry.counter("rate_limits.rejected", "scope", scope).increment();
+        }
+        return probe;
+    }
+
+    @Data
+    private static class Key {
+        private final String key;
+        private final RateLimitPolicy policy;
     }
 }
@@ -0,0 +1,167 @@
+package com.grash.service;
+
+import com.grash.dto.ReadingPostDTO;
+import com.grash.exception.CustomException;
+import com.grash.model.*;
+import com.grash.model.enums.NotificationType;
+import com.grash.model.enums.WorkOrderMeterTriggerCondition;
+import com.grash.repository.MeterRepository;
+import com.grash.repository.ReadingRepository;
+import com.grash.repository.WorkOrderMeterTriggerRepository;
+import com.grash.utils.Helper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Saves the readings of meters and fires their work order triggers. The last reading of a meter is kept on the meter
+ * and a trigger remembers whether it is breached, so that a sustained breach opens a single work order. A breached
+ * trigger is cleared once a reading is back past its value by meters.readings.hysteresis of it.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReadingIngestionService {
+
+    private final ReadingRepository readingRepository;
+    private final MeterRepository meterRepository;
+    private final WorkOrderMeterTriggerRepository workOrderMeterTriggerRepository;
+    private final WorkOrderService workOrderService;
+    private final NotificationService notificationService;
+    private final MessageSource messageSource;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${meters.readings.batch-size:500}")
+    private int batchSize;
+    @Value("${meters.readings.max-per-request:10000}")
+    private int maxPerRequest;
+    @Value("${meters.readings.hysteresis:0.05}")
+    private double hysteresis;
+
+    @Transactional
+    public Reading create(Reading reading, OwnUser user) {
+        Meter meter = meterRepository.findForUpdate(Collections.singletonList(reading.getMeter().getId()),
+                        user.getCompany().getId()).stream().findFirst()
+                .orElseThrow(() -> new CustomException("Not found", HttpStatus.NOT_FOUND));
+        if (reading.getReadAt() == null) reading.setReadAt(new Date());
+        reading.setMeter(meter);
+        Reading savedReading = readingRepository.save(reading);
+        apply(meter, Collections.singletonList(savedReading), workOrderMeterTriggerRepository.findByMeter_Id(meter.getId()),
+                user);
+        return savedReading;
+    }
+
+    /**
+     * Saves the readings in transactions of meters.readings.batch-size readings, a failing batch leaves the previous
+     * ones committed
+     *
+     * @return the number of work orders created by the triggers
+     */
+    public int createBatch(List<ReadingPostDTO> readings, OwnUser user) {
+        if (readings.size() > maxPerRequest) {
+            throw new CustomException("At most " + maxPerRequest + " readings per request", HttpStatus.BAD_REQUEST);
+        }
+        if (readings.stream().anyMatch(reading -> reading.getMeterId() == null || reading.getValue() == null)) {
+            throw new CustomException("meterId and value are required", HttpStatus.BAD_REQUEST);
+        }
+        Long companyId = user.getCompany().getId();
+        Set<Long> meterIds = readings.stream().map(ReadingPostDTO::getMeterId).collect(Collectors.toSet());
+        Set<Long> missingMeterIds = new HashSet<>(meterIds);
+        meterRepository.findByIdInAndCompany_Id(meterIds, companyId).forEach(meter -> missingMeterIds.remove(meter.getId()));
+        if (!missingMeterIds.isEmpty()) {
+            throw new CustomException("Meters not found: " + missingMeterIds, HttpStatus.NOT_FOUND);
+        }
+        Date now = new Date();
+        List<ReadingPostDTO> sortedReadings = readings.stream()
+                .sorted(Comparator.comparing(ReadingPostDTO::getMeterId)
+                        .thenComparing(reading -> reading.getTimestamp() == null ? now : reading.getTimestamp()))
+                .collect(Collectors.toList());
+        int workOrdersCreated = 0;
+        for (int start = 0; start < sortedReadings.size(); start += batchSize) {
+            List<ReadingPostDTO> batch = sortedReadings.subList(start, Math.min(start + batchSize, sortedReadings.size()));
+            workOrdersCreated += new TransactionTemplate(transactionManager).execute(status ->
+                    saveBatch(batch, now, user));
+        }
+        meterRegistry.counter("meters.readings.ingested").increment(readings.size());
+        return workOrdersCreated;
+    }
+
+    private int saveBatch(List<ReadingPostDTO> batch, Date now, OwnUser user) {
+        Map<Long, List<ReadingPostDTO>> readingsByMeter = batch.stream()
+                .collect(Collectors.groupingBy(ReadingPostDTO::getMeterId, LinkedHashMap::new, Collectors.toList()));
+        List<Meter> meters = meterRepository.findForUpdate(readingsByMeter.keySet(), user.getCompany().getId());
+        Map<Long, List<WorkOrderMeterTrigger>> triggersByMeter = workOrderMeterTriggerRepository
+                .findByMeter_IdIn(readingsByMeter.keySet()).stream()
+                .collect(Collectors.groupingBy(trigger -> trigger.getMeter().getId()));
+        int workOrdersCreated = 0;
+        for (Meter meter : meters) {
+            List<Reading> readings = readingsByMeter.get(meter.getId()).stream().map(readingPostDTO -> {
+                Reading reading = new Reading();
+                reading.setMeter(meter);
+                reading.setValue(readingPostDTO.getValue());
+                reading.setReadAt(readingPostDTO.getTimestamp() == null ? now : readingPostDTO.getTimestamp());
+                return reading;
+            }).collect(Collectors.toList());
+            readingRepository.saveAll(readings);
+            workOrdersCreated += apply(meter, readings, triggersByMeter.getOrDefault(meter.getId(),
+                    Collections.emptyList()), user);
+        }
+        return workOrdersCreated;
+    }
+
+    /**
+     * Moves the last reading of the meter and the state of its triggers through the readings, in the order they
+     * were read. Readings older than the last one of the meter are kept as history only.
+     */
+    private int apply(Meter meter, List<Reading> readings, Collection<WorkOrderMeterTrigger> triggers, OwnUser user) {
+        Date lastReadingAt = meter.getLastReadingAt();
+        double[] values = readings.stream()
+                .filter(reading -> lastReadingAt == null || !reading.getReadAt().before(lastReadingAt))
+                .mapToDouble(Reading::getValue).toArray();
+        if (values.length == 0) return 0;
+        Reading lastReading = readings.get(readings.size() - 1);
+        meter.setLastReadingAt(lastReading.getReadAt());
+        int workOrdersCreated = 0;
+        for (WorkOrderMeterTrigger trigger : triggers) {
+            boolean lessThan = trigger.getTriggerCondition() == WorkOrderMeterTriggerCondition.LESS_THAN;
+            double threshold = trigger.getValue();
+            double clearance = lessThan ? threshold + Math.abs(threshold) * hysteresis
+                    : threshold - Math.abs(threshold) * hysteresis;
+            boolean breached = trigger.isBreached();
+            for (double value : values) {
+                if (!breached && (lessThan ? value < threshold : value > threshold)) {
+                    breached = true;
+                    fire(meter, trigger, user);
+                    workOrdersCreated++;
+                } else if (breached && (lessThan ? value >= clearance : value <= clearance)) {
+                    breached = false;
+                }
+            }
+            trigger.setBreached(breached);
+        }
+        return workOrdersCreated;
+    }
+
+    private void fire(Meter meter, WorkOrderMeterTrigger trigger, OwnUser user) {
+        Locale locale = Helper.getLocale(user);
+        String title = messageSource.getMessage("new_wo", null, locale);
+        Object[] notificationArgs = new Object[]{meter.getName(), trigger.getValue(), meter.getUnit()};
+        String message = messageSource.getMessage(trigger.getTriggerCondition() == WorkOrderMeterTriggerCondition.LESS_THAN
+                ? "notification_reading_less_than" : "notification_reading_more_than", notificationArgs, locale);
+        notificationService.createMultiple(meter.getUsers().stream().map(meterUser ->
+                new Notification(message, meterUser, NotificationType.METER, meter.getId())
+        ).collect(Collectors.toList()), true, title);
+        WorkOrder workOrder = workOrderService.getWorkOrderFromWorkOrderBase(trigger);
+        workOrderService.create(workOrder, user.getCompany());
+        meterRegistry.counter("meters.triggers.fired", "condition", trigger.getTriggerCondition().name()).increment();
+    }
+}
@@ -3,9 +3,11 @@ package com.grash.service;
 import com.grash.dto.ReadingPatchDTO;
 import com.grash.exception.CustomException;
 import com.grash.mapper.ReadingMapper;
+import com.grash.model.Meter;
 import com.grash.model.OwnUser;
 import com.grash.model.Reading;
 import com.grash.model.enums.RoleType;
+import com.grash.repository.MeterRepository;
 import com.grash.repository.ReadingRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,13 +15,17 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import javax.transaction.Transactional;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class ReadingService {
     private final ReadingRepository readingRepository;
+    private final MeterRepository meterRepository;
     private final ReadingMapper readingMapper;
     private MeterService meterService;
 
@@ -33,19 +39,45 @@ public class ReadingService {
         return readingRepository.save(Reading);
     }
 
+    @Transactional
     public Reading update(Long id, ReadingPatchDTO reading) {
-        if (readingRepository.existsById(id)) {
-            Reading savedReading = readingRepository.findById(id).get();
-            return readingRepository.save(readingMapper.updateReading(savedReading, reading));
-        } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
+        Reading savedReading = readingRepository.findById(id)
+                .orElseThrow(() -> new CustomException("Not found", HttpStatus.NOT_FOUND));
+        Meter meter = savedReading.getMeter();
+        Set<Long> meterIds = new LinkedHashSet<>();
+        meterIds.add(meter.getId());
+        if (reading.getMeter() != null) meterIds.add(reading.getMeter().getId());
+        Collection<Meter> meters = meterRepository.findForUpdate(meterIds, meter.getCompany().getId());
+        Reading updatedReading = readingRepository.save(readingMapper.updateReading(savedReading, reading));
+        refreshLastReading(meters);
+        return updatedReading;
     }
 
     public Collection<Reading> getAll() {
         return readingRepository.findAll();
     }
 
+    @Transactional
     public void delete(Long id) {
-        readingRepository.deleteById(id);
+        Reading reading = readingRepository.findById(id)
+                .orElseThrow(() -> new CustomException("Not found", HttpStatus.NOT_FOUND));
+        Meter meter = reading.getMeter();
+        Collection<Meter> meters = meterRepository.findForUpdate(Set.of(meter.getId()), meter.getCompany().getId());
+        readingRepository.delete(reading);
+        refreshLastReading(meters);
+    }
+
+    /**
+     * Moves the last reading of the locked meters to their newest remaining reading, like the ingestion of the
+     * readings moves it forward
+     */
+    private void refreshLastReading(Collection<Meter> meters) {
+        readingRepository.flush();
+        for (Meter meter : meters) {
+            meter.setLastReadingAt(readingRepository.findFirstByMeter_IdOrderByReadAtDescIdDesc(meter.getId())
+                    .map(Reading::getReadAt).orElse(null));
+            meterRepository.save(meter);
+        }
     }
 
     public Optional<Reading> findById(Long id) {
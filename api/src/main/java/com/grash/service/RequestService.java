@@ -2,8 +2,10 @@ package com.grash.service;
 
 import com.grash.advancedsearch.SearchCriteria;
 import com.grash.advancedsearch.SpecificationBuilder;
+import com.grash.advancedsearch.pagination.SearchPaginator;
 import com.grash.dto.RequestPatchDTO;
 import com.grash.dto.RequestShowDTO;
+import com.grash.event.CompanyMetricsChangedEvent;
 import com.grash.exception.CustomException;
 import com.grash.mapper.RequestMapper;
 import com.grash.model.*;
@@ -12,9 +14,8 @@ import com.grash.model.enums.RoleType;
 import com.grash.repository.RequestRepository;
 import com.grash.utils.Helper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -39,6 +40,7 @@ public class RequestService {
     private final RequestMapper requestMapper;
     private final EntityManager em;
     private final CustomSequenceService customSequenceService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public Request create(Request request, Company company) {
@@ -47,6 +49,7 @@ public class RequestService {
 
         Request savedRequest = requestRepository.saveAndFlush(request);
         em.refresh(savedRequest);
+        eventPublisher.publishEvent(new CompanyMetricsChangedEvent(company.getId(), savedRequest.getCreatedAt()));
         return savedRequest;
     }
 
@@ -143,9 +146,8 @@ public class RequestService {
                 removeIf(filterField -> filterField.getField().equals("status") || filterField.getField().equals(
                         "priority"));
         searchCriteria.getFilterFields().forEach(builder::with);
-        Pageable page = PageRequest.of(searchCriteria.getPageNum(), searchCriteria.getPageSize(),
-                searchCriteria.getDirection(), searchCriteria.getSortField());
-        return requestRepository.findAll(builder.build(), page).map(requestMapper::toShowDto);
+        return SearchPaginator.findAll(em, Request.class, builder.build(), searchCriteria)
+                .map(requestMapper::toShowDto);
     }
 
     public boolean isRequestInCompany(Request request, long companyId, boolean optional) {
@@ -4,60 +4,92 @@ import com.grash.model.ContractorEmployee;
 import com.grash.model.Notification;
 import com.grash.model.OwnUser;
 import com.grash.model.SafetyInstruction;
+import com.grash.model.enums.DeadlineType;
 import com.grash.model.enums.NotificationType;
 import com.grash.repository.ContractorEmployeeRepository;
 import com.grash.repository.SafetyInstructionRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Warns the admins 30, 15 and 7 days before a completed safety instruction expires and once it has expired. A
+ * deadline is scheduled at the next warning of each instruction instead of scanning all of them every day.
+ */
 @Service
 @RequiredArgsConstructor
-public class SafetyInstructionExpirationJob {
+public class SafetyInstructionExpirationJob implements DeadlineHandler {
+
+    private static final int[] WARNING_DAYS = {30, 15, 7};
 
     private final SafetyInstructionRepository safetyInstructionRepository;
     private final ContractorEmployeeRepository contractorEmployeeRepository;
     private final NotificationService notificationService;
     private final UserService userService;
     private final EmailService2 emailService2;
+    private final DeadlineService deadlineService;
 
-    @Scheduled(cron = "0 0 8 * * ?") // Täglich um 8 Uhr morgens
-    public void checkExpiringSafetyInstructions() {
+    /**
+     * To be called whenever an instruction is saved
+     */
+    public void scheduleExpiration(SafetyInstruction instruction) {
+        if (!instruction.isCompleted() || instruction.getExpirationDate() == null) {
+            deadlineService.cancel(DeadlineType.SAFETY_INSTRUCTION_EXPIRATION, instruction.getId());
+            return;
+        }
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime in30Days = now.plusDays(30);
-        LocalDateTime in15Days = now.plusDays(15);
-        LocalDateTime in7Days = now.plusDays(7);
-        
-        // Find instructions that are about to expire
-        List<SafetyInstruction> instructionsExpiringIn30Days = safetyInstructionRepository
-            .findByExpirationDateBetweenAndCompletedTrue(now, in30Days);
-        
-        List<SafetyInstruction> instructionsExpiringIn15Days = safetyInstructionRepository
-            .findByExpirationDateBetweenAndCompletedTrue(now, in15Days);
-        
-        List<SafetyInstruction> instructionsExpiringIn7Days = safetyInstructionRepository
-            .findByExpirationDateBetweenAndCompletedTrue(now, in7Days);
-        
-        List<SafetyInstruction> expiredInstructions = safetyInstructionRepository
-            .findByExpirationDateBeforeAndCompletedTrue(now);
-        
-        // Process 30 days warning
-        processExpiringInstructions(instructionsExpiringIn30Days, 30, "30 Tage");
-        
-        // Process 15 days warning
-        processExpiringInstructions(instructionsExpiringIn15Days, 15, "15 Tage");
-        
-        // Process 7 days warning
-        processExpiringInstructions(instructionsExpiringIn7Days, 7, "7 Tage");
-        
-        // Process expired instructions
-        processExpiredInstructions(expiredInstructions);
+        LocalDateTime firstWarning = instruction.getExpirationDate().minusDays(WARNING_DAYS[0]);
+        // a warning already due is sent right away
+        scheduleAt(instruction.getId(), firstWarning.isAfter(now) ? firstWarning : now);
+    }
+
+    public void cancelExpiration(Long instructionId) {
+        deadlineService.cancel(DeadlineType.SAFETY_INSTRUCTION_EXPIRATION, instructionId);
+    }
+
+    @Override
+    public DeadlineType getType() {
+        return DeadlineType.SAFETY_INSTRUCTION_EXPIRATION;
+    }
+
+    @Override
+    public void handle(Long instructionId) {
+        Optional<SafetyInstruction> optionalInstruction = safetyInstructionRepository.findById(instructionId);
+        if (!optionalInstruction.isPresent()) return;
+        SafetyInstruction instruction = optionalInstruction.get();
+        LocalDateTime expirationDate = instruction.getExpirationDate();
+        if (!instruction.isCompleted() || expirationDate == null) return;
+        LocalDateTime now = LocalDateTime.now();
+        List<SafetyInstruction> instructions = Collections.singletonList(instruction);
+        for (int days : WARNING_DAYS) {
+            if (!expirationDate.isBefore(now) && !expirationDate.isAfter(now.plusDays(days))) {
+                processExpiringInstructions(instructions, days, days + " Tage");
+            }
+        }
+        if (expirationDate.isBefore(now)) {
+            processExpiredInstructions(instructions);
+            return;
+        }
+        // the next warning, or the expiration itself
+        LocalDateTime next = expirationDate;
+        for (int days : WARNING_DAYS) {
+            LocalDateTime warning = expirationDate.minusDays(days);
+            if (warning.isAfter(now)) {
+                next = warning;
+                break;
+            }
+        }
+        scheduleAt(instructionId, next);
+    }
+
+    private void scheduleAt(Long instructionId, LocalDateTime dateTime) {
+        deadlineService.schedule(DeadlineType.SAFETY_INSTRUCTION_EXPIRATION, instructionId,
+                Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant()));
     }
 
     private void processExpiringInstructions(List<SafetyInstruction> instructions, int days, String period) {
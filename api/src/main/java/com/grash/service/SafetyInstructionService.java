@@ -36,6 +36,7 @@ public class SafetyInstructionService {
     private final ContractorEmployeeService contractorEmployeeService;
     private final SafetyInstructionMapper safetyInstructionMapper;
     private final UserService userService;
+    private final SafetyInstructionExpirationJob safetyInstructionExpirationJob;
 
     public SafetyInstruction create(SafetyInstruction safetyInstruction) {
         // Set standard expiration date (12 months from instruction date)
@@ -43,7 +44,9 @@ public class SafetyInstructionService {
             safetyInstruction.setExpirationDate(safetyInstruction.getInstructionDate().plusMonths(12));
         }
         
-        return safetyInstructionRepository.save(safetyInstruction);
+        SafetyInstruction savedInstruction = safetyInstructionRepository.save(safetyInstruction);
+        safetyInstructionExpirationJob.scheduleExpiration(savedInstruction);
+        return savedInstruction;
     }
 
     public SafetyInstruction createFromDTO(SafetyInstructionCreateDTO dto, Long userId) {
@@ -123,6 +126,7 @@ public class SafetyInstructionService {
             }
             
             SafetyInstruction savedInstruction = safetyInstructionRepository.save(instruction);
+            safetyInstructionExpirationJob.scheduleExpiration(savedInstruction);
             
             // Automatically set this as the employee's current safety instruction
             if (dto.getEmployeeId() != null) {
@@ -194,6 +198,7 @@ public class SafetyInstructionService {
             
 
             SafetyInstruction updatedInstruction = safetyInstructionRepository.save(safetyInstructionMapper.updateSafetyInstruction(savedInstruction, safetyInstruction));
+            safetyInstructionExpirationJob.scheduleExpiration(updatedInstruction);
             
             // If this instruction is being marked as completed, update the employee's current instruction
             if (updatedInstruction.isCompleted() && updatedInstruction.getEmployee() != null) {
@@ -227,6 +232,7 @@ public class SafetyInstructionService {
         
         // Now safe to delete the safety instruction
         safetyInstructionRepository.deleteById(id);
+        safetyInstructionExpirationJob.cancelExpiration(id);
     }
     
     // Helper method to find employees by current safety instruction ID
@@ -274,7 +280,9 @@ public class SafetyInstructionService {
                 contractorEmployeeService.update(employee.getId(), employee);
             }
             
-            return safetyInstructionRepository.save(instruction);
+            SafetyInstruction savedInstruction = safetyInstructionRepository.save(instruction);
+            safetyInstructionExpirationJob.scheduleExpiration(savedInstruction);
+            return savedInstruction;
         } else throw new CustomException("Safety instruction not found", HttpStatus.NOT_FOUND);
     }
 
@@ -14,6 +14,7 @@ import com.grash.repository.ScheduleRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
+import org.quartz.impl.matchers.GroupMatcher;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -34,9 +35,17 @@ import java.util.stream.Collectors;
 @Transactional
 @Slf4j
 public class ScheduleService {
+    private static final String WO_GROUP = "wo-group";
+    private static final String NOTIF_GROUP = "notif-group";
+    private static final String WO_TRIGGER_PREFIX = "wo-trigger-";
+    private static final String CHAINED_WO_TRIGGER_PREFIX = "wo-trigger-chained-";
+    private static final String NOTIF_TRIGGER_PREFIX = "notif-trigger-";
+    private static final int STALE_WORK_ORDERS_LIMIT = 10;
+
     private final ScheduleRepository scheduleRepository;
     private final ScheduleMapper scheduleMapper;
     private final WorkOrderService workOrderService;
+    private final PreventiveMaintenanceOccurrenceService preventiveMaintenanceOccurrenceService;
 
     // Quartz Scheduler
     private final Scheduler scheduler;
@@ -71,12 +80,12 @@ public class ScheduleService {
     }
 
     public void scheduleWorkOrder(Schedule schedule) {
-        int limit = 10;
         PreventiveMaintenance preventiveMaintenance = schedule.getPreventiveMaintenance();
-        Page<WorkOrder> workOrdersPage = workOrderService.findLastByPM(preventiveMaintenance.getId(), limit);
+        Page<WorkOrder> workOrdersPage = workOrderService.findLastByPM(preventiveMaintenance.getId(),
+                STALE_WORK_ORDERS_LIMIT);
 
         boolean isStale = false;
-        if (workOrdersPage.getTotalElements() >= limit && workOrdersPage.getContent().stream().allMatch(workOrder -> workOrder.getFirstTimeToReact() == null)) {
+        if (isStale(workOrdersPage)) {
             isStale = true;
             schedule.setDisabled(true);
             scheduleRepository.save(schedule);
@@ -173,19 +182,20 @@ public class ScheduleService {
                 }
 
                 JobDetail woJob = JobBuilder.newJob(WorkOrderCreationJob.class)
-                        .withIdentity("wo-job-" + schedule.getId(), "wo-group")
+                        .withIdentity("wo-job-" + schedule.getId(), WO_GROUP)
                         .usingJobData("scheduleId", schedule.getId())
                         .storeDurably()
                         .build();
 
                 Trigger woTrigger = TriggerBuilder.newTrigger()
-                        .withIdentity("wo-trigger-" + schedule.getId(), "wo-group")
+                        .withIdentity(WO_TRIGGER_PREFIX + schedule.getId(), WO_GROUP)
                         .startAt(startsOn) // Now points to the original startsOn
                         .withSchedule(scheduleBuilder)
                         .endAt(schedule.getEndsOn())
                         .build();
 
-                scheduler.scheduleJob(woJob, woTrigger);
+                scheduler.scheduleJob(woJob, Collections.singleton(woTrigger), true);
+                preventiveMaintenanceOccurrenceService.refresh(schedule, woTrigger);
 
                 // ---------------------------------------------------------
                 // JOB 2: Notification (Shared Method Call - FIXED CALL SITE)
@@ -222,11 +232,13 @@ public class ScheduleService {
     public void stopScheduleTimers(Long id) {
         try {
             // Delete Work Order Job
-            scheduler.deleteJob(new JobKey("wo-job-" + id, "wo-group"));
+            scheduler.deleteJob(new JobKey("wo-job-" + id, WO_GROUP));
 
             // Delete Notification Job (it might not exist, but Quartz handles that gracefully usually, or returns
             // false)
-            scheduler.deleteJob(new JobKey("notif-job-" + id, "notif-group"));
+            scheduler.deleteJob(new JobKey("notif-job-" + id, NOTIF_GROUP));
+
+            preventiveMaintenanceOccurrenceService.clear(id);
 
         } catch (SchedulerException e) {
             log.error("Error stopping quartz jobs for schedule " + id, e);
@@ -301,18 +313,18 @@ public class ScheduleService {
         }
 
         JobDetail notifJob = JobBuilder.newJob(PreventiveMaintenanceNotificationJob.class)
-                .withIdentity("notif-job-" + scheduleId, "notif-group")
+                .withIdentity("notif-job-" + scheduleId, NOTIF_GROUP)
                 .usingJobData("scheduleId", scheduleId)
                 .build();
 
         Trigger notifTrigger = TriggerBuilder.newTrigger()
-                .withIdentity("notif-trigger-" + scheduleId, "notif-group")
+                .withIdentity(NOTIF_TRIGGER_PREFIX + scheduleId, NOTIF_GROUP)
                 .startAt(notificationStart) // Offset start date for all types
                 .withSchedule(notificationScheduleBuilder)
                 .endAt(endsOn)
                 .build();
 
-        scheduler.scheduleJob(notifJob, notifTrigger);
+        scheduler.scheduleJob(notifJob, Collections.singleton(notifTrigger), true);
     }
 
     // =========================================================================================
@@ -353,20 +365,22 @@ public class ScheduleService {
 
         // 2. Schedule a "One-Shot" Job for that date
         try {
-            JobKey jobKey = new JobKey("wo-job-chained-" + schedule.getId() + "-" + nextRunDate.getTime(), "wo-group");
+            String chainedKey = schedule.getId() + "-" + nextRunDate.getTime();
+            JobKey jobKey = new JobKey("wo-job-chained-" + chainedKey, WO_GROUP);
 
+            // Not durable: the job is removed from the job store once its single trigger has fired
             JobDetail woJob = JobBuilder.newJob(WorkOrderCreationJob.class)
                     .withIdentity(jobKey)
                     .usingJobData("scheduleId", schedule.getId())
-                    .storeDurably()
                     .build();
 
             Trigger woTrigger = TriggerBuilder.newTrigger()
+                    .withIdentity(CHAINED_WO_TRIGGER_PREFIX + chainedKey, WO_GROUP)
                     .startAt(nextRunDate)
                     .withSchedule(oneShotSchedule) // Run Once
                     .build();
 
-            scheduler.scheduleJob(woJob, woTrigger);
+            scheduler.scheduleJob(woJob, Collections.singleton(woTrigger), true);
             log.info("Chained next schedule for Schedule ID {} at {}", schedule.getId(), nextRunDate);
 
             PreventiveMaintenance pm = schedule.getPreventiveMaintenance();
@@ -387,6 +401,75 @@ public class ScheduleService {
         }
     }
 
+    /**
+     * Brings the persisted Quartz triggers in line with the schedules without rebuilding them: the triggers of
+     * deleted, disabled or ended schedules are removed and the ids of the schedules which should run but have no
+     * trigger yet are returned.
+     */
+    public List<Long> reconcileJobs() throws SchedulerException {
+        Set<Long> toSchedule = new HashSet<>(scheduleRepository.findIdsToSchedule(new Date()));
+        Set<Long> scheduled = new HashSet<>();
+        Set<Long> orphaned = new HashSet<>();
+        Set<TriggerKey> triggerKeys = new HashSet<>(scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(WO_GROUP)));
+        triggerKeys.addAll(scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(NOTIF_GROUP)));
+        for (TriggerKey triggerKey : triggerKeys) {
+            Long scheduleId = getScheduleId(triggerKey.getName());
+            if (scheduleId == null) continue;
+            if (!toSchedule.contains(scheduleId)) {
+                orphaned.add(scheduleId);
+                scheduler.unscheduleJob(triggerKey);
+            } else if (WO_GROUP.equals(triggerKey.getGroup())) {
+                scheduled.add(scheduleId);
+            }
+        }
+        orphaned.forEach(this::stopScheduleTimers);
+        toSchedule.removeAll(scheduled);
+        log.info("{} schedules already have their triggers, {} stale triggers removed", scheduled.size(),
+                orphaned.size());
+        List<Long> missing = new ArrayList<>(toSchedule);
+        Collections.sort(missing);
+        return missing;
+    }
+
+    private static Long getScheduleId(String triggerName) {
+        String id;
+        if (triggerName.startsWith(CHAINED_WO_TRIGGER_PREFIX)) {
+            int end = triggerName.lastIndexOf('-');
+            id = end > CHAINED_WO_TRIGGER_PREFIX.length() ?
+                    triggerName.substring(CHAINED_WO_TRIGGER_PREFIX.length(), end) : "";
+        } else if (triggerName.startsWith(WO_TRIGGER_PREFIX)) {
+            id = triggerName.substring(WO_TRIGGER_PREFIX.length());
+        } else if (triggerName.startsWith(NOTIF_TRIGGER_PREFIX)) {
+            id = triggerName.substring(NOTIF_TRIGGER_PREFIX.length());
+        } else return null;
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Disables the schedule when none of its last work orders has been reacted to.
+     *
+     * @return whether the schedule was disabled
+     */
+    public boolean disableIfStale(Schedule schedule) {
+        if (!isStale(workOrderService.findLastByPM(schedule.getPreventiveMaintenance().getId(),
+                STALE_WORK_ORDERS_LIMIT))) {
+            return false;
+        }
+        schedule.setDisabled(true);
+        scheduleRepository.save(schedule);
+        stopScheduleTimers(schedule.getId());
+        return true;
+    }
+
+    private boolean isStale(Page<WorkOrder> lastWorkOrders) {
+        return lastWorkOrders.getTotalElements() >= STALE_WORK_ORDERS_LIMIT && lastWorkOrders.getContent().stream()
+                .allMatch(workOrder -> workOrder.getFirstTimeToReact() == null);
+    }
+
     public Schedule save(Schedule schedule) {
         return scheduleRepository.saveAndFlush(schedule);
     }
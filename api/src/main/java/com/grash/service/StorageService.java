@@ -3,6 +3,10 @@ package com.grash.service;
 import com.grash.model.File;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 public interface StorageService {
     /**
      * Uploads a file to the storage and returns the public URL.
@@ -13,6 +17,17 @@ public interface StorageService {
      */
     String upload(MultipartFile file, String folder);
 
+    /**
+     * Uploads a file of unknown size without holding its content in memory.
+     *
+     * @param fileName      The name of the file.
+     * @param contentType   The content type of the file.
+     * @param folder        The folder where the file should be uploaded.
+     * @param contentWriter Writes the content of the file. Nothing is stored if it throws.
+     * @return The file Path of the uploaded file.
+     */
+    String upload(String fileName, String contentType, String folder, ContentWriter contentWriter);
+
     /**
      * Downloads a file from the storage using its file path.
      *
@@ -21,6 +36,14 @@ public interface StorageService {
      */
     byte[] download(String filePath);
 
+    /**
+     * Opens a file of the storage for reading without loading its content in memory.
+     *
+     * @param filePath The path of the file to be read.
+     * @return A stream of the file content, to be closed by the caller.
+     */
+    InputStream openStream(String filePath);
+
     /**
      * Downloads a file from the storage using a File object.
      *
@@ -36,4 +59,13 @@ public interface StorageService {
     default String uploadAndSign(MultipartFile file, String folder) {
         return generateSignedUrl(upload(file, folder), 10);
     }
+
+    default String uploadAndSign(String fileName, String contentType, String folder, ContentWriter contentWriter) {
+        return generateSignedUrl(upload(fileName, contentType, folder, contentWriter), 10);
+    }
+
+    @FunctionalInterface
+    interface ContentWriter {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
 }
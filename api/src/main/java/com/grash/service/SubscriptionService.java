@@ -6,6 +6,7 @@ import com.grash.mapper.SubscriptionMapper;
 import com.grash.model.Company;
 import com.grash.model.OwnUser;
 import com.grash.model.Subscription;
+import com.grash.model.enums.DeadlineType;
 import com.grash.repository.CompanyRepository;
 import com.grash.repository.SubscriptionRepository;
 import com.grash.repository.UserRepository;
@@ -19,7 +20,7 @@ import java.util.*;
 
 @Service
 @RequiredArgsConstructor
-public class SubscriptionService {
+public class SubscriptionService implements DeadlineHandler {
     private final SubscriptionRepository subscriptionRepository;
     private final CompanyService companyService;
     private final SubscriptionPlanService subscriptionPlanService;
@@ -27,11 +28,13 @@ public class SubscriptionService {
     private final EntityManager em;
     private final CompanyRepository companyRepository;
     private final UserRepository userRepository;
+    private final DeadlineService deadlineService;
 
     @Transactional
     public Subscription create(Subscription subscription) {
         Subscription savedSubscription = subscriptionRepository.saveAndFlush(subscription);
         em.refresh(savedSubscription);
+        scheduleEnd(savedSubscription);
         return savedSubscription;
     }
 
@@ -43,12 +46,13 @@ public class SubscriptionService {
                     subscriptionRepository.saveAndFlush(subscriptionMapper.updateSubscription(savedSubscription,
                             subscriptionPatchDTO));
             em.refresh(updatedSubscription);
+            scheduleEnd(updatedSubscription);
             return updatedSubscription;
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
     }
 
     public void save(Subscription subscription) {
-        subscriptionRepository.save(subscription);
+        scheduleEnd(subscriptionRepository.save(subscription));
     }
 
     public Collection<Subscription> getAll() {
@@ -57,6 +61,7 @@ public class SubscriptionService {
 
     public void delete(Long id) {
         subscriptionRepository.deleteById(id);
+        deadlineService.cancel(DeadlineType.SUBSCRIPTION_END, id);
     }
 
     public Optional<Subscription> findById(Long id) {
@@ -67,15 +72,25 @@ public class SubscriptionService {
         boolean shouldSchedule =
                 !subscription.getSubscriptionPlan().getCode().equals("FREE") && subscription.getEndsOn() != null;
         if (shouldSchedule) {
-            Timer timer = new Timer();
-            TimerTask timerTask = new TimerTask() {
-                @Override
-                public void run() {
-                    resetToFreePlan(subscription);
-                }
-            };
-            timer.schedule(timerTask, subscription.getEndsOn());
-        }
+            deadlineService.schedule(DeadlineType.SUBSCRIPTION_END, subscription.getId(), subscription.getEndsOn());
+        } else deadlineService.cancel(DeadlineType.SUBSCRIPTION_END, subscription.getId());
+    }
+
+    @Override
+    public DeadlineType getType() {
+        return DeadlineType.SUBSCRIPTION_END;
+    }
+
+    @Override
+    public void handle(Long subscriptionId) {
+        subscriptionRepository.findById(subscriptionId).ifPresent(subscription -> {
+            if (subscription.getSubscriptionPlan().getCode().equals("FREE") || subscription.getEndsOn() == null) {
+                return;
+            }
+            // the subscription was renewed since the deadline was scheduled
+            if (subscription.getEndsOn().after(new Date())) scheduleEnd(subscription);
+            else resetToFreePlan(subscription);
+        });
     }
 
     public Optional<Subscription> findByFastSpringId(String id) {
@@ -16,6 +16,8 @@ import com.grash.model.*;
 import com.grash.model.enums.RoleCode;
 import com.grash.repository.UserRepository;
 import com.grash.repository.VerificationTokenRepository;
+import com.grash.security.CustomUserDetail;
+import com.grash.security.JwtTokenFilter;
 import com.grash.security.JwtTokenProvider;
 import com.grash.utils.Helper;
 import com.grash.utils.Utils;
@@ -219,6 +221,8 @@ public class UserService {
     }
 
     public OwnUser whoami(HttpServletRequest req) {
+        Object principal = req.getAttribute(JwtTokenFilter.PRINCIPAL_ATTRIBUTE);
+        if (principal instanceof CustomUserDetail) return ((CustomUserDetail) principal).getUser();
         return userRepository.findByEmailIgnoreCase(jwtTokenProvider.getUsername(jwtTokenProvider.resolveToken(req))).get();
     }
 
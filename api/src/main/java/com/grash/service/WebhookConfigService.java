@@ -1,5 +1,9 @@
 package com.grash.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grash.dto.WebhookConfigMiniDTO;
+import com.grash.dto.WebhookRateLimitPatchDTO;
 import com.grash.exception.CustomException;
 import com.grash.model.Company;
 import com.grash.model.WebhookConfig;
@@ -8,8 +12,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +22,13 @@ public class WebhookConfigService {
     private final WebhookConfigRepository webhookConfigRepository;
     private final CompanyService companyService;
     
+    // Alert storms resolve the same key many times per second, unknown keys are cached too. Other nodes see a
+    // regenerated, toggled or deleted config once their entry expires.
+    private final Cache<String, Optional<WebhookConfigMiniDTO>> apiKeyCache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+    
     public WebhookConfig createWebhookConfig(Long companyId) {
         Company company = companyService.findById(companyId)
                 .orElseThrow(() -> new CustomException("Company not found", HttpStatus.NOT_FOUND));
@@ -27,6 +38,7 @@ public class WebhookConfigService {
         }
         
         WebhookConfig webhookConfig = WebhookConfig.createForCompany(company);
+        apiKeyCache.invalidate(webhookConfig.getApiKey());
         return webhookConfigRepository.save(webhookConfig);
     }
     
@@ -42,8 +54,12 @@ public class WebhookConfigService {
         WebhookConfig webhookConfig = findByCompanyId(companyId)
                 .orElseThrow(() -> new CustomException("Webhook config not found", HttpStatus.NOT_FOUND));
         
+        String previousApiKey = webhookConfig.getApiKey();
         webhookConfig.regenerateApiKey();
-        return webhookConfigRepository.save(webhookConfig);
+        WebhookConfig savedWebhookConfig = webhookConfigRepository.save(webhookConfig);
+        apiKeyCache.invalidate(previousApiKey);
+        apiKeyCache.invalidate(savedWebhookConfig.getApiKey());
+        return savedWebhookConfig;
     }
     
     public WebhookConfig toggleEnabled(Long companyId, boolean enabled) {
@@ -51,7 +67,20 @@ public class WebhookConfigService {
                 .orElseThrow(() -> new CustomException("Webhook config not found", HttpStatus.NOT_FOUND));
         
         webhookConfig.setEnabled(enabled);
-        return webhookConfigRepository.save(webhookConfig);
+        WebhookConfig savedWebhookConfig = webhookConfigRepository.save(webhookConfig);
+        apiKeyCache.invalidate(savedWebhookConfig.getApiKey());
+        return savedWebhookConfig;
+    }
+    
+    public WebhookConfig updateRateLimits(Long companyId, WebhookRateLimitPatchDTO rateLimits) {
+        WebhookConfig webhookConfig = findByCompanyId(companyId)
+                .orElseThrow(() -> new CustomException("Webhook config not found", HttpStatus.NOT_FOUND));
+        
+        webhookConfig.setRequestsPerMinute(rateLimits.getRequestsPerMinute());
+        webhookConfig.setRequestsPerHour(rateLimits.getRequestsPerHour());
+        WebhookConfig savedWebhookConfig = webhookConfigRepository.save(webhookConfig);
+        apiKeyCache.invalidate(savedWebhookConfig.getApiKey());
+        return savedWebhookConfig;
     }
     
     public void deleteWebhookConfig(Long companyId) {
@@ -59,12 +88,24 @@ public class WebhookConfigService {
                 .orElseThrow(() -> new CustomException("Webhook config not found", HttpStatus.NOT_FOUND));
         
         webhookConfigRepository.delete(webhookConfig);
+        apiKeyCache.invalidate(webhookConfig.getApiKey());
     }
     
     public boolean validateApiKey(String apiKey) {
         return findByApiKey(apiKey).isPresent();
     }
     
+    /**
+     * Resolves the company of an API key without hitting the database for the keys seen in the last minute
+     */
+    public WebhookConfigMiniDTO resolveApiKey(String apiKey) {
+        return apiKeyCache.get(apiKey, key -> findByApiKey(key)
+                        .map(webhookConfig -> new WebhookConfigMiniDTO(webhookConfig.getCompany().getId(),
+                                webhookConfig.isEnabled(), webhookConfig.getRequestsPerMinute(),
+                                webhookConfig.getRequestsPerHour())))
+                .orElseThrow(() -> new CustomException("Invalid API key", HttpStatus.UNAUTHORIZED));
+    }
+    
     public WebhookConfig getByApiKey(String apiKey) {
         return findByApiKey(apiKey)
                 .orElseThrow(() -> new CustomException("Invalid API key", HttpStatus.UNAUTHORIZED));
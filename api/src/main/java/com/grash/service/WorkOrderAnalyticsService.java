@@ -0,0 +1,186 @@
+package com.grash.service;
+
+import com.grash.dto.analytics.workOrders.*;
+import com.grash.model.WorkOrderCategory;
+import com.grash.model.enums.Priority;
+import com.grash.model.enums.Status;
+import com.grash.repository.WorkOrderAnalyticsRepository;
+import com.grash.repository.WorkOrderAudRepository;
+import com.grash.repository.WorkOrderAnalyticsRepository.EnumCount;
+import com.grash.utils.Helper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class WorkOrderAnalyticsService {
+
+    private static final int COMPLETE = Status.COMPLETE.ordinal();
+
+    private final WorkOrderAnalyticsRepository workOrderAnalyticsRepository;
+    private final WorkOrderCategoryService workOrderCategoryService;
+    private final WorkOrderAudRepository workOrderAudRepository;
+
+    public WOStats getCompleteStats(Long companyId, Date start, Date end) {
+        WorkOrderAnalyticsRepository.CompletionSummary summary =
+                workOrderAnalyticsRepository.getCompletionSummary(companyId, start, end, COMPLETE);
+        return WOStats.builder()
+                .total(Math.toIntExact(summary.getTotal()))
+                .complete(Math.toIntExact(summary.getComplete()))
+                .compliant(Math.toIntExact(summary.getCompliant()))
+                .mtta(summary.getReacted() == 0 ? 0 : summary.getReactionHours() / summary.getReacted())
+                .avgCycleTime(summary.getCycles() == 0 ? 0 : summary.getCycleDays() / summary.getCycles())
+                .build();
+    }
+
+    public WOIncompleteStats getIncompleteStats(Long companyId, Date start, Date end) {
+        WorkOrderAnalyticsRepository.AgeSummary summary =
+                workOrderAnalyticsRepository.getIncompleteAgeSummary(companyId, start, end, new Date(), COMPLETE);
+        int total = Math.toIntExact(summary.getCount());
+        return WOIncompleteStats.builder()
+                .total(total)
+                .averageAge(total == 0 ? 0 : (int) (summary.getAgeDays() / total))
+                .build();
+    }
+
+    public WOStatsByPriority getIncompleteByPriority(Long companyId, Date start, Date end) {
+        Map<Priority, EnumCount> counts = byOrdinal(workOrderAnalyticsRepository.countIncompleteByPriority(companyId,
+                start, end, COMPLETE), Priority.values());
+        return WOStatsByPriority.builder()
+                .high(toBasicStats(counts.get(Priority.HIGH)))
+                .none(toBasicStats(counts.get(Priority.NONE)))
+                .low(toBasicStats(counts.get(Priority.LOW)))
+                .medium(toBasicStats(counts.get(Priority.MEDIUM)))
+                .build();
+    }
+
+    public WOStatuses getIncompleteStatuses(Long companyId, Date start, Date end) {
+        Map<Status, EnumCount> counts = byOrdinal(workOrderAnalyticsRepository.countByStatus(companyId, start, end),
+                Status.values());
+        return WOStatuses.builder()
+                .open(getCount(counts.get(Status.OPEN)))
+                .inProgress(getCount(counts.get(Status.IN_PROGRESS)))
+                .onHold(getCount(counts.get(Status.ON_HOLD)))
+                //incomplete work orders only
+                .complete(0)
+                .build();
+    }
+
+    public WOHours getHours(Long companyId, Date start, Date end) {
+        List<Integer> allStatuses = Arrays.stream(Status.values()).map(Enum::ordinal).collect(Collectors.toList());
+        long laborDuration = workOrderAnalyticsRepository.getLaborSummary(companyId, start, end, allStatuses)
+                .getDuration();
+        return WOHours.builder()
+                .estimated(workOrderAnalyticsRepository.sumEstimatedDuration(companyId, start, end))
+                .actual(Math.toIntExact(laborDuration / 3600))
+                .build();
+    }
+
+    public Map<Priority, Integer> getCompleteCountsByPriority(Long companyId, Date start, Date end) {
+        Map<Priority, EnumCount> counts =
+                byOrdinal(workOrderAnalyticsRepository.countCompleteByPriority(companyId, start, end, COMPLETE),
+                        Priority.values());
+        Map<Priority, Integer> results = new HashMap<>();
+        Arrays.asList(Priority.values()).forEach(priority -> results.put(priority, getCount(counts.get(priority))));
+        return results;
+    }
+
+    public Collection<WOCountByCategory> getCompleteCountsByCategory(Long companyId, Long companySettingsId,
+                                                                     Date start, Date end) {
+        Map<Long, Long> counts = workOrderAnalyticsRepository.countCompleteByCategory(companyId, start, end,
+                        COMPLETE).stream()
+                .collect(Collectors.toMap(WorkOrderAnalyticsRepository.IdCount::getId,
+                        WorkOrderAnalyticsRepository.IdCount::getCount));
+        Collection<WorkOrderCategory> categories = workOrderCategoryService.findByCompanySettings(companySettingsId);
+        return categories.stream().map(category -> WOCountByCategory.builder()
+                .name(category.getName())
+                .id(category.getId())
+                .count(Math.toIntExact(counts.getOrDefault(category.getId(), 0L)))
+                .build()).collect(Collectors.toList());
+    }
+
+    public WOCostsAndTime getCompleteCostsAndTime(Long companyId, Date start, Date end) {
+        WorkOrderAnalyticsRepository.LaborSummary labor = workOrderAnalyticsRepository.getLaborSummary(companyId,
+                start, end, Collections.singletonList(COMPLETE));
+        double additionalCost = workOrderAnalyticsRepository.sumAdditionalCost(companyId, start, end, COMPLETE);
+        double partCost = workOrderAnalyticsRepository.sumPartCost(companyId, start, end, COMPLETE);
+        Map<Status, EnumCount> counts = byOrdinal(workOrderAnalyticsRepository.countByStatus(companyId, start, end),
+                Status.values());
+        int complete = getCount(counts.get(Status.COMPLETE));
+        double total = labor.getCost() + partCost + additionalCost;
+        return WOCostsAndTime.builder()
+                .total(total)
+                .average(complete == 0 ? 0 : total / complete)
+                .additionalCost(additionalCost)
+                .laborCost(labor.getCost())
+                .partCost(partCost)
+                .laborTime(labor.getDuration())
+                .build();
+    }
+
+    /**
+     * Status counts of the work orders created since the start of the range, as they were at up to 15 evenly
+     * distributed points of the range. All the points are computed by a single query on the audit history.
+     */
+    public List<WOStatusesByDate> getStatusesByDate(Long companyId, Date start, Date end) {
+        LocalDate endDateLocale = Helper.dateToLocalDate(end);
+        LocalDate currentDate = Helper.dateToLocalDate(start);
+        long totalDaysInRange = ChronoUnit.DAYS.between(currentDate, endDateLocale.plusDays(1));
+        if (totalDaysInRange <= 0) return new ArrayList<>();
+        int points = Math.toIntExact(Math.min(15, totalDaysInRange));
+        List<LocalDate> bucketDates = new ArrayList<>();
+        List<Date> pointDates = new ArrayList<>();
+        for (int i = 0; i < points; i++) {
+            LocalDate nextDate = currentDate.plusDays(totalDaysInRange / points);
+            nextDate = nextDate.isAfter(endDateLocale) ? endDateLocale : nextDate;
+            bucketDates.add(currentDate);
+            pointDates.add(Helper.localDateToDate(nextDate));
+            currentDate = nextDate;
+        }
+        List<Long> timestamps = pointDates.stream().map(Date::getTime).collect(Collectors.toList());
+        // the last points can be equal once capped to the end date, they are queried once
+        List<Date> distinctDates = pointDates.stream().distinct().collect(Collectors.toList());
+        Map<Long, Map<Status, Integer>> countsByTimestamp = new HashMap<>();
+        workOrderAudRepository.countStatusesAt(companyId, start, distinctDates,
+                        distinctDates.stream().map(Date::getTime).collect(Collectors.toList())).stream()
+                .filter(count -> count.getOrdinal() != null)
+                .forEach(count -> countsByTimestamp.computeIfAbsent(count.getInstant(), key -> new HashMap<>())
+                        .put(Status.values()[count.getOrdinal()], Math.toIntExact(count.getCount())));
+
+        List<WOStatusesByDate> result = new ArrayList<>();
+        for (int i = 0; i < points; i++) {
+            Map<Status, Integer> counts = countsByTimestamp.getOrDefault(timestamps.get(i), Collections.emptyMap());
+            result.add(WOStatusesByDate.builder()
+                    .open(counts.getOrDefault(Status.OPEN, 0))
+                    .onHold(counts.getOrDefault(Status.ON_HOLD, 0))
+                    .inProgress(counts.getOrDefault(Status.IN_PROGRESS, 0))
+                    .complete(counts.getOrDefault(Status.COMPLETE, 0))
+                    .date(Helper.localDateToDate(bucketDates.get(i)))
+                    .build());
+        }
+        return result;
+    }
+
+    private static <E extends Enum<E>> Map<E, EnumCount> byOrdinal(Collection<EnumCount> counts, E[] values) {
+        return counts.stream()
+                .filter(count -> count.getOrdinal() != null)
+                .collect(Collectors.toMap(count -> values[count.getOrdinal()], Function.identity()));
+    }
+
+    private static int getCount(EnumCount count) {
+        return count == null ? 0 : Math.toIntExact(count.getCount());
+    }
+
+    private static WOStatsByPriority.BasicStats toBasicStats(EnumCount count) {
+        return WOStatsByPriority.BasicStats.builder()
+                .count(getCount(count))
+                .estimatedHours(count == null ? 0 : count.getEstimatedHours())
+                .build();
+    }
+}
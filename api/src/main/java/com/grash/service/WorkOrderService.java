@@ -3,9 +3,11 @@ package com.grash.service;
 import com.grash.advancedsearch.FilterField;
 import com.grash.advancedsearch.SearchCriteria;
 import com.grash.advancedsearch.SpecificationBuilder;
+import com.grash.advancedsearch.pagination.SearchPaginator;
 import com.grash.dto.WorkOrderPatchDTO;
 import com.grash.dto.imports.WorkOrderImportDTO;
 import com.grash.dto.workOrder.WorkOrderPostDTO;
+import com.grash.event.CompanyMetricsChangedEvent;
 import com.grash.exception.CustomException;
 import com.grash.mapper.WorkOrderMapper;
 import com.grash.model.*;
@@ -16,9 +18,11 @@ import com.grash.model.enums.workflow.WFMainCondition;
 import com.grash.repository.WorkOrderHistoryRepository;
 import com.grash.repository.WorkOrderRepository;
 import com.grash.utils.Helper;
+import com.grash.utils.ImportLookups;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
@@ -40,8 +44,6 @@ import java.util.stream.Collectors;
 public class WorkOrderService {
     private final WorkOrderRepository workOrderRepository;
     private final WorkOrderHistoryRepository workOrderHistoryRepository;
-    private final LocationService locationService;
-    private final CustomerService customerService;
     private final TeamService teamService;
     private final AssetService assetService;
     private final UserService userService;
@@ -53,11 +55,11 @@ public class WorkOrderService {
     private final WorkOrderMapper workOrderMapper;
     private final EntityManager em;
     private final EmailService2 emailService2;
-    private final WorkOrderCategoryService workOrderCategoryService;
     private WorkflowService workflowService;
     private final MessageSource messageSource;
     private final CustomSequenceService customSequenceService;
     private final SafetyInstructionService safetyInstructionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${frontend.url}")
     private String frontendUrl;
@@ -83,21 +85,23 @@ public class WorkOrderService {
 
         WorkOrder savedWorkOrder = workOrderRepository.saveAndFlush(workOrder);
         em.refresh(savedWorkOrder);
+        publishMetricsChanged(savedWorkOrder);
         
         // Check contractor employee safety instruction
         checkAndWarnContractorEmployeeSafetyInstruction(savedWorkOrder, Helper.getLocale(company));
         
         notify(savedWorkOrder, Helper.getLocale(company));
-        Collection<Workflow> workflows =
-                workflowService.findByMainConditionAndCompany(WFMainCondition.WORK_ORDER_CREATED, company.getId());
-        workflows.forEach(workflow -> workflowService.runWorkOrder(workflow, savedWorkOrder));
+        workflowService.runWorkOrderWorkflows(WFMainCondition.WORK_ORDER_CREATED, company.getId(), savedWorkOrder);
 
         return savedWorkOrder;
     }
 
     public String getWorkOrderNumber(Company company) {
-        Long nextSequence = customSequenceService.getNextWorkOrderSequence(company);
-        return "WO" + String.format("%06d", nextSequence);
+        return getWorkOrderNumber(customSequenceService.getNextWorkOrderSequence(company));
+    }
+
+    private String getWorkOrderNumber(Long sequence) {
+        return "WO" + String.format("%06d", sequence);
     }
 
     @Autowired
@@ -114,9 +118,11 @@ public class WorkOrderService {
         if (workOrderRepository.existsById(id)) {
             WorkOrder savedWorkOrder = workOrderRepository.findById(id).get();
             if (savedWorkOrder.getFirstTimeToReact() == null) savedWorkOrder.setFirstTimeToReact(new Date());
+            Date completedOnBefore = savedWorkOrder.getCompletedOn();
             WorkOrder updatedWorkOrder =
                     workOrderRepository.saveAndFlush(workOrderMapper.updateWorkOrder(savedWorkOrder, workOrder));
             em.refresh(updatedWorkOrder);
+            publishMetricsChanged(updatedWorkOrder, completedOnBefore);
             return updatedWorkOrder;
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
     }
@@ -126,6 +132,7 @@ public class WorkOrderService {
     }
 
     public void delete(Long id) {
+        workOrderRepository.findById(id).ifPresent(this::publishMetricsChanged);
         workOrderRepository.deleteById(id);
     }
 
@@ -137,6 +144,10 @@ public class WorkOrderService {
         return workOrderRepository.findByIdAndCompany_Id(id, companyId);
     }
 
+    public List<WorkOrder> findByIdsAndCompany(Collection<Long> ids, Long companyId) {
+        return workOrderRepository.findByIdInAndCompany_Id(ids, companyId);
+    }
+
     public Collection<WorkOrder> findByCompany(Long id) {
         return workOrderRepository.findByCompany_Id(id);
     }
@@ -245,21 +256,36 @@ public class WorkOrderService {
     public Page<WorkOrder> findBySearchCriteria(SearchCriteria searchCriteria) {
         SpecificationBuilder<WorkOrder> builder = new SpecificationBuilder<>();
         searchCriteria.getFilterFields().forEach(builder::with);
-        Pageable page = PageRequest.of(searchCriteria.getPageNum(), searchCriteria.getPageSize(),
-                searchCriteria.getDirection(), searchCriteria.getSortField());
-        return workOrderRepository.findAll(builder.build(), page);
+        return SearchPaginator.findAll(em, WorkOrder.class, builder.build(), searchCriteria);
     }
 
     public void save(WorkOrder workOrder) {
         workOrderRepository.save(workOrder);
+        publishMetricsChanged(workOrder);
     }
 
     public WorkOrder saveAndFlush(WorkOrder workOrder) {
         WorkOrder updatedWorkOrder = workOrderRepository.saveAndFlush(workOrder);
         em.refresh(updatedWorkOrder);
+        publishMetricsChanged(updatedWorkOrder);
         return updatedWorkOrder;
     }
 
+    /**
+     * Marks the days whose analytics depend on this work order for recomputation
+     *
+     * @param previousDates dates the work order was attributed to before the write, like a cleared completedOn
+     */
+    public void publishMetricsChanged(WorkOrder workOrder, Date... previousDates) {
+        if (workOrder.getCompany() == null) return;
+        List<Date> dates = new ArrayList<>(Arrays.asList(previousDates));
+        dates.add(workOrder.getCreatedAt());
+        dates.add(workOrder.getCompletedOn());
+        if (workOrder.getParentRequest() != null) dates.add(workOrder.getParentRequest().getCreatedAt());
+        eventPublisher.publishEvent(new CompanyMetricsChangedEvent(workOrder.getCompany().getId(),
+                dates.toArray(new Date[0])));
+    }
+
     public WorkOrder getWorkOrderFromWorkOrderBase(WorkOrderBase workOrderBase) {
         WorkOrder workOrder = new WorkOrder();
         workOrder.setTitle(workOrderBase.getTitle());
@@ -371,28 +397,21 @@ public class WorkOrderService {
         return workOrderRepository.findByDueDateBetweenAndCompany_Id(date1, date2, id);
     }
 
-    public void importWorkOrder(WorkOrder workOrder, WorkOrderImportDTO dto, Company company) {
-        Helper.populateWorkOrderBaseFromImportDTO(workOrder, dto, company, locationService, teamService, userService,
-                assetService, workOrderCategoryService);
+    public void importWorkOrder(WorkOrder workOrder, WorkOrderImportDTO dto, ImportLookups lookups) {
+        Helper.populateWorkOrderBaseFromImportDTO(workOrder, dto, lookups);
 
         workOrder.setDueDate(Helper.getDateFromExcelDate(dto.getDueDate()));
-        workOrder.setCustomId(getWorkOrderNumber(company));
+        workOrder.setCustomId(getWorkOrderNumber(lookups.getCustomSequence().getAndIncrementWorkOrderSequence()));
         workOrder.setRequiredSignature(Helper.getBooleanFromString(dto.getRequiredSignature()));
 
-        Optional<OwnUser> optionalCompletedBy = userService.findByEmailAndCompany(dto.getCompletedByEmail(),
-                company.getId());
-        optionalCompletedBy.ifPresent(workOrder::setCompletedBy);
+        lookups.getUser(dto.getCompletedByEmail()).ifPresent(workOrder::setCompletedBy);
         workOrder.setCompletedOn(dto.getCompletedOn() == null ? null : Helper.addSeconds(new Date(), 60 * 10));
         workOrder.setArchived(Helper.getBooleanFromString(dto.getArchived()));
         workOrder.setStatus(Status.getStatusFromString(dto.getStatus()));
         workOrder.setFeedback(dto.getFeedback());
-        List<Customer> customers = new ArrayList<>();
-        dto.getCustomersNames().forEach(name -> {
-            Optional<Customer> optionalCustomer = customerService.findByNameIgnoreCaseAndCompany(name, company.getId());
-            optionalCustomer.ifPresent(customers::add);
-        });
-        workOrder.setCustomers(customers);
+        workOrder.setCustomers(lookups.getCustomers(dto.getCustomersNames()));
         workOrderRepository.save(workOrder);
+        publishMetricsChanged(workOrder);
     }
 
     public Collection<WorkOrder> findByCreatedByAndCreatedAtBetween(Long id, Date date1, Date date2) {
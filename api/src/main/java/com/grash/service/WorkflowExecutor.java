@@ -0,0 +1,263 @@
+package com.grash.service;
+
+import com.grash.event.WorkflowTriggeredEvent;
+import com.grash.model.Workflow;
+import com.grash.model.WorkflowExecution;
+import com.grash.model.WorkflowTrigger;
+import com.grash.model.enums.workflow.WFMainCondition;
+import com.grash.repository.*;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies the actions of the {@link WorkflowTrigger}s written by {@link WorkflowService} with the changes which met
+ * their conditions. The triggers are claimed in batches by the node which wrote them once the change is committed and
+ * by the poll job on any node, so a trigger survives a restart. The triggers of an entity run in the order of their
+ * ids on the same thread, a trigger is not claimed while an earlier one of its entity is running. The number of
+ * threads is bounded by workflows.executor.threads and every run of a workflow is recorded as a
+ * {@link WorkflowExecution}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WorkflowExecutor {
+
+    private final WorkflowService workflowService;
+    private final WorkflowTriggerRepository workflowTriggerRepository;
+    private final WorkflowExecutionRepository workflowExecutionRepository;
+    private final WorkOrderRepository workOrderRepository;
+    private final RequestRepository requestRepository;
+    private final PurchaseOrderRepository purchaseOrderRepository;
+    private final PartRepository partRepository;
+    private final TaskRepository taskRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${workflows.executor.threads:4}")
+    private int threads;
+    @Value("${workflows.executor.batch-size:100}")
+    private int batchSize;
+    @Value("${workflows.executor.lease-minutes:5}")
+    private int leaseMinutes;
+    @Value("${workflows.executor.max-attempts:3}")
+    private int maxAttempts;
+    @Value("${workflows.executor.retention-days:30}")
+    private int retentionDays;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final AtomicLong depth = new AtomicLong();
+    private ExecutorService drainer;
+    private ExecutorService workers;
+
+    @PostConstruct
+    private void init() {
+        drainer = Executors.newSingleThreadExecutor();
+        workers = Executors.newFixedThreadPool(threads);
+        Gauge.builder("workflows.executor.queued", depth, AtomicLong::get)
+                .description("Number of workflow triggers waiting to run, as of the last poll")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        drainer.shutdown();
+        workers.shutdown();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTriggered(WorkflowTriggeredEvent event) {
+        requestDrain();
+    }
+
+    /**
+     * Called by the poll job to pick up the triggers written by the other nodes or interrupted by a crash
+     */
+    public void executeAll() {
+        depth.set(workflowTriggerRepository.countBy());
+        requestDrain();
+    }
+
+    private void requestDrain() {
+        drainRequested.set(true);
+        if (!draining.compareAndSet(false, true)) return;
+        try {
+            drainer.execute(() -> {
+                try {
+                    while (drainRequested.getAndSet(false)) {
+                        drain();
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Failed to run the workflow triggers", e);
+                } finally {
+                    draining.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+        }
+    }
+
+    void drain() {
+        List<WorkflowTrigger> claimed;
+        do {
+            claimed = claim();
+            if (claimed.isEmpty()) return;
+            // The triggers of an entity stay on the same lane, in the order of their ids
+            Map<Integer, List<WorkflowTrigger>> lanes = new LinkedHashMap<>();
+            for (WorkflowTrigger trigger : claimed) {
+                int key = 31 * trigger.getEntityType() + trigger.getEntityId().hashCode();
+                lanes.computeIfAbsent(Math.floorMod(key, threads), lane -> new ArrayList<>()).add(trigger);
+            }
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<WorkflowTrigger> lane : lanes.values()) {
+                futures.add(workers.submit(() -> lane.forEach(this::execute)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    // The remaining triggers of the lane are claimed again once their lease is over
+                    log.error("Failed to run workflow triggers", e.getCause());
+                }
+            }
+        } while (claimed.size() == batchSize);
+    }
+
+    private List<WorkflowTrigger> claim() {
+        Date now = new Date();
+        Date leaseEnd = new Date(now.getTime() + TimeUnit.MINUTES.toMillis(leaseMinutes));
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            workflowTriggerRepository.lockClaims();
+            List<WorkflowTrigger> due = workflowTriggerRepository.findDueForUpdate(now, batchSize);
+            due.forEach(trigger -> {
+                trigger.setNextAttemptAt(leaseEnd);
+                trigger.setAttempts(trigger.getAttempts() + 1);
+            });
+            return due;
+        });
+    }
+
+    /**
+     * Applies the action of the workflow to the entity and deletes the trigger in the same transaction. A failed
+     * action is recorded and not retried, a trigger interrupted too many times is dropped.
+     */
+    void execute(WorkflowTrigger trigger) {
+        if (trigger.getAttempts() > maxAttempts) {
+            log.error("Dropping the trigger of workflow {} on {} entity {} after {} attempts", trigger.getWorkflowId(),
+                    trigger.getMainCondition(), trigger.getEntityId(), trigger.getAttempts() - 1);
+            workflowTriggerRepository.deleteById(trigger.getId());
+            return;
+        }
+        long queuedMillis = System.currentTimeMillis() - trigger.getTriggeredAt().getTime();
+        meterRegistry.timer("workflows.executor.queue_latency").record(queuedMillis, TimeUnit.MILLISECONDS);
+        WorkflowExecution execution = new WorkflowExecution();
+        execution.setWorkflowId(trigger.getWorkflowId());
+        execution.setCompanyId(trigger.getCompanyId());
+        execution.setMainCondition(trigger.getMainCondition());
+        execution.setEntityId(trigger.getEntityId());
+        execution.setQueuedMillis(queuedMillis);
+        execution.setStartedAt(new Date());
+        long start = System.nanoTime();
+        boolean ran;
+        try {
+            // Reloaded so that the workflows of the entity each see the changes of the previous ones
+            ran = new TransactionTemplate(transactionManager).execute(status -> {
+                Optional<Workflow> workflow = workflowService.findById(trigger.getWorkflowId());
+                Optional<?> subject = load(trigger);
+                workflowTriggerRepository.deleteById(trigger.getId());
+                if (!workflow.isPresent() || !subject.isPresent()) return false;
+                workflowService.applyAction(workflow.get(), subject.get());
+                return true;
+            });
+        } catch (RuntimeException e) {
+            log.error("Workflow {} failed on {} entity {}", trigger.getWorkflowId(), trigger.getMainCondition(),
+                    trigger.getEntityId(), e);
+            String error = String.valueOf(e.getMessage());
+            execution.setError(error.length() > 1000 ? error.substring(0, 1000) : error);
+            ran = true;
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    workflowTriggerRepository.deleteById(trigger.getId()));
+        }
+        if (!ran) return;
+        long durationNanos = System.nanoTime() - start;
+        execution.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        meterRegistry.timer("workflows.executions", "main_condition", trigger.getMainCondition().name(),
+                "result", execution.getError() == null ? "success" : "failure")
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        workflowExecutionRepository.save(execution);
+    }
+
+    private Optional<?> load(WorkflowTrigger trigger) {
+        Long id = trigger.getEntityId();
+        switch (trigger.getMainCondition()) {
+            case WORK_ORDER_CREATED:
+            case WORK_ORDER_CLOSED:
+            case WORK_ORDER_ARCHIVED:
+                return workOrderRepository.findById(id);
+            case REQUEST_CREATED:
+            case REQUEST_APPROVED:
+            case REQUEST_REJECTED:
+                return requestRepository.findById(id);
+            case PURCHASE_ORDER_CREATED:
+            case PURCHASE_ORDER_UPDATED:
+                return purchaseOrderRepository.findById(id);
+            case PART_UPDATED:
+                return partRepository.findById(id);
+            case TASK_UPDATED:
+                return taskRepository.findById(id);
+            default:
+                return Optional.empty();
+        }
+    }
+
+    static int getEntityType(WFMainCondition mainCondition) {
+        switch (mainCondition) {
+            case WORK_ORDER_CREATED:
+            case WORK_ORDER_CLOSED:
+            case WORK_ORDER_ARCHIVED:
+                return 0;
+            case REQUEST_CREATED:
+            case REQUEST_APPROVED:
+            case REQUEST_REJECTED:
+                return 1;
+            case PURCHASE_ORDER_CREATED:
+            case PURCHASE_ORDER_UPDATED:
+                return 2;
+            case PART_UPDATED:
+                return 3;
+            case TASK_UPDATED:
+                return 4;
+            default:
+                return 5;
+        }
+    }
+
+    /**
+     * Called by the cleanup job to drop the executions older than workflows.executor.retention-days
+     */
+    public void deleteOldExecutions() {
+        Date before = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+        int deleted = new TransactionTemplate(transactionManager).execute(status ->
+                workflowExecutionRepository.deleteByStartedAtBefore(before));
+        if (deleted > 0) log.info("Deleted {} workflow executions", deleted);
+    }
+}
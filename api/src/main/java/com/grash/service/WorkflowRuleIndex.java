@@ -0,0 +1,436 @@
+package com.grash.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grash.dto.GrafanaAlert;
+import com.grash.model.*;
+import com.grash.model.abstracts.DateAudit;
+import com.grash.model.enums.workflow.WFMainCondition;
+import com.grash.repository.WorkflowRepository;
+import com.grash.utils.Helper;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The workflows of a company compiled into predicates over the values of their conditions, grouped by main condition
+ * and indexed by their most selective condition (asset, then priority for work orders and requests; alert name, then
+ * severity for webhooks). Matching an event is a few hash lookups followed by the predicates of the candidates, the
+ * conditions are never loaded from the database. The rules of a company are compiled on their first use, dropped by
+ * {@link #invalidate(Long)} when its workflows change and expire so that the changes made on other nodes are picked
+ * up.
+ */
+@Component
+public class WorkflowRuleIndex {
+
+    private final WorkflowRepository workflowRepository;
+    private final Cache<Long, CompanyRules> rules;
+
+    public WorkflowRuleIndex(WorkflowRepository workflowRepository,
+                             @Value("${workflows.rule-index.maximum-companies:10000}") long maximumCompanies,
+                             @Value("${workflows.rule-index.expire-after-write:5m}") Duration expireAfterWrite) {
+        this.workflowRepository = workflowRepository;
+        this.rules = Caffeine.newBuilder()
+                .maximumSize(maximumCompanies)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    /**
+     * @return the ids of the workflows of the company whose conditions are all met by the subject, in ascending order
+     */
+    public List<Long> match(Long companyId, WFMainCondition mainCondition, Object subject) {
+        return rules.get(companyId, this::compile).match(mainCondition, subject);
+    }
+
+    public void invalidate(Long companyId) {
+        rules.invalidate(companyId);
+    }
+
+    private CompanyRules compile(Long companyId) {
+        return compile(workflowRepository.findWithConditionsByCompany_Id(companyId));
+    }
+
+    static CompanyRules compile(Collection<Workflow> workflows) {
+        Map<WFMainCondition, RuleSet> ruleSets = new EnumMap<>(WFMainCondition.class);
+        workflows.stream().sorted(Comparator.comparing(Workflow::getId)).forEach(workflow -> {
+            RuleSet ruleSet = ruleSets.computeIfAbsent(workflow.getMainCondition(), RuleSet::new);
+            List<Predicate<Object>> predicates = new ArrayList<>();
+            String indexKey = null;
+            int indexRank = Integer.MAX_VALUE;
+            for (WorkflowCondition condition : workflow.getSecondaryConditions()) {
+                CompiledCondition compiled = compileCondition(workflow.getMainCondition(), condition);
+                predicates.add(compiled.predicate);
+                if (compiled.indexKey != null && compiled.indexRank < indexRank) {
+                    indexKey = compiled.indexKey;
+                    indexRank = compiled.indexRank;
+                }
+            }
+            ruleSet.add(new Rule(workflow.getId(), predicates), indexKey);
+        });
+        return new CompanyRules(ruleSets);
+    }
+
+    static class CompanyRules {
+        private final Map<WFMainCondition, RuleSet> ruleSets;
+
+        CompanyRules(Map<WFMainCondition, RuleSet> ruleSets) {
+            this.ruleSets = ruleSets;
+        }
+
+        List<Long> match(WFMainCondition mainCondition, Object subject) {
+            RuleSet ruleSet = ruleSets.get(mainCondition);
+            return ruleSet == null ? Collections.emptyList() : ruleSet.match(subject);
+        }
+    }
+
+    /**
+     * The rules of a main condition: the ones having an indexed condition by key, the others in a list that is always
+     * evaluated
+     */
+    static class RuleSet {
+        private final WFMainCondition mainCondition;
+        private final Map<String, List<Rule>> indexed = new HashMap<>();
+        private final List<Rule> unindexed = new ArrayList<>();
+
+        RuleSet(WFMainCondition mainCondition) {
+            this.mainCondition = mainCondition;
+        }
+
+        void add(Rule rule, String indexKey) {
+            if (indexKey == null) unindexed.add(rule);
+            else indexed.computeIfAbsent(indexKey, key -> new ArrayList<>()).add(rule);
+        }
+
+        List<Long> match(Object subject) {
+            List<Long> matches = new ArrayList<>();
+            unindexed.stream().filter(rule -> rule.test(subject)).forEach(rule -> matches.add(rule.getWorkflowId()));
+            if (!indexed.isEmpty()) {
+                for (String key : getSubjectKeys(mainCondition, subject)) {
+                    indexed.getOrDefault(key, Collections.emptyList()).stream().filter(rule -> rule.test(subject))
+                            .forEach(rule -> matches.add(rule.getWorkflowId()));
+                }
+            }
+            if (matches.size() > 1) Collections.sort(matches);
+            return matches;
+        }
+    }
+
+    @Getter
+    static class Rule {
+        private final Long workflowId;
+        private final List<Predicate<Object>> predicates;
+
+        Rule(Long workflowId, List<Predicate<Object>> predicates) {
+            this.workflowId = workflowId;
+            this.predicates = predicates;
+        }
+
+        boolean test(Object subject) {
+            for (Predicate<Object> predicate : predicates) {
+                if (!predicate.test(subject)) return false;
+            }
+            return true;
+        }
+    }
+
+    private static class CompiledCondition {
+        private final Predicate<Object> predicate;
+        private final String indexKey;
+        private final int indexRank;
+
+        CompiledCondition(Predicate<Object> predicate) {
+            this(predicate, null, Integer.MAX_VALUE);
+        }
+
+        CompiledCondition(Predicate<Object> predicate, String indexKey, int indexRank) {
+            this.predicate = predicate;
+            this.indexKey = indexKey;
+            this.indexRank = indexRank;
+        }
+    }
+
+    private static final Predicate<Object> NEVER = subject -> false;
+
+    // the lower the rank, the more selective the key
+    private static final int ASSET_RANK = 0;
+    private static final int PRIORITY_RANK = 1;
+    private static final int ALERT_NAME_RANK = 0;
+    private static final int SEVERITY_RANK = 1;
+
+    private static List<String> getSubjectKeys(WFMainCondition mainCondition, Object subject) {
+        List<String> keys = new ArrayList<>(2);
+        switch (mainCondition) {
+            case WORK_ORDER_CREATED:
+            case WORK_ORDER_CLOSED:
+            case WORK_ORDER_ARCHIVED:
+                WorkOrder workOrder = (WorkOrder) subject;
+                if (workOrder.getAsset() != null) keys.add(assetKey(workOrder.getAsset().getId()));
+                if (workOrder.getPriority() != null) keys.add(priorityKey(workOrder.getPriority()));
+                break;
+            case REQUEST_CREATED:
+            case REQUEST_APPROVED:
+            case REQUEST_REJECTED:
+                Request request = (Request) subject;
+                if (request.getAsset() != null) keys.add(assetKey(request.getAsset().getId()));
+                if (request.getPriority() != null) keys.add(priorityKey(request.getPriority()));
+                break;
+            case WEBHOOK:
+                GrafanaAlert alert = (GrafanaAlert) subject;
+                if (alert.getAlertName() != null) keys.add(alertNameKey(alert.getAlertName()));
+                if (alert.getSeverity() != null) keys.add(severityKey(alert.getSeverity()));
+                break;
+            default:
+                break;
+        }
+        return keys;
+    }
+
+    private static CompiledCondition compileCondition(WFMainCondition mainCondition, WorkflowCondition condition) {
+        switch (mainCondition) {
+            case WORK_ORDER_CREATED:
+            case WORK_ORDER_CLOSED:
+            case WORK_ORDER_ARCHIVED:
+                return compileWorkOrderCondition(condition);
+            case REQUEST_CREATED:
+            case REQUEST_APPROVED:
+            case REQUEST_REJECTED:
+                return compileRequestCondition(condition);
+            case PURCHASE_ORDER_CREATED:
+            case PURCHASE_ORDER_UPDATED:
+                return compilePurchaseOrderCondition(condition);
+            case PART_UPDATED:
+                return compilePartCondition(condition);
+            case TASK_UPDATED:
+                return compileTaskCondition(condition);
+            case WEBHOOK:
+                return compileWebhookCondition(condition);
+            default:
+                return new CompiledCondition(NEVER);
+        }
+    }
+
+    private static CompiledCondition compileWorkOrderCondition(WorkflowCondition condition) {
+        if (condition.getWorkOrderCondition() == null) return new CompiledCondition(NEVER);
+        switch (condition.getWorkOrderCondition()) {
+            case TEAM_IS:
+                return new CompiledCondition(idIs(WorkOrder.class, WorkOrder::getTeam, condition.getTeam(), Team::getId));
+            case PRIORITY_IS:
+                return new CompiledCondition(condition.getPriority() == null ? NEVER : cast(WorkOrder.class,
+                        workOrder -> condition.getPriority().equals(workOrder.getPriority())),
+                        priorityKey(condition.getPriority()), PRIORITY_RANK);
+            case ASSET_IS:
+                return new CompiledCondition(idIs(WorkOrder.class, WorkOrder::getAsset, condition.getAsset(),
+                        Asset::getId),
+                        condition.getAsset() == null ? null : assetKey(condition.getAsset().getId()), ASSET_RANK);
+            case CATEGORY_IS:
+                return new CompiledCondition(idIs(WorkOrder.class, WorkOrder::getCategory,
+                        condition.getWorkOrderCategory(), WorkOrderCategory::getId));
+            case LOCATION_IS:
+                return new CompiledCondition(idIs(WorkOrder.class, WorkOrder::getLocation,
+                        condition.getLocation(), Location::getId));
+            case USER_IS:
+                return new CompiledCondition(idIs(WorkOrder.class, WorkOrder::getPrimaryUser,
+                        condition.getUser(), OwnUser::getId));
+            case CREATED_AT_BETWEEN:
+                return new CompiledCondition(createdBetween(WorkOrder.class, condition));
+            case DUE_DATE_BETWEEN:
+                return new CompiledCondition(dateBetween(WorkOrder.class, WorkOrder::getDueDate, condition));
+            case DUE_DATE_AFTER:
+                return new CompiledCondition(dateAfter(WorkOrder.class, WorkOrder::getDueDate, condition));
+            case STATUS_IS:
+                return new CompiledCondition(cast(WorkOrder.class,
+                        workOrder -> workOrder.getStatus() != null && workOrder.getStatus()
+                                .equals(condition.getWorkOrderStatus())));
+            default:
+                return new CompiledCondition(NEVER);
+        }
+    }
+
+    private static CompiledCondition compileRequestCondition(WorkflowCondition condition) {
+        if (condition.getRequestCondition() == null) return new CompiledCondition(NEVER);
+        switch (condition.getRequestCondition()) {
+            case TEAM_IS:
+                return new CompiledCondition(idIs(Request.class, Request::getTeam, condition.getTeam(), Team::getId));
+            case PRIORITY_IS:
+                return new CompiledCondition(condition.getPriority() == null ? NEVER : cast(Request.class,
+                        request -> condition.getPriority().equals(request.getPriority())),
+                        priorityKey(condition.getPriority()), PRIORITY_RANK);
+            case ASSET_IS:
+                return new CompiledCondition(idIs(Request.class, Request::getAsset, condition.getAsset(),
+                        Asset::getId),
+                        condition.getAsset() == null ? null : assetKey(condition.getAsset().getId()), ASSET_RANK);
+            case CATEGORY_IS:
+                return new CompiledCondition(idIs(Request.class, Request::getCategory,
+                        condition.getWorkOrderCategory(), WorkOrderCategory::getId));
+            case LOCATION_IS:
+                return new CompiledCondition(idIs(Request.class, Request::getLocation,
+                        condition.getLocation(), Location::getId));
+            case USER_IS:
+                return new CompiledCondition(idIs(Request.class, Request::getPrimaryUser,
+                        condition.getUser(), OwnUser::getId));
+            case CREATED_AT_BETWEEN:
+                return new CompiledCondition(createdBetween(Request.class, condition));
+            case DUE_DATE_BETWEEN:
+                return new CompiledCondition(dateBetween(Request.class, Request::getDueDate, condition));
+            case DUE_DATE_AFTER:
+                return new CompiledCondition(dateAfter(Request.class, Request::getDueDate, condition));
+            default:
+                return new CompiledCondition(NEVER);
+        }
+    }
+
+    private static CompiledCondition compilePurchaseOrderCondition(WorkflowCondition condition) {
+        if (condition.getPurchaseOrderCondition() == null) return new CompiledCondition(NEVER);
+        switch (condition.getPurchaseOrderCondition()) {
+            case VENDOR_IS:
+                return new CompiledCondition(idIs(PurchaseOrder.class, PurchaseOrder::getVendor,
+                        condition.getVendor(), Vendor::getId));
+            case STATUS_IS:
+                return new CompiledCondition(cast(PurchaseOrder.class,
+                        purchaseOrder -> purchaseOrder.getStatus() != null && purchaseOrder.getStatus()
+                                .equals(condition.getPurchaseOrderStatus())));
+            case CATEGORY_IS:
+                return new CompiledCondition(idIs(PurchaseOrder.class, PurchaseOrder::getCategory,
+                        condition.getPurchaseOrderCategory(), PurchaseOrderCategory::getId));
+            case DUE_DATE_AFTER:
+                return new CompiledCondition(dateAfter(PurchaseOrder.class, PurchaseOrder::getShippingDueDate,
+                        condition));
+            case DUE_DATE_BETWEEN:
+                return new CompiledCondition(dateBetween(PurchaseOrder.class, PurchaseOrder::getShippingDueDate,
+                        condition));
+            default:
+                return new CompiledCondition(NEVER);
+        }
+    }
+
+    private static CompiledCondition compilePartCondition(WorkflowCondition condition) {
+        if (condition.getPartCondition() == null) return new CompiledCondition(NEVER);
+        switch (condition.getPartCondition()) {
+            case PART_IS:
+                return new CompiledCondition(idIs(Part.class, Function.identity(), condition.getPart(), Part::getId));
+            case QUANTITY_INFERIOR:
+                Integer numberValue = condition.getNumberValue();
+                return new CompiledCondition(numberValue == null ? NEVER : cast(Part.class,
+                        part -> part.getQuantity() < numberValue));
+            default:
+                return new CompiledCondition(NEVER);
+        }
+    }
+
+    private static CompiledCondition compileTaskCondition(WorkflowCondition condition) {
+        if (condition.getTaskCondition() == null) return new CompiledCondition(NEVER);
+        String label = condition.getLabel();
+        String value = condition.getValue();
+        Integer numberValue = condition.getNumberValue();
+        switch (condition.getTaskCondition()) {
+            case NAME_IS:
+                return new CompiledCondition(label == null ? NEVER : cast(Task.class,
+                        task -> label.equals(task.getTaskBase().getLabel())));
+            case VALUE_IS:
+                return new CompiledCondition(cast(Task.class,
+                        task -> task.getValue() != null && task.getValue().equals(value)));
+            case NAME_CONTAINS:
+                return new CompiledCondition(label == null ? NEVER : cast(Task.class,
+                        task -> task.getTaskBase().getLabel() != null && task.getTaskBase().getLabel()
+                                .contains(label)));
+            case VALUE_CONTAINS:
+                return new CompiledCondition(value == null ? NEVER : cast(Task.class,
+                        task -> task.getValue() != null && task.getValue().contains(value)));
+            case NUMBER_VALUE_INFERIOR:
+                return new CompiledCondition(numberValue == null ? NEVER : cast(Task.class,
+                        task -> task.getValue() != null && Helper.isNumeric(task.getValue())
+                                && Double.parseDouble(task.getValue()) < numberValue));
+            case NUMBER_VALUE_SUPERIOR:
+                return new CompiledCondition(numberValue == null ? NEVER : cast(Task.class,
+                        task -> task.getValue() != null && Helper.isNumeric(task.getValue())
+                                && Double.parseDouble(task.getValue()) > numberValue));
+            default:
+                return new CompiledCondition(NEVER);
+        }
+    }
+
+    /**
+     * Same rules as {@link WorkflowCondition#isMetForWebhook(GrafanaAlert)}: the empty fields are not checked
+     */
+    private static CompiledCondition compileWebhookCondition(WorkflowCondition condition) {
+        String alertName = isEmpty(condition.getAlertName()) ? null : condition.getAlertName();
+        String severity = isEmpty(condition.getSeverity()) ? null : condition.getSeverity();
+        Predicate<Object> predicate = cast(GrafanaAlert.class, alert ->
+                (alertName == null || alertName.equals(alert.getAlertName()))
+                        && (severity == null || severity.equalsIgnoreCase(alert.getSeverity())));
+        if (alertName != null) return new CompiledCondition(predicate, alertNameKey(alertName), ALERT_NAME_RANK);
+        if (severity != null) return new CompiledCondition(predicate, severityKey(severity), SEVERITY_RANK);
+        return new CompiledCondition(predicate);
+    }
+
+    private static <T> Predicate<Object> cast(Class<T> subjectClass, Predicate<T> predicate) {
+        return subject -> predicate.test(subjectClass.cast(subject));
+    }
+
+    private static <T, E> Predicate<Object> idIs(Class<T> subjectClass, Function<T, E> getter, E expected,
+                                                 Function<E, Long> id) {
+        Long expectedId = expected == null ? null : id.apply(expected);
+        if (expectedId == null) return NEVER;
+        return cast(subjectClass, subject -> {
+            E actual = getter.apply(subject);
+            return actual != null && expectedId.equals(id.apply(actual));
+        });
+    }
+
+    @SuppressWarnings("deprecation")
+    private static <T extends DateAudit> Predicate<Object> createdBetween(Class<T> subjectClass,
+                                                                         WorkflowCondition condition) {
+        Integer start = condition.getCreatedTimeStart();
+        Integer end = condition.getCreatedTimeEnd();
+        if (start == null || end == null) return NEVER;
+        return cast(subjectClass, subject -> subject.getCreatedAt() != null
+                && subject.getCreatedAt().getHours() > start && subject.getCreatedAt().getHours() < end);
+    }
+
+    private static <T> Predicate<Object> dateBetween(Class<T> subjectClass, Function<T, Date> getter,
+                                                     WorkflowCondition condition) {
+        Date start = condition.getStartDate();
+        Date end = condition.getEndDate();
+        if (start == null || end == null) return NEVER;
+        return cast(subjectClass, subject -> {
+            Date date = getter.apply(subject);
+            return date != null && date.after(start) && date.before(end);
+        });
+    }
+
+    private static <T> Predicate<Object> dateAfter(Class<T> subjectClass, Function<T, Date> getter,
+                                                   WorkflowCondition condition) {
+        Date end = condition.getEndDate();
+        if (end == null) return NEVER;
+        return cast(subjectClass, subject -> {
+            Date date = getter.apply(subject);
+            return date != null && date.after(end);
+        });
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static String assetKey(Long assetId) {
+        return "asset:" + assetId;
+    }
+
+    private static String priorityKey(Object priority) {
+        return priority == null ? null : "priority:" + priority;
+    }
+
+    private static String alertNameKey(String alertName) {
+        return "alert:" + alertName;
+    }
+
+    private static String severityKey(String severity) {
+        return "severity:" + severity.toLowerCase(Locale.ROOT);
+    }
+}
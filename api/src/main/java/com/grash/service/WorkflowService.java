@@ -5,6 +5,7 @@ import com.grash.dto.WorkflowPostDTO;
 import com.grash.exception.CustomException;
 import com.grash.mapper.WorkflowMapper;
 import com.grash.dto.GrafanaAlert;
+import com.grash.event.WorkflowTriggeredEvent;
 import com.grash.model.*;
 import com.grash.model.enums.ApprovalStatus;
 import com.grash.model.enums.Priority;
@@ -12,15 +13,15 @@ import com.grash.model.enums.RoleType;
 import com.grash.model.enums.Status;
 import com.grash.model.enums.workflow.WFMainCondition;
 import com.grash.repository.WorkflowRepository;
+import com.grash.repository.WorkflowTriggerRepository;
 import com.grash.utils.AuditComparator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,9 +35,14 @@ public class WorkflowService {
     private final PurchaseOrderService purchaseOrderService;
     private final WorkflowConditionService workflowConditionService;
     private final WorkflowActionService workflowActionService;
+    private final WorkflowRuleIndex workflowRuleIndex;
+    private final WorkflowTriggerRepository workflowTriggerRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Workflow create(Workflow Workflow) {
-        return workflowRepository.save(Workflow);
+        Workflow savedWorkflow = workflowRepository.save(Workflow);
+        if (savedWorkflow.getCompany() != null) workflowRuleIndex.invalidate(savedWorkflow.getCompany().getId());
+        return savedWorkflow;
     }
 
     public Workflow createWorkflow(WorkflowPostDTO workflowReq, Company company) {
@@ -123,13 +129,18 @@ public class WorkflowService {
         System.out.println("DEBUG: About to save workflow with action ID: " + (workflow.getAction() != null ? workflow.getAction().getId() : "NULL"));
         
         // Save workflow with action already set
-        return workflowRepository.save(workflow);
+        Workflow savedWorkflow = workflowRepository.save(workflow);
+        workflowRuleIndex.invalidate(company.getId());
+        return savedWorkflow;
     }
 
     public Workflow update(Long id, WorkflowPatchDTO workflowsPatchDTO) {
         if (workflowRepository.existsById(id)) {
             Workflow savedWorkflow = workflowRepository.findById(id).get();
-            return workflowRepository.save(workflowMapper.updateWorkflow(savedWorkflow, workflowsPatchDTO));
+            Workflow patchedWorkflow = workflowRepository.save(workflowMapper.updateWorkflow(savedWorkflow,
+                    workflowsPatchDTO));
+            workflowRuleIndex.invalidate(patchedWorkflow.getCompany().getId());
+            return patchedWorkflow;
         } else throw new CustomException("Not found", HttpStatus.NOT_FOUND);
     }
 
@@ -138,7 +149,9 @@ public class WorkflowService {
     }
 
     public void delete(Long id) {
+        Optional<Workflow> optionalWorkflow = workflowRepository.findById(id);
         workflowRepository.deleteById(id);
+        optionalWorkflow.ifPresent(workflow -> workflowRuleIndex.invalidate(workflow.getCompany().getId()));
     }
 
     public Optional<Workflow> findById(Long id) {
@@ -153,155 +166,238 @@ public class WorkflowService {
         return workflowRepository.findByCompany_Id(id);
     }
 
+    /**
+     * Matches the subject against the compiled workflows of the company and only loads the matching ones
+     *
+     * @param subject the work order, request, purchase order, part, task or alert the main condition is about
+     */
+    public List<Workflow> findMatching(WFMainCondition mainCondition, Long companyId, Object subject) {
+        List<Long> ids = workflowRuleIndex.match(companyId, mainCondition, subject);
+        if (ids.isEmpty()) return Collections.emptyList();
+        Map<Long, Workflow> workflowsById = workflowRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Workflow::getId, Function.identity()));
+        return ids.stream().map(workflowsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Matches the workflows of the main condition against the work order as it is now and writes their triggers, in
+     * the caller's transaction. Their actions are applied after the commit by {@link WorkflowExecutor}.
+     */
+    public void runWorkOrderWorkflows(WFMainCondition mainCondition, Long companyId, WorkOrder workOrder) {
+        trigger(mainCondition, companyId, workOrder.getId(), workOrder);
+    }
+
+    public void runRequestWorkflows(WFMainCondition mainCondition, Long companyId, Request request) {
+        trigger(mainCondition, companyId, request.getId(), request);
+    }
+
+    public void runPurchaseOrderWorkflows(WFMainCondition mainCondition, Long companyId,
+                                          PurchaseOrder purchaseOrder) {
+        trigger(mainCondition, companyId, purchaseOrder.getId(), purchaseOrder);
+    }
+
+    public void runPartWorkflows(WFMainCondition mainCondition, Long companyId, Part part) {
+        trigger(mainCondition, companyId, part.getId(), part);
+    }
+
+    public void runTaskWorkflows(WFMainCondition mainCondition, Long companyId, Task task) {
+        trigger(mainCondition, companyId, task.getId(), task);
+    }
+
+    private void trigger(WFMainCondition mainCondition, Long companyId, Long entityId, Object subject) {
+        if (entityId == null) return;
+        List<Workflow> workflows = findMatching(mainCondition, companyId, subject);
+        if (workflows.isEmpty()) return;
+        int entityType = WorkflowExecutor.getEntityType(mainCondition);
+        workflowTriggerRepository.saveAll(workflows.stream().map(workflow -> new WorkflowTrigger(workflow.getId(),
+                companyId, mainCondition, entityType, entityId)).collect(Collectors.toList()));
+        eventPublisher.publishEvent(new WorkflowTriggeredEvent(mainCondition, companyId, entityId));
+    }
+
+    /**
+     * Applies the action of a workflow whose conditions are met by the subject of its main condition
+     */
+    public void applyAction(Workflow workflow, Object subject) {
+        switch (workflow.getMainCondition()) {
+            case WORK_ORDER_CREATED:
+            case WORK_ORDER_CLOSED:
+            case WORK_ORDER_ARCHIVED:
+                applyWorkOrderAction(workflow.getAction(), (WorkOrder) subject);
+                break;
+            case REQUEST_CREATED:
+            case REQUEST_APPROVED:
+            case REQUEST_REJECTED:
+                applyRequestAction(workflow.getAction(), (Request) subject);
+                break;
+            case PURCHASE_ORDER_CREATED:
+            case PURCHASE_ORDER_UPDATED:
+                applyPurchaseOrderAction(workflow.getAction(), (PurchaseOrder) subject);
+                break;
+            case PART_UPDATED:
+                applyPartAction(workflow.getAction());
+                break;
+            case TASK_UPDATED:
+                applyTaskAction(workflow.getAction(), (Task) subject);
+                break;
+            default:
+                throw new IllegalArgumentException("Workflows of " + workflow.getMainCondition() + " are not run on "
+                        + "an entity");
+        }
+    }
+
     public void runWorkOrder(Workflow workflow, WorkOrder workOrder) {
         if (workflow.getSecondaryConditions().stream().allMatch(workflowCondition -> workflowCondition.isMetForWorkOrder(workOrder))) {
-            WorkflowAction action = workflow.getAction();
-            switch (action.getWorkOrderAction()) {
-                case ADD_CHECKLIST:
-                    //TODO
-                    return;
-                case SEND_REMINDER_EMAIL:
-                    //TODO
-                    return;
-                case ASSIGN_TEAM:
-                    workOrder.setTeam(action.getTeam());
-                    break;
-                case ASSIGN_USER:
-                    workOrder.setPrimaryUser(action.getUser());
-                    break;
-                case ASSIGN_ASSET:
-                    workOrder.setAsset(action.getAsset());
-                    break;
-                case ASSIGN_CATEGORY:
-                    workOrder.setCategory(action.getWorkOrderCategory());
-                    break;
-                case ASSIGN_LOCATION:
-                    workOrder.setLocation(action.getLocation());
-                    break;
-                case ASSIGN_PRIORITY:
-                    workOrder.setPriority(action.getPriority());
-                    break;
-                default:
-                    break;
-            }
-            workOrderService.save(workOrder);
+            applyWorkOrderAction(workflow.getAction(), workOrder);
+        }
+    }
+
+    private void applyWorkOrderAction(WorkflowAction action, WorkOrder workOrder) {
+        switch (action.getWorkOrderAction()) {
+            case ADD_CHECKLIST:
+                //TODO
+                return;
+            case SEND_REMINDER_EMAIL:
+                //TODO
+                return;
+            case ASSIGN_TEAM:
+                workOrder.setTeam(action.getTeam());
+                break;
+            case ASSIGN_USER:
+                workOrder.setPrimaryUser(action.getUser());
+                break;
+            case ASSIGN_ASSET:
+                workOrder.setAsset(action.getAsset());
+                break;
+            case ASSIGN_CATEGORY:
+                workOrder.setCategory(action.getWorkOrderCategory());
+                break;
+            case ASSIGN_LOCATION:
+                workOrder.setLocation(action.getLocation());
+                break;
+            case ASSIGN_PRIORITY:
+                workOrder.setPriority(action.getPriority());
+                break;
+            default:
+                break;
         }
+        workOrderService.save(workOrder);
     }
 
     public void runRequest(Workflow workflow, Request request) {
         if (workflow.getSecondaryConditions().stream().allMatch(workflowCondition -> workflowCondition.isMetForRequest(request))) {
-            WorkflowAction action = workflow.getAction();
-            switch (action.getRequestAction()) {
-                case ADD_CHECKLIST:
-                    //TODO
-                    return;
-                case SEND_REMINDER_EMAIL:
-                    //TODO
-                    return;
-                case ASSIGN_TEAM:
-                    request.setTeam(action.getTeam());
-                    break;
-                case ASSIGN_USER:
-                    request.setPrimaryUser(action.getUser());
-                    break;
-                case ASSIGN_ASSET:
-                    request.setAsset(action.getAsset());
-                    break;
-                case ASSIGN_CATEGORY:
-                    request.setCategory(action.getWorkOrderCategory());
-                    break;
-                case ASSIGN_LOCATION:
-                    request.setLocation(action.getLocation());
-                    break;
-                case ASSIGN_PRIORITY:
-                    request.setPriority(action.getPriority());
-                    break;
-                default:
-                    break;
-            }
-            requestService.save(request);
+            applyRequestAction(workflow.getAction(), request);
+        }
+    }
+
+    private void applyRequestAction(WorkflowAction action, Request request) {
+        switch (action.getRequestAction()) {
+            case ADD_CHECKLIST:
+                //TODO
+                return;
+            case SEND_REMINDER_EMAIL:
+                //TODO
+                return;
+            case ASSIGN_TEAM:
+                request.setTeam(action.getTeam());
+                break;
+            case ASSIGN_USER:
+                request.setPrimaryUser(action.getUser());
+                break;
+            case ASSIGN_ASSET:
+                request.setAsset(action.getAsset());
+                break;
+            case ASSIGN_CATEGORY:
+                request.setCategory(action.getWorkOrderCategory());
+                break;
+            case ASSIGN_LOCATION:
+                request.setLocation(action.getLocation());
+                break;
+            case ASSIGN_PRIORITY:
+                request.setPriority(action.getPriority());
+                break;
+            default:
+                break;
         }
+        requestService.save(request);
     }
 
     public void runPurchaseOrder(Workflow workflow, PurchaseOrder purchaseOrder) {
         if (workflow.getSecondaryConditions().stream().allMatch(workflowCondition -> workflowCondition.isMetForPurchaseOrder(purchaseOrder))) {
-            WorkflowAction action = workflow.getAction();
-            switch (action.getPurchaseOrderAction()) {
-                case APPROVE:
-                    purchaseOrder.setStatus(ApprovalStatus.APPROVED);
-                    break;
-                case REJECT:
-                    purchaseOrder.setStatus(ApprovalStatus.REJECTED);
-                    break;
-                case ASSIGN_VENDOR:
-                    purchaseOrder.setVendor(action.getVendor());
-                    break;
-                case SEND_REMINDER_EMAIL:
+            applyPurchaseOrderAction(workflow.getAction(), purchaseOrder);
+        }
+    }
+
+    private void applyPurchaseOrderAction(WorkflowAction action, PurchaseOrder purchaseOrder) {
+        switch (action.getPurchaseOrderAction()) {
+            case APPROVE:
+                purchaseOrder.setStatus(ApprovalStatus.APPROVED);
+                break;
+            case REJECT:
+                purchaseOrder.setStatus(ApprovalStatus.REJECTED);
+                break;
+            case ASSIGN_VENDOR:
+                purchaseOrder.setVendor(action.getVendor());
+                break;
+            case SEND_REMINDER_EMAIL:
 //                    TODO
-                    return;
-                default:
-                    break;
-            }
-            purchaseOrderService.save(purchaseOrder);
+                return;
+            default:
+                break;
         }
+        purchaseOrderService.save(purchaseOrder);
     }
 
     public void runPart(Workflow workflow, Part part) {
         if (workflow.getSecondaryConditions().stream().allMatch(workflowCondition -> workflowCondition.isMetForPart(part))) {
-            WorkflowAction action = workflow.getAction();
-            switch (action.getPartAction()) {
-                case CREATE_PURCHASE_ORDER:
-                    //TODO
-                    break;
-                default:
-                    break;
-            }
+            applyPartAction(workflow.getAction());
+        }
+    }
+
+    private void applyPartAction(WorkflowAction action) {
+        switch (action.getPartAction()) {
+            case CREATE_PURCHASE_ORDER:
+                //TODO
+                break;
+            default:
+                break;
         }
     }
 
     public void runTask(Workflow workflow, Task task) {
         if (workflow.getSecondaryConditions().stream().allMatch(workflowCondition -> workflowCondition.isMetForTask(task))) {
-            WorkflowAction action = workflow.getAction();
-            switch (action.getTaskAction()) {
-                case CREATE_REQUEST:
-                case CREATE_WORK_ORDER:
+            applyTaskAction(workflow.getAction(), task);
+        }
+    }
+
+    private void applyTaskAction(WorkflowAction action, Task task) {
+        switch (action.getTaskAction()) {
+            case CREATE_REQUEST:
+            case CREATE_WORK_ORDER:
 //                   TODO
-                    break;
-                case SET_ASSET_STATUS:
-                    Asset asset = task.getWorkOrder().getAsset();
-                    if (asset != null) {
-                        asset.setStatus(action.getAssetStatus());
-                        assetService.save(asset);
-                    }
-                    break;
-                default:
-                    break;
-            }
+                break;
+            case SET_ASSET_STATUS:
+                Asset asset = task.getWorkOrder().getAsset();
+                if (asset != null) {
+                    asset.setStatus(action.getAssetStatus());
+                    assetService.save(asset);
+                }
+                break;
+            default:
+                break;
         }
     }
     
     public void runWebhookWorkflow(Workflow workflow, GrafanaAlert alert, Company company) {
-        System.out.println("DEBUG: runWebhookWorkflow called for workflow: " + workflow.getTitle());
-        System.out.println("DEBUG: Checking if all conditions are met...");
-        
-        boolean allConditionsMet = workflow.getSecondaryConditions().stream().allMatch(workflowCondition -> {
-            boolean met = workflowCondition.isMetForWebhook(alert);
-            System.out.println("DEBUG: Condition met? " + met + " - alertName: " + workflowCondition.getAlertName() + ", severity: " + workflowCondition.getSeverity());
-            return met;
-        });
-        
-        System.out.println("DEBUG: All conditions met: " + allConditionsMet);
+        boolean allConditionsMet = workflow.getSecondaryConditions().stream()
+                .allMatch(workflowCondition -> workflowCondition.isMetForWebhook(alert));
         
         if (allConditionsMet) {
             WorkflowAction action = workflow.getAction();
-            System.out.println("DEBUG: Workflow action - taskAction: " + action.getTaskAction() + ", workOrderAction: " + action.getWorkOrderAction());
             
             // Handle TaskAction for webhook workflows
             if (action.getTaskAction() != null) {
-                System.out.println("DEBUG: Executing taskAction: " + action.getTaskAction());
                 switch (action.getTaskAction()) {
                     case CREATE_WORK_ORDER:
-                        System.out.println("DEBUG: Creating work order from webhook");
                         createWorkOrderFromWebhook(alert, action, company);
                         break;
                     case CREATE_REQUEST:
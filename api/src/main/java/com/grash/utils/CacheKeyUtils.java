@@ -1,5 +1,8 @@
 package com.grash.utils;
 
+import com.grash.cache.TenantCacheKey;
+import com.grash.model.OwnUser;
+
 import java.util.Date;
 
 public class CacheKeyUtils {
@@ -12,4 +15,20 @@ public class CacheKeyUtils {
     public static String dateRangeKey(Long userId, Date start, Date end) {
         return userId + "_" + roundToNearest20Minutes(start) + "_" + roundToNearest20Minutes(end);
     }
+
+    public static TenantCacheKey dateRangeKey(OwnUser user, Date start, Date end) {
+        return new TenantCacheKey(getCompanyId(user), dateRangeKey(user.getId(), start, end));
+    }
+
+    public static TenantCacheKey dateRangeKey(OwnUser user, Date start, Date end, Object suffix) {
+        return new TenantCacheKey(getCompanyId(user), dateRangeKey(user.getId(), start, end) + "_" + suffix);
+    }
+
+    public static TenantCacheKey userKey(OwnUser user) {
+        return new TenantCacheKey(getCompanyId(user), user.getId());
+    }
+
+    private static Long getCompanyId(OwnUser user) {
+        return user.getCompany() == null ? null : user.getCompany().getId();
+    }
 }
@@ -0,0 +1,286 @@
+package com.grash.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.dto.imports.*;
+import com.grash.exception.CustomException;
+import com.grash.model.enums.ImportEntity;
+import com.grash.model.enums.Language;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the CSV files uploaded for the background imports one record at a time and converts the records to the
+ * import DTOs the same way the web app does: the columns are matched with the headers of the import templates in any
+ * of their languages or with the DTO field names, the lists are comma separated and the dates are converted to
+ * spreadsheet serial numbers.
+ */
+@Component
+@RequiredArgsConstructor
+public class CsvImportParser {
+
+    private static final CSVFormat FORMAT = CSVFormat.DEFAULT.withFirstRecordAsHeader().withIgnoreEmptyLines()
+            .withAllowMissingColumnNames().withTrim();
+    private static final DateTimeFormatter DATE_FORMATTER = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd[[ ]['T']HH:mm[:ss][.SSS]]")
+            .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+            .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+            .toFormatter();
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+    private static final Map<ImportEntity, Class<?>> DTO_CLASSES = new EnumMap<>(ImportEntity.class);
+    /**
+     * The columns in the order of the English templates, the other templates have them in the same order
+     */
+    private static final Map<ImportEntity, List<Column>> COLUMNS = new EnumMap<>(ImportEntity.class);
+
+    static {
+        DTO_CLASSES.put(ImportEntity.WORK_ORDER, WorkOrderImportDTO.class);
+        DTO_CLASSES.put(ImportEntity.ASSET, AssetImportDTO.class);
+        DTO_CLASSES.put(ImportEntity.LOCATION, LocationImportDTO.class);
+        DTO_CLASSES.put(ImportEntity.PART, PartImportDTO.class);
+        DTO_CLASSES.put(ImportEntity.METER, MeterImportDTO.class);
+        DTO_CLASSES.put(ImportEntity.PREVENTIVE_MAINTENANCE, PreventiveMaintenanceImportDTO.class);
+        COLUMNS.put(ImportEntity.WORK_ORDER, Arrays.asList(
+                new Column("ID", "id", ValueType.ID),
+                new Column("Title", "title", ValueType.TEXT),
+                new Column("Status", "status", ValueType.TEXT),
+                new Column("Priority", "priority", ValueType.TEXT),
+                new Column("Description", "description", ValueType.TEXT),
+                new Column("Due Date", "dueDate", ValueType.DATE),
+                new Column("Estimated Hours", "estimatedDuration", ValueType.TEXT),
+                new Column("Requires Signature", "requiredSignature", ValueType.TEXT),
+                new Column("Category", "category", ValueType.TEXT),
+                new Column("Location Name", "locationName", ValueType.TEXT),
+                new Column("Team Name", "teamName", ValueType.TEXT),
+                new Column("Primary User", "primaryUserEmail", ValueType.TEXT),
+                new Column("Assigned To", "assignedToEmails", ValueType.LIST),
+                new Column("Asset Name", "assetName", ValueType.TEXT),
+                new Column("Completed By", "completedByEmail", ValueType.TEXT),
+                new Column("Completed On", "completedOn", ValueType.DATE),
+                new Column("Archived", "archived", ValueType.TEXT),
+                new Column("Feedback", "feedback", ValueType.TEXT),
+                new Column("Contractors", "customersNames", ValueType.LIST)));
+        COLUMNS.put(ImportEntity.ASSET, Arrays.asList(
+                new Column("ID", "id", ValueType.ID),
+                new Column("Name", "name", ValueType.TEXT),
+                new Column("Description", "description", ValueType.TEXT),
+                new Column("Status", "status", ValueType.TEXT),
+                new Column("Archived", "archived", ValueType.TEXT),
+                new Column("Location Name", "locationName", ValueType.TEXT),
+                new Column("Parent Asset", "parentAssetName", ValueType.TEXT),
+                new Column("Area", "area", ValueType.TEXT),
+                new Column("Barcode", "barCode", ValueType.TEXT),
+                new Column("Category", "category", ValueType.TEXT),
+                new Column("Primary User", "primaryUserEmail", ValueType.TEXT),
+                new Column("Warranty Expiration Date", "warrantyExpirationDate", ValueType.DATE),
+                new Column("Additional Information", "additionalInfos", ValueType.TEXT),
+                new Column("Serial Number", "serialNumber", ValueType.TEXT),
+                new Column("Assigned To", "assignedToEmails", ValueType.LIST),
+                new Column("Teams", "teamsNames", ValueType.LIST),
+                new Column("Parts", "partsNames", ValueType.LIST),
+                new Column("Vendors", "vendorsNames", ValueType.LIST),
+                new Column("Contractors", "customersNames", ValueType.LIST),
+                new Column("Acquisition cost", "acquisitionCost", ValueType.TEXT)));
+        COLUMNS.put(ImportEntity.LOCATION, Arrays.asList(
+                new Column("ID", "id", ValueType.ID),
+                new Column("Name", "name", ValueType.TEXT),
+                new Column("Address", "address", ValueType.TEXT),
+                new Column("Parent Location", "parentLocationName", ValueType.TEXT),
+                new Column("Assigned To", "workersEmails", ValueType.LIST),
+                new Column("Teams", "teamsNames", ValueType.LIST),
+                new Column("Vendors", "vendorsNames", ValueType.LIST),
+                new Column("Contractors", "customersNames", ValueType.LIST)));
+        COLUMNS.put(ImportEntity.METER, Arrays.asList(
+                new Column("ID", "id", ValueType.ID),
+                new Column("Name", "name", ValueType.TEXT),
+                new Column("Unit", "unit", ValueType.TEXT),
+                new Column("Update Frequency", "updateFrequency", ValueType.TEXT),
+                new Column("Category", "meterCategory", ValueType.TEXT),
+                new Column("Asset Name", "assetName", ValueType.TEXT),
+                new Column("Location Name", "locationName", ValueType.TEXT),
+                new Column("Users", "usersEmails", ValueType.LIST)));
+        COLUMNS.put(ImportEntity.PART, Arrays.asList(
+                new Column("ID", "id", ValueType.ID),
+                new Column("Name", "name", ValueType.TEXT),
+                new Column("Cost", "cost", ValueType.TEXT),
+                new Column("Category", "category", ValueType.TEXT),
+                new Column("Non Stock", "nonStock", ValueType.TEXT),
+                new Column("Barcode", "barcode", ValueType.TEXT),
+                new Column("Description", "description", ValueType.TEXT),
+                new Column("Quantity", "quantity", ValueType.TEXT),
+                new Column("Additional Information", "additionalInfos", ValueType.TEXT),
+                new Column("Area", "area", ValueType.TEXT),
+                new Column("Minimum Quantity", "minQuantity", ValueType.TEXT),
+                new Column("Assigned To", "assignedToEmails", ValueType.LIST),
+                new Column("Contractors", "customersNames", ValueType.LIST),
+                new Column("Vendors", "vendorsNames", ValueType.LIST),
+                new Column("Teams", "teamsNames", ValueType.LIST)));
+        COLUMNS.put(ImportEntity.PREVENTIVE_MAINTENANCE, Arrays.asList(
+                new Column("Name", "name", ValueType.TEXT),
+                new Column("Starts On", "startsOn", ValueType.DATE),
+                new Column("Ends On", "endsOn", ValueType.DATE),
+                new Column("Frequency", "frequency", ValueType.TEXT),
+                new Column("Due Date Delay", "dueDateDelay", ValueType.TEXT),
+                new Column("Recurrence Type", "recurrenceType", ValueType.TEXT),
+                new Column("Recurrence Based On", "recurrenceBasedOn", ValueType.TEXT),
+                new Column("Days Of Week", "daysOfWeek", ValueType.LIST),
+                new Column("ID", "id", ValueType.ID),
+                new Column("Title", "title", ValueType.TEXT),
+                new Column("Description", "description", ValueType.TEXT),
+                new Column("Estimated Hours", "estimatedDuration", ValueType.TEXT),
+                new Column("Priority", "priority", ValueType.TEXT),
+                new Column("Category", "category", ValueType.TEXT),
+                new Column("Assigned To", "assignedToEmails", ValueType.LIST),
+                new Column("Primary Worker", "primaryUserEmail", ValueType.TEXT),
+                new Column("Asset Name", "assetName", ValueType.TEXT),
+                new Column("Location Name", "locationName", ValueType.TEXT),
+                new Column("Team Name", "teamName", ValueType.TEXT),
+                new Column("Contractors", "customersNames", ValueType.LIST),
+                new Column("Requires Signature", "requiredSignature", ValueType.TEXT)));
+    }
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<ImportEntity, Map<String, Column>> columnsByHeader = new EnumMap<>(ImportEntity.class);
+
+    @PostConstruct
+    private void init() throws IOException {
+        for (ImportEntity entity : ImportEntity.values()) {
+            List<Column> columns = COLUMNS.get(entity);
+            Map<String, Column> entityColumns = new HashMap<>();
+            columns.forEach(column -> {
+                entityColumns.put(headerKey(column.header), column);
+                entityColumns.put(headerKey(column.field), column);
+            });
+            for (Language language : Language.values()) {
+                ClassPathResource template = new ClassPathResource("import-templates/"
+                        + language.name().toLowerCase() + "/" + entity.name().toLowerCase() + ".csv");
+                if (!template.exists()) continue;
+                try (CSVParser parser = parse(template.getInputStream())) {
+                    List<String> headers = parser.getHeaderNames();
+                    for (int i = 0; i < Math.min(headers.size(), columns.size()); i++) {
+                        entityColumns.putIfAbsent(headerKey(headers.get(i)), columns.get(i));
+                    }
+                }
+            }
+            columnsByHeader.put(entity, entityColumns);
+        }
+    }
+
+    public CSVParser parse(InputStream inputStream) throws IOException {
+        return FORMAT.parse(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+    }
+
+    public long countRecords(InputStream inputStream) throws IOException {
+        long count = 0;
+        try (CSVParser parser = parse(inputStream)) {
+            for (CSVRecord ignored : parser) count++;
+        }
+        return count;
+    }
+
+    /**
+     * @param headers the headers of the file, the columns that don't match any field are ignored
+     */
+    public RowMapper getRowMapper(ImportEntity entity, List<String> headers) {
+        Map<String, Column> entityColumns = columnsByHeader.get(entity);
+        Map<Integer, Column> columnsByIndex = new LinkedHashMap<>();
+        for (int i = 0; i < headers.size(); i++) {
+            Column column = entityColumns.get(headerKey(headers.get(i)));
+            if (column != null && !columnsByIndex.containsValue(column)) columnsByIndex.put(i, column);
+        }
+        if (columnsByIndex.isEmpty()) {
+            throw new CustomException("None of the columns of the file can be imported", HttpStatus.NOT_ACCEPTABLE);
+        }
+        return new RowMapper(DTO_CLASSES.get(entity), COLUMNS.get(entity), columnsByIndex);
+    }
+
+    private static String headerKey(String header) {
+        // the files saved by spreadsheet applications can start with a byte order mark
+        return header.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Double toExcelDate(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException numberFormatException) {
+            try {
+                long millis = LocalDateTime.parse(value.replace('/', '-'), DATE_FORMATTER)
+                        .toInstant(ZoneOffset.UTC).toEpochMilli();
+                return (double) millis / MILLIS_PER_DAY + 25569;
+            } catch (DateTimeParseException dateTimeParseException) {
+                throw new IllegalArgumentException("Invalid date: " + value);
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    public class RowMapper {
+        private final Class<?> dtoClass;
+        private final List<Column> columns;
+        private final Map<Integer, Column> columnsByIndex;
+
+        /**
+         * @throws IllegalArgumentException if a value can't be converted to the type of its field
+         */
+        public Object map(CSVRecord record) {
+            Map<String, Object> values = new HashMap<>();
+            columns.stream().filter(column -> column.type == ValueType.LIST)
+                    .forEach(column -> values.put(column.field, new ArrayList<>()));
+            columnsByIndex.forEach((index, column) -> {
+                if (index >= record.size()) return;
+                String value = record.get(index);
+                if (value.isEmpty()) return;
+                switch (column.type) {
+                    case ID:
+                        try {
+                            values.put(column.field, Long.parseLong(value));
+                        } catch (NumberFormatException exception) {
+                            // like in the web app, a row whose id isn't a number is imported as a new entity
+                        }
+                        break;
+                    case LIST:
+                        values.put(column.field, Arrays.stream(value.split(",")).map(String::trim)
+                                .filter(element -> !element.isEmpty()).collect(Collectors.toList()));
+                        break;
+                    case DATE:
+                        values.put(column.field, toExcelDate(value));
+                        break;
+                    default:
+                        values.put(column.field, value);
+                }
+            });
+            return objectMapper.convertValue(values, dtoClass);
+        }
+    }
+
+    private enum ValueType {
+        ID,
+        TEXT,
+        LIST,
+        DATE
+    }
+
+    @RequiredArgsConstructor
+    private static class Column {
+        private final String header;
+        private final String field;
+        private final ValueType type;
+    }
+}
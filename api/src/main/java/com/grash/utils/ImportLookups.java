@@ -0,0 +1,185 @@
+package com.grash.utils;
+
+import com.grash.model.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The entities referenced by a chunk of imported rows, loaded beforehand in a few IN queries instead of one query
+ * per name or email. Names and emails are matched ignoring case like the single lookups did, and when several
+ * entities have the same name the one with the lowest id wins. The entities created by the rows of the chunk are
+ * registered so that the following rows can reference them.
+ */
+public class ImportLookups {
+
+    private final Map<String, OwnUser> usersByEmail = new HashMap<>();
+    private final Map<String, Team> teamsByName = new HashMap<>();
+    private final Map<String, Customer> customersByName = new HashMap<>();
+    private final Map<String, Vendor> vendorsByName = new HashMap<>();
+    private final Map<String, Part> partsByName = new HashMap<>();
+    private final Map<String, Part> partsByBarcode = new HashMap<>();
+    private final Map<String, Location> locationsByName = new HashMap<>();
+    private final Map<String, Asset> assetsByName = new HashMap<>();
+    private final Map<String, Asset> assetsByBarcode = new HashMap<>();
+    private final Map<String, AssetCategory> assetCategoriesByName = new HashMap<>();
+    private final Map<String, PartCategory> partCategoriesByName = new HashMap<>();
+    private final Map<String, MeterCategory> meterCategoriesByName = new HashMap<>();
+    private final Map<String, WorkOrderCategory> workOrderCategoriesByName = new HashMap<>();
+
+    /**
+     * Managed by the chunk transaction, so the custom ids are taken from it without a query per row
+     */
+    @Getter
+    @Setter
+    private CustomSequence customSequence;
+
+    public static String key(String nameOrEmail) {
+        return nameOrEmail == null ? null : nameOrEmail.toLowerCase(Locale.ROOT);
+    }
+
+    public void addUsers(Collection<OwnUser> users) {
+        index(usersByEmail, users, OwnUser::getEmail);
+    }
+
+    public void addTeams(Collection<Team> teams) {
+        index(teamsByName, teams, Team::getName);
+    }
+
+    public void addCustomers(Collection<Customer> customers) {
+        index(customersByName, customers, Customer::getName);
+    }
+
+    public void addVendors(Collection<Vendor> vendors) {
+        index(vendorsByName, vendors, Vendor::getName);
+    }
+
+    public void addParts(Collection<Part> parts) {
+        index(partsByName, parts, Part::getName);
+    }
+
+    public void addPartsWithBarcode(Collection<Part> parts) {
+        parts.forEach(part -> partsByBarcode.putIfAbsent(part.getBarcode(), part));
+    }
+
+    public void addLocations(Collection<Location> locations) {
+        index(locationsByName, locations, Location::getName);
+    }
+
+    public void addAssets(Collection<Asset> assets) {
+        index(assetsByName, assets, Asset::getName);
+    }
+
+    public void addAssetsWithBarcode(Collection<Asset> assets) {
+        assets.forEach(asset -> assetsByBarcode.putIfAbsent(asset.getBarCode(), asset));
+    }
+
+    public void addAssetCategories(Collection<AssetCategory> categories) {
+        index(assetCategoriesByName, categories, AssetCategory::getName);
+    }
+
+    public void addPartCategories(Collection<PartCategory> categories) {
+        index(partCategoriesByName, categories, PartCategory::getName);
+    }
+
+    public void addMeterCategories(Collection<MeterCategory> categories) {
+        index(meterCategoriesByName, categories, MeterCategory::getName);
+    }
+
+    public void addWorkOrderCategories(Collection<WorkOrderCategory> categories) {
+        index(workOrderCategoriesByName, categories, WorkOrderCategory::getName);
+    }
+
+    public void register(Asset asset) {
+        addAssets(Collections.singletonList(asset));
+        if (asset.getBarCode() != null) assetsByBarcode.put(asset.getBarCode(), asset);
+    }
+
+    public void register(Location location) {
+        addLocations(Collections.singletonList(location));
+    }
+
+    public void register(Part part) {
+        addParts(Collections.singletonList(part));
+        if (part.getBarcode() != null) partsByBarcode.put(part.getBarcode(), part);
+    }
+
+    public Optional<OwnUser> getUser(String email) {
+        return find(usersByEmail, email);
+    }
+
+    public List<OwnUser> getUsers(Collection<String> emails) {
+        return findAll(usersByEmail, emails);
+    }
+
+    public Optional<Team> getTeam(String name) {
+        return find(teamsByName, name);
+    }
+
+    public List<Team> getTeams(Collection<String> names) {
+        return findAll(teamsByName, names);
+    }
+
+    public List<Customer> getCustomers(Collection<String> names) {
+        return findAll(customersByName, names);
+    }
+
+    public List<Vendor> getVendors(Collection<String> names) {
+        return findAll(vendorsByName, names);
+    }
+
+    public List<Part> getParts(Collection<String> names) {
+        return findAll(partsByName, names);
+    }
+
+    public Optional<Part> getPartByBarcode(String barcode) {
+        return Optional.ofNullable(partsByBarcode.get(barcode));
+    }
+
+    public Optional<Location> getLocation(String name) {
+        return find(locationsByName, name);
+    }
+
+    public Optional<Asset> getAsset(String name) {
+        return find(assetsByName, name);
+    }
+
+    public Optional<Asset> getAssetByBarcode(String barcode) {
+        return Optional.ofNullable(assetsByBarcode.get(barcode));
+    }
+
+    public Optional<AssetCategory> getAssetCategory(String name) {
+        return find(assetCategoriesByName, name);
+    }
+
+    public Optional<PartCategory> getPartCategory(String name) {
+        return find(partCategoriesByName, name);
+    }
+
+    public Optional<MeterCategory> getMeterCategory(String name) {
+        return find(meterCategoriesByName, name);
+    }
+
+    public Optional<WorkOrderCategory> getWorkOrderCategory(String name) {
+        return find(workOrderCategoriesByName, name);
+    }
+
+    private static <T> void index(Map<String, T> map, Collection<T> entities, Function<T, String> getName) {
+        entities.forEach(entity -> {
+            String key = key(getName.apply(entity));
+            if (key != null) map.putIfAbsent(key, entity);
+        });
+    }
+
+    private static <T> Optional<T> find(Map<String, T> map, String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(map.get(key(name)));
+    }
+
+    private static <T> List<T> findAll(Map<String, T> map, Collection<String> names) {
+        List<T> result = new ArrayList<>();
+        names.forEach(name -> find(map, name).ifPresent(result::add));
+        return result;
+    }
+}
@@ -0,0 +1,41 @@
+package com.grash.advancedsearch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FullTextSearchTest {
+
+    @Test
+    void testToTsQuery_MatchesEveryWordAsAPrefix() {
+        assertEquals("pump:* & wo0012:*", FullTextSearch.toTsQuery("Pump WO0012"));
+        assertEquals("sn:* & 123:* & 45:*", FullTextSearch.toTsQuery("SN-123/45"));
+        assertEquals("compresseur:* & étage:*", FullTextSearch.toTsQuery("Compresseur  Étage"));
+    }
+
+    @Test
+    void testToTsQuery_DropsTheTsQuerySyntax() {
+        assertEquals("a:* & b:*", FullTextSearch.toTsQuery("a' | !b:*)"));
+        assertEquals("", FullTextSearch.toTsQuery(" & ( "));
+    }
+
+    @Test
+    void testToPageable_KeepsTheRankOrderUnlessSortedByAnotherField() {
+        SearchCriteria searchCriteria = new SearchCriteria();
+        searchCriteria.setDirection(Sort.Direction.DESC);
+        searchCriteria.setPageNum(2);
+        searchCriteria.setPageSize(20);
+        searchCriteria.getFilterFields().add(FilterField.builder().operation("fts").value("pump").build());
+
+        Pageable ranked = searchCriteria.toPageable();
+        searchCriteria.setSortField("title");
+        Pageable sorted = searchCriteria.toPageable();
+
+        assertTrue(ranked.getSort().isUnsorted());
+        assertEquals(2, ranked.getPageNumber());
+        assertEquals(20, ranked.getPageSize());
+        assertEquals(Sort.by(Sort.Direction.DESC, "title"), sorted.getSort());
+    }
+}
@@ -0,0 +1,66 @@
+package com.grash.advancedsearch.pagination;
+
+import com.grash.exception.CustomException;
+import com.grash.model.WorkOrder;
+import com.grash.model.enums.Priority;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.HttpStatus;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void testDecode_ReadsBackTheSortKeyOfTheLastElement() {
+        WorkOrder workOrder = new WorkOrder();
+        workOrder.setId(42L);
+        Timestamp dueDate = Timestamp.valueOf("2026-10-18 08:30:00.123456");
+        workOrder.setDueDate(dueDate);
+        workOrder.setPriority(Priority.HIGH);
+
+        KeysetCursor byDueDate = KeysetCursor.decode(KeysetCursor.after(workOrder, "dueDate", Direction.DESC).encode());
+        KeysetCursor byPriority = KeysetCursor.decode(KeysetCursor.after(workOrder, "priority", Direction.ASC).encode());
+
+        assertEquals(42L, byDueDate.getId());
+        assertEquals(Direction.DESC, byDueDate.getDirection());
+        // The microseconds stored by Postgres are kept, so no element is read twice
+        assertEquals(dueDate, byDueDate.getValue(Date.class));
+        assertEquals(Priority.HIGH, byPriority.getValue(Priority.class));
+    }
+
+    @Test
+    void testDecode_KeepsANullSortKey() {
+        WorkOrder workOrder = new WorkOrder();
+        workOrder.setId(7L);
+
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.after(workOrder, "dueDate", Direction.ASC).encode());
+
+        assertNull(cursor.getValue());
+        assertEquals(7L, cursor.getId());
+    }
+
+    @Test
+    void testDecode_RefusesATamperedCursor() {
+        CustomException exception = assertThrows(CustomException.class, () -> KeysetCursor.decode("not-a-cursor"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getHttpStatus());
+    }
+
+    @Test
+    void testMap_KeepsTheNextCursor() {
+        CursorPage<Integer> page = new CursorPage<>(Arrays.asList(1, 2), PageRequest.of(0, 2), 2, true, "next");
+
+        CursorPage<String> mapped = page.map(String::valueOf);
+
+        assertEquals(Arrays.asList("1", "2"), mapped.getContent());
+        assertEquals("next", mapped.getNextCursor());
+        assertTrue(mapped.hasNext());
+        assertFalse(mapped.isLast());
+    }
+}
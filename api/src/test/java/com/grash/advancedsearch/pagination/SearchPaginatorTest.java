@@ -0,0 +1,251 @@
+package com.grash.advancedsearch.pagination;
+
+import com.grash.advancedsearch.SearchCriteria;
+import com.grash.model.WorkOrder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Sort.Direction;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SearchPaginatorTest {
+
+    private static final Timestamp DUE_DATE = Timestamp.from(Instant.parse("2026-10-18T08:30:00Z"));
+
+    @Mock
+    private EntityManager em;
+    @Mock
+    private CriteriaBuilder cb;
+    @Mock
+    private CriteriaQuery<WorkOrder> query;
+    @Mock
+    private CriteriaQuery<Long> countQuery;
+    @Mock
+    private Root<WorkOrder> root;
+    @Mock
+    private Path<Long> id;
+    @Mock
+    private Path<Date> dueDate;
+    @Mock
+    private TypedQuery<WorkOrder> typedQuery;
+    @Mock
+    private TypedQuery<Long> countTypedQuery;
+    @Mock
+    private Predicate afterId;
+    @Mock
+    private Predicate afterKey;
+    @Mock
+    private Predicate sameKey;
+    @Mock
+    private Predicate afterInKey;
+    @Mock
+    private Predicate isNull;
+    @Mock
+    private Predicate isNotNull;
+    @Mock
+    private Predicate afterInNulls;
+    @Mock
+    private Predicate expected;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(em.getCriteriaBuilder()).thenReturn(cb);
+        when(cb.createQuery(WorkOrder.class)).thenReturn(query);
+        when(cb.createQuery(Long.class)).thenReturn(countQuery);
+        when(query.from(WorkOrder.class)).thenReturn(root);
+        when(countQuery.from(WorkOrder.class)).thenReturn(root);
+        doReturn(WorkOrder.class).when(root).getJavaType();
+        doReturn(id).when(root).get("id");
+        doReturn(dueDate).when(root).get("dueDate");
+        doReturn(Date.class).when(dueDate).getJavaType();
+        when(em.createQuery(query)).thenReturn(typedQuery);
+        when(em.createQuery(countQuery)).thenReturn(countTypedQuery);
+        when(typedQuery.setFirstResult(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(countTypedQuery.getSingleResult()).thenReturn(100L);
+        when(cb.isNull(dueDate)).thenReturn(isNull);
+        when(cb.isNotNull(dueDate)).thenReturn(isNotNull);
+    }
+
+    @Test
+    void testFindAll_AscendingCursorOnANullKeyOnlyReadsTheNullsAfterItsId() {
+        when(cb.greaterThan(id, 7L)).thenReturn(afterId);
+        when(cb.and(isNull, afterId)).thenReturn(expected);
+        results(0);
+
+        SearchPaginator.findAll(em, WorkOrder.class, null, keyset("dueDate", Direction.ASC, null, 7L));
+
+        // Nulls come last in ascending order, so nothing is left before them
+        verify(query).where(new Predicate[]{expected});
+        verify(cb, never()).isNotNull(any());
+    }
+
+    @Test
+    void testFindAll_DescendingCursorOnANullKeyReadsTheNullsAfterItsIdThenTheOtherKeys() {
+        when(cb.lessThan(id, 7L)).thenReturn(afterId);
+        when(cb.and(isNull, afterId)).thenReturn(afterInNulls);
+        when(cb.or(afterInNulls, isNotNull)).thenReturn(expected);
+        results(0);
+
+        SearchPaginator.findAll(em, WorkOrder.class, null, keyset("dueDate", Direction.DESC, null, 7L));
+
+        // Nulls come first in descending order, so all the keys follow them
+        verify(query).where(new Predicate[]{expected});
+    }
+
+    @Test
+    void testFindAll_AscendingCursorBreaksTheTiesByIdThenReadsTheNulls() {
+        when(cb.greaterThan(id, 7L)).thenReturn(afterId);
+        when(cb.greaterThan(dueDate, (Date) DUE_DATE)).thenReturn(afterKey);
+        when(cb.equal(dueDate, (Object) DUE_DATE)).thenReturn(sameKey);
+        when(cb.and(sameKey, afterId)).thenReturn(afterInKey);
+        when(cb.or(afterKey, afterInKey, isNull)).thenReturn(expected);
+        results(0);
+
+        SearchPaginator.findAll(em, WorkOrder.class, null,
+                keyset("dueDate", Direction.ASC, DUE_DATE.toInstant().toString(), 7L));
+
+        verify(query).where(new Predicate[]{expected});
+    }
+
+    @Test
+    void testFindAll_DescendingCursorBreaksTheTiesByIdWithoutTheNulls() {
+        when(cb.lessThan(id, 7L)).thenReturn(afterId);
+        when(cb.lessThan(dueDate, (Date) DUE_DATE)).thenReturn(afterKey);
+        when(cb.equal(dueDate, (Object) DUE_DATE)).thenReturn(sameKey);
+        when(cb.and(sameKey, afterId)).thenReturn(afterInKey);
+        when(cb.or(afterKey, afterInKey)).thenReturn(expected);
+        results(0);
+
+        SearchPaginator.findAll(em, WorkOrder.class, null,
+                keyset("dueDate", Direction.DESC, DUE_DATE.toInstant().toString(), 7L));
+
+        verify(query).where(new Predicate[]{expected});
+        verify(cb, never()).isNull(any());
+    }
+
+    @Test
+    void testFindAll_CursorOnTheIdOnlyComparesTheId() {
+        when(cb.greaterThan(id, 7L)).thenReturn(expected);
+        results(0);
+
+        SearchPaginator.findAll(em, WorkOrder.class, null, keyset("id", Direction.ASC, "7", 7L));
+
+        verify(query).where(new Predicate[]{expected});
+        verify(root, never()).get("dueDate");
+    }
+
+    @Test
+    void testFindAll_DeducesTheTotalFromTheLastPageOfAnOffset() {
+        results(1);
+
+        CursorPage<WorkOrder> page = SearchPaginator.findAll(em, WorkOrder.class, null, offset(2, 2, false));
+
+        assertEquals(5, page.getTotalElements());
+        assertFalse(page.hasNext());
+        assertNull(page.getNextCursor());
+        verify(em, never()).createQuery(countQuery);
+    }
+
+    @Test
+    void testFindAll_CountsTheTotalPastTheLastPageOfAnOffset() {
+        results(0);
+
+        CursorPage<WorkOrder> page = SearchPaginator.findAll(em, WorkOrder.class, null, offset(2, 2, false));
+
+        assertEquals(100, page.getTotalElements());
+        verify(countTypedQuery).getSingleResult();
+    }
+
+    @Test
+    void testFindAll_CountsTheTotalOnTheLastPageOfACursorOnly() {
+        results(1);
+
+        CursorPage<WorkOrder> first = SearchPaginator.findAll(em, WorkOrder.class, null, keyset("id", Direction.ASC));
+        verify(em, never()).createQuery(countQuery);
+        // A later cursor skipped the previous elements, so the page can't give the total
+        when(cb.greaterThan(id, 7L)).thenReturn(afterId);
+        CursorPage<WorkOrder> later = SearchPaginator.findAll(em, WorkOrder.class, null,
+                keyset("id", Direction.ASC, "7", 7L));
+
+        assertEquals(1, first.getTotalElements());
+        assertEquals(100, later.getTotalElements());
+    }
+
+    @Test
+    void testFindAll_SkippedCountGivesALowerBoundAndTheNextCursor() {
+        results(3);
+        SearchCriteria searchCriteria = keyset("id", Direction.ASC);
+        searchCriteria.setSkipCount(true);
+
+        CursorPage<WorkOrder> page = SearchPaginator.findAll(em, WorkOrder.class, null, searchCriteria);
+
+        assertEquals(2, page.getContent().size());
+        assertTrue(page.hasNext());
+        // Only the elements read so far are known to exist
+        assertEquals(2, page.getTotalElements());
+        assertEquals(2L, KeysetCursor.decode(page.getNextCursor()).getId());
+        verify(typedQuery).setMaxResults(3);
+        verify(em, never()).createQuery(countQuery);
+    }
+
+    @Test
+    void testFindAll_SkippedCountOnAnOffsetCountsThePreviousPages() {
+        results(3);
+
+        CursorPage<WorkOrder> page = SearchPaginator.findAll(em, WorkOrder.class, null, offset(1, 2, true));
+
+        assertEquals(4, page.getTotalElements());
+        assertTrue(page.hasNext());
+        assertNull(page.getNextCursor());
+        verify(typedQuery).setFirstResult(2);
+        verify(em, never()).createQuery(countQuery);
+    }
+
+    private void results(int count) {
+        List<WorkOrder> workOrders = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            WorkOrder workOrder = new WorkOrder();
+            workOrder.setId(i);
+            workOrders.add(workOrder);
+        }
+        when(typedQuery.getResultList()).thenReturn(workOrders);
+    }
+
+    private static SearchCriteria keyset(String sortField, Direction direction) {
+        SearchCriteria searchCriteria = new SearchCriteria();
+        searchCriteria.setSortField(sortField);
+        searchCriteria.setDirection(direction);
+        searchCriteria.setPageSize(2);
+        searchCriteria.setCursor("");
+        return searchCriteria;
+    }
+
+    private static SearchCriteria keyset(String sortField, Direction direction, String value, Long id) {
+        SearchCriteria searchCriteria = keyset(sortField, direction);
+        searchCriteria.setCursor(new KeysetCursor(sortField, direction, value, id).encode());
+        return searchCriteria;
+    }
+
+    private static SearchCriteria offset(int pageNum, int pageSize, boolean skipCount) {
+        SearchCriteria searchCriteria = new SearchCriteria();
+        searchCriteria.setPageNum(pageNum);
+        searchCriteria.setPageSize(pageSize);
+        searchCriteria.setSkipCount(skipCount);
+        return searchCriteria;
+    }
+}
@@ -0,0 +1,199 @@
+package com.grash.aspect;
+
+import com.grash.exception.CustomException;
+import com.grash.model.*;
+import com.grash.model.abstracts.CompanyAudit;
+import com.grash.model.enums.RoleType;
+import com.grash.security.CustomUserDetail;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.lang.reflect.Field;
+import java.util.*;
+
+import static org.apache.commons.lang3.reflect.FieldUtils.getAllFields;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TenantAspectTest {
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EntityManager entityManager;
+    @Mock
+    private TypedQuery<Long> query;
+    @Mock
+    private JoinPoint joinPoint;
+    @Mock
+    private MethodSignature methodSignature;
+
+    private TenantAspect tenantAspect;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        MockitoAnnotations.openMocks(this);
+        tenantAspect = new TenantAspect(entityManager);
+        when(entityManager.getMetamodel().entity(Asset.class).getName()).thenReturn("Asset");
+        when(entityManager.getMetamodel().entity(Team.class).getName()).thenReturn("Team");
+        when(entityManager.createQuery(anyString(), eq(Long.class))).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.setFlushMode(any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(Collections.emptyList());
+        when(joinPoint.getSignature()).thenReturn(methodSignature);
+        when(methodSignature.getMethod()).thenReturn(TenantAspectTest.class.getDeclaredMethod("create", Object.class,
+                String.class));
+
+        Company company = new Company();
+        company.setId(1L);
+        Role role = new Role();
+        role.setRoleType(RoleType.ROLE_CLIENT);
+        OwnUser user = new OwnUser();
+        user.setId(1L);
+        user.setCompany(company);
+        user.setRole(role);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                CustomUserDetail.builder().user(user).build(), null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testValidateTenant_ChecksTheReferencesWithOneQueryPerEntityClass() {
+        List<Body> bodies = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            bodies.add(body(i));
+        }
+        when(joinPoint.getArgs()).thenReturn(new Object[]{bodies, "query param"});
+
+        tenantAspect.validateTenant(joinPoint);
+
+        verify(entityManager, times(2)).createQuery(anyString(), eq(Long.class));
+        verify(query).setParameter(eq("ids"), argThat(ids -> ((Collection<?>) ids).size() == 100));
+        verify(entityManager, never()).find(any(), any());
+    }
+
+    @Test
+    void testValidateTenant_RefusesAReferenceToAnotherCompany() {
+        when(joinPoint.getArgs()).thenReturn(new Object[]{body(1), "query param"});
+        when(query.getResultList()).thenReturn(Collections.singletonList(1L));
+
+        CustomException exception = assertThrows(CustomException.class, () -> tenantAspect.validateTenant(joinPoint));
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getHttpStatus());
+    }
+
+    @Test
+    void testValidateTenant_SkipsTheCheckWithoutAnAuthenticatedUser() {
+        SecurityContextHolder.clearContext();
+        when(joinPoint.getArgs()).thenReturn(new Object[]{body(1), "query param"});
+
+        tenantAspect.validateTenant(joinPoint);
+
+        verify(entityManager, never()).createQuery(anyString(), eq(Long.class));
+    }
+
+    @Test
+    void testReferencePlan_LeavesOutTheFieldsThatCannotHoldAReference() {
+        Map<Class<?>, Set<Long>> idsByType = new HashMap<>();
+        Body body = body(7);
+        body.names = Arrays.asList("a", "b");
+
+        ReferencePlan.of(Body.class).collect(body, idsByType);
+
+        assertEquals(Collections.singleton(7L), idsByType.get(Asset.class));
+        assertEquals(new HashSet<>(Arrays.asList(1007L, 2007L)), idsByType.get(Team.class));
+        assertTrue(ReferencePlan.of(Scalars.class).isEmpty());
+    }
+
+    @Test
+    void testReferencePlan_ReadsTheSameReferencesAsTheReflectiveScan() {
+        List<Body> bodies = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            bodies.add(body(i));
+        }
+
+        assertEquals(reflectiveScan(bodies), planScan(ReferencePlan.of(Body.class), bodies));
+    }
+
+    /**
+     * The scan done before the plans, reading every field of every element through reflection
+     */
+    private Map<Class<?>, Set<Long>> reflectiveScan(List<Body> bodies) {
+        Map<Class<?>, Set<Long>> idsByType = new HashMap<>();
+        for (Body body : bodies) {
+            for (Field field : getAllFields(body.getClass())) {
+                field.setAccessible(true);
+                Object value;
+                try {
+                    value = field.get(body);
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+                List<?> values = value instanceof List ? (List<?>) value : Collections.singletonList(value);
+                for (Object element : values) {
+                    if (element instanceof CompanyAudit) {
+                        idsByType.computeIfAbsent(element.getClass(), type -> new HashSet<>())
+                                .add(((CompanyAudit) element).getId());
+                    }
+                }
+            }
+        }
+        return idsByType;
+    }
+
+    private Map<Class<?>, Set<Long>> planScan(ReferencePlan plan, List<Body> bodies) {
+        Map<Class<?>, Set<Long>> idsByType = new HashMap<>();
+        bodies.forEach(body -> plan.collect(body, idsByType));
+        return idsByType;
+    }
+
+    private Body body(long id) {
+        Body body = new Body();
+        body.title = "Body " + id;
+        body.dueDate = new Date();
+        body.asset = new Asset();
+        body.asset.setId(id);
+        Team first = new Team();
+        first.setId(1000 + id);
+        Team second = new Team();
+        second.setId(2000 + id);
+        body.teams = Arrays.asList(first, second);
+        return body;
+    }
+
+    @SuppressWarnings("unused")
+    private void create(@RequestBody Object body, String param) {
+    }
+
+    private static class Body {
+        private String title;
+        private Date dueDate;
+        private Asset asset;
+        private List<Team> teams;
+        private OwnUser primaryUser;
+        private List<String> names;
+    }
+
+    private static class Scalars {
+        private static final long serialVersionUID = 1L;
+        private String title;
+        private Long count;
+        private RoleType roleType;
+        private List<Long> ids;
+    }
+}
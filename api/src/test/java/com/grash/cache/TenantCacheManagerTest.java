@@ -0,0 +1,79 @@
+package com.grash.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantCacheManagerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TenantCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        AnalyticsCacheProperties properties = new AnalyticsCacheProperties();
+        properties.getCaches().put("weighted", new AnalyticsCacheProperties.Spec(null, 5L, null, null));
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TenantCacheManager(properties, meterRegistry);
+    }
+
+    @Test
+    void testEvictCompany_OnlyDropsEntriesOfThatCompany() {
+        Cache first = cacheManager.getCache("first");
+        Cache second = cacheManager.getCache("second");
+        first.put(new TenantCacheKey(1L, "a"), "1a");
+        second.put(new TenantCacheKey(1L, "a"), "1a");
+        first.put(new TenantCacheKey(2L, "a"), "2a");
+
+        cacheManager.evictCompany(1L);
+
+        assertNull(first.get(new TenantCacheKey(1L, "a")));
+        assertNull(second.get(new TenantCacheKey(1L, "a")));
+        assertEquals("2a", first.get(new TenantCacheKey(2L, "a")).get());
+    }
+
+    @Test
+    void testGet_LoadsOnceAndRecordsStats() {
+        Cache cache = cacheManager.getCache("stats");
+        TenantCacheKey key = new TenantCacheKey(1L, "a");
+
+        assertEquals("value", cache.get(key, () -> "value"));
+        assertEquals("value", cache.get(key, () -> "other"));
+
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "stats").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.puts").tag("cache", "stats").functionCounter().count());
+    }
+
+    @Test
+    void testWeightedCache_WeighsResultsByTheirSize() {
+        TenantCache cache = (TenantCache) cacheManager.getCache("weighted");
+        cache.put(new TenantCacheKey(1L, "small"), ResponseEntity.ok(Arrays.asList(1, 2)));
+        cache.put(new TenantCacheKey(1L, "large"), ResponseEntity.ok(Arrays.asList(1, 2, 3, 4, 5, 6)));
+
+        ((com.github.benmanes.caffeine.cache.Cache<?, ?>) nativeCompanyCache(cache, 1L)).cleanUp();
+
+        assertNull(cache.get(new TenantCacheKey(1L, "large")));
+        assertNotNull(cache.get(new TenantCacheKey(1L, "small")));
+    }
+
+    @Test
+    void testSpec_FallsBackOnDefaults() {
+        AnalyticsCacheProperties.Spec spec = new AnalyticsCacheProperties().getSpec("unknown");
+
+        assertEquals(Duration.ofMinutes(20), spec.getExpireAfterWrite());
+        assertEquals(200L, spec.getMaximumSize());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object nativeCompanyCache(TenantCache cache, Long companyId) {
+        return ((com.github.benmanes.caffeine.cache.Cache<Long, Object>) cache.getNativeCache()).getIfPresent(companyId);
+    }
+}
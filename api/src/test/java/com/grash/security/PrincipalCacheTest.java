@@ -0,0 +1,92 @@
+package com.grash.security;
+
+import com.grash.model.OwnUser;
+import com.grash.model.Role;
+import com.grash.model.enums.PermissionEntity;
+import com.grash.model.enums.RoleType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private final PrincipalCache principalCache = new PrincipalCache(100, Duration.ofMinutes(5));
+
+    @Test
+    void testGet_LoadsOncePerSubjectAndIssueTime() {
+        AtomicInteger loads = new AtomicInteger();
+        Date issuedAt = new Date(1000);
+
+        PrincipalSnapshot first = principalCache.get("John@Doe.com", issuedAt, () -> load(1L, loads));
+        PrincipalSnapshot second = principalCache.get("john@doe.com", issuedAt, () -> load(1L, loads));
+        principalCache.get("john@doe.com", new Date(2000), () -> load(1L, loads));
+
+        assertSame(first, second);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testInvalidateUser_OnlyEvictsThatUser() {
+        AtomicInteger loads = new AtomicInteger();
+        Date issuedAt = new Date(1000);
+        principalCache.get("a@b.com", issuedAt, () -> load(1L, loads));
+        principalCache.get("c@d.com", issuedAt, () -> load(2L, loads));
+
+        principalCache.invalidateUser(1L);
+        principalCache.get("a@b.com", issuedAt, () -> load(1L, loads));
+        principalCache.get("c@d.com", issuedAt, () -> load(2L, loads));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testOf_CopiesThePermissionsOutOfTheEntity() {
+        Role role = new Role();
+        role.setRoleType(RoleType.ROLE_CLIENT);
+        role.getViewPermissions().add(PermissionEntity.ASSETS);
+        OwnUser user = new OwnUser();
+        user.setId(1L);
+        user.setRole(role);
+
+        PrincipalSnapshot copy = PrincipalSnapshot.of(user);
+        role.getViewPermissions().clear();
+
+        assertEquals(Collections.singleton(PermissionEntity.ASSETS), copy.getViewPermissions());
+        assertThrows(UnsupportedOperationException.class,
+                () -> copy.getViewPermissions().add(PermissionEntity.ASSETS));
+    }
+
+    @Test
+    void testGetUser_LoadsTheUserOnceAndOnlyWhenNeeded() {
+        AtomicInteger loads = new AtomicInteger();
+        OwnUser user = new OwnUser();
+        CustomUserDetail userDetail = CustomUserDetail.builder()
+                .snapshot(load(1L, new AtomicInteger()))
+                .userLoader(() -> {
+                    loads.incrementAndGet();
+                    return user;
+                })
+                .build();
+
+        assertEquals("ROLE_CLIENT", userDetail.getAuthorities().iterator().next().getAuthority());
+        assertEquals(0, loads.get());
+        assertSame(user, userDetail.getUser());
+        assertSame(user, userDetail.getUser());
+        assertEquals(1, loads.get());
+    }
+
+    private PrincipalSnapshot load(Long id, AtomicInteger loads) {
+        loads.incrementAndGet();
+        Role role = new Role();
+        role.setRoleType(RoleType.ROLE_CLIENT);
+        OwnUser user = new OwnUser();
+        user.setId(id);
+        user.setRole(role);
+        return PrincipalSnapshot.of(user);
+    }
+}
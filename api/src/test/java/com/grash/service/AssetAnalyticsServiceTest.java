@@ -0,0 +1,66 @@
+package com.grash.service;
+
+import com.grash.dto.DateRange;
+import com.grash.dto.analytics.assets.DowntimesAndCostsByAsset;
+import com.grash.model.Asset;
+import com.grash.model.AssetDowntime;
+import com.grash.repository.WorkOrderAnalyticsRepository;
+import com.grash.utils.Helper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class AssetAnalyticsServiceTest {
+
+    @Mock
+    private WorkOrderAnalyticsRepository workOrderAnalyticsRepository;
+    @Mock
+    private AssetService assetService;
+    @Mock
+    private AssetDowntimeService assetDowntimeService;
+
+    @InjectMocks
+    private AssetAnalyticsService assetAnalyticsService;
+
+    private final Date start = new Date(1_700_000_000_000L);
+    private final DateRange dateRange = DateRange.builder().start(start).end(Helper.addSeconds(start, 86400)).build();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testGetDowntimesAndCosts_CountsOnlyTheDowntimesWithinTheRange() {
+        Asset asset = new Asset();
+        asset.setId(1L);
+        when(assetService.findByCompanyAndBefore(any(), any())).thenReturn(Collections.singletonList(asset));
+        when(assetDowntimeService.findByCompany(1L)).thenReturn(Arrays.asList(
+                // running since before the range
+                downtime(asset, Helper.addSeconds(start, -7200), 0),
+                // over before the range
+                downtime(asset, Helper.addSeconds(start, -7200), 3600),
+                // started before the range and over within it
+                downtime(asset, Helper.addSeconds(start, -600), 1800),
+                downtime(asset, Helper.addSeconds(start, 3600), 600)));
+
+        Collection<DowntimesAndCostsByAsset> result = assetAnalyticsService.getDowntimesAndCosts(1L, dateRange, true);
+
+        assertEquals(1800, result.iterator().next().getDuration());
+    }
+
+    private AssetDowntime downtime(Asset asset, Date startsOn, long duration) {
+        return AssetDowntime.builder().asset(asset).startsOn(startsOn).duration(duration).build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.grash.service;
+
+import com.grash.event.CompanyMetricsChangedEvent;
+import com.grash.mapper.AssetMapper;
+import com.grash.mapper.ChildCounts;
+import com.grash.model.Asset;
+import com.grash.model.AssetDowntime;
+import com.grash.model.Company;
+import com.grash.model.enums.AssetStatus;
+import com.grash.repository.AssetHierarchyRepository;
+import com.grash.repository.AssetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.MessageSource;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AssetServiceTest {
+
+    @Mock
+    private AssetRepository assetRepository;
+    @Mock
+    private AssetHierarchyRepository assetHierarchyRepository;
+    @Mock
+    private AssetDowntimeService assetDowntimeService;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private MessageSource messageSource;
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+    @Mock
+    private AssetMapper assetMapper;
+
+    @InjectMocks
+    private AssetService assetService;
+
+    private Company company;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        company = new Company();
+        company.setId(1L);
+        when(messageSource.getMessage(anyString(), any(), any())).thenReturn("message");
+    }
+
+    @Test
+    void testStopDownTime_StopsTheWholeSubtreeWithoutWalkingIt() {
+        Asset asset = asset(1L, AssetStatus.DOWN);
+        when(assetRepository.findById(1L)).thenReturn(Optional.of(asset));
+        AssetDowntime downtime = AssetDowntime.builder().asset(asset)
+                .startsOn(new Date(System.currentTimeMillis() - 60_000)).build();
+        AssetDowntime childDowntime = AssetDowntime.builder().asset(asset(2L, AssetStatus.DOWN))
+                .startsOn(new Date(System.currentTimeMillis() - 120_000)).build();
+        when(assetDowntimeService.findRunningInSubtree(1L)).thenReturn(Arrays.asList(downtime, childDowntime));
+
+        assetService.stopDownTime(1L, Locale.ENGLISH);
+
+        assertTrue(downtime.getDuration() >= 60);
+        assertTrue(childDowntime.getDuration() >= 120);
+        verify(assetDowntimeService).saveAll(Arrays.asList(downtime, childDowntime));
+        verify(assetRepository).updateSubtreeStatus(eq(1L), eq(AssetStatus.OPERATIONAL), any());
+        verify(assetRepository, never()).findByParentAsset_Id(anyLong(), any());
+        assertEquals(AssetStatus.OPERATIONAL, asset.getStatus());
+        verify(applicationEventPublisher, times(1)).publishEvent(any(CompanyMetricsChangedEvent.class));
+    }
+
+    @Test
+    void testTriggerDownTime_OpensADowntimeOnEveryAncestorAndKeepsTheDownStatuses() {
+        Asset root = asset(1L, AssetStatus.EMERGENCY_SHUTDOWN);
+        Asset parent = asset(2L, AssetStatus.OPERATIONAL);
+        Asset asset = asset(3L, AssetStatus.OPERATIONAL);
+        when(assetRepository.findById(3L)).thenReturn(Optional.of(asset));
+        when(assetHierarchyRepository.findAncestors(3L)).thenReturn(Arrays.asList(root, parent));
+
+        assetService.triggerDownTime(3L, Locale.ENGLISH, AssetStatus.DOWN);
+
+        ArgumentCaptor<AssetDowntime> downtimes = ArgumentCaptor.forClass(AssetDowntime.class);
+        verify(assetDowntimeService, times(3)).create(downtimes.capture());
+        assertEquals(Arrays.asList(asset, root, parent), downtimes.getAllValues().stream()
+                .map(AssetDowntime::getAsset).collect(Collectors.toList()));
+        assertEquals(AssetStatus.EMERGENCY_SHUTDOWN, root.getStatus());
+        assertEquals(AssetStatus.DOWN, parent.getStatus());
+        assertEquals(AssetStatus.DOWN, asset.getStatus());
+        verify(applicationEventPublisher, times(1)).publishEvent(any(CompanyMetricsChangedEvent.class));
+    }
+
+    @Test
+    void testCountDescendants_SkipsTheQueryWithoutIds() {
+        when(assetHierarchyRepository.findIdsWithChildren(Arrays.asList(1L, 2L)))
+                .thenReturn(Collections.singletonList(2L));
+
+        assertTrue(assetService.countDescendants(Collections.emptyList()).isEmpty());
+        assertEquals(Collections.singleton(2L), assetService.findIdsWithChildren(Arrays.asList(1L, 2L)));
+        verify(assetHierarchyRepository, never()).countDescendants(any());
+    }
+
+    @Test
+    void testToShowDtos_CountsTheChildrenOfThePageWithOneQuery() {
+        List<Asset> assets = Arrays.asList(asset(1L, AssetStatus.OPERATIONAL), asset(2L, AssetStatus.OPERATIONAL),
+                asset(3L, AssetStatus.OPERATIONAL));
+        when(assetRepository.countChildren(new HashSet<>(Arrays.asList(1L, 2L, 3L))))
+                .thenReturn(Collections.singletonList(childCount(2L, 4L)));
+        ArgumentCaptor<ChildCounts> childCounts = ArgumentCaptor.forClass(ChildCounts.class);
+
+        assetService.toShowDtos(assets);
+
+        verify(assetRepository, times(1)).countChildren(any());
+        verify(assetRepository, never()).countByParentAsset_Id(anyLong());
+        verify(assetMapper, times(3)).toShowDto(any(Asset.class), childCounts.capture());
+        assertFalse(childCounts.getValue().hasChildren(1L));
+        assertEquals(4L, childCounts.getValue().getChildCount(2L));
+    }
+
+    private AssetRepository.ChildCount childCount(Long parentId, Long children) {
+        return new AssetRepository.ChildCount() {
+            @Override
+            public Long getParentId() {
+                return parentId;
+            }
+
+            @Override
+            public Long getChildren() {
+                return children;
+            }
+        };
+    }
+
+    private Asset asset(Long id, AssetStatus status) {
+        Asset asset = new Asset();
+        asset.setId(id);
+        asset.setName("Asset " + id);
+        asset.setStatus(status);
+        asset.setCompany(company);
+        return asset;
+    }
+}
@@ -0,0 +1,130 @@
+package com.grash.service;
+
+import com.grash.event.CompanyMetricsChangedEvent;
+import com.grash.repository.CompanyDailyMetricRepository;
+import com.grash.repository.CompanyDirtyDayRepository;
+import com.grash.utils.Helper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Publishes the event from a transaction going through the Spring transaction infrastructure, which the listener
+ * only hears once it committed
+ */
+class DailyMetricsEventTest {
+
+    private final CompanyDirtyDayRepository companyDirtyDayRepository = mock(CompanyDirtyDayRepository.class);
+    private final RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+    private AnnotationConfigApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.register(TransactionConfig.class);
+        context.registerBean(PlatformTransactionManager.class, () -> transactionManager);
+        context.registerBean(DailyMetricsService.class, () -> new DailyMetricsService(
+                mock(CompanyDailyMetricRepository.class), companyDirtyDayRepository));
+        context.refresh();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void testOnMetricsChanged_MarksTheDaysInANewTransactionOnceTheWriteCommitted() {
+        List<String> marks = new ArrayList<>();
+        doAnswer(invocation -> {
+            marks.add(transactionManager.events.toString());
+            return null;
+        }).when(companyDirtyDayRepository).mark(any(), any());
+        Date day = Helper.localDateToDate(LocalDate.of(2024, 1, 1));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            context.publishEvent(new CompanyMetricsChangedEvent(1L, day));
+            verifyNoInteractions(companyDirtyDayRepository);
+        });
+
+        verify(companyDirtyDayRepository).mark(eq(1L), eq(day));
+        // Joining the committed transaction would leave the insert without a transaction to run in
+        assertEquals(List.of("[begin, commit, suspend, begin]"), marks);
+        assertEquals(List.of("begin", "commit", "suspend", "begin", "commit", "resume"), transactionManager.events);
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class TransactionConfig {
+    }
+
+    /**
+     * Records the transactions it begins, commits, suspends and resumes on the current thread
+     */
+    private static class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+        private final List<String> events = new ArrayList<>();
+        private boolean active;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return active;
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            events.add("begin");
+            active = true;
+        }
+
+        @Override
+        protected Object doSuspend(Object transaction) {
+            events.add("suspend");
+            active = false;
+            return Boolean.TRUE;
+        }
+
+        @Override
+        protected void doResume(Object transaction, Object suspendedResources) {
+            events.add("resume");
+            active = true;
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            events.add("commit");
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            events.add("rollback");
+        }
+
+        @Override
+        protected void doCleanupAfterCompletion(Object transaction) {
+            active = false;
+        }
+    }
+}
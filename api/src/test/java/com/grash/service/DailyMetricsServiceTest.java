@@ -0,0 +1,123 @@
+package com.grash.service;
+
+import com.grash.dto.DateRange;
+import com.grash.event.CompanyMetricsChangedEvent;
+import com.grash.model.CompanyDailyMetric;
+import com.grash.model.CompanyDailyMetricId;
+import com.grash.model.CompanyDirtyDay;
+import com.grash.model.enums.Status;
+import com.grash.repository.CompanyDailyMetricRepository;
+import com.grash.repository.CompanyDirtyDayRepository;
+import com.grash.utils.Helper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DailyMetricsServiceTest {
+
+    @Mock
+    private CompanyDailyMetricRepository companyDailyMetricRepository;
+
+    @Mock
+    private CompanyDirtyDayRepository companyDirtyDayRepository;
+
+    @InjectMocks
+    private DailyMetricsService dailyMetricsService;
+
+    private final LocalDate monday = LocalDate.of(2024, 1, 1);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testGetBuckets_SumsRowsOfEachBucket() {
+        List<CompanyDailyMetric> rows = Arrays.asList(
+                row(monday, 2, 100),
+                row(monday.plusDays(6), 1, 50),
+                row(monday.plusDays(7), 3, 10));
+        when(companyDailyMetricRepository.findByCompanyAndDayRange(eq(1L), any(), any())).thenReturn(rows);
+
+        List<CompanyDailyMetric> buckets = dailyMetricsService.getBuckets(1L, Arrays.asList(monday,
+                monday.plusDays(7), monday.plusDays(14), monday.plusDays(21)));
+
+        assertEquals(3, buckets.size());
+        assertEquals(3, buckets.get(0).getWoCompleted());
+        assertEquals(150, buckets.get(0).getLaborSeconds());
+        assertEquals(3, buckets.get(1).getWoCompleted());
+        assertEquals(0, buckets.get(2).getWoCompleted());
+        assertEquals(Helper.localDateToDate(monday.plusDays(14)), buckets.get(2).getId().getDay());
+    }
+
+    @Test
+    void testGetDateRangeBuckets_AtMostFifteenBucketsIncludingEndDate() {
+        LocalDate end = monday.plusDays(59);
+        when(companyDailyMetricRepository.findByCompanyAndDayRange(eq(1L), any(), any()))
+                .thenReturn(Collections.singletonList(row(end, 1, 0)));
+
+        List<CompanyDailyMetric> buckets = dailyMetricsService.getDateRangeBuckets(1L,
+                DateRange.builder().start(Helper.localDateToDate(monday)).end(Helper.localDateToDate(end)).build());
+
+        assertEquals(15, buckets.size());
+        assertEquals(Helper.localDateToDate(monday.plusDays(4)), buckets.get(1).getId().getDay());
+        assertEquals(1, buckets.get(14).getWoCompleted());
+    }
+
+    @Test
+    void testOnMetricsChanged_MarksEveryDayOfTheEvent() {
+        dailyMetricsService.onMetricsChanged(new CompanyMetricsChangedEvent(1L,
+                Helper.localDateToDate(monday), Helper.localDateToDate(monday.plusDays(1)), null));
+
+        verify(companyDirtyDayRepository).mark(1L, Helper.localDateToDate(monday));
+        verify(companyDirtyDayRepository).mark(1L, Helper.localDateToDate(monday.plusDays(1)));
+    }
+
+    @Test
+    void testRebuildDirty_SkipsADayLockedByAnotherNode() {
+        CompanyDailyMetricId dirtyDay = new CompanyDailyMetricId(1L, Helper.localDateToDate(monday));
+        when(companyDirtyDayRepository.findForUpdate(1L, dirtyDay.getDay())).thenReturn(Optional.empty());
+
+        assertFalse(dailyMetricsService.rebuildDirty(dirtyDay));
+
+        verify(companyDailyMetricRepository, never()).rebuild(any(), any(), any(), anyInt());
+        verify(companyDirtyDayRepository, never()).delete(any());
+    }
+
+    @Test
+    void testRebuildDirty_RebuildsTheDayThenClearsIt() {
+        CompanyDailyMetricId dirtyDay = new CompanyDailyMetricId(1L, Helper.localDateToDate(monday));
+        CompanyDirtyDay locked = new CompanyDirtyDay(dirtyDay);
+        when(companyDirtyDayRepository.findForUpdate(1L, dirtyDay.getDay())).thenReturn(Optional.of(locked));
+
+        assertTrue(dailyMetricsService.rebuildDirty(dirtyDay));
+
+        verify(companyDailyMetricRepository).rebuild(1L, Helper.localDateToDate(monday),
+                Helper.localDateToDate(monday.plusDays(1)), Status.COMPLETE.ordinal());
+        verify(companyDirtyDayRepository).delete(locked);
+    }
+
+    private CompanyDailyMetric row(LocalDate day, long completed, long laborSeconds) {
+        CompanyDailyMetric metric = new CompanyDailyMetric();
+        metric.setId(new CompanyDailyMetricId(1L, Helper.localDateToDate(day)));
+        metric.setWoCompleted(completed);
+        metric.setLaborSeconds(laborSeconds);
+        return metric;
+    }
+}
@@ -0,0 +1,84 @@
+package com.grash.service;
+
+import com.grash.model.ScheduledDeadline;
+import com.grash.model.enums.DeadlineType;
+import com.grash.repository.ScheduledDeadlineRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DeadlineDispatcherTest {
+
+    @Mock
+    private ScheduledDeadlineRepository scheduledDeadlineRepository;
+    @Mock
+    private DeadlineHandler handler;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DeadlineDispatcher deadlineDispatcher;
+    private ScheduledDeadline deadline;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(handler.getType()).thenReturn(DeadlineType.SUBSCRIPTION_END);
+        deadlineDispatcher = new DeadlineDispatcher(scheduledDeadlineRepository, Collections.singletonList(handler),
+                transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(deadlineDispatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(deadlineDispatcher, "leaseMinutes", 5);
+        ReflectionTestUtils.setField(deadlineDispatcher, "maxAttempts", 2);
+        ReflectionTestUtils.invokeMethod(deadlineDispatcher, "init");
+        deadline = new ScheduledDeadline();
+        deadline.setId(1L);
+        deadline.setType(DeadlineType.SUBSCRIPTION_END);
+        deadline.setTargetId(42L);
+        deadline.setDueAt(new Date(System.currentTimeMillis() - 1000));
+        when(scheduledDeadlineRepository.findDueForUpdate(any(), eq(10))).thenReturn(Collections.singletonList(deadline));
+    }
+
+    @Test
+    void testDispatchDue_HandsTheDeadlineToItsHandlerAndDeletesIt() {
+        deadlineDispatcher.dispatchDue();
+
+        verify(handler).handle(42L);
+        assertTrue(deadline.getDueAt().after(new Date()));
+        verify(scheduledDeadlineRepository).deleteIfDueAt(1L, deadline.getDueAt());
+        assertEquals(1, meterRegistry.counter("deadlines.fired", "type", "SUBSCRIPTION_END").count());
+    }
+
+    @Test
+    void testDispatchDue_KeepsTheDeadlineOfAFailedHandlerUntilItsLeaseEnds() {
+        doThrow(new IllegalStateException("down")).when(handler).handle(42L);
+
+        deadlineDispatcher.dispatchDue();
+
+        assertEquals(1, deadline.getAttempts());
+        verify(scheduledDeadlineRepository, never()).deleteIfDueAt(anyLong(), any());
+        assertEquals(1, meterRegistry.counter("deadlines.failures", "type", "SUBSCRIPTION_END").count());
+    }
+
+    @Test
+    void testDispatchDue_GivesUpAfterTheMaxAttempts() {
+        deadline.setAttempts(1);
+        doThrow(new IllegalStateException("down")).when(handler).handle(42L);
+
+        deadlineDispatcher.dispatchDue();
+
+        verify(scheduledDeadlineRepository).deleteIfDueAt(1L, deadline.getDueAt());
+    }
+}
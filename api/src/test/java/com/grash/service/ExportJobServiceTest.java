@@ -0,0 +1,90 @@
+package com.grash.service;
+
+import com.grash.exception.CustomException;
+import com.grash.factory.StorageServiceFactory;
+import com.grash.model.Company;
+import com.grash.model.ExportJob;
+import com.grash.model.OwnUser;
+import com.grash.model.enums.ExportEntity;
+import com.grash.repository.ExportJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ExportJobServiceTest {
+
+    @Mock
+    private ExportJobRepository exportJobRepository;
+    @Mock
+    private ExportService exportService;
+    @Mock
+    private StorageServiceFactory storageServiceFactory;
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ExportJobService exportJobService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(exportJobService, "workers", 1);
+        ReflectionTestUtils.setField(exportJobService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(exportJobService, "maxJobsPerCompany", 1);
+        ReflectionTestUtils.invokeMethod(exportJobService, "init");
+        when(exportJobRepository.save(any(ExportJob.class))).thenAnswer(invocation -> {
+            ExportJob job = invocation.getArgument(0);
+            if (job.getId() == null) job.setId(1L);
+            return job;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(exportJobService, "shutdown");
+    }
+
+    @Test
+    void testSubmit_RejectsJobsAboveTheCompanyLimit() {
+        // the unfinished jobs are counted in the database, whatever the node that created them
+        when(exportJobRepository.countByCompany_IdAndStatusIn(eq(1L), any())).thenReturn(1L);
+        when(exportJobRepository.countByCompany_IdAndStatusIn(eq(2L), any())).thenReturn(0L);
+
+        CustomException exception = assertThrows(CustomException.class,
+                () -> exportJobService.submit(user(1L), ExportEntity.PART));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getHttpStatus());
+        verify(exportJobRepository, never()).save(any(ExportJob.class));
+        // other companies are not limited
+        exportJobService.submit(user(2L), ExportEntity.PART);
+
+        InOrder inOrder = inOrder(exportJobRepository);
+        inOrder.verify(exportJobRepository).lockCompany(2L);
+        inOrder.verify(exportJobRepository).countByCompany_IdAndStatusIn(eq(2L), any());
+        inOrder.verify(exportJobRepository).save(any(ExportJob.class));
+    }
+
+    private OwnUser user(Long companyId) {
+        Company company = new Company();
+        company.setId(companyId);
+        OwnUser user = new OwnUser();
+        user.setId(companyId);
+        user.setCompany(company);
+        return user;
+    }
+}
@@ -0,0 +1,111 @@
+package com.grash.service;
+
+import com.grash.model.Asset;
+import com.grash.model.Location;
+import com.grash.model.enums.ExportEntity;
+import com.grash.repository.*;
+import com.grash.utils.CsvFileGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.MessageSource;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExportServiceTest {
+
+    @Mock
+    private WorkOrderRepository workOrderRepository;
+    @Mock
+    private AssetRepository assetRepository;
+    @Mock
+    private AssetDowntimeRepository assetDowntimeRepository;
+    @Mock
+    private LocationRepository locationRepository;
+    @Mock
+    private PartRepository partRepository;
+    @Mock
+    private MeterRepository meterRepository;
+    @Mock
+    private MessageSource messageSource;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private EntityManager em;
+
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(messageSource.getMessage(anyString(), any(), any(Locale.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        exportService = new ExportService(workOrderRepository, assetRepository, assetDowntimeRepository,
+                locationRepository, partRepository, meterRepository, new CsvFileGenerator(messageSource),
+                transactionManager, em);
+        ReflectionTestUtils.setField(exportService, "pageSize", 2);
+    }
+
+    @Test
+    void testWriteLocations_PagesAfterTheLastIdOfEachPage() throws IOException {
+        when(locationRepository.findByCompany_IdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(location(3L), location(5L)));
+        when(locationRepository.findByCompany_IdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(5L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(location(8L)));
+        when(locationRepository.findByCompany_IdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(8L), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        exportService.write(ExportEntity.LOCATION, 1L, Locale.ENGLISH, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("ID,Name"));
+        assertTrue(lines[3].startsWith("8,Location 8"));
+        verify(em, times(2)).clear();
+    }
+
+    @Test
+    void testWriteAssets_SumsDowntimesOncePerPage() throws IOException {
+        Asset asset = new Asset();
+        asset.setId(4L);
+        asset.setName("Pump");
+        when(assetRepository.findByCompany_IdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(asset));
+        AssetDowntimeRepository.AssetDuration duration = mock(AssetDowntimeRepository.AssetDuration.class);
+        when(duration.getAssetId()).thenReturn(4L);
+        when(duration.getDuration()).thenReturn(120L);
+        when(assetDowntimeRepository.sumDurationByAssetIds(Collections.singletonList(4L)))
+                .thenReturn(Collections.singletonList(duration));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        exportService.write(ExportEntity.ASSET, 1L, Locale.ENGLISH, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].endsWith(",120"));
+        verify(assetDowntimeRepository, times(1)).sumDurationByAssetIds(anyCollection());
+    }
+
+    private Location location(Long id) {
+        Location location = new Location();
+        location.setId(id);
+        location.setName("Location " + id);
+        return location;
+    }
+}
@@ -0,0 +1,278 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.dto.GrafanaAlert;
+import com.grash.dto.GrafanaWebhookRequest;
+import com.grash.dto.GrafanaWebhookResponse;
+import com.grash.dto.WebhookConfigMiniDTO;
+import com.grash.exception.CustomException;
+import com.grash.model.Company;
+import com.grash.model.WebhookAlert;
+import com.grash.model.Workflow;
+import com.grash.model.enums.workflow.WFMainCondition;
+import com.grash.repository.UserRepository;
+import com.grash.repository.WebhookAlertRepository;
+import com.grash.security.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GrafanaWebhookServiceTest {
+
+    private static final String API_KEY = "api-key";
+
+    @Mock
+    private WebhookConfigService webhookConfigService;
+    @Mock
+    private WorkflowService workflowService;
+    @Mock
+    private EmailService2 emailService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private CompanyService companyService;
+    @Mock
+    private WebhookAlertRepository webhookAlertRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GrafanaWebhookService grafanaWebhookService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        RateLimitProperties rateLimitProperties = new RateLimitProperties();
+        grafanaWebhookService = new GrafanaWebhookService(webhookConfigService, workflowService, emailService,
+                new RateLimiterService(rateLimitProperties, meterRegistry), rateLimitProperties, userRepository,
+                companyService, webhookAlertRepository, objectMapper, transactionManager, meterRegistry);
+        when(webhookConfigService.resolveApiKey(API_KEY)).thenReturn(new WebhookConfigMiniDTO(1L, true, null, null));
+        when(companyService.findById(anyLong())).thenAnswer(invocation -> {
+            Company company = new Company();
+            company.setId(invocation.getArgument(0));
+            return Optional.of(company);
+        });
+        Workflow workflow = new Workflow();
+        workflow.setId(1L);
+        when(workflowService.findMatching(eq(WFMainCondition.WEBHOOK), eq(1L), any()))
+                .thenReturn(Collections.singletonList(workflow));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(grafanaWebhookService, "shutdown");
+    }
+
+    @Test
+    void testProcessWebhooks_AcknowledgesTheAlertsOnceStoredAndCountsTheRepeats() {
+        init(1);
+        when(webhookAlertRepository.insertUnlessRepeated(eq(1L), anyString(), anyString(), any(), any()))
+                .thenReturn(1, 0, 1);
+
+        GrafanaWebhookResponse response = grafanaWebhookService.processWebhooks(API_KEY,
+                Arrays.asList(request("a", "firing"), request("a", "firing"), request("b", "firing")));
+
+        assertEquals("2 alerts queued, 1 grouped with a previous occurrence", response.getMessage());
+        verify(webhookAlertRepository, times(3)).insertUnlessRepeated(eq(1L), anyString(), anyString(), any(),
+                any());
+        assertEquals(2, meterRegistry.counter("webhooks.alerts", "result", "queued").count());
+        assertEquals(1, meterRegistry.counter("webhooks.alerts", "result", "grouped").count());
+    }
+
+    @Test
+    void testProcessWebhooks_RunsOneWorkflowPerDistinctAlertOfA5kAlertBurst() {
+        init(2);
+        // The alert table, a repeat of a stored alert being dropped by its unique key
+        Map<String, WebhookAlert> table = new LinkedHashMap<>();
+        when(webhookAlertRepository.insertUnlessRepeated(eq(1L), anyString(), anyString(), any(), any()))
+                .thenAnswer(invocation -> {
+                    synchronized (table) {
+                        if (table.containsKey(invocation.<String>getArgument(1))) return 0;
+                        WebhookAlert alert = new WebhookAlert();
+                        alert.setId((long) table.size() + 1);
+                        alert.setCompanyId(1L);
+                        alert.setPayload(invocation.getArgument(2));
+                        alert.setReceivedAt(invocation.getArgument(3));
+                        alert.setNextAttemptAt(invocation.getArgument(3));
+                        table.put(invocation.getArgument(1), alert);
+                        return 1;
+                    }
+                });
+        when(webhookAlertRepository.findDueForUpdate(any(), anyInt())).thenAnswer(invocation -> {
+            synchronized (table) {
+                return table.values().stream().filter(alert -> alert.getProcessedAt() == null
+                                && !alert.getNextAttemptAt().after(invocation.getArgument(0)))
+                        .limit(invocation.<Integer>getArgument(1)).collect(Collectors.toList());
+            }
+        });
+        doAnswer(invocation -> {
+            synchronized (table) {
+                table.values().stream().filter(alert -> invocation.<Collection<Long>>getArgument(0)
+                        .contains(alert.getId())).forEach(alert -> alert.setProcessedAt(invocation.getArgument(1)));
+            }
+            return null;
+        }).when(webhookAlertRepository).markProcessed(any(), any());
+        Map<String, Integer> runs = new ConcurrentHashMap<>();
+        doAnswer(invocation -> runs.merge(invocation.<GrafanaAlert>getArgument(1).getAlertId(), 1, Integer::sum))
+                .when(workflowService).runWebhookWorkflow(any(), any(), any());
+
+        // 1000 distinct alerts firing 5 times each, in 10 payloads of 500
+        for (int payload = 0; payload < 10; payload++) {
+            List<GrafanaWebhookRequest> requests = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                requests.add(request("alert-" + (payload * 500 + i) % 1000, "firing"));
+            }
+            assertTrue(grafanaWebhookService.processWebhooks(API_KEY, requests).isSuccess());
+        }
+
+        verify(webhookAlertRepository, times(5000)).insertUnlessRepeated(eq(1L), anyString(), anyString(), any(),
+                any());
+        verify(workflowService, timeout(10_000).times(1000)).runWebhookWorkflow(any(), any(), any());
+        assertEquals(1000, runs.size());
+        assertTrue(runs.values().stream().allMatch(count -> count == 1));
+        assertEquals(1000, meterRegistry.counter("webhooks.alerts", "result", "queued").count());
+        assertEquals(4000, meterRegistry.counter("webhooks.alerts", "result", "grouped").count());
+    }
+
+    @Test
+    void testProcessWebhook_KeepsTheFiringAndResolvedAlertsApart() {
+        init(1);
+        when(webhookAlertRepository.insertUnlessRepeated(eq(1L), anyString(), anyString(), any(), any()))
+                .thenReturn(1, 0, 1);
+
+        assertEquals("Alert queued", grafanaWebhookService.processWebhook(API_KEY, request("a", "firing"))
+                .getMessage());
+        assertEquals("Alert grouped with a previous occurrence",
+                grafanaWebhookService.processWebhook(API_KEY, request("a", "firing")).getMessage());
+        assertEquals("Alert queued", grafanaWebhookService.processWebhook(API_KEY, request("a", "resolved"))
+                .getMessage());
+
+        ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+        verify(webhookAlertRepository, times(3)).insertUnlessRepeated(eq(1L), keys.capture(), anyString(), any(),
+                any());
+        assertEquals(keys.getAllValues().get(0), keys.getAllValues().get(1));
+        assertNotEquals(keys.getAllValues().get(0), keys.getAllValues().get(2));
+    }
+
+    @Test
+    void testDrain_RunsTheWorkflowOfEachClaimedAlertAndMarksThemProcessed() throws Exception {
+        init(1);
+        List<WebhookAlert> alerts = Arrays.asList(alert(1L, "a", 0), alert(2L, "b", 0), alert(3L, "c", 0));
+        when(webhookAlertRepository.findDueForUpdate(any(), anyInt())).thenReturn(alerts);
+
+        grafanaWebhookService.drain();
+
+        ArgumentCaptor<GrafanaAlert> runAlerts = ArgumentCaptor.forClass(GrafanaAlert.class);
+        verify(workflowService, times(3)).runWebhookWorkflow(any(), runAlerts.capture(), any());
+        assertEquals(Arrays.asList("a", "b", "c"), runAlerts.getAllValues().stream().map(GrafanaAlert::getAlertId)
+                .collect(Collectors.toList()));
+        verify(webhookAlertRepository).markProcessed(eq(Arrays.asList(1L, 2L, 3L)), any());
+        // The company of the batch is loaded once and each claimed alert is leased
+        verify(companyService, times(1)).findById(1L);
+        assertTrue(alerts.stream().allMatch(alert -> alert.getAttempts() == 1
+                && alert.getNextAttemptAt().after(new Date())));
+    }
+
+    @Test
+    void testDrain_DropsAnAlertInterruptedTooManyTimes() throws Exception {
+        init(1);
+        when(webhookAlertRepository.findDueForUpdate(any(), anyInt()))
+                .thenReturn(Collections.singletonList(alert(1L, "a", 3)));
+
+        grafanaWebhookService.drain();
+
+        verify(workflowService, never()).runWebhookWorkflow(any(), any(), any());
+        verify(webhookAlertRepository).markProcessed(eq(Collections.singletonList(1L)), any());
+    }
+
+    @Test
+    void testProcessAll_ForgetsTheAlertsWhoseWindowIsOver() {
+        init(1);
+        long before = System.currentTimeMillis();
+
+        grafanaWebhookService.processAll();
+
+        ArgumentCaptor<Date> windowStart = ArgumentCaptor.forClass(Date.class);
+        verify(webhookAlertRepository).deleteExpired(windowStart.capture());
+        assertTrue(windowStart.getValue().getTime() <= before - Duration.ofMinutes(10).toMillis() + 1000);
+    }
+
+    @Test
+    void testProcessWebhook_RejectsADisabledWebhookBeforeQueueing() {
+        init(1);
+        when(webhookConfigService.resolveApiKey("disabled")).thenReturn(new WebhookConfigMiniDTO(2L, false, null, null));
+
+        CustomException exception = assertThrows(CustomException.class,
+                () -> grafanaWebhookService.processWebhook("disabled", request("a", "firing")));
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getHttpStatus());
+        assertEquals(0, meterRegistry.counter("webhooks.alerts", "result", "queued").count());
+    }
+
+    @Test
+    void testProcessWebhook_LimitsTheCompanyWithTheLimitsOfItsWebhookConfig() {
+        init(1);
+        when(webhookConfigService.resolveApiKey("limited")).thenReturn(new WebhookConfigMiniDTO(3L, true, 2, null));
+        when(webhookConfigService.resolveApiKey("unlimited")).thenReturn(new WebhookConfigMiniDTO(4L, true, 0, 0));
+
+        grafanaWebhookService.processWebhook("limited", request("a", "firing"));
+        grafanaWebhookService.processWebhook("limited", request("b", "firing"));
+        CustomException exception = assertThrows(CustomException.class,
+                () -> grafanaWebhookService.processWebhook("limited", request("c", "firing")));
+        for (int i = 0; i < 100; i++) {
+            grafanaWebhookService.processWebhook("unlimited", request("alert-" + i, "firing"));
+        }
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getHttpStatus());
+        assertEquals(1, meterRegistry.counter("rate_limits.rejected", "scope", "webhook_company").count());
+    }
+
+    private void init(int threads) {
+        ReflectionTestUtils.setField(grafanaWebhookService, "threads", threads);
+        ReflectionTestUtils.setField(grafanaWebhookService, "batchSize", 100);
+        ReflectionTestUtils.setField(grafanaWebhookService, "leaseMinutes", 5);
+        ReflectionTestUtils.setField(grafanaWebhookService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(grafanaWebhookService, "deduplicationWindow", Duration.ofMinutes(10));
+        ReflectionTestUtils.invokeMethod(grafanaWebhookService, "init");
+    }
+
+    private WebhookAlert alert(Long id, String alertId, int attempts) throws Exception {
+        WebhookAlert alert = new WebhookAlert();
+        alert.setId(id);
+        alert.setCompanyId(1L);
+        alert.setPayload(objectMapper.writeValueAsString(GrafanaAlert.fromRequest(request(alertId, "firing"))));
+        alert.setReceivedAt(new Date());
+        alert.setNextAttemptAt(new Date());
+        alert.setAttempts(attempts);
+        return alert;
+    }
+
+    private GrafanaWebhookRequest request(String alertId, String status) {
+        GrafanaWebhookRequest request = new GrafanaWebhookRequest();
+        request.setAlertId(alertId);
+        request.setAlertName("HighTemperature");
+        request.setStatus(status);
+        request.setSeverity("critical");
+        request.setDashboardId("dashboard");
+        request.setPanelId("1");
+        return request;
+    }
+}
@@ -0,0 +1,235 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.dto.imports.ImportError;
+import com.grash.dto.imports.ImportResponse;
+import com.grash.dto.imports.PartImportDTO;
+import com.grash.exception.CustomException;
+import com.grash.factory.StorageServiceFactory;
+import com.grash.model.Company;
+import com.grash.model.ImportJob;
+import com.grash.model.ImportJobError;
+import com.grash.model.OwnUser;
+import com.grash.model.Role;
+import com.grash.model.enums.ImportEntity;
+import com.grash.model.enums.ImportJobStatus;
+import com.grash.model.enums.RoleType;
+import com.grash.repository.ImportJobErrorRepository;
+import com.grash.repository.ImportJobRepository;
+import com.grash.utils.CsvImportParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ImportJobServiceTest {
+
+    @Mock
+    private ImportJobRepository importJobRepository;
+    @Mock
+    private ImportJobErrorRepository importJobErrorRepository;
+    @Mock
+    private ImportService importService;
+    @Mock
+    private StorageServiceFactory storageServiceFactory;
+    @Mock
+    private StorageService storageService;
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ImportJobService importJobService;
+
+    private final ImportJob job = new ImportJob();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CsvImportParser csvImportParser = new CsvImportParser(new ObjectMapper());
+        ReflectionTestUtils.invokeMethod(csvImportParser, "init");
+        importJobService = new ImportJobService(importJobRepository, importJobErrorRepository, importService,
+                csvImportParser, storageServiceFactory, messagingTemplate, transactionManager);
+        ReflectionTestUtils.setField(importJobService, "chunkSize", 500);
+        ReflectionTestUtils.setField(importJobService, "maxStoredErrors", 1000);
+        Company company = new Company();
+        company.setId(1L);
+        Role role = new Role();
+        role.setRoleType(RoleType.ROLE_CLIENT);
+        OwnUser user = new OwnUser();
+        user.setId(1L);
+        user.setCompany(company);
+        user.setRole(role);
+        job.setId(1L);
+        job.setEntity(ImportEntity.PART);
+        job.setUser(user);
+        job.setCompany(company);
+        job.setFilePath("1/imports/parts.csv");
+        when(importJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(importJobRepository.save(any(ImportJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(storageServiceFactory.getStorageService()).thenReturn(storageService);
+        when(importService.importRows(eq(ImportEntity.PART), anyList(), any(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    int rows = invocation.<List<?>>getArgument(1).size();
+                    ImportResponse response = ImportResponse.builder()
+                            .created(rows - invocation.<Integer>getArgument(3)).build();
+                    invocation.<ImportService.Checkpoint>getArgument(4).save(response, rows);
+                    return response;
+                });
+    }
+
+    @Test
+    void testRun_ResumesAfterTheCheckpoint() {
+        file("Name,Cost\nPart A,1\nPart B,2\nPart C,3\n");
+        job.setTotalRows(3);
+        job.setProcessedRows(1);
+
+        run();
+
+        ArgumentCaptor<List<Object>> rows = ArgumentCaptor.forClass(List.class);
+        verify(importService).importRows(eq(ImportEntity.PART), rows.capture(), any(), eq(0), any());
+        assertEquals(List.of("Part B", "Part C"), rows.getValue().stream()
+                .map(row -> ((PartImportDTO) row).getName()).collect(Collectors.toList()));
+        verify(importJobRepository).addProgress(1L, 3L, 0, 2L, 0L, 0L);
+        assertEquals(ImportJobStatus.COMPLETE, job.getStatus());
+        assertEquals(2, job.getCreated());
+    }
+
+    @Test
+    void testRun_ReportsTheErrorsWithTheirLineInTheFile() {
+        file("Nom,Cout\nPart A,1\nPart B,not a number\nPart C,3\n");
+        when(importService.importRows(eq(ImportEntity.PART), anyList(), any(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    ImportResponse response = ImportResponse.builder().created(1)
+                            .errors(Collections.singletonList(new ImportError(2, "Part with same barcode exists")))
+                            .build();
+                    invocation.<ImportService.Checkpoint>getArgument(4).save(response, 2);
+                    return response;
+                });
+
+        run();
+
+        ArgumentCaptor<List<ImportJobError>> errors = ArgumentCaptor.forClass(List.class);
+        verify(importJobErrorRepository).saveAll(errors.capture());
+        assertEquals(List.of(2L, 3L), errors.getValue().stream().map(ImportJobError::getRowNumber)
+                .collect(Collectors.toList()));
+        verify(importJobRepository).addProgress(1L, 3L, 0, 1L, 0L, 2L);
+        assertEquals(3, job.getTotalRows());
+        assertEquals(2, job.getErrorCount());
+    }
+
+    @Test
+    void testRun_SavesTheCheckpointOfEveryRowImportedOneByOne() {
+        file("Name,Cost\nPart A,1\nPart B,2\nPart C,3\n");
+        when(importService.importRows(eq(ImportEntity.PART), anyList(), any(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    // the chunk was rejected by the database, its rows are committed one by one
+                    ImportService.Checkpoint checkpoint = invocation.getArgument(4);
+                    checkpoint.save(ImportResponse.builder().created(1).build(), 1);
+                    checkpoint.save(ImportResponse.builder()
+                            .errors(Collections.singletonList(new ImportError(2, "duplicate key"))).build(), 2);
+                    checkpoint.save(ImportResponse.builder().created(1).build(), 3);
+                    return ImportResponse.builder().created(2)
+                            .errors(Collections.singletonList(new ImportError(2, "duplicate key"))).build();
+                });
+
+        run();
+
+        InOrder inOrder = inOrder(importJobRepository);
+        inOrder.verify(importJobRepository).addProgress(1L, 0L, 1, 1L, 0L, 0L);
+        inOrder.verify(importJobRepository).addProgress(1L, 0L, 2, 0L, 0L, 1L);
+        inOrder.verify(importJobRepository).addProgress(1L, 3L, 0, 1L, 0L, 0L);
+        assertEquals(2, job.getCreated());
+        assertEquals(1, job.getErrorCount());
+    }
+
+    @Test
+    void testRun_ResumesAfterTheRowsAlreadyImportedOneByOne() {
+        file("Name,Cost\nPart A,1\nPart B,2\nPart C,3\nPart D,4\n");
+        job.setTotalRows(4);
+        job.setProcessedRows(1);
+        job.setChunkProgress(1);
+        job.setCreated(2);
+
+        run();
+
+        ArgumentCaptor<List<Object>> rows = ArgumentCaptor.forClass(List.class);
+        // the chunk is read again from its start, the rows imported before the interruption are skipped
+        verify(importService).importRows(eq(ImportEntity.PART), rows.capture(), any(), eq(1), any());
+        assertEquals(List.of("Part B", "Part C", "Part D"), rows.getValue().stream()
+                .map(row -> ((PartImportDTO) row).getName()).collect(Collectors.toList()));
+        verify(importJobRepository).addProgress(1L, 4L, 0, 2L, 0L, 0L);
+        assertEquals(ImportJobStatus.COMPLETE, job.getStatus());
+        assertEquals(4, job.getCreated());
+        assertEquals(0, job.getChunkProgress());
+    }
+
+    @Test
+    void testSubmit_RejectsJobsAboveTheCompanyLimitBeforeUploadingTheFile() {
+        ReflectionTestUtils.setField(importJobService, "maxJobsPerCompany", 2);
+        // the unfinished jobs are counted in the database, whatever the node that created or resumed them
+        when(importJobRepository.countByCompany_IdAndStatusIn(eq(1L), any())).thenReturn(2L);
+
+        CustomException exception = assertThrows(CustomException.class, () ->
+                importJobService.submit(job.getUser(), ImportEntity.PART, mock(MultipartFile.class)));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getHttpStatus());
+        InOrder inOrder = inOrder(importJobRepository);
+        inOrder.verify(importJobRepository).lockCompany(1L);
+        inOrder.verify(importJobRepository).countByCompany_IdAndStatusIn(eq(1L), any());
+        verify(importJobRepository, never()).save(any(ImportJob.class));
+        verify(storageServiceFactory, never()).getStorageService();
+    }
+
+    @Test
+    void testResumeInterruptedJobs_SkipsTheJobsClaimedByAnotherNode() {
+        when(importJobRepository.findStaleIds(any(), any())).thenReturn(Collections.singletonList(1L));
+        when(importJobRepository.claim(eq(1L), any(), any())).thenReturn(0);
+
+        importJobService.resumeInterruptedJobs();
+
+        verify(importJobRepository).failStale(any(), any(), anyInt(), eq(ImportJobStatus.FAILED), anyString());
+        verify(importJobRepository, never()).findById(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testTouchActiveJobs_KeepsTheJobsOfThisNodeAliveOutsideTheClusteredJob() {
+        ((Set<Long>) ReflectionTestUtils.getField(importJobService, "activeJobIds")).add(1L);
+
+        importJobService.resumeInterruptedJobs();
+        verify(importJobRepository, never()).touch(any());
+
+        importJobService.touchActiveJobs();
+        verify(importJobRepository).touch(List.of(1L));
+    }
+
+    private void file(String content) {
+        when(storageService.openStream("1/imports/parts.csv"))
+                .thenAnswer(invocation -> new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void run() {
+        ReflectionTestUtils.invokeMethod(importJobService, "run", 1L);
+    }
+}
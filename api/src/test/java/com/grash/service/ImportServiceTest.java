@@ -0,0 +1,147 @@
+package com.grash.service;
+
+import com.grash.dto.imports.ImportResponse;
+import com.grash.dto.imports.PartImportDTO;
+import com.grash.exception.CustomException;
+import com.grash.model.Company;
+import com.grash.model.Part;
+import com.grash.model.enums.ImportEntity;
+import com.grash.utils.ImportLookups;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class ImportServiceTest {
+
+    @Mock
+    private PartService partService;
+    @Mock
+    private ImportLookupService importLookupService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private EntityManager em;
+
+    @InjectMocks
+    private ImportService importService;
+
+    private final Company company = new Company();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(importService, "chunkSize", 2);
+        company.setId(1L);
+        when(importLookupService.loadForParts(any(), any())).thenAnswer(invocation -> new ImportLookups());
+    }
+
+    @Test
+    void testImportParts_LoadsTheLookupsOncePerChunk() {
+        ImportResponse response = importService.importParts(parts(5), company);
+
+        assertEquals(5, response.getCreated());
+        verify(importLookupService, times(3)).loadForParts(any(), any());
+        verify(em, times(3)).flush();
+        verify(em, times(3)).clear();
+    }
+
+    @Test
+    void testImportParts_ReportsRowErrorsWithoutAbortingTheFile() {
+        List<PartImportDTO> parts = parts(3);
+        doThrow(new CustomException("Part with same barcode exists: 42", HttpStatus.NOT_ACCEPTABLE))
+                .when(partService).importPart(any(), same(parts.get(1)), any());
+
+        ImportResponse response = importService.importParts(parts, company);
+
+        assertEquals(2, response.getCreated());
+        assertEquals(1, response.getErrors().size());
+        assertEquals(2, response.getErrors().get(0).getRow());
+        assertEquals("Part with same barcode exists: 42", response.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void testImportParts_UpdatesTheExistingEntities() {
+        Part existing = new Part();
+        existing.setId(7L);
+        when(partService.findByIdsAndCompany(Collections.singletonList(7L), 1L))
+                .thenReturn(Collections.singletonList(existing));
+        List<PartImportDTO> parts = parts(2);
+        parts.get(0).setId(7L);
+
+        ImportResponse response = importService.importParts(parts, company);
+
+        assertEquals(1, response.getUpdated());
+        assertEquals(1, response.getCreated());
+        verify(partService).importPart(same(existing), same(parts.get(0)), any());
+    }
+
+    @Test
+    void testImportParts_RetriesTheRowsOfAChunkRejectedWhenFlushed() {
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .doNothing()
+                .doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(em).flush();
+
+        ImportResponse response = importService.importParts(parts(2), company);
+
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getErrors().size());
+        assertEquals(2, response.getErrors().get(0).getRow());
+        verify(importLookupService).loadForParts(argThat(chunk -> chunk.size() == 2), any());
+        verify(importLookupService, times(2)).loadForParts(argThat(chunk -> chunk.size() == 1), any());
+    }
+
+    @Test
+    void testImportRows_CommitsACheckpointWithEveryRowImportedOneByOne() {
+        // the chunk, the first row and its checkpoint are flushed, the second row is rejected
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .doNothing()
+                .doNothing()
+                .doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(em).flush();
+        List<String> checkpoints = new ArrayList<>();
+
+        importService.importRows(ImportEntity.PART, parts(2), company, 0, (imported, importedRows) ->
+                checkpoints.add(importedRows + ":" + imported.getCreated() + ":" + imported.getErrors().size()));
+
+        assertEquals(List.of("1:1:0", "2:0:1"), checkpoints);
+        // the chunk, the two rows and the checkpoint of the rejected row
+        verify(transactionManager, times(4)).getTransaction(any());
+    }
+
+    @Test
+    void testImportRows_SkipsTheRowsImportedBeforeTheResume() {
+        List<PartImportDTO> parts = parts(3);
+        List<String> checkpoints = new ArrayList<>();
+
+        ImportResponse response = importService.importRows(ImportEntity.PART, parts, company, 1,
+                (imported, importedRows) -> checkpoints.add(importedRows + ":" + imported.getCreated()));
+
+        assertEquals(2, response.getCreated());
+        assertEquals(List.of("3:2"), checkpoints);
+        verify(partService, never()).importPart(any(), same(parts.get(0)), any());
+    }
+
+    private List<PartImportDTO> parts(int count) {
+        PartImportDTO[] parts = new PartImportDTO[count];
+        for (int i = 0; i < count; i++) parts[i] = PartImportDTO.builder().name("Part " + i).build();
+        return Arrays.asList(parts);
+    }
+}
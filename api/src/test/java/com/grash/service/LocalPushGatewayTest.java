@@ -0,0 +1,30 @@
+package com.grash.service;
+
+import io.github.jav.exposerversdk.ExpoPushMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalPushGatewayTest {
+
+    @Test
+    void testSend_KeepsOnlyTheLastMessages() {
+        LocalPushGateway localPushGateway = new LocalPushGateway();
+        List<ExpoPushMessage> messages = new ArrayList<>();
+        for (int i = 0; i < LocalPushGateway.MAX_SENT_MESSAGES + 10; i++) {
+            ExpoPushMessage message = new ExpoPushMessage();
+            message.getTo().add("ExponentPushToken[" + i + "]");
+            messages.add(message);
+        }
+
+        localPushGateway.send(messages);
+
+        List<ExpoPushMessage> sentMessages = localPushGateway.getSentMessages();
+        assertEquals(LocalPushGateway.MAX_SENT_MESSAGES, sentMessages.size());
+        assertEquals("ExponentPushToken[10]", sentMessages.get(0).getTo().get(0));
+        assertSame(messages.get(messages.size() - 1), sentMessages.get(sentMessages.size() - 1));
+    }
+}
@@ -0,0 +1,144 @@
+package com.grash.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grash.model.Notification;
+import com.grash.model.NotificationOutboxEntry;
+import com.grash.model.OwnUser;
+import com.grash.model.enums.NotificationChannel;
+import com.grash.repository.NotificationOutboxRepository;
+import com.grash.repository.NotificationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.mail.MessagingException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationOutboxDispatcherTest {
+
+    @Mock
+    private NotificationOutboxRepository notificationOutboxRepository;
+    @Mock
+    private NotificationRepository notificationRepository;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private EmailService2 emailService2;
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationOutboxDispatcher notificationOutboxDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        notificationOutboxDispatcher = new NotificationOutboxDispatcher(notificationOutboxRepository,
+                notificationRepository, notificationService, emailService2, messagingTemplate, new ObjectMapper(),
+                transactionManager, meterRegistry, new MockEnvironment());
+        ReflectionTestUtils.setField(notificationOutboxDispatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(notificationOutboxDispatcher, "leaseMinutes", 5);
+        ReflectionTestUtils.setField(notificationOutboxDispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(notificationOutboxDispatcher, "baseBackoffSeconds", 10);
+        ReflectionTestUtils.setField(notificationOutboxDispatcher, "maxBackoffMinutes", 60);
+        ReflectionTestUtils.invokeMethod(notificationOutboxDispatcher, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(notificationOutboxDispatcher, "shutdown");
+    }
+
+    @Test
+    void testDrain_SendsTheWebSocketNotificationsOfTheBatchAndDeletesTheirEntries() {
+        NotificationOutboxEntry first = entry(1L, NotificationChannel.WEBSOCKET, "{\"notificationIds\":[10,11]}");
+        NotificationOutboxEntry second = entry(2L, NotificationChannel.WEBSOCKET, "{\"notificationIds\":[12]}");
+        when(notificationOutboxRepository.findDueForUpdate(eq(NotificationChannel.WEBSOCKET.ordinal()), any(), eq(10)))
+                .thenReturn(Arrays.asList(first, second));
+        when(notificationRepository.findAllById(anyList())).thenAnswer(invocation ->
+                invocation.<List<Long>>getArgument(0).stream().map(this::notification)
+                        .collect(Collectors.toList()));
+
+        notificationOutboxDispatcher.drain(NotificationChannel.WEBSOCKET);
+
+        verify(messagingTemplate, times(3)).convertAndSend(eq("/notifications/5"), any(Notification.class));
+        assertEquals(2, first.getAttempts() + second.getAttempts());
+        assertEquals(2, meterRegistry.counter("notifications.outbox.delivered", "channel", "WEBSOCKET").count());
+        assertEquals(2, meterRegistry.timer("notifications.outbox.latency", "channel", "WEBSOCKET").count());
+    }
+
+    @Test
+    void testDrain_RetriesAFailedEmailWithBackoffWithoutHoldingBackTheOthers() throws MessagingException {
+        NotificationOutboxEntry failing = entry(1L, NotificationChannel.EMAIL,
+                "{\"to\":[\"a@test.com\"],\"subject\":\"A\",\"htmlBody\":\"a\"}");
+        NotificationOutboxEntry sent = entry(2L, NotificationChannel.EMAIL,
+                "{\"to\":[\"b@test.com\"],\"subject\":\"B\",\"htmlBody\":\"b\"}");
+        when(notificationOutboxRepository.findDueForUpdate(eq(NotificationChannel.EMAIL.ordinal()), any(), eq(10)))
+                .thenReturn(Arrays.asList(failing, sent));
+        doThrow(new MessagingException("SMTP down")).when(emailService2)
+                .sendHtmlMessage(eq(new String[]{"a@test.com"}), anyString(), anyString());
+
+        long before = System.currentTimeMillis();
+        notificationOutboxDispatcher.drain(NotificationChannel.EMAIL);
+
+        verify(emailService2).sendHtmlMessage(new String[]{"b@test.com"}, "B", "b");
+        verify(notificationOutboxRepository).deleteByIdIn(Collections.singletonList(2L));
+        verify(notificationOutboxRepository).save(failing);
+        assertNull(failing.getDeadAt());
+        assertEquals("SMTP down", failing.getLastError());
+        assertTrue(failing.getNextAttemptAt().getTime() >= before + TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Test
+    void testRetryOrDeadLetter_DeadLettersAfterTheMaxAttempts() {
+        NotificationOutboxEntry entry = entry(1L, NotificationChannel.PUSH, "{}");
+        entry.setAttempts(3);
+
+        notificationOutboxDispatcher.retryOrDeadLetter(entry, new IllegalStateException("Expo down"));
+
+        assertNotNull(entry.getDeadAt());
+        verify(notificationOutboxRepository).save(entry);
+        assertEquals(1, meterRegistry.counter("notifications.outbox.dead_lettered", "channel", "PUSH").count());
+    }
+
+    @Test
+    void testGetBackoffMillis_DoublesUpToTheMax() {
+        assertEquals(TimeUnit.SECONDS.toMillis(10), notificationOutboxDispatcher.getBackoffMillis(1));
+        assertEquals(TimeUnit.SECONDS.toMillis(40), notificationOutboxDispatcher.getBackoffMillis(3));
+        assertEquals(TimeUnit.MINUTES.toMillis(60), notificationOutboxDispatcher.getBackoffMillis(15));
+    }
+
+    private NotificationOutboxEntry entry(Long id, NotificationChannel channel, String payload) {
+        NotificationOutboxEntry entry = new NotificationOutboxEntry(channel, payload);
+        entry.setId(id);
+        entry.setCreatedAt(new Date(System.currentTimeMillis() - 1000));
+        return entry;
+    }
+
+    private Notification notification(Long id) {
+        OwnUser user = new OwnUser();
+        user.setId(5L);
+        Notification notification = new Notification("message", user, null, null);
+        notification.setId(id);
+        return notification;
+    }
+}
@@ -0,0 +1,118 @@
+package com.grash.service;
+
+import com.grash.dto.notification.PushNotificationPayload;
+import com.grash.factory.PushGatewayFactory;
+import com.grash.mapper.NotificationMapper;
+import com.grash.model.OwnUser;
+import com.grash.model.PushNotificationTicket;
+import com.grash.model.PushNotificationToken;
+import com.grash.model.enums.PushGatewayType;
+import com.grash.repository.NotificationRepository;
+import com.grash.repository.PushNotificationTicketRepository;
+import io.github.jav.exposerversdk.ExpoPushMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+    @Mock
+    private NotificationMapper notificationMapper;
+    @Mock
+    private PushNotificationTokenService pushNotificationTokenService;
+    @Mock
+    private NotificationOutboxService notificationOutboxService;
+    @Mock
+    private PushNotificationTicketRepository pushNotificationTicketRepository;
+    @Mock
+    private EntityManager em;
+
+    private final LocalPushGateway localPushGateway = new LocalPushGateway();
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        PushGatewayFactory pushGatewayFactory = new PushGatewayFactory(new ExpoPushGateway(), localPushGateway);
+        ReflectionTestUtils.setField(pushGatewayFactory, "pushGatewayType", PushGatewayType.LOCAL);
+        notificationService = new NotificationService(notificationRepository, notificationMapper,
+                pushNotificationTokenService, notificationOutboxService, pushGatewayFactory,
+                pushNotificationTicketRepository, em);
+    }
+
+    @Test
+    void testSendPushNotifications_ResolvesAllTheTokensInOneQuery() throws Exception {
+        when(pushNotificationTokenService.findByUsers(anyCollection())).thenReturn(Arrays.asList(
+                token(1L, "ExponentPushToken[a]"), token(2L, "ExponentPushToken[b]"), token(3L, "not-a-token")));
+
+        notificationService.sendPushNotifications(Arrays.asList(
+                new PushNotificationPayload(Arrays.asList(1L, 2L, 3L), "Title", "Body", null),
+                new PushNotificationPayload(Collections.singletonList(2L), "Other", "Body", null)))
+                .get(1, TimeUnit.SECONDS);
+
+        verify(pushNotificationTokenService, times(1)).findByUsers(new HashSet<>(Arrays.asList(1L, 2L, 3L)));
+        verify(pushNotificationTokenService, never()).findByUser(any());
+        assertEquals(Arrays.asList("ExponentPushToken[a]", "ExponentPushToken[b]", "ExponentPushToken[b]"),
+                localPushGateway.getSentMessages().stream().map(message -> message.getTo().get(0))
+                        .collect(Collectors.toList()));
+        assertEquals(Arrays.asList("Title", "Title", "Other"), localPushGateway.getSentMessages().stream()
+                .map(ExpoPushMessage::getTitle).collect(Collectors.toList()));
+        assertEquals(3, savedTickets().size());
+    }
+
+    @Test
+    void testSendPushNotifications_RemovesTheUnregisteredTokens() throws Exception {
+        when(pushNotificationTokenService.findByUsers(anyCollection())).thenReturn(Arrays.asList(
+                token(1L, "ExponentPushToken[a]"), token(2L, "ExponentPushToken[b]")));
+        localPushGateway.unregister("ExponentPushToken[b]");
+
+        notificationService.sendPushNotifications(Collections.singletonList(
+                new PushNotificationPayload(Arrays.asList(1L, 2L), "Title", "Body", null))).get(1, TimeUnit.SECONDS);
+
+        List<PushNotificationTicket> tickets = savedTickets();
+        assertEquals(1, tickets.size());
+        assertEquals("ExponentPushToken[a]", tickets.get(0).getToken());
+        verify(pushNotificationTokenService).deleteByTokens(Collections.singleton("ExponentPushToken[b]"));
+    }
+
+    @Test
+    void testSendPushNotifications_SkipsTheUsersWithoutToken() throws Exception {
+        when(pushNotificationTokenService.findByUsers(anyCollection())).thenReturn(Collections.emptyList());
+
+        notificationService.sendPushNotifications(Collections.singletonList(
+                new PushNotificationPayload(Collections.singletonList(1L), "Title", "Body", null)))
+                .get(1, TimeUnit.SECONDS);
+
+        assertTrue(localPushGateway.getSentMessages().isEmpty());
+        verify(pushNotificationTicketRepository, never()).saveAll(any());
+    }
+
+    private PushNotificationToken token(Long userId, String token) {
+        OwnUser user = new OwnUser();
+        user.setId(userId);
+        return PushNotificationToken.builder().token(token).user(user).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PushNotificationTicket> savedTickets() {
+        ArgumentCaptor<List<PushNotificationTicket>> captor = ArgumentCaptor.forClass(List.class);
+        verify(pushNotificationTicketRepository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,130 @@
+package com.grash.service;
+
+import com.grash.model.Company;
+import com.grash.model.PreventiveMaintenance;
+import com.grash.model.PreventiveMaintenanceOccurrence;
+import com.grash.model.Schedule;
+import com.grash.model.enums.RecurrenceBasedOn;
+import com.grash.repository.PreventiveMaintenanceOccurrenceRepository;
+import com.grash.repository.ScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.spi.OperableTrigger;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PreventiveMaintenanceOccurrenceServiceTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Mock
+    private PreventiveMaintenanceOccurrenceRepository preventiveMaintenanceOccurrenceRepository;
+    @Mock
+    private ScheduleRepository scheduleRepository;
+    @Mock
+    private Scheduler scheduler;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PreventiveMaintenanceOccurrenceService preventiveMaintenanceOccurrenceService;
+    private Schedule schedule;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        preventiveMaintenanceOccurrenceService = new PreventiveMaintenanceOccurrenceService(
+                preventiveMaintenanceOccurrenceRepository, scheduleRepository, scheduler, transactionManager);
+        ReflectionTestUtils.setField(preventiveMaintenanceOccurrenceService, "horizonDays", 30);
+        ReflectionTestUtils.setField(preventiveMaintenanceOccurrenceService, "rollBatchSize", 500);
+        Company company = new Company();
+        company.setId(1L);
+        PreventiveMaintenance preventiveMaintenance = new PreventiveMaintenance();
+        preventiveMaintenance.setId(2L);
+        preventiveMaintenance.setCompany(company);
+        schedule = new Schedule(preventiveMaintenance);
+        schedule.setId(3L);
+        schedule.setStartsOn(new Date(System.currentTimeMillis() - 10 * DAY));
+    }
+
+    @Test
+    void testRefresh_MaterializesTheFireTimesUpToTheHorizon() {
+        preventiveMaintenanceOccurrenceService.refresh(schedule, dailyTrigger());
+
+        verify(preventiveMaintenanceOccurrenceRepository).deleteByScheduleId(3L);
+        List<PreventiveMaintenanceOccurrence> occurrences = savedOccurrences();
+        assertEquals(30, occurrences.size());
+        Date now = new Date();
+        assertTrue(occurrences.stream().allMatch(occurrence -> occurrence.getOccursOn().after(now)
+                && occurrence.getCompanyId().equals(1L) && occurrence.getPreventiveMaintenanceId().equals(2L)));
+    }
+
+    @Test
+    void testRefresh_SkipsTheCompletionBasedSchedules() {
+        schedule.setRecurrenceBasedOn(RecurrenceBasedOn.COMPLETED_DATE);
+
+        preventiveMaintenanceOccurrenceService.refresh(schedule, dailyTrigger());
+
+        verify(preventiveMaintenanceOccurrenceRepository).deleteByScheduleId(3L);
+        verify(preventiveMaintenanceOccurrenceRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testRollForward_ExtendsFromTheLastOccurrence() throws SchedulerException {
+        Trigger trigger = dailyTrigger();
+        Date lastOccursOn = ((OperableTrigger) trigger).getFireTimeAfter(new Date(System.currentTimeMillis() + 27 * DAY));
+        when(scheduleRepository.findIdsToSchedule(any())).thenReturn(Collections.singletonList(3L));
+        when(scheduleRepository.findAllById(Collections.singletonList(3L))).thenReturn(Collections.singletonList(schedule));
+        when(preventiveMaintenanceOccurrenceRepository.findLastOccurrences(Collections.singletonList(3L)))
+                .thenReturn(Collections.singletonList(new PreventiveMaintenanceOccurrenceRepository.LastOccurrence() {
+                    @Override
+                    public Long getScheduleId() {
+                        return 3L;
+                    }
+
+                    @Override
+                    public Date getLastOccursOn() {
+                        return lastOccursOn;
+                    }
+                }));
+        when(scheduler.getTrigger(new TriggerKey("wo-trigger-3", "wo-group"))).thenReturn(trigger);
+        when(preventiveMaintenanceOccurrenceRepository.deleteByOccursOnBefore(any())).thenReturn(0);
+
+        preventiveMaintenanceOccurrenceService.rollForward();
+
+        List<PreventiveMaintenanceOccurrence> occurrences = savedOccurrences();
+        assertEquals(2, occurrences.size());
+        assertTrue(occurrences.get(0).getOccursOn().after(lastOccursOn));
+    }
+
+    private Trigger dailyTrigger() {
+        return TriggerBuilder.newTrigger()
+                .withIdentity("wo-trigger-3", "wo-group")
+                .startAt(schedule.getStartsOn())
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInHours(24).repeatForever())
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PreventiveMaintenanceOccurrence> savedOccurrences() {
+        ArgumentCaptor<List<PreventiveMaintenanceOccurrence>> captor = ArgumentCaptor.forClass(List.class);
+        verify(preventiveMaintenanceOccurrenceRepository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+}
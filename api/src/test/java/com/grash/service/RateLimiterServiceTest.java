@@ -0,0 +1,105 @@
+package com.grash.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.grash.security.RateLimitFilter;
+import com.grash.security.RateLimitPolicy;
+import com.grash.security.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterServiceTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimitProperties rateLimitProperties;
+    private RateLimiterService rateLimiterService;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitProperties = new RateLimitProperties();
+        rateLimitProperties.setMaximumKeys(100);
+        rateLimiterService = new RateLimiterService(rateLimitProperties, meterRegistry);
+    }
+
+    @Test
+    void testTryConsume_RejectsOnceTheLimitIsReachedAndCountsTheRejections() {
+        RateLimitPolicy policy = RateLimitPolicy.perMinuteAndHour(3, 4).get();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(rateLimiterService.tryConsume("auth", "10.0.0.1", policy).isConsumed());
+        }
+        assertFalse(rateLimiterService.tryConsume("auth", "10.0.0.1", policy).isConsumed());
+        assertTrue(rateLimiterService.tryConsume("auth", "10.0.0.2", policy).isConsumed());
+
+        assertEquals(1, meterRegistry.counter("rate_limits.rejected", "scope", "auth").count());
+    }
+
+    @Test
+    void testResolveBucket_GivesANewBucketWhenThePolicyChanges() {
+        RateLimitPolicy policy = RateLimitPolicy.of(1, Duration.ofMinutes(1));
+        assertTrue(rateLimiterService.tryConsume("webhook_company", "1", policy).isConsumed());
+        assertFalse(rateLimiterService.tryConsume("webhook_company", "1", policy).isConsumed());
+
+        assertTrue(rateLimiterService.tryConsume("webhook_company", "1", RateLimitPolicy.of(100,
+                Duration.ofMinutes(1))).isConsumed());
+    }
+
+    @Test
+    void testResolveBucket_KeepsTheNumberOfBucketsBounded() {
+        for (int i = 0; i < 10_000; i++) {
+            rateLimiterService.resolveBucket("random-api-key-" + i);
+        }
+        Cache<?, ?> buckets = (Cache<?, ?>) ReflectionTestUtils.getField(rateLimiterService, "buckets");
+        buckets.cleanUp();
+
+        assertTrue(buckets.estimatedSize() <= 100);
+    }
+
+    @Test
+    void testPerMinuteAndHour_IsEmptyWithoutAPositiveLimit() {
+        assertFalse(RateLimitPolicy.perMinuteAndHour(null, 0).isPresent());
+        assertEquals(Duration.ofHours(1), RateLimitPolicy.perMinuteAndHour(10, 100).get().getRefillPeriod());
+    }
+
+    @Test
+    void testRateLimitFilter_Answers429WithRetryAfterOnTheMatchingPaths() throws ServletException, IOException {
+        RateLimitProperties.Endpoint endpoint = new RateLimitProperties.Endpoint();
+        endpoint.setPaths(Arrays.asList("/auth/signin", "/files/*/download"));
+        endpoint.setRequestsPerMinute(2);
+        rateLimitProperties.getEndpoints().put("public", endpoint);
+        RateLimitFilter filter = new RateLimitFilter(rateLimiterService, rateLimitProperties);
+
+        assertEquals(200, filter(filter, "/files/12/download").getStatus());
+        assertEquals(200, filter(filter, "/auth/signin").getStatus());
+        MockHttpServletResponse rejected = filter(filter, "/files/13/download");
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, filter(filter, "/work-orders/1").getStatus());
+        }
+
+        assertEquals(429, rejected.getStatus());
+        assertNotNull(rejected.getHeader("Retry-After"));
+        assertTrue(Long.parseLong(rejected.getHeader("Retry-After")) <= 60);
+        assertEquals(1, meterRegistry.counter("rate_limits.rejected", "scope", "public").count());
+    }
+
+    private MockHttpServletResponse filter(RateLimitFilter filter, String path) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        request.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
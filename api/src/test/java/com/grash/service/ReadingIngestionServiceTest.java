@@ -0,0 +1,144 @@
+package com.grash.service;
+
+import com.grash.dto.ReadingPostDTO;
+import com.grash.exception.CustomException;
+import com.grash.model.*;
+import com.grash.model.enums.WorkOrderMeterTriggerCondition;
+import com.grash.repository.MeterRepository;
+import com.grash.repository.ReadingRepository;
+import com.grash.repository.WorkOrderMeterTriggerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReadingIngestionServiceTest {
+
+    @Mock
+    private ReadingRepository readingRepository;
+    @Mock
+    private MeterRepository meterRepository;
+    @Mock
+    private WorkOrderMeterTriggerRepository workOrderMeterTriggerRepository;
+    @Mock
+    private WorkOrderService workOrderService;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private MessageSource messageSource;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReadingIngestionService readingIngestionService;
+    private OwnUser user;
+    private Meter meter;
+    private WorkOrderMeterTrigger trigger;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        readingIngestionService = new ReadingIngestionService(readingRepository, meterRepository,
+                workOrderMeterTriggerRepository, workOrderService, notificationService, messageSource,
+                transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(readingIngestionService, "batchSize", 100);
+        ReflectionTestUtils.setField(readingIngestionService, "maxPerRequest", 10_000);
+        ReflectionTestUtils.setField(readingIngestionService, "hysteresis", 0.05);
+        Company company = new Company();
+        company.setId(1L);
+        user = new OwnUser();
+        user.setCompany(company);
+        meter = new Meter();
+        meter.setId(10L);
+        meter.setName("Temperature");
+        trigger = new WorkOrderMeterTrigger();
+        trigger.setMeter(meter);
+        trigger.setTriggerCondition(WorkOrderMeterTriggerCondition.MORE_THAN);
+        trigger.setValue(100);
+        when(meterRepository.findByIdInAndCompany_Id(anyCollection(), eq(1L))).thenReturn(Collections.singletonList(meter));
+        when(meterRepository.findForUpdate(anyCollection(), eq(1L))).thenReturn(Collections.singletonList(meter));
+        when(workOrderMeterTriggerRepository.findByMeter_IdIn(anyCollection()))
+                .thenReturn(Collections.singletonList(trigger));
+        when(workOrderService.getWorkOrderFromWorkOrderBase(trigger)).thenAnswer(invocation -> new WorkOrder());
+        when(messageSource.getMessage(anyString(), any(), any())).thenReturn("message");
+    }
+
+    @Test
+    void testCreateBatch_OpensOneWorkOrderForASustainedBreach() {
+        List<ReadingPostDTO> readings = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            readings.add(reading(i, i < 10 ? 50 : 150 + i % 7));
+        }
+        // Sent out of order, the readings are applied in the order they were read
+        Collections.shuffle(readings, new Random(42));
+
+        int workOrdersCreated = readingIngestionService.createBatch(readings, user);
+
+        assertEquals(1, workOrdersCreated);
+        verify(workOrderService, times(1)).create(any(WorkOrder.class), eq(user.getCompany()));
+        assertTrue(trigger.isBreached());
+        assertEquals(new Date(999_000), meter.getLastReadingAt());
+        // Committed by batches of 100 readings
+        verify(transactionManager, times(10)).commit(any());
+        verify(readingRepository, times(10)).saveAll(anyList());
+        assertEquals(1000, meterRegistry.counter("meters.readings.ingested").count());
+    }
+
+    @Test
+    void testCreateBatch_FiresAgainOnlyOnceTheBreachClearedPastTheHysteresis() {
+        // 98 is within 5% of the value, 90 clears the breach
+        List<ReadingPostDTO> readings = Arrays.asList(reading(1, 101), reading(2, 98), reading(3, 102),
+                reading(4, 90), reading(5, 101), reading(6, 99));
+
+        int workOrdersCreated = readingIngestionService.createBatch(readings, user);
+
+        assertEquals(2, workOrdersCreated);
+        assertEquals(2, meterRegistry.counter("meters.triggers.fired", "condition", "MORE_THAN").count());
+        assertTrue(trigger.isBreached());
+    }
+
+    @Test
+    void testCreateBatch_KeepsTheReadingsOlderThanTheLastOneAsHistoryOnly() {
+        meter.setLastReadingAt(new Date(10_000));
+
+        int workOrdersCreated = readingIngestionService.createBatch(Arrays.asList(reading(5, 500), reading(6, 500)),
+                user);
+
+        assertEquals(0, workOrdersCreated);
+        assertFalse(trigger.isBreached());
+        assertEquals(new Date(10_000), meter.getLastReadingAt());
+        verify(readingRepository).saveAll(argThat(saved -> ((List<?>) saved).size() == 2));
+    }
+
+    @Test
+    void testCreateBatch_RejectsTheMetersOfOtherCompanies() {
+        List<ReadingPostDTO> readings = Arrays.asList(reading(1, 1), reading(1, 1));
+        readings.get(1).setMeterId(20L);
+
+        CustomException exception = assertThrows(CustomException.class,
+                () -> readingIngestionService.createBatch(readings, user));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getHttpStatus());
+        verify(readingRepository, never()).saveAll(anyList());
+    }
+
+    private ReadingPostDTO reading(long second, double value) {
+        ReadingPostDTO reading = new ReadingPostDTO();
+        reading.setMeterId(meter.getId());
+        reading.setValue(value);
+        reading.setTimestamp(new Date(second * 1000));
+        return reading;
+    }
+}
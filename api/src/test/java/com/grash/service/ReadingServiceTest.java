@@ -0,0 +1,100 @@
+package com.grash.service;
+
+import com.grash.dto.ReadingPatchDTO;
+import com.grash.mapper.ReadingMapper;
+import com.grash.model.Company;
+import com.grash.model.Meter;
+import com.grash.model.Reading;
+import com.grash.repository.MeterRepository;
+import com.grash.repository.ReadingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReadingServiceTest {
+
+    @Mock
+    private ReadingRepository readingRepository;
+    @Mock
+    private MeterRepository meterRepository;
+    @Mock
+    private ReadingMapper readingMapper;
+
+    private ReadingService readingService;
+    private Meter meter;
+    private Reading reading;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        readingService = new ReadingService(readingRepository, meterRepository, readingMapper);
+        Company company = new Company();
+        company.setId(1L);
+        meter = new Meter();
+        meter.setId(10L);
+        meter.setCompany(company);
+        meter.setLastReadingAt(new Date(20_000));
+        reading = new Reading();
+        reading.setId(5L);
+        reading.setMeter(meter);
+        reading.setReadAt(new Date(20_000));
+        when(readingRepository.findById(5L)).thenReturn(Optional.of(reading));
+        when(meterRepository.findForUpdate(anyCollection(), eq(1L))).thenReturn(Collections.singletonList(meter));
+    }
+
+    @Test
+    void testDelete_MovesTheLastReadingBackToTheNewestRemainingOne() {
+        Reading previous = new Reading();
+        previous.setReadAt(new Date(10_000));
+        when(readingRepository.findFirstByMeter_IdOrderByReadAtDescIdDesc(10L)).thenReturn(Optional.of(previous));
+
+        readingService.delete(5L);
+
+        assertEquals(new Date(10_000), meter.getLastReadingAt());
+        // The meter is locked before the reading is deleted, and the newest reading is looked up once it is
+        InOrder inOrder = inOrder(meterRepository, readingRepository);
+        inOrder.verify(meterRepository).findForUpdate(eq(Set.of(10L)), eq(1L));
+        inOrder.verify(readingRepository).delete(reading);
+        inOrder.verify(readingRepository).flush();
+        inOrder.verify(readingRepository).findFirstByMeter_IdOrderByReadAtDescIdDesc(10L);
+        inOrder.verify(meterRepository).save(meter);
+    }
+
+    @Test
+    void testDelete_ClearsTheLastReadingOfAMeterWithoutReadings() {
+        when(readingRepository.findFirstByMeter_IdOrderByReadAtDescIdDesc(10L)).thenReturn(Optional.empty());
+
+        readingService.delete(5L);
+
+        assertNull(meter.getLastReadingAt());
+    }
+
+    @Test
+    void testUpdate_RefreshesTheLastReadingOfBothMetersWhenTheReadingMoves() {
+        Meter other = new Meter();
+        other.setId(11L);
+        ReadingPatchDTO patch = new ReadingPatchDTO();
+        patch.setMeter(other);
+        Reading moved = new Reading();
+        moved.setReadAt(new Date(20_000));
+        when(meterRepository.findForUpdate(anyCollection(), eq(1L))).thenReturn(Arrays.asList(meter, other));
+        when(readingMapper.updateReading(reading, patch)).thenReturn(reading);
+        when(readingRepository.save(reading)).thenReturn(reading);
+        when(readingRepository.findFirstByMeter_IdOrderByReadAtDescIdDesc(10L)).thenReturn(Optional.empty());
+        when(readingRepository.findFirstByMeter_IdOrderByReadAtDescIdDesc(11L)).thenReturn(Optional.of(moved));
+
+        assertSame(reading, readingService.update(5L, patch));
+
+        verify(meterRepository).findForUpdate(eq(new LinkedHashSet<>(Arrays.asList(10L, 11L))), eq(1L));
+        assertNull(meter.getLastReadingAt());
+        assertEquals(new Date(20_000), other.getLastReadingAt());
+    }
+}
@@ -0,0 +1,87 @@
+package com.grash.service;
+
+import com.grash.mapper.ScheduleMapper;
+import com.grash.repository.ScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class ScheduleServiceTest {
+
+    private static final int SCHEDULES = 50_000;
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+    @Mock
+    private ScheduleMapper scheduleMapper;
+    @Mock
+    private WorkOrderService workOrderService;
+    @Mock
+    private PreventiveMaintenanceOccurrenceService preventiveMaintenanceOccurrenceService;
+    @Mock
+    private Scheduler scheduler;
+
+    @InjectMocks
+    private ScheduleService scheduleService;
+
+    @BeforeEach
+    void setUp() throws SchedulerException {
+        MockitoAnnotations.openMocks(this);
+        when(scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals("notif-group"))).thenReturn(Collections.emptySet());
+    }
+
+    @Test
+    void testReconcileJobs_OnlyReturnsTheSchedulesWithoutTrigger() throws SchedulerException {
+        when(scheduleRepository.findIdsToSchedule(any())).thenReturn(LongStream.rangeClosed(1, SCHEDULES).boxed()
+                .collect(Collectors.toList()));
+        Set<TriggerKey> triggerKeys = LongStream.rangeClosed(1, SCHEDULES - 10)
+                .mapToObj(id -> id % 2 == 0 ? new TriggerKey("wo-trigger-" + id, "wo-group") :
+                        new TriggerKey("wo-trigger-chained-" + id + "-1700000000000", "wo-group"))
+                .collect(Collectors.toSet());
+        when(scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals("wo-group"))).thenReturn(triggerKeys);
+
+        List<Long> missing = scheduleService.reconcileJobs();
+
+        assertEquals(LongStream.rangeClosed(SCHEDULES - 9, SCHEDULES).boxed().collect(Collectors.toList()), missing);
+        // Nothing is rebuilt for the schedules which already have their trigger
+        verify(workOrderService, never()).findLastByPM(anyLong(), anyInt());
+        verify(scheduler, never()).scheduleJob(any(), any(), anyBoolean());
+        verify(scheduler, never()).unscheduleJob(any());
+    }
+
+    @Test
+    void testReconcileJobs_RemovesTheTriggersOfSchedulesThatNoLongerRun() throws SchedulerException {
+        when(scheduleRepository.findIdsToSchedule(any())).thenReturn(Collections.singletonList(1L));
+        when(scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals("wo-group"))).thenReturn(new HashSet<>(
+                Arrays.asList(new TriggerKey("wo-trigger-1", "wo-group"), new TriggerKey("wo-trigger-2", "wo-group"))));
+        when(scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals("notif-group"))).thenReturn(Collections
+                .singleton(new TriggerKey("notif-trigger-3", "notif-group")));
+
+        List<Long> missing = scheduleService.reconcileJobs();
+
+        assertEquals(Collections.emptyList(), missing);
+        verify(scheduler).unscheduleJob(new TriggerKey("wo-trigger-2", "wo-group"));
+        verify(scheduler).unscheduleJob(new TriggerKey("notif-trigger-3", "notif-group"));
+        verify(scheduler).deleteJob(new JobKey("wo-job-2", "wo-group"));
+        verify(scheduler).deleteJob(new JobKey("notif-job-3", "notif-group"));
+        verify(scheduler, never()).deleteJob(new JobKey("wo-job-1", "wo-group"));
+        verify(preventiveMaintenanceOccurrenceService).clear(2L);
+    }
+}
@@ -0,0 +1,192 @@
+package com.grash.service;
+
+import com.grash.dto.analytics.workOrders.WOCostsAndTime;
+import com.grash.dto.analytics.workOrders.WOStats;
+import com.grash.dto.analytics.workOrders.WOStatsByPriority;
+import com.grash.dto.analytics.workOrders.WOStatuses;
+import com.grash.dto.analytics.workOrders.WOStatusesByDate;
+import com.grash.model.enums.Priority;
+import com.grash.model.enums.Status;
+import com.grash.repository.WorkOrderAnalyticsRepository;
+import com.grash.repository.WorkOrderAudRepository;
+import com.grash.utils.Helper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WorkOrderAnalyticsServiceTest {
+
+    @Mock
+    private WorkOrderAnalyticsRepository workOrderAnalyticsRepository;
+
+    @Mock
+    private WorkOrderCategoryService workOrderCategoryService;
+
+    @Mock
+    private WorkOrderAudRepository workOrderAudRepository;
+
+    @InjectMocks
+    private WorkOrderAnalyticsService workOrderAnalyticsService;
+
+    private final Date start = new Date(0);
+    private final Date end = new Date();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testGetCompleteStats() {
+        WorkOrderAnalyticsRepository.CompletionSummary summary =
+                mock(WorkOrderAnalyticsRepository.CompletionSummary.class);
+        when(summary.getTotal()).thenReturn(10L);
+        when(summary.getComplete()).thenReturn(4L);
+        when(summary.getCompliant()).thenReturn(3L);
+        when(summary.getReacted()).thenReturn(5L);
+        when(summary.getReactionHours()).thenReturn(12L);
+        when(summary.getCycles()).thenReturn(4L);
+        when(summary.getCycleDays()).thenReturn(9L);
+        when(workOrderAnalyticsRepository.getCompletionSummary(1L, start, end, Status.COMPLETE.ordinal()))
+                .thenReturn(summary);
+
+        WOStats stats = workOrderAnalyticsService.getCompleteStats(1L, start, end);
+
+        assertEquals(10, stats.getTotal());
+        assertEquals(4, stats.getComplete());
+        assertEquals(3, stats.getCompliant());
+        assertEquals(2, stats.getMtta());
+        assertEquals(2, stats.getAvgCycleTime());
+    }
+
+    @Test
+    void testGetCompleteStats_Empty() {
+        WorkOrderAnalyticsRepository.CompletionSummary summary =
+                mock(WorkOrderAnalyticsRepository.CompletionSummary.class);
+        when(workOrderAnalyticsRepository.getCompletionSummary(anyLong(), any(), any(), anyInt()))
+                .thenReturn(summary);
+
+        WOStats stats = workOrderAnalyticsService.getCompleteStats(1L, start, end);
+
+        assertEquals(0, stats.getTotal());
+        assertEquals(0, stats.getMtta());
+        assertEquals(0, stats.getAvgCycleTime());
+    }
+
+    @Test
+    void testGetIncompleteByPriority_MissingGroupsAreZero() {
+        WorkOrderAnalyticsRepository.EnumCount high = enumCount(Priority.HIGH.ordinal(), 3, 7.5);
+        when(workOrderAnalyticsRepository.countIncompleteByPriority(1L, start, end, Status.COMPLETE.ordinal()))
+                .thenReturn(Collections.singletonList(high));
+
+        WOStatsByPriority stats = workOrderAnalyticsService.getIncompleteByPriority(1L, start, end);
+
+        assertEquals(3, stats.getHigh().getCount());
+        assertEquals(7.5, stats.getHigh().getEstimatedHours());
+        assertEquals(0, stats.getLow().getCount());
+        assertEquals(0, stats.getMedium().getCount());
+        assertEquals(0, stats.getNone().getEstimatedHours());
+    }
+
+    @Test
+    void testGetIncompleteStatuses_IgnoresCompleteGroup() {
+        List<WorkOrderAnalyticsRepository.EnumCount> counts = Arrays.asList(
+                enumCount(Status.OPEN.ordinal(), 2, 0),
+                enumCount(Status.ON_HOLD.ordinal(), 1, 0),
+                enumCount(Status.COMPLETE.ordinal(), 8, 0));
+        when(workOrderAnalyticsRepository.countByStatus(1L, start, end)).thenReturn(counts);
+
+        WOStatuses statuses = workOrderAnalyticsService.getIncompleteStatuses(1L, start, end);
+
+        assertEquals(2, statuses.getOpen());
+        assertEquals(1, statuses.getOnHold());
+        assertEquals(0, statuses.getInProgress());
+        assertEquals(0, statuses.getComplete());
+    }
+
+    @Test
+    void testGetCompleteCountsByPriority_AllPrioritiesPresent() {
+        WorkOrderAnalyticsRepository.EnumCount low = enumCount(Priority.LOW.ordinal(), 5, 0);
+        when(workOrderAnalyticsRepository.countCompleteByPriority(1L, start, end, Status.COMPLETE.ordinal()))
+                .thenReturn(Collections.singletonList(low));
+
+        Map<Priority, Integer> counts = workOrderAnalyticsService.getCompleteCountsByPriority(1L, start, end);
+
+        assertEquals(Priority.values().length, counts.size());
+        assertEquals(5, counts.get(Priority.LOW));
+        assertEquals(0, counts.get(Priority.HIGH));
+    }
+
+    @Test
+    void testGetCompleteCostsAndTime() {
+        WorkOrderAnalyticsRepository.LaborSummary labor = mock(WorkOrderAnalyticsRepository.LaborSummary.class);
+        when(labor.getCost()).thenReturn(100L);
+        when(labor.getDuration()).thenReturn(7200L);
+        when(workOrderAnalyticsRepository.getLaborSummary(eq(1L), eq(start), eq(end), anyList())).thenReturn(labor);
+        when(workOrderAnalyticsRepository.sumAdditionalCost(1L, start, end, Status.COMPLETE.ordinal()))
+                .thenReturn(50.0);
+        when(workOrderAnalyticsRepository.sumPartCost(1L, start, end, Status.COMPLETE.ordinal())).thenReturn(50.0);
+        WorkOrderAnalyticsRepository.EnumCount complete = enumCount(Status.COMPLETE.ordinal(), 4, 0);
+        when(workOrderAnalyticsRepository.countByStatus(1L, start, end))
+                .thenReturn(Collections.singletonList(complete));
+
+        WOCostsAndTime costsAndTime = workOrderAnalyticsService.getCompleteCostsAndTime(1L, start, end);
+
+        assertEquals(200, costsAndTime.getTotal());
+        assertEquals(50, costsAndTime.getAverage());
+        assertEquals(100, costsAndTime.getLaborCost());
+        assertEquals(7200, costsAndTime.getLaborTime());
+    }
+
+    @Test
+    void testGetStatusesByDate_SingleQueryForAllPoints() {
+        LocalDate day = LocalDate.of(2024, 1, 1);
+        Date rangeStart = Helper.localDateToDate(day);
+        Date rangeEnd = Helper.localDateToDate(day.plusDays(2));
+        long firstPoint = Helper.localDateToDate(day.plusDays(1)).getTime();
+        List<WorkOrderAudRepository.StatusCount> counts = Arrays.asList(
+                statusCount(firstPoint, Status.OPEN.ordinal(), 3),
+                statusCount(firstPoint, null, 1),
+                statusCount(Helper.localDateToDate(day.plusDays(2)).getTime(), Status.COMPLETE.ordinal(), 2));
+        when(workOrderAudRepository.countStatusesAt(eq(1L), eq(rangeStart), anyList(), anyList())).thenReturn(counts);
+
+        List<WOStatusesByDate> statuses = workOrderAnalyticsService.getStatusesByDate(1L, rangeStart, rangeEnd);
+
+        assertEquals(3, statuses.size());
+        assertEquals(3, statuses.get(0).getOpen());
+        assertEquals(0, statuses.get(0).getComplete());
+        assertEquals(2, statuses.get(1).getComplete());
+        assertEquals(2, statuses.get(2).getComplete());
+        assertEquals(rangeStart, statuses.get(0).getDate());
+    }
+
+    private WorkOrderAudRepository.StatusCount statusCount(long instant, Integer ordinal, long count) {
+        WorkOrderAudRepository.StatusCount statusCount = mock(WorkOrderAudRepository.StatusCount.class);
+        when(statusCount.getInstant()).thenReturn(instant);
+        when(statusCount.getOrdinal()).thenReturn(ordinal);
+        when(statusCount.getCount()).thenReturn(count);
+        return statusCount;
+    }
+
+    private WorkOrderAnalyticsRepository.EnumCount enumCount(int ordinal, long count, double estimatedHours) {
+        WorkOrderAnalyticsRepository.EnumCount enumCount = mock(WorkOrderAnalyticsRepository.EnumCount.class);
+        when(enumCount.getOrdinal()).thenReturn(ordinal);
+        when(enumCount.getCount()).thenReturn(count);
+        when(enumCount.getEstimatedHours()).thenReturn(estimatedHours);
+        return enumCount;
+    }
+}
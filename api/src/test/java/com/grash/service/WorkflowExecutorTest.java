@@ -0,0 +1,167 @@
+package com.grash.service;
+
+import com.grash.model.WorkOrder;
+import com.grash.model.Workflow;
+import com.grash.model.WorkflowExecution;
+import com.grash.model.WorkflowTrigger;
+import com.grash.model.enums.workflow.WFMainCondition;
+import com.grash.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WorkflowExecutorTest {
+
+    @Mock
+    private WorkflowService workflowService;
+    @Mock
+    private WorkflowTriggerRepository workflowTriggerRepository;
+    @Mock
+    private WorkflowExecutionRepository workflowExecutionRepository;
+    @Mock
+    private WorkOrderRepository workOrderRepository;
+    @Mock
+    private RequestRepository requestRepository;
+    @Mock
+    private PurchaseOrderRepository purchaseOrderRepository;
+    @Mock
+    private PartRepository partRepository;
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WorkflowExecutor workflowExecutor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        workflowExecutor = new WorkflowExecutor(workflowService, workflowTriggerRepository,
+                workflowExecutionRepository, workOrderRepository, requestRepository, purchaseOrderRepository,
+                partRepository, taskRepository, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(workflowExecutor, "threads", 4);
+        ReflectionTestUtils.setField(workflowExecutor, "batchSize", 100);
+        ReflectionTestUtils.setField(workflowExecutor, "leaseMinutes", 5);
+        ReflectionTestUtils.setField(workflowExecutor, "maxAttempts", 3);
+        ReflectionTestUtils.invokeMethod(workflowExecutor, "init");
+        when(workOrderRepository.findById(anyLong())).thenAnswer(invocation -> {
+            WorkOrder workOrder = new WorkOrder();
+            workOrder.setId(invocation.getArgument(0));
+            return Optional.of(workOrder);
+        });
+        when(workflowService.findById(anyLong())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            return Optional.of(workflow(id, WFMainCondition.values()[id.intValue()]));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(workflowExecutor, "shutdown");
+    }
+
+    @Test
+    void testDrain_RunsTheTriggersOfAnEntityInOrderOnTheSameThread() {
+        List<WFMainCondition> changes = Arrays.asList(WFMainCondition.WORK_ORDER_CREATED,
+                WFMainCondition.WORK_ORDER_CLOSED, WFMainCondition.WORK_ORDER_ARCHIVED);
+        List<WorkflowTrigger> triggers = new ArrayList<>();
+        for (WFMainCondition mainCondition : changes) {
+            for (long workOrderId = 1; workOrderId <= 10; workOrderId++) {
+                triggers.add(trigger(triggers.size() + 1L, mainCondition, workOrderId, 0));
+            }
+        }
+        when(workflowTriggerRepository.findDueForUpdate(any(), anyInt())).thenReturn(triggers);
+        Map<Long, List<WFMainCondition>> runs = new ConcurrentHashMap<>();
+        Map<Long, Set<String>> threads = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            Long workOrderId = invocation.<WorkOrder>getArgument(1).getId();
+            runs.computeIfAbsent(workOrderId, id -> new CopyOnWriteArrayList<>())
+                    .add(invocation.<Workflow>getArgument(0).getMainCondition());
+            threads.computeIfAbsent(workOrderId, id -> ConcurrentHashMap.newKeySet())
+                    .add(Thread.currentThread().getName());
+            return null;
+        }).when(workflowService).applyAction(any(), any());
+
+        workflowExecutor.drain();
+
+        verify(workflowTriggerRepository).lockClaims();
+        verify(workflowExecutionRepository, times(30)).save(any(WorkflowExecution.class));
+        verify(workflowTriggerRepository, times(30)).deleteById(anyLong());
+        for (long workOrderId = 1; workOrderId <= 10; workOrderId++) {
+            assertEquals(changes, runs.get(workOrderId));
+            assertEquals(1, threads.get(workOrderId).size());
+        }
+        // Each claimed trigger is leased
+        assertTrue(triggers.stream().allMatch(trigger -> trigger.getAttempts() == 1
+                && trigger.getNextAttemptAt().after(new Date())));
+        assertEquals(10, meterRegistry.timer("workflows.executions", "main_condition", "WORK_ORDER_CLOSED",
+                "result", "success").count());
+    }
+
+    @Test
+    void testExecute_RecordsTheFailureWithoutRetryingIt() {
+        doThrow(new IllegalStateException("No team")).when(workflowService).applyAction(any(), any());
+
+        workflowExecutor.execute(trigger(5L, WFMainCondition.WORK_ORDER_CREATED, 10L, 1));
+
+        ArgumentCaptor<WorkflowExecution> captor = ArgumentCaptor.forClass(WorkflowExecution.class);
+        verify(workflowExecutionRepository).save(captor.capture());
+        WorkflowExecution failed = captor.getValue();
+        assertEquals(WFMainCondition.WORK_ORDER_CREATED.ordinal(), failed.getWorkflowId().intValue());
+        assertEquals(10L, failed.getEntityId());
+        assertEquals("No team", failed.getError());
+        assertNotNull(failed.getStartedAt());
+        // Deleted again once the transaction of the action is rolled back
+        verify(workflowTriggerRepository, times(2)).deleteById(5L);
+    }
+
+    @Test
+    void testExecute_SkipsADeletedEntity() {
+        when(workOrderRepository.findById(10L)).thenReturn(Optional.empty());
+
+        workflowExecutor.execute(trigger(5L, WFMainCondition.WORK_ORDER_CREATED, 10L, 1));
+
+        verify(workflowService, never()).applyAction(any(), any());
+        verify(workflowExecutionRepository, never()).save(any());
+        verify(workflowTriggerRepository).deleteById(5L);
+    }
+
+    @Test
+    void testExecute_DropsATriggerInterruptedTooManyTimes() {
+        workflowExecutor.execute(trigger(5L, WFMainCondition.WORK_ORDER_CREATED, 10L, 4));
+
+        verify(workflowService, never()).applyAction(any(), any());
+        verify(workflowTriggerRepository).deleteById(5L);
+    }
+
+    private WorkflowTrigger trigger(Long id, WFMainCondition mainCondition, Long workOrderId, int attempts) {
+        WorkflowTrigger trigger = new WorkflowTrigger((long) mainCondition.ordinal(), 1L, mainCondition,
+                WorkflowExecutor.getEntityType(mainCondition), workOrderId);
+        trigger.setId(id);
+        trigger.setAttempts(attempts);
+        return trigger;
+    }
+
+    private Workflow workflow(Long id, WFMainCondition mainCondition) {
+        Workflow workflow = new Workflow();
+        workflow.setId(id);
+        workflow.setMainCondition(mainCondition);
+        return workflow;
+    }
+}
@@ -0,0 +1,173 @@
+package com.grash.service;
+
+import com.grash.dto.GrafanaAlert;
+import com.grash.model.*;
+import com.grash.model.enums.Priority;
+import com.grash.model.enums.workflow.WFMainCondition;
+import com.grash.model.enums.workflow.WorkOrderCondition;
+import com.grash.repository.WorkflowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class WorkflowRuleIndexTest {
+
+    private static final int RULES = 10_000;
+    private static final int ASSETS = 1_000;
+
+    @Mock
+    private WorkflowRepository workflowRepository;
+
+    private WorkflowRuleIndex workflowRuleIndex;
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        workflowRuleIndex = new WorkflowRuleIndex(workflowRepository, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void testMatch_FindsTheSameWorkflowsAsTheLinearScanWith10kRules() {
+        List<Workflow> workflows = workOrderWorkflows();
+        when(workflowRepository.findWithConditionsByCompany_Id(1L)).thenReturn(workflows);
+        Random random = new Random(42);
+        List<WorkOrder> workOrders = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            workOrders.add(workOrder(random.nextInt(ASSETS + 100), Priority.values()[random.nextInt(4)],
+                    random.nextInt(20)));
+        }
+
+        for (WorkOrder workOrder : workOrders) {
+            assertEquals(linearScan(workflows, workOrder),
+                    workflowRuleIndex.match(1L, WFMainCondition.WORK_ORDER_CREATED, workOrder));
+        }
+        verify(workflowRepository, times(1)).findWithConditionsByCompany_Id(1L);
+    }
+
+    @Test
+    void testMatch_IndexesTheWebhookRulesByAlertNameAndSeverity() {
+        List<Workflow> workflows = new ArrayList<>();
+        for (int i = 0; i < RULES; i++) {
+            workflows.add(workflow(WFMainCondition.WEBHOOK, webhookCondition("Alert" + i, i % 2 == 0 ? "critical" : null)));
+        }
+        Workflow severityOnly = workflow(WFMainCondition.WEBHOOK, webhookCondition("", "WARNING"));
+        Workflow catchAll = workflow(WFMainCondition.WEBHOOK);
+        workflows.add(severityOnly);
+        workflows.add(catchAll);
+        when(workflowRepository.findWithConditionsByCompany_Id(1L)).thenReturn(workflows);
+
+        assertEquals(Arrays.asList(workflows.get(42).getId(), catchAll.getId()),
+                workflowRuleIndex.match(1L, WFMainCondition.WEBHOOK, alert("Alert42", "Critical")));
+        assertEquals(Collections.singletonList(catchAll.getId()),
+                workflowRuleIndex.match(1L, WFMainCondition.WEBHOOK, alert("Alert42", "warning-ish")));
+        assertEquals(Arrays.asList(workflows.get(43).getId(), severityOnly.getId(), catchAll.getId()),
+                workflowRuleIndex.match(1L, WFMainCondition.WEBHOOK, alert("Alert43", "warning")));
+        assertEquals(Collections.emptyList(),
+                workflowRuleIndex.match(1L, WFMainCondition.WORK_ORDER_CREATED, workOrder(1, Priority.HIGH, 1)));
+    }
+
+    @Test
+    void testInvalidate_RecompilesTheRulesOfTheCompany() {
+        when(workflowRepository.findWithConditionsByCompany_Id(1L)).thenReturn(Collections.emptyList());
+        when(workflowRepository.findWithConditionsByCompany_Id(2L)).thenReturn(Collections.emptyList());
+        WorkOrder workOrder = workOrder(1, Priority.HIGH, 1);
+
+        workflowRuleIndex.match(1L, WFMainCondition.WORK_ORDER_CREATED, workOrder);
+        workflowRuleIndex.match(2L, WFMainCondition.WORK_ORDER_CREATED, workOrder);
+        workflowRuleIndex.invalidate(1L);
+        workflowRuleIndex.match(1L, WFMainCondition.WORK_ORDER_CREATED, workOrder);
+        workflowRuleIndex.match(2L, WFMainCondition.WORK_ORDER_CREATED, workOrder);
+
+        verify(workflowRepository, times(2)).findWithConditionsByCompany_Id(1L);
+        verify(workflowRepository, times(1)).findWithConditionsByCompany_Id(2L);
+    }
+
+    /**
+     * Mostly asset rules, some on the priority, some on the team only
+     */
+    private List<Workflow> workOrderWorkflows() {
+        List<Workflow> workflows = new ArrayList<>();
+        for (int i = 0; i < RULES; i++) {
+            WorkflowCondition assetCondition = workOrderCondition(WorkOrderCondition.ASSET_IS);
+            assetCondition.setAsset(asset(i % ASSETS));
+            WorkflowCondition priorityCondition = workOrderCondition(WorkOrderCondition.PRIORITY_IS);
+            priorityCondition.setPriority(Priority.values()[i % 4]);
+            WorkflowCondition teamCondition = workOrderCondition(WorkOrderCondition.TEAM_IS);
+            teamCondition.setTeam(team(i % 20));
+            if (i % 100 == 0) {
+                workflows.add(workflow(WFMainCondition.WORK_ORDER_CREATED, teamCondition));
+            } else if (i % 10 == 0) {
+                workflows.add(workflow(WFMainCondition.WORK_ORDER_CREATED, priorityCondition, teamCondition));
+            } else {
+                workflows.add(workflow(WFMainCondition.WORK_ORDER_CREATED, assetCondition, priorityCondition));
+            }
+        }
+        workflows.add(workflow(WFMainCondition.WORK_ORDER_CLOSED, workOrderCondition(WorkOrderCondition.ASSET_IS)));
+        return workflows;
+    }
+
+    private List<Long> linearScan(List<Workflow> workflows, WorkOrder workOrder) {
+        return workflows.stream()
+                .filter(workflow -> workflow.getMainCondition() == WFMainCondition.WORK_ORDER_CREATED)
+                .filter(workflow -> workflow.getSecondaryConditions().stream()
+                        .allMatch(condition -> condition.isMetForWorkOrder(workOrder)))
+                .map(Workflow::getId).sorted().collect(Collectors.toList());
+    }
+
+    private Workflow workflow(WFMainCondition mainCondition, WorkflowCondition... conditions) {
+        Workflow workflow = new Workflow();
+        workflow.setId(nextId++);
+        workflow.setMainCondition(mainCondition);
+        workflow.setSecondaryConditions(Arrays.asList(conditions));
+        return workflow;
+    }
+
+    private WorkflowCondition workOrderCondition(WorkOrderCondition workOrderCondition) {
+        WorkflowCondition condition = new WorkflowCondition();
+        condition.setWorkOrderCondition(workOrderCondition);
+        return condition;
+    }
+
+    private WorkflowCondition webhookCondition(String alertName, String severity) {
+        WorkflowCondition condition = new WorkflowCondition();
+        condition.setAlertName(alertName);
+        condition.setSeverity(severity);
+        return condition;
+    }
+
+    private WorkOrder workOrder(long assetId, Priority priority, long teamId) {
+        WorkOrder workOrder = new WorkOrder();
+        workOrder.setAsset(asset(assetId));
+        workOrder.setPriority(priority);
+        workOrder.setTeam(team(teamId));
+        return workOrder;
+    }
+
+    private GrafanaAlert alert(String alertName, String severity) {
+        GrafanaAlert alert = new GrafanaAlert();
+        alert.setAlertName(alertName);
+        alert.setSeverity(severity);
+        return alert;
+    }
+
+    private Asset asset(long id) {
+        Asset asset = new Asset();
+        asset.setId(id);
+        return asset;
+    }
+
+    private Team team(long id) {
+        Team team = new Team();
+        team.setId(id);
+        return team;
+    }
+}
@@ -0,0 +1,102 @@
+package com.grash.service;
+
+import com.grash.event.WorkflowTriggeredEvent;
+import com.grash.mapper.WorkflowMapper;
+import com.grash.model.WorkOrder;
+import com.grash.model.Workflow;
+import com.grash.model.WorkflowTrigger;
+import com.grash.model.enums.Priority;
+import com.grash.model.enums.workflow.WFMainCondition;
+import com.grash.repository.WorkflowRepository;
+import com.grash.repository.WorkflowTriggerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WorkflowServiceTest {
+
+    @Mock
+    private WorkflowRepository workflowRepository;
+    @Mock
+    private WorkflowMapper workflowMapper;
+    @Mock
+    private WorkOrderService workOrderService;
+    @Mock
+    private RequestService requestService;
+    @Mock
+    private AssetService assetService;
+    @Mock
+    private PurchaseOrderService purchaseOrderService;
+    @Mock
+    private WorkflowConditionService workflowConditionService;
+    @Mock
+    private WorkflowActionService workflowActionService;
+    @Mock
+    private WorkflowRuleIndex workflowRuleIndex;
+    @Mock
+    private WorkflowTriggerRepository workflowTriggerRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private WorkflowService workflowService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRunWorkOrderWorkflows_WritesTheTriggersOfTheWorkflowsMatchedByTheCurrentState() {
+        WorkOrder workOrder = new WorkOrder();
+        workOrder.setId(10L);
+        workOrder.setPriority(Priority.HIGH);
+        when(workflowRuleIndex.match(eq(1L), eq(WFMainCondition.WORK_ORDER_CREATED), any()))
+                .thenAnswer(invocation -> invocation.<WorkOrder>getArgument(2).getPriority() == Priority.HIGH ?
+                        Arrays.asList(2L, 3L) : Collections.emptyList());
+        when(workflowRepository.findAllById(Arrays.asList(2L, 3L))).thenReturn(Arrays.asList(workflow(3L),
+                workflow(2L)));
+
+        workflowService.runWorkOrderWorkflows(WFMainCondition.WORK_ORDER_CREATED, 1L, workOrder);
+
+        ArgumentCaptor<List<WorkflowTrigger>> triggers = ArgumentCaptor.forClass(List.class);
+        verify(workflowTriggerRepository).saveAll(triggers.capture());
+        assertEquals(Arrays.asList(2L, 3L), triggers.getValue().stream().map(WorkflowTrigger::getWorkflowId)
+                .collect(Collectors.toList()));
+        assertEquals(10L, triggers.getValue().get(0).getEntityId());
+        verify(eventPublisher).publishEvent(new WorkflowTriggeredEvent(WFMainCondition.WORK_ORDER_CREATED, 1L, 10L));
+    }
+
+    @Test
+    void testRunWorkOrderWorkflows_WritesNothingWhenNoWorkflowMatches() {
+        WorkOrder workOrder = new WorkOrder();
+        workOrder.setId(10L);
+        when(workflowRuleIndex.match(anyLong(), any(), any())).thenReturn(Collections.emptyList());
+
+        workflowService.runWorkOrderWorkflows(WFMainCondition.WORK_ORDER_CREATED, 1L, workOrder);
+
+        verify(workflowTriggerRepository, never()).saveAll(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    private Workflow workflow(Long id) {
+        Workflow workflow = new Workflow();
+        workflow.setId(id);
+        workflow.setMainCondition(WFMainCondition.WORK_ORDER_CREATED);
+        return workflow;
+    }
+}